@@ -26,6 +26,10 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        // Local JVM tests call into android.util.Log - let the stubs return defaults
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 dependencies {
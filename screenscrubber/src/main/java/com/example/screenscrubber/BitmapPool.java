@@ -0,0 +1,169 @@
+package com.example.screenscrubber;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+/**
+ * Reusable bitmaps for the OCR and censor decodes (BitmapFactory.Options.inBitmap), so burst
+ * screenshots recycle a few buffers instead of allocating fresh ones per image.
+ * Size-bucketed, LRU-evicted within a byte budget; a budget of 0 turns pooling off.
+ */
+public final class BitmapPool {
+    private static final String TAG = "BitmapPool";
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    private final SizeBucketedPool<Bitmap> pool;
+
+    public BitmapPool(long maxBytes) {
+        this.pool = new SizeBucketedPool<>(maxBytes, Bitmap::getAllocationByteCount, Bitmap::recycle);
+    }
+
+    /**
+     * 32 MB - a couple of full-resolution screenshots
+     */
+    public static BitmapPool withDefaultBudget() {
+        return new BitmapPool(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * A pooled mutable bitmap large enough to decode width x height into via inBitmap,
+     * or null. Its size and contents are whatever it was last used for.
+     */
+    Bitmap getReusable(int width, int height, Bitmap.Config config) {
+        long bytes = (long) width * height * bytesPerPixel(config);
+        if (bytes <= 0 || bytes > Integer.MAX_VALUE) return null;
+
+        Bitmap bitmap = pool.acquire((int) bytes);
+        if (bitmap != null && bitmap.isRecycled()) {
+            return null;
+        }
+        return bitmap;
+    }
+
+    /**
+     * A mutable width x height bitmap, pooled if possible. Pixels are not cleared.
+     */
+    Bitmap get(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = getReusable(width, height, config);
+        if (bitmap != null) {
+            try {
+                bitmap.reconfigure(width, height, config);
+                return bitmap;
+            } catch (IllegalArgumentException e) {
+                bitmap.recycle();
+            }
+        }
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Decode with a pooled inBitmap. options must hold the bounds (outWidth/outHeight) from an
+     * inJustDecodeBounds pass; the result is mutable so it can come back to the pool.
+     */
+    Bitmap decodeFile(String path, BitmapFactory.Options options) {
+        int sampleSize = Math.max(1, options.inSampleSize);
+        int width = (options.outWidth + sampleSize - 1) / sampleSize;
+        int height = (options.outHeight + sampleSize - 1) / sampleSize;
+        Bitmap.Config config = options.inPreferredConfig != null ? options.inPreferredConfig : Bitmap.Config.ARGB_8888;
+
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+        Bitmap reusable = getReusable(width, height, config);
+        options.inBitmap = reusable;
+        try {
+            Bitmap decoded = BitmapFactory.decodeFile(path, options);
+            if (reusable != null && decoded != reusable) {
+                // Decoded elsewhere (or not at all) - the pooled bitmap is still free
+                put(reusable);
+            }
+            return decoded;
+        } catch (IllegalArgumentException e) {
+            // The decoder couldn't use the pooled bitmap (size or format) - decode fresh
+            ScrubberLog.d(TAG, () -> "Pooled bitmap rejected for " + path + ": " + e.getMessage());
+            if (reusable != null) {
+                reusable.recycle();
+            }
+            options.inBitmap = null;
+            return BitmapFactory.decodeFile(path, options);
+        } finally {
+            options.inBitmap = null;
+        }
+    }
+
+    /**
+     * Hand a bitmap back. Immutable bitmaps can't be reused and are recycled.
+     */
+    public void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        if (!bitmap.isMutable() || bitmap.getConfig() == Bitmap.Config.HARDWARE) {
+            bitmap.recycle();
+            return;
+        }
+        pool.release(bitmap);
+    }
+
+    /**
+     * Forward ComponentCallbacks2.onTrimMemory: drop everything once the app is in the
+     * background, half the pool while the UI is hidden or memory runs critically low
+     */
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            clear();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            pool.trimToSize(pool.getMaxBytes() / 2);
+        }
+        ScrubberLog.d(TAG, () -> "Trimmed for level " + level + ": " + getStats());
+    }
+
+    public void clear() {
+        pool.clear();
+    }
+
+    public Stats getStats() {
+        return new Stats(pool.getHits(), pool.getMisses(), pool.getPuts(), pool.getEvictions(),
+                pool.getCount(), pool.getCurrentBytes(), pool.getMaxBytes());
+    }
+
+    private static int bytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.ALPHA_8) return 1;
+        if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) return 2;
+        if (config == Bitmap.Config.RGBA_F16) return 8;
+        return 4;
+    }
+
+    public static class Stats {
+        public final long hits;
+        public final long misses;
+        public final long puts;
+        public final long evictions;
+        public final int pooledBitmaps;
+        public final long pooledBytes;
+        public final long maxBytes;
+
+        public Stats(long hits, long misses, long puts, long evictions,
+                     int pooledBitmaps, long pooledBytes, long maxBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.puts = puts;
+            this.evictions = evictions;
+            this.pooledBitmaps = pooledBitmaps;
+            this.pooledBytes = pooledBytes;
+            this.maxBytes = maxBytes;
+        }
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests > 0 ? hits / (double) requests : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("BitmapPool{hits=%d, misses=%d (%.0f%% hit), puts=%d, evictions=%d, pooled=%d/%dKB of %dKB}",
+                    hits, misses, getHitRate() * 100, puts, evictions, pooledBitmaps, pooledBytes / 1024, maxBytes / 1024);
+        }
+    }
+}
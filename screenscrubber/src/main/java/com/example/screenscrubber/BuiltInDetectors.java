@@ -0,0 +1,342 @@
+package com.example.screenscrubber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The detectors that ship with the library.
+ * Registration order matters: Israeli patterns FIRST, then US, then universal.
+ */
+final class BuiltInDetectors {
+    private static final String TAG = "SensitiveDataDetector";
+    private static final boolean ALLOW_LUHN_FAIL = false; // Flag to control strict validation
+
+    // IMPROVED OCR-TOLERANT PATTERNS
+    private static final Pattern CREDIT_CARD_PATTERN =
+            Pattern.compile("(?:\\d[\\s-]*){13,19}");
+
+    private static final Pattern US_SSN_PATTERN =
+            Pattern.compile("\\b\\d{3}[-\\s]\\d{2}[-\\s]\\d{4}\\b");
+
+    // Enhanced US Phone - handle both formatted and unformatted
+    private static final Pattern US_PHONE_PATTERN = Pattern.compile(
+            "\\b(?:\\+?1[\\s-]?)?(?:\\(?[2-9]\\d{2}\\)?[\\s.-]?)[2-9]\\d{2}[\\s.-]?\\d{4}\\b" +
+                    "|\\b[2-9]\\d{9}\\b" +
+                    "|\\b[2-9]\\d{2}\\.[2-9]\\d{2}\\.\\d{4}\\b"  // ADD DOT FORMAT
+    );
+
+    private static final Pattern BARE_US_PHONE_PATTERN =
+            Pattern.compile("\\b[2-9]\\d{9}\\b");
+
+    // Enhanced EMAIL - handle OCR spacing issues
+    private static final Pattern EMAIL_PATTERN =
+            Pattern.compile("\\b[a-zA-Z0-9][a-zA-Z0-9._%+-]*@[a-zA-Z0-9][a-zA-Z0-9.-]*\\s?\\.\\s?[a-zA-Z]{2,6}\\b");
+
+    // OCR often splits "example.com" into "example . com"
+    private static final Pattern OCR_SPACED_DOT_PATTERN =
+            Pattern.compile("(\\w)\\s+\\.\\s+(\\w)");
+
+    // Israeli patterns
+    private static final Pattern ISRAELI_ID_PATTERN =
+            Pattern.compile("\\b\\d{9}\\b|\\b\\d{3}[\\s-]\\d{3}[\\s-]\\d{3}\\b");
+
+    private static final Pattern ISRAELI_PHONE_PATTERN = Pattern.compile(
+            "\\b(?:\\+972[\\s-]?|0)?(?:2|3|4|5[0-9]|7[2-9]|8|9)[\\s-]?\\d{3}[\\s-]?\\d{4}\\b" +
+                    "|\\b\\+972[\\s-]?[2-9][\\s-]?\\d{3}[\\s-]?\\d{4}\\b"  // ADD INTERNATIONAL FORMAT
+    );
+    private static final Pattern ISRAELI_BANK_ACCOUNT_PATTERN =
+            Pattern.compile("\\b(?:0[1-9]|[1-9][0-9])[\\s-]?\\d{3}[\\s-]?\\d{6}\\b");
+
+    private static final Pattern EMAIL_FORMAT_PATTERN =
+            Pattern.compile("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,6}$");
+
+    // Validation tables, indexed by the two-digit code
+    private static final boolean[] VALID_ISRAELI_AREA_CODES = codeTable(
+            2, 3, 4, 8, 9, 50, 51, 52, 53, 54, 55, 56, 57, 58, 59, 72, 73, 74, 76, 77, 78, 79);
+
+    private static final boolean[] VALID_ISRAELI_BANK_CODES = codeTable(
+            10, 11, 12, 20, 26, 27, 31, 17, 14, 9, 4, 52, 54, 46, 22, 23);
+
+    private static final String[] ISRAELI_PHONE_PREFIXES = {
+            "+972", "05", "02", "03", "04", "08", "09", "972"
+    };
+
+    private BuiltInDetectors() {
+    }
+
+    private static boolean[] codeTable(int... codes) {
+        boolean[] table = new boolean[100];
+        for (int code : codes) {
+            table[code] = true;
+        }
+        return table;
+    }
+
+    static List<SensitiveTypeDetector> create() {
+        List<SensitiveTypeDetector> detectors = new ArrayList<>();
+        // Israeli
+        detectors.add(new IsraeliIdDetector());
+        detectors.add(new IsraeliPhoneDetector());
+        detectors.add(new IsraeliBankAccountDetector());
+        // US
+        detectors.add(new CreditCardDetector());
+        detectors.add(new USSSNDetector());
+        detectors.add(new USPhoneDetector());
+        detectors.add(new BareUSPhoneDetector());
+        // Universal
+        detectors.add(new EmailDetector());
+        return detectors;
+    }
+
+    static final class IsraeliIdDetector extends RegexTypeDetector {
+        IsraeliIdDetector() {
+            super("ISRAELI_ID", ISRAELI_ID_PATTERN, 9, 0.95);
+        }
+
+        @Override
+        protected boolean accept(DetectionContext context, int start, int end) {
+            return isValidIsraeliID(context.getText(), start, end);
+        }
+    }
+
+    static final class IsraeliPhoneDetector extends RegexTypeDetector {
+        IsraeliPhoneDetector() {
+            super("ISRAELI_PHONE", ISRAELI_PHONE_PATTERN, 8, 0.9);
+        }
+
+        @Override
+        protected boolean accept(DetectionContext context, int start, int end) {
+            return isValidIsraeliPhone(context.getText(), start, end);
+        }
+    }
+
+    static final class IsraeliBankAccountDetector extends RegexTypeDetector {
+        IsraeliBankAccountDetector() {
+            super("ISRAELI_BANK_ACCOUNT", ISRAELI_BANK_ACCOUNT_PATTERN, 11, 0.85);
+        }
+
+        @Override
+        protected boolean accept(DetectionContext context, int start, int end) {
+            return isValidIsraeliBankAccount(context.getText(), start, end);
+        }
+    }
+
+    static final class CreditCardDetector extends RegexTypeDetector {
+        CreditCardDetector() {
+            super("CREDIT_CARD", CREDIT_CARD_PATTERN, 13, 0.95);
+        }
+
+        @Override
+        protected boolean accept(DetectionContext context, int start, int end) {
+            int length = DigitValidators.keptLength(context.getText(), start, end);
+            if (length < 13 || length > 19) {
+                return false;
+            }
+            // Use more lenient validation - confidence boost for Luhn pass
+            return ALLOW_LUHN_FAIL || isValidCreditCardNumber(context.getText(), start, end);
+        }
+
+        @Override
+        protected double confidenceFor(DetectionContext context, int start, int end) {
+            return isValidCreditCardNumber(context.getText(), start, end) ? 0.95 : 0.7;
+        }
+    }
+
+    static final class USSSNDetector extends RegexTypeDetector {
+        USSSNDetector() {
+            super("US_SSN", US_SSN_PATTERN, 9, 0.9);
+        }
+
+        @Override
+        protected boolean accept(DetectionContext context, int start, int end) {
+            if (context.overlapsWithExisting("ISRAELI_ID", start, end)) {
+                return false;
+            }
+            String text = context.getText();
+            return DigitValidators.keptLength(text, start, end) == 9 &&
+                    !DigitValidators.keptEquals(text, start, end, "000000000") &&
+                    !DigitValidators.keptEquals(text, start, end, "111111111");
+        }
+    }
+
+    /**
+     * Formatted US phones: (212) 555-1234, +1 415-555-2671, 212.555.1234
+     */
+    static final class USPhoneDetector extends RegexTypeDetector {
+        USPhoneDetector() {
+            super("US_PHONE", US_PHONE_PATTERN, 10, 0.8);
+        }
+
+        @Override
+        protected boolean accept(DetectionContext context, int start, int end) {
+            String text = context.getText();
+            if (isIsraeliPhoneFormat(text, start, end) || context.overlapsWithExisting("ISRAELI_PHONE", start, end)) {
+                return false;
+            }
+
+            // Strip +1 / 1 country code without building a clean copy
+            int from = start;
+            int length = DigitValidators.keptLength(text, start, end);
+            if (DigitValidators.keptStartsWith(text, from, end, "+1")) {
+                from = DigitValidators.advanceKept(text, from, end, 2);
+                length -= 2;
+            }
+            if (length == 11 && DigitValidators.keptStartsWith(text, from, end, "1")) {
+                from = DigitValidators.advanceKept(text, from, end, 1);
+                length--;
+            }
+
+            return length == 10 && text.charAt(DigitValidators.skipSeparators(text, from, end)) >= '2' &&
+                    !DigitValidators.isRepeatedDigits(text, from, end);
+        }
+    }
+
+    /**
+     * Unformatted 10-digit US phones - runs after USPhoneDetector so formatted matches win
+     */
+    static final class BareUSPhoneDetector extends RegexTypeDetector {
+        BareUSPhoneDetector() {
+            super("US_PHONE", BARE_US_PHONE_PATTERN, 10, 0.7);
+        }
+
+        @Override
+        protected boolean accept(DetectionContext context, int start, int end) {
+            return !context.overlapsWithExisting("ISRAELI_PHONE", start, end) &&
+                    !context.overlapsWithExisting("US_PHONE", start, end);
+        }
+    }
+
+    static final class EmailDetector implements SensitiveTypeDetector {
+        @Override
+        public String getType() {
+            return "EMAIL";
+        }
+
+        @Override
+        public CandidateKind getCandidateKind() {
+            return CandidateKind.EMAIL;
+        }
+
+        @Override
+        public int getMinDigits() {
+            return 0;
+        }
+
+        @Override
+        public void detect(DetectionContext context, int spanStart, int spanEnd) {
+            String text = context.getText();
+
+            // Normalize OCR spacing issues: "example .com" -> "example.com", remembering where
+            // every normalized char came from so matches keep their exact offsets in the text
+            int[] sourceIndex = new int[spanEnd - spanStart];
+            String normalizedWindow = normalizeSpacedDots(text, spanStart, spanEnd, sourceIndex);
+
+            Matcher matcher = EMAIL_PATTERN.matcher(normalizedWindow);
+            while (matcher.find()) {
+                String match = matcher.group().replaceAll("\\s+", ""); // Remove any remaining spaces
+
+                if (match.contains("@") && match.contains(".") && match.length() > 5 && isValidEmailFormat(match)) {
+                    int originalStart = sourceIndex[matcher.start()];
+                    int originalEnd = sourceIndex[matcher.end() - 1] + 1;
+                    context.addMatch(new SensitiveDataDetector.SensitiveMatch("EMAIL", match, originalStart,
+                            originalEnd, 0.95));
+                    if (ScrubberLog.isDebugEnabled()) {
+                        ScrubberLog.d(TAG, "✅ Email confirmed: " + SensitiveDataDetector.maskValue(match, "EMAIL"));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * OCR_SPACED_DOT_PATTERN.replaceAll("$1.$2") over text[start, end), also filling sourceIndex
+     * with the text offset of each char of the result
+     */
+    private static String normalizeSpacedDots(String text, int start, int end, int[] sourceIndex) {
+        Matcher dots = OCR_SPACED_DOT_PATTERN.matcher(text).region(start, end);
+        StringBuilder normalized = new StringBuilder(end - start);
+
+        int copied = start;
+        while (dots.find()) {
+            for (int i = copied; i < dots.start(); i++) {
+                sourceIndex[normalized.length()] = i;
+                normalized.append(text.charAt(i));
+            }
+            int dot = text.indexOf('.', dots.start(1) + 1);
+            sourceIndex[normalized.length()] = dots.start(1);
+            normalized.append(text.charAt(dots.start(1)));
+            sourceIndex[normalized.length()] = dot;
+            normalized.append('.');
+            sourceIndex[normalized.length()] = dots.start(2);
+            normalized.append(text.charAt(dots.start(2)));
+            copied = dots.end();
+        }
+        for (int i = copied; i < end; i++) {
+            sourceIndex[normalized.length()] = i;
+            normalized.append(text.charAt(i));
+        }
+        return normalized.toString();
+    }
+
+    // Validation methods - all work on ranges of the scanned text and allocate nothing
+    private static boolean isValidCreditCardNumber(CharSequence s, int start, int end) {
+        if (DigitValidators.isRepeatedDigits(s, start, end)) return false;
+
+        char firstDigit = s.charAt(DigitValidators.skipSeparators(s, start, end));
+        boolean validPrefix = (firstDigit == '4' || firstDigit == '5' || firstDigit == '3' || firstDigit == '6');
+
+        return validPrefix && DigitValidators.isValidLuhn(s, start, end);
+    }
+
+    private static boolean isValidEmailFormat(String email) {
+        return EMAIL_FORMAT_PATTERN.matcher(email).matches();
+    }
+
+    private static boolean isIsraeliPhoneFormat(CharSequence s, int start, int end) {
+        for (String prefix : ISRAELI_PHONE_PREFIXES) {
+            if (DigitValidators.keptStartsWith(s, start, end, prefix)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isValidIsraeliID(CharSequence s, int start, int end) {
+        if (DigitValidators.keptLength(s, start, end) != 9) return false;
+
+        if (DigitValidators.keptEquals(s, start, end, "000000000") ||
+                DigitValidators.keptEquals(s, start, end, "111111111") ||
+                DigitValidators.keptEquals(s, start, end, "123456789")) {
+            return false;
+        }
+
+        return DigitValidators.isValidIsraeliIdChecksum(s, start, end);
+    }
+
+    private static boolean isValidIsraeliPhone(CharSequence s, int start, int end) {
+        int from = start;
+        int length = DigitValidators.keptLength(s, start, end);
+
+        if (DigitValidators.keptStartsWith(s, from, end, "+972")) {
+            from = DigitValidators.advanceKept(s, from, end, 4);
+            length -= 4;
+        }
+
+        if (DigitValidators.keptStartsWith(s, from, end, "0")) {
+            from = DigitValidators.advanceKept(s, from, end, 1);
+            length--;
+        }
+
+        if (length < 8 || length > 9) return false;
+
+        int areaCode = DigitValidators.twoDigitCode(s, from, end);
+        return areaCode >= 0 && VALID_ISRAELI_AREA_CODES[areaCode];
+    }
+
+    private static boolean isValidIsraeliBankAccount(CharSequence s, int start, int end) {
+        if (DigitValidators.keptLength(s, start, end) != 11) return false;
+
+        int bankCode = DigitValidators.twoDigitCode(s, start, end);
+        return bankCode >= 0 && VALID_ISRAELI_BANK_CODES[bankCode];
+    }
+}
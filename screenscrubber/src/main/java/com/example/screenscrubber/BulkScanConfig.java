@@ -0,0 +1,58 @@
+package com.example.screenscrubber;
+
+/**
+ * How a BulkScanJob pages and paces an existing gallery: how many images are read per query,
+ * how many are in the pipeline at once, and how many bytes of decoded bitmaps they may hold
+ * between them. A single image larger than the budget still runs, on its own. An image not
+ * done after itemTimeoutMs is reported as an error and the scan moves on.
+ */
+public final class BulkScanConfig {
+    public static final int MAX_PARALLELISM = 4;
+
+    public final int pageSize;
+    public final int parallelism;
+    public final long memoryBudgetBytes;
+    public final long itemTimeoutMs;
+
+    /**
+     * Images time out after ProcessingPoolConfig.DEFAULT_TIMEOUT_MS, like live ones
+     */
+    public BulkScanConfig(int pageSize, int parallelism, long memoryBudgetBytes) {
+        this(pageSize, parallelism, memoryBudgetBytes, ProcessingPoolConfig.DEFAULT_TIMEOUT_MS);
+    }
+
+    public BulkScanConfig(int pageSize, int parallelism, long memoryBudgetBytes, long itemTimeoutMs) {
+        if (pageSize <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Page size and parallelism must be positive");
+        }
+        if (memoryBudgetBytes <= 0 || itemTimeoutMs <= 0) {
+            throw new IllegalArgumentException("Memory budget and item timeout must be positive");
+        }
+        this.pageSize = pageSize;
+        this.parallelism = parallelism;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.itemTimeoutMs = itemTimeoutMs;
+    }
+
+    /**
+     * Sized for this process: see forDevice
+     */
+    public static BulkScanConfig defaults() {
+        return forDevice(Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory());
+    }
+
+    /**
+     * One image per core but one, at most MAX_PARALLELISM, within a quarter of maxHeapBytes -
+     * the live pipeline keeps its share of the rest
+     */
+    public static BulkScanConfig forDevice(int cores, long maxHeapBytes) {
+        int parallelism = Math.max(1, Math.min(MAX_PARALLELISM, cores - 1));
+        return new BulkScanConfig(IncrementalScanner.DEFAULT_PAGE_SIZE, parallelism, Math.max(1, maxHeapBytes / 4));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BulkScanConfig{pageSize=%d, parallelism=%d, memoryBudget=%dKB, itemTimeoutMs=%d}",
+                pageSize, parallelism, memoryBudgetBytes / 1024, itemTimeoutMs);
+    }
+}
@@ -0,0 +1,417 @@
+package com.example.screenscrubber;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Scrubs an existing gallery or directory rather than new images: walks its source a page at
+ * a time in key order and keeps up to BulkScanConfig.parallelism images in processing, within
+ * the config's memory budget. Each result is streamed to the listener as it completes.
+ * After every page the checkpoint is saved. A paused job saves its checkpoint once its images
+ * in flight are done, and a new job over the same checkpoint (e.g. after a restart) picks up
+ * there, repeating at most the page that was interrupted.
+ * An image still unfinished after BulkScanConfig.itemTimeoutMs is reported as an error and its
+ * work abandoned, and the scan moves on; its slot and memory stay reserved until that work has
+ * actually stopped, so parallelism and the memory budget hold.
+ * Listener calls run on the callback executor, in order; the job itself runs on its own thread.
+ */
+public final class BulkScanJob {
+    private static final String TAG = "BulkScanJob";
+
+    // Shared by all jobs: it only completes futures, never runs image work
+    private static final ScheduledExecutorService TIMEOUTS = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ScreenScrubber-BulkScanTimeout");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public enum State {
+        NEW,
+        RUNNING,
+        PAUSING,
+        PAUSED,
+        CANCELLING,
+        CANCELLED,
+        FINISHED,
+        FAILED
+    }
+
+    /**
+     * One image to scrub. estimatedBytes is what its decode and censored copy are expected to
+     * hold; 0 if unknown (ProcessingPoolConfig.DEFAULT_JOB_BYTES is assumed).
+     */
+    public static final class Item {
+        public final String path;
+        public final MediaObserver.ImageType type;
+        public final long key;
+        public final long estimatedBytes;
+
+        public Item(String path, MediaObserver.ImageType type, long key, long estimatedBytes) {
+            if (path == null || type == null) {
+                throw new IllegalArgumentException("Path and type cannot be null");
+            }
+            this.path = path;
+            this.type = type;
+            this.key = key;
+            this.estimatedBytes = estimatedBytes;
+        }
+    }
+
+    /**
+     * Runs one image through OCR, detection and censoring. The returned future completes once
+     * the work has stopped. abandon completes if the job gives up on the image (it timed out):
+     * the work should then stop as soon as it can.
+     */
+    public interface Processor {
+        CompletableFuture<ScreenshotProcessor.ProcessingResult> process(Item item, CompletableFuture<Void> abandon);
+    }
+
+    public interface Listener {
+        void onResult(ScreenshotProcessor.ProcessingResult result);
+
+        /**
+         * The job stopped running: paused, cancelled, finished or failed (see summary.state).
+         * Comes after every result of the run.
+         */
+        void onStopped(Summary summary);
+    }
+
+    private final IncrementalScanner.Source<Item> source;
+    private final IncrementalScanner.Checkpoint checkpoint;
+    private final Processor processor;
+    private final BulkScanConfig config;
+    private final Listener listener;
+    private final Executor callbackExecutor;
+
+    // Guarded by this
+    private State state = State.NEW;
+    // Images holding a slot and their bytes - timed-out ones included until their work stops
+    private int inFlight;
+    private long bytesInFlight;
+    // Images whose result hasn't been reported yet
+    private int unreported;
+    private long fromMark = IncrementalScanner.NO_MARK;
+    private long mark = IncrementalScanner.NO_MARK;
+    private int pages;
+    private long processed;
+    private long withSensitiveData;
+    private long clean;
+    private long failed;
+    private long runNanos;
+    private long runningSince;
+    private String error;
+
+    public BulkScanJob(IncrementalScanner.Source<Item> source, IncrementalScanner.Checkpoint checkpoint,
+                       Processor processor, BulkScanConfig config, Listener listener, Executor callbackExecutor) {
+        if (source == null || checkpoint == null || processor == null) {
+            throw new IllegalArgumentException("Source, checkpoint and processor cannot be null");
+        }
+        if (config == null || listener == null || callbackExecutor == null) {
+            throw new IllegalArgumentException("Config, listener and callback executor cannot be null");
+        }
+        this.source = source;
+        this.checkpoint = checkpoint;
+        this.processor = processor;
+        this.config = config;
+        this.listener = listener;
+        this.callbackExecutor = callbackExecutor;
+        this.fromMark = checkpoint.load();
+        this.mark = fromMark;
+    }
+
+    /**
+     * Start the job, or resume it after pause(). False if it is running or already over.
+     */
+    public boolean start() {
+        synchronized (this) {
+            if (state != State.NEW && state != State.PAUSED) {
+                return false;
+            }
+            state = State.RUNNING;
+            runningSince = System.nanoTime();
+        }
+        Thread thread = new Thread(this::run, "ScreenScrubber-BulkScan");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return true;
+    }
+
+    public boolean resume() {
+        return start();
+    }
+
+    /**
+     * Stop taking new images; the job is PAUSED once the ones in flight are done
+     */
+    public synchronized boolean pause() {
+        if (state != State.RUNNING) {
+            return false;
+        }
+        state = State.PAUSING;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Stop for good; images in flight still finish and report their results
+     */
+    public void cancel() {
+        Summary stopped = null;
+        synchronized (this) {
+            if (state == State.RUNNING || state == State.PAUSING) {
+                state = State.CANCELLING;
+                notifyAll();
+            } else if (state == State.NEW || state == State.PAUSED) {
+                state = State.CANCELLED;
+                stopped = summary();
+            }
+        }
+        if (stopped != null) {
+            deliverStopped(stopped);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Progress so far, or the report of a job that is over
+     */
+    public synchronized Summary getSummary() {
+        return summary();
+    }
+
+    public static final class Summary {
+        public final State state;
+        // Checkpoint when the job was created, and now
+        public final long fromMark;
+        public final long toMark;
+        public final int pages;
+        public final long processed;
+        public final long withSensitiveData;
+        public final long clean;
+        public final long failed;
+        // Time spent running, pauses excluded
+        public final long elapsedMillis;
+        // Why the job FAILED, otherwise null
+        public final String error;
+
+        Summary(State state, long fromMark, long toMark, int pages, long processed, long withSensitiveData,
+                long clean, long failed, long elapsedMillis, String error) {
+            this.state = state;
+            this.fromMark = fromMark;
+            this.toMark = toMark;
+            this.pages = pages;
+            this.processed = processed;
+            this.withSensitiveData = withSensitiveData;
+            this.clean = clean;
+            this.failed = failed;
+            this.elapsedMillis = elapsedMillis;
+            this.error = error;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("BulkScan{%s, mark %d -> %d, pages=%d, processed=%d, sensitive=%d, clean=%d, failed=%d, elapsed=%dms%s}",
+                    state, fromMark, toMark, pages, processed, withSensitiveData, clean, failed, elapsedMillis,
+                    error != null ? ", error=" + error : "");
+        }
+    }
+
+    private void run() {
+        ScrubberLog.i(TAG, () -> "Bulk scan running from mark " + getSummary().toMark + " - " + config);
+        long position;
+        synchronized (this) {
+            position = mark;
+        }
+
+        try {
+            while (!stopRequested()) {
+                List<Item> page = source.page(position, config.pageSize);
+                if (page == null || page.isEmpty()) {
+                    stop(State.FINISHED, null);
+                    return;
+                }
+                synchronized (this) {
+                    pages++;
+                }
+
+                for (Item item : page) {
+                    long bytes = reserve(item);
+                    if (bytes < 0) {
+                        // Cut short: keys can repeat (a directory's modification times), so stop
+                        // below the first image not taken rather than at the last one taken
+                        position = Math.min(position, item.key - 1);
+                        break;
+                    }
+                    process(item, bytes);
+                    position = Math.max(position, item.key);
+                }
+
+                // Everything up to position is done once its images are
+                awaitIdle();
+                checkpoint.save(position);
+                synchronized (this) {
+                    mark = position;
+                }
+            }
+            stop(null, null);
+        } catch (Exception e) {
+            ScrubberLog.e(TAG, "Bulk scan failed", e);
+            try {
+                awaitIdle();
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            stop(State.FAILED, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private synchronized boolean stopRequested() {
+        return state != State.RUNNING;
+    }
+
+    /**
+     * Wait for a slot and for item's bytes to fit the budget. The bytes taken, or -1 if the
+     * job is pausing or cancelling instead.
+     */
+    private synchronized long reserve(Item item) throws InterruptedException {
+        long estimate = item.estimatedBytes > 0 ? item.estimatedBytes : ProcessingPoolConfig.DEFAULT_JOB_BYTES;
+        long bytes = Math.min(estimate, config.memoryBudgetBytes);
+        while (state == State.RUNNING
+                && (inFlight >= config.parallelism || bytesInFlight + bytes > config.memoryBudgetBytes)) {
+            wait();
+        }
+        if (state != State.RUNNING) {
+            return -1;
+        }
+        inFlight++;
+        bytesInFlight += bytes;
+        unreported++;
+        return bytes;
+    }
+
+    private void process(Item item, long bytes) {
+        CompletableFuture<Void> abandon = new CompletableFuture<>();
+        CompletableFuture<ScreenshotProcessor.ProcessingResult> result;
+        try {
+            result = processor.process(item, abandon);
+        } catch (RuntimeException e) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+        }
+
+        AtomicBoolean reported = new AtomicBoolean();
+        long timeoutMs = config.itemTimeoutMs;
+        ScheduledFuture<?> timer = TIMEOUTS.schedule(() -> {
+            if (report(item, null, new TimeoutException("Processing timed out after " + timeoutMs + "ms"), reported)) {
+                ScrubberLog.e(TAG, "Bulk scan image timed out after " + timeoutMs + "ms: " + item.path);
+                abandon.complete(null);
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+
+        result.whenComplete((done, error) -> {
+            timer.cancel(false);
+            report(item, done, error, reported);
+            // Only now has the work let go of its memory
+            synchronized (BulkScanJob.this) {
+                inFlight--;
+                bytesInFlight -= bytes;
+                BulkScanJob.this.notifyAll();
+            }
+        });
+    }
+
+    /**
+     * Report item's result, unless it already was (it timed out). False if it was.
+     */
+    private boolean report(Item item, ScreenshotProcessor.ProcessingResult done, Throwable error, AtomicBoolean reported) {
+        if (!reported.compareAndSet(false, true)) {
+            return false;
+        }
+        ScreenshotProcessor.ProcessingResult outcome = done;
+        if (error != null || done == null) {
+            String message = error != null ? String.valueOf(error.getMessage()) : "No result";
+            outcome = ScreenshotProcessor.ProcessingResult.error(message, item.path, item.type);
+        }
+        ScreenshotProcessor.ProcessingResult delivered = outcome;
+        // Handed over before it counts as reported, so onStopped always comes after it
+        callbackExecutor.execute(() -> {
+            try {
+                listener.onResult(delivered);
+            } catch (RuntimeException e) {
+                ScrubberLog.e(TAG, "Bulk scan listener failed", e);
+            }
+        });
+
+        synchronized (this) {
+            processed++;
+            if (!delivered.success) {
+                failed++;
+            } else if (delivered.hasSensitiveData) {
+                withSensitiveData++;
+            } else {
+                clean++;
+            }
+            unreported--;
+            notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * Wait until every image taken so far has been reported - timed-out ones may still be
+     * holding their slots
+     */
+    private synchronized void awaitIdle() throws InterruptedException {
+        while (unreported > 0) {
+            wait();
+        }
+    }
+
+    /**
+     * End the run as finalState, or - when null - as whatever pause() or cancel() asked for
+     */
+    private void stop(State finalState, String failure) {
+        Summary stopped;
+        synchronized (this) {
+            if (finalState == null) {
+                finalState = state == State.PAUSING ? State.PAUSED : State.CANCELLED;
+            }
+            state = finalState;
+            error = failure;
+            runNanos += System.nanoTime() - runningSince;
+            stopped = summary();
+        }
+        ScrubberLog.i(TAG, stopped::toString);
+        deliverStopped(stopped);
+    }
+
+    private void deliverStopped(Summary summary) {
+        callbackExecutor.execute(() -> {
+            try {
+                listener.onStopped(summary);
+            } catch (RuntimeException e) {
+                ScrubberLog.e(TAG, "Bulk scan listener failed", e);
+            }
+        });
+    }
+
+    private Summary summary() {
+        long elapsed = runNanos;
+        if (state == State.RUNNING || state == State.PAUSING || state == State.CANCELLING) {
+            elapsed += System.nanoTime() - runningSince;
+        }
+        return new Summary(state, fromMark, mark, pages, processed, withSensitiveData, clean, failed,
+                elapsed / 1_000_000, error);
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.screenscrubber;
+
+/**
+ * Single-pass tokenizer for SensitiveDataDetector.
+ * Walks the OCR text once and records the only spans a detector can ever match:
+ * - NUMERIC spans: maximal runs of digits, whitespace and - . ( ) + that hold at least one digit
+ * - EMAIL windows: runs of word chars, whitespace and . % + - @ that hold an '@',
+ *   split at whitespace that is not next to a '.' (OCR "example . com" stays in one window)
+ * - ALPHANUMERIC spans: runs of letters, digits, whitespace and - . / trimmed to the first and
+ *   last word that holds a digit ("IBAN DE89 3704 0044 ..." -> "DE89 3704 0044 ...")
+ * Every regex match of the built-in patterns lies inside exactly one span, so running the
+ * patterns per span (with transparent bounds) gives the same matches as a full-text scan.
+ */
+final class CandidateScanner {
+
+    /**
+     * Candidate spans of one text, in text order
+     */
+    static final class Candidates {
+        final String text;
+
+        int numericCount;
+        int[] numericStart = new int[8];
+        int[] numericEnd = new int[8];
+        int[] numericDigits = new int[8];
+
+        int emailCount;
+        int[] emailStart = new int[4];
+        int[] emailEnd = new int[4];
+
+        int alphanumericCount;
+        int[] alphanumericStart = new int[8];
+        int[] alphanumericEnd = new int[8];
+        int[] alphanumericDigits = new int[8];
+
+        Candidates(String text) {
+            this.text = text;
+        }
+
+        void addNumeric(int start, int end, int digits) {
+            if (numericCount == numericStart.length) {
+                numericStart = grow(numericStart);
+                numericEnd = grow(numericEnd);
+                numericDigits = grow(numericDigits);
+            }
+            numericStart[numericCount] = start;
+            numericEnd[numericCount] = end;
+            numericDigits[numericCount] = digits;
+            numericCount++;
+        }
+
+        void addEmail(int start, int end) {
+            if (emailCount == emailStart.length) {
+                emailStart = grow(emailStart);
+                emailEnd = grow(emailEnd);
+            }
+            emailStart[emailCount] = start;
+            emailEnd[emailCount] = end;
+            emailCount++;
+        }
+
+        void addAlphanumeric(int start, int end, int digits) {
+            if (alphanumericCount == alphanumericStart.length) {
+                alphanumericStart = grow(alphanumericStart);
+                alphanumericEnd = grow(alphanumericEnd);
+                alphanumericDigits = grow(alphanumericDigits);
+            }
+            alphanumericStart[alphanumericCount] = start;
+            alphanumericEnd[alphanumericCount] = end;
+            alphanumericDigits[alphanumericCount] = digits;
+            alphanumericCount++;
+        }
+
+        private static int[] grow(int[] array) {
+            int[] grown = new int[array.length * 2];
+            System.arraycopy(array, 0, grown, 0, array.length);
+            return grown;
+        }
+    }
+
+    /**
+     * Tracks the ALPHANUMERIC span being built: its words, and the first and last of them
+     * that hold a digit
+     */
+    private static final class AlphanumericRun {
+        final Candidates candidates;
+        int wordStart = -1;
+        boolean wordHasDigit;
+        int start = -1;
+        int end;
+        int digits;
+
+        AlphanumericRun(Candidates candidates) {
+            this.candidates = candidates;
+        }
+
+        void letterOrDigit(int i, boolean digit) {
+            if (wordStart < 0) {
+                wordStart = i;
+            }
+            if (digit) {
+                wordHasDigit = true;
+                digits++;
+            }
+        }
+
+        /**
+         * A separator at i ends the current word but not the span
+         */
+        void endWord(int i) {
+            if (wordStart >= 0 && wordHasDigit) {
+                if (start < 0) {
+                    start = wordStart;
+                }
+                end = i;
+            }
+            wordStart = -1;
+            wordHasDigit = false;
+        }
+
+        /**
+         * Any other character at i ends the span
+         */
+        void endSpan(int i) {
+            endWord(i);
+            if (start >= 0) {
+                candidates.addAlphanumeric(start, end, digits);
+            }
+            start = -1;
+            digits = 0;
+        }
+    }
+
+    private CandidateScanner() {
+    }
+
+    static Candidates scan(String text) {
+        Candidates candidates = new Candidates(text);
+        int length = text.length();
+
+        int numericStart = -1;
+        int numericDigits = 0;
+        int windowStart = 0;
+        boolean windowHasAt = false;
+        AlphanumericRun alphanumeric = new AlphanumericRun(candidates);
+
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+
+            if (isWhitespace(c)) {
+                // Consume the whole whitespace run at once - it never breaks a numeric span,
+                // but it splits email windows unless it touches a '.'
+                int runEnd = i + 1;
+                while (runEnd < length && isWhitespace(text.charAt(runEnd))) {
+                    runEnd++;
+                }
+                if (numericStart < 0) {
+                    numericStart = i;
+                }
+                alphanumeric.endWord(i);
+
+                boolean dotBefore = i > 0 && text.charAt(i - 1) == '.';
+                boolean dotAfter = runEnd < length && text.charAt(runEnd) == '.';
+                if (!dotBefore && !dotAfter) {
+                    if (windowHasAt) {
+                        candidates.addEmail(windowStart, i);
+                    }
+                    windowStart = runEnd;
+                    windowHasAt = false;
+                }
+
+                i = runEnd;
+                continue;
+            }
+
+            // Numeric spans
+            if (isNumericChar(c)) {
+                if (numericStart < 0) {
+                    numericStart = i;
+                }
+                if (c >= '0' && c <= '9') {
+                    numericDigits++;
+                }
+            } else if (numericStart >= 0) {
+                if (numericDigits > 0) {
+                    candidates.addNumeric(numericStart, i, numericDigits);
+                }
+                numericStart = -1;
+                numericDigits = 0;
+            }
+
+            // Alphanumeric spans
+            boolean digit = c >= '0' && c <= '9';
+            if (digit || isLetter(c)) {
+                alphanumeric.letterOrDigit(i, digit);
+            } else if (c == '-' || c == '.' || c == '/') {
+                alphanumeric.endWord(i);
+            } else {
+                alphanumeric.endSpan(i);
+            }
+
+            // Email windows
+            if (isEmailChar(c)) {
+                if (c == '@') {
+                    windowHasAt = true;
+                }
+            } else {
+                if (windowHasAt) {
+                    candidates.addEmail(windowStart, i);
+                }
+                windowStart = i + 1;
+                windowHasAt = false;
+            }
+
+            i++;
+        }
+
+        if (numericStart >= 0 && numericDigits > 0) {
+            candidates.addNumeric(numericStart, length, numericDigits);
+        }
+        if (windowHasAt) {
+            candidates.addEmail(windowStart, length);
+        }
+        alphanumeric.endSpan(length);
+
+        return candidates;
+    }
+
+    /**
+     * Cheap pre-scan: same span rules as scan(), but only counts - no spans are recorded.
+     */
+    static TextProfile profile(String text) {
+        int length = text.length();
+        int lineCount = length == 0 ? 0 : 1;
+        int digitRun = 0;
+        int longestDigitRun = 0;
+        int spanDigits = 0;
+        int maxCandidateDigits = 0;
+        int alphanumericDigits = 0;
+        int maxAlphanumericDigits = 0;
+        int atCount = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+
+            if (c >= '0' && c <= '9') {
+                digitRun++;
+                spanDigits++;
+                alphanumericDigits++;
+                if (digitRun > longestDigitRun) longestDigitRun = digitRun;
+                if (spanDigits > maxCandidateDigits) maxCandidateDigits = spanDigits;
+                if (alphanumericDigits > maxAlphanumericDigits) maxAlphanumericDigits = alphanumericDigits;
+                continue;
+            }
+
+            digitRun = 0;
+            if (c == '\n') {
+                lineCount++;
+            } else if (c == '@') {
+                atCount++;
+            }
+            if (!isWhitespace(c) && !isNumericChar(c)) {
+                spanDigits = 0;
+            }
+            if (!isWhitespace(c) && !isLetter(c) && c != '-' && c != '.' && c != '/') {
+                alphanumericDigits = 0;
+            }
+        }
+
+        return new TextProfile(length, lineCount, longestDigitRun, maxCandidateDigits, maxAlphanumericDigits, atCount);
+    }
+
+    // Same set as the regex \s (ASCII only)
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    private static boolean isNumericChar(char c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '.' || c == '(' || c == ')' || c == '+';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isEmailChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
+                c == '_' || c == '.' || c == '%' || c == '+' || c == '-' || c == '@';
+    }
+}
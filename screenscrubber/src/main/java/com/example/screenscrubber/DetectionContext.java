@@ -0,0 +1,91 @@
+package com.example.screenscrubber;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-call state shared by all detectors while one text is being scanned.
+ * Not thread safe - SensitiveDataDetector creates a new context for every call.
+ */
+public final class DetectionContext {
+    private final String text;
+    private final List<SensitiveDataDetector.SensitiveMatch> matches = new ArrayList<>();
+    private final Map<String, MatchIntervalIndex> intervalsByType = new HashMap<>();
+
+    // Reused matchers, one per pattern, so detectors don't allocate a Matcher per span
+    private Pattern[] patterns = new Pattern[8];
+    private Matcher[] matchers = new Matcher[8];
+    private int matcherCount;
+
+    DetectionContext(String text) {
+        this.text = text;
+    }
+
+    /**
+     * The (trimmed) text being scanned. Span offsets and match offsets refer to this string.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Matcher over getText() with transparent bounds, so \b sees the characters around a span.
+     * Call region(spanStart, spanEnd) before find().
+     */
+    public Matcher matcher(Pattern pattern) {
+        for (int i = 0; i < matcherCount; i++) {
+            if (patterns[i] == pattern) {
+                return matchers[i];
+            }
+        }
+
+        if (matcherCount == patterns.length) {
+            Pattern[] grownPatterns = new Pattern[patterns.length * 2];
+            Matcher[] grownMatchers = new Matcher[matchers.length * 2];
+            System.arraycopy(patterns, 0, grownPatterns, 0, matcherCount);
+            System.arraycopy(matchers, 0, grownMatchers, 0, matcherCount);
+            patterns = grownPatterns;
+            matchers = grownMatchers;
+        }
+
+        Matcher matcher = pattern.matcher(text).useTransparentBounds(true);
+        patterns[matcherCount] = pattern;
+        matchers[matcherCount] = matcher;
+        matcherCount++;
+        return matcher;
+    }
+
+    /**
+     * Report a match. Empty ranges are ignored - there is nothing to redact and
+     * the overlap sweep relies on every match covering at least one character.
+     */
+    public void addMatch(SensitiveDataDetector.SensitiveMatch match) {
+        if (match == null || match.end <= match.start) {
+            return;
+        }
+        matches.add(match);
+
+        MatchIntervalIndex intervals = intervalsByType.get(match.type);
+        if (intervals == null) {
+            intervals = new MatchIntervalIndex();
+            intervalsByType.put(match.type, intervals);
+        }
+        intervals.add(match.start, match.end);
+    }
+
+    /**
+     * True if [start, end) overlaps a match of the given type that was already reported. O(log n).
+     */
+    public boolean overlapsWithExisting(String type, int start, int end) {
+        MatchIntervalIndex intervals = intervalsByType.get(type);
+        return intervals != null && intervals.overlaps(start, end);
+    }
+
+    List<SensitiveDataDetector.SensitiveMatch> getMatches() {
+        return matches;
+    }
+}
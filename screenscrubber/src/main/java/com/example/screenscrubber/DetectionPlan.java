@@ -0,0 +1,68 @@
+package com.example.screenscrubber;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable, compiled set of detectors shared by every SensitiveDataDetector call.
+ * Built by SensitiveDetectorRegistry.compile().
+ */
+public final class DetectionPlan {
+    private static final DetectionPlan BUILT_INS = SensitiveDetectorRegistry.withBuiltIns().compile();
+
+    final SensitiveTypeDetector[] detectors;
+    final SensitiveTypeDetector.CandidateKind[] kinds;
+    final int[] minDigits;
+
+    // A family is all detectors reporting the same type (e.g. formatted + bare US_PHONE)
+    final String[] familyTypes;
+    final int[] familyOf;
+
+    DetectionPlan(List<SensitiveTypeDetector> registered) {
+        this.detectors = registered.toArray(new SensitiveTypeDetector[0]);
+        this.kinds = new SensitiveTypeDetector.CandidateKind[detectors.length];
+        this.minDigits = new int[detectors.length];
+        this.familyOf = new int[detectors.length];
+
+        List<String> families = new ArrayList<>();
+        for (int i = 0; i < detectors.length; i++) {
+            // Read once here so detection never calls back into the detector for configuration
+            kinds[i] = detectors[i].getCandidateKind();
+            minDigits[i] = Math.max(0, detectors[i].getMinDigits());
+
+            String type = detectors[i].getType();
+            int family = families.indexOf(type);
+            if (family < 0) {
+                family = families.size();
+                families.add(type);
+            }
+            familyOf[i] = family;
+        }
+        this.familyTypes = families.toArray(new String[0]);
+    }
+
+    /**
+     * False when the pre-scan proves detector d cannot match anything in the text
+     */
+    boolean canMatch(int d, TextProfile profile) {
+        if (kinds[d] == SensitiveTypeDetector.CandidateKind.EMAIL) {
+            return profile.atCount > 0;
+        }
+        if (kinds[d] == SensitiveTypeDetector.CandidateKind.ALPHANUMERIC) {
+            return profile.maxAlphanumericDigits >= Math.max(1, minDigits[d]);
+        }
+        // Numeric spans need at least one digit, even for detectors with minDigits 0
+        return profile.maxCandidateDigits >= Math.max(1, minDigits[d]);
+    }
+
+    /**
+     * The default plan with only the built-in detectors
+     */
+    public static DetectionPlan builtIns() {
+        return BUILT_INS;
+    }
+
+    public int getDetectorCount() {
+        return detectors.length;
+    }
+}
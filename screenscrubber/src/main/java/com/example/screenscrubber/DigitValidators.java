@@ -0,0 +1,148 @@
+package com.example.screenscrubber;
+
+/**
+ * Allocation-free checks over a (CharSequence, start, end) range.
+ * Separators (whitespace - ( ) .) are skipped inline, so callers never build a "clean" copy of the match.
+ * Everything else in the range - digits and a possible leading '+' - is a "kept" character.
+ * Safe to use from custom detectors.
+ */
+public final class DigitValidators {
+
+    private DigitValidators() {
+    }
+
+    public static boolean isSeparator(char c) {
+        return CandidateScanner.isWhitespace(c) || c == '-' || c == '(' || c == ')' || c == '.';
+    }
+
+    public static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Number of non-separator characters in the range
+     */
+    public static int keptLength(CharSequence s, int start, int end) {
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            if (!isSeparator(s.charAt(i))) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Index of the first non-separator character at or after from, or end if there is none
+     */
+    public static int skipSeparators(CharSequence s, int from, int end) {
+        int i = from;
+        while (i < end && isSeparator(s.charAt(i))) i++;
+        return i;
+    }
+
+    /**
+     * Index of the kept character that comes count kept characters after the one at from
+     */
+    public static int advanceKept(CharSequence s, int from, int end, int count) {
+        int i = skipSeparators(s, from, end);
+        for (int n = 0; n < count && i < end; n++) {
+            i = skipSeparators(s, i + 1, end);
+        }
+        return i;
+    }
+
+    /**
+     * True if the kept characters starting at from begin with prefix
+     */
+    public static boolean keptStartsWith(CharSequence s, int from, int end, String prefix) {
+        int i = skipSeparators(s, from, end);
+        for (int p = 0; p < prefix.length(); p++) {
+            if (i >= end || s.charAt(i) != prefix.charAt(p)) return false;
+            i = skipSeparators(s, i + 1, end);
+        }
+        return true;
+    }
+
+    /**
+     * True if the kept characters of the range are exactly expected
+     */
+    public static boolean keptEquals(CharSequence s, int start, int end, String expected) {
+        return keptLength(s, start, end) == expected.length() && keptStartsWith(s, start, end, expected);
+    }
+
+    /**
+     * Luhn (mod 10) checksum over the digits of the range
+     */
+    public static boolean isValidLuhn(CharSequence s, int start, int end) {
+        int sum = 0;
+        boolean alternate = false;
+        for (int i = end - 1; i >= start; i--) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) continue;
+
+            int n = c - '0';
+            if (alternate) {
+                n *= 2;
+                if (n > 9) n = (n % 10) + 1;
+            }
+            sum += n;
+            alternate = !alternate;
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * Israeli ID (Teudat Zehut) checksum: 9 digits, every second digit doubled
+     */
+    public static boolean isValidIsraeliIdChecksum(CharSequence s, int start, int end) {
+        int sum = 0;
+        int position = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) continue;
+
+            int digit = c - '0';
+            if (position % 2 == 1) {
+                digit *= 2;
+                if (digit > 9) digit = digit / 10 + digit % 10;
+            }
+            sum += digit;
+            position++;
+        }
+        return position == 9 && sum % 10 == 0;
+    }
+
+    /**
+     * True if more than 70% of the kept characters equal the first one (1111-1111..., 5555555555)
+     */
+    public static boolean isRepeatedDigits(CharSequence s, int start, int end) {
+        int first = skipSeparators(s, start, end);
+        if (first >= end) return false;
+
+        char firstDigit = s.charAt(first);
+        int length = 0;
+        int count = 0;
+        for (int i = first; i < end; i++) {
+            char c = s.charAt(i);
+            if (isSeparator(c)) continue;
+            length++;
+            if (c == firstDigit) count++;
+        }
+        if (length < 4) return false;
+        return count * 10 > length * 7;
+    }
+
+    /**
+     * Two-digit code made of the kept characters at from and the next kept one, or -1 if either is not a digit
+     */
+    public static int twoDigitCode(CharSequence s, int from, int end) {
+        int first = skipSeparators(s, from, end);
+        if (first >= end) return -1;
+        int second = skipSeparators(s, first + 1, end);
+        if (second >= end) return -1;
+
+        char a = s.charAt(first);
+        char b = s.charAt(second);
+        if (!isDigit(a) || !isDigit(b)) return -1;
+        return (a - '0') * 10 + (b - '0');
+    }
+}
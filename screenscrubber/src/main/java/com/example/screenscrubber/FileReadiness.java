@@ -0,0 +1,287 @@
+package com.example.screenscrubber;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands a new image on the moment its file is complete, instead of after a fixed delay.
+ * A JPEG is complete once it ends with its EOI marker, a PNG with its IEND chunk, a WebP once
+ * its RIFF header's length matches the file. Other formats, and JPEGs with a vendor trailer
+ * after EOI, count as complete once their size hasn't changed for SETTLE_MS.
+ * A file that isn't complete yet is checked again with exponential backoff
+ * (FIRST_RETRY_MS doubling up to MAX_RETRY_MS) and sooner when signal() reports that it was
+ * closed after writing; after maxWaitMs it is given up.
+ * Calls are expected on the scheduler's thread; callbacks run there too.
+ */
+public final class FileReadiness {
+    private static final String TAG = "FileReadiness";
+
+    public static final long FIRST_RETRY_MS = 50;
+    public static final long MAX_RETRY_MS = 800;
+    public static final long DEFAULT_MAX_WAIT_MS = 10000;
+    public static final long SETTLE_MS = 250;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    // Zero length, "IEND", CRC
+    private static final byte[] PNG_IEND = {0, 0, 0, 0, 'I', 'E', 'N', 'D', (byte) 0xAE, 0x42, 0x60, (byte) 0x82};
+
+    public enum State {
+        COMPLETE,
+        INCOMPLETE,
+        // No end marker to go by - complete once the size settles
+        UNKNOWN,
+        MISSING
+    }
+
+    /**
+     * Runs task after delayMs - a Handler's postDelayed on Android
+     */
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+    }
+
+    private final Scheduler scheduler;
+    private final LongSupplier clock;
+    private final long maxWaitMs;
+
+    // Guarded by this
+    private final Map<String, Waiting> waiting = new HashMap<>();
+    private long readyAtOnce;
+    private long readyAfterWait;
+    private long gaveUp;
+    private long totalWaitMillis;
+    private long maxWaitMillis;
+
+    public FileReadiness(Scheduler scheduler, LongSupplier clock, long maxWaitMs) {
+        if (scheduler == null || clock == null) {
+            throw new IllegalArgumentException("Scheduler and clock cannot be null");
+        }
+        if (maxWaitMs <= 0) {
+            throw new IllegalArgumentException("Maximum wait must be positive");
+        }
+        this.scheduler = scheduler;
+        this.clock = clock;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * Run onReady as soon as path is complete - right away if it already is
+     */
+    public void await(String path, Runnable onReady) {
+        if (path == null || onReady == null) {
+            throw new IllegalArgumentException("Path and callback cannot be null");
+        }
+        Waiting entry;
+        synchronized (this) {
+            if (waiting.containsKey(path)) {
+                return;
+            }
+            entry = new Waiting(path, onReady, clock.getAsLong());
+            waiting.put(path, entry);
+        }
+        probe(entry, 0);
+    }
+
+    /**
+     * path was just closed after writing (FileObserver.CLOSE_WRITE) - check it now
+     */
+    public void signal(String path) {
+        Waiting entry;
+        int attempt;
+        synchronized (this) {
+            entry = waiting.get(path);
+            if (entry == null) {
+                return;
+            }
+            attempt = entry.attempt;
+        }
+        probe(entry, attempt);
+    }
+
+    public synchronized boolean isWaiting(String path) {
+        return waiting.containsKey(path);
+    }
+
+    /**
+     * Forget every waiting file; their callbacks never run
+     */
+    public synchronized void cancelAll() {
+        waiting.clear();
+    }
+
+    public synchronized Stats getStats() {
+        long ready = readyAtOnce + readyAfterWait;
+        return new Stats(readyAtOnce, readyAfterWait, gaveUp, waiting.size(),
+                ready > 0 ? totalWaitMillis / ready : 0, maxWaitMillis);
+    }
+
+    public static final class Stats {
+        public final long readyAtOnce;
+        public final long readyAfterWait;
+        public final long gaveUp;
+        public final int waiting;
+        // From await() until the file was complete, over all ready files
+        public final long avgWaitMillis;
+        public final long maxWaitMillis;
+
+        Stats(long readyAtOnce, long readyAfterWait, long gaveUp, int waiting, long avgWaitMillis, long maxWaitMillis) {
+            this.readyAtOnce = readyAtOnce;
+            this.readyAfterWait = readyAfterWait;
+            this.gaveUp = gaveUp;
+            this.waiting = waiting;
+            this.avgWaitMillis = avgWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("FileReadiness{atOnce=%d, afterWait=%d, gaveUp=%d, waiting=%d, avgWait=%dms, maxWait=%dms}",
+                    readyAtOnce, readyAfterWait, gaveUp, waiting, avgWaitMillis, maxWaitMillis);
+        }
+    }
+
+    /**
+     * Check entry unless a newer check has already superseded attempt
+     */
+    private void probe(Waiting entry, int attempt) {
+        File file = new File(entry.path);
+        State state = check(file);
+        long size = file.length();
+        long now = clock.getAsLong();
+        long waited = now - entry.startedAt;
+        Runnable ready = null;
+        long retryIn = -1;
+
+        synchronized (this) {
+            if (waiting.get(entry.path) != entry || entry.attempt != attempt) {
+                return;
+            }
+            if (state == State.UNKNOWN && size == entry.lastSize && now - entry.sizeSince >= SETTLE_MS) {
+                state = State.COMPLETE;
+            }
+            if (state == State.COMPLETE) {
+                waiting.remove(entry.path);
+                if (attempt == 0) {
+                    readyAtOnce++;
+                } else {
+                    readyAfterWait++;
+                }
+                totalWaitMillis += waited;
+                maxWaitMillis = Math.max(maxWaitMillis, waited);
+                ready = entry.onReady;
+            } else if (waited >= maxWaitMs) {
+                waiting.remove(entry.path);
+                gaveUp++;
+            } else {
+                if (size != entry.lastSize) {
+                    entry.lastSize = size;
+                    entry.sizeSince = now;
+                }
+                entry.attempt++;
+                retryIn = retryDelayMs(attempt);
+            }
+        }
+
+        if (ready != null) {
+            ScrubberLog.d(TAG, () -> "✅ Ready after " + waited + "ms: " + entry.path);
+            ready.run();
+        } else if (retryIn >= 0) {
+            int next = attempt + 1;
+            long delay = retryIn;
+            ScrubberLog.d(TAG, () -> "Not complete yet, checking again in " + delay + "ms: " + entry.path);
+            scheduler.schedule(() -> probe(entry, next), delay);
+        } else {
+            ScrubberLog.e(TAG, "File still incomplete after " + waited + "ms, skipped: " + entry.path);
+        }
+    }
+
+    /**
+     * FIRST_RETRY_MS, doubling per attempt, capped at MAX_RETRY_MS
+     */
+    static long retryDelayMs(int attempt) {
+        return Math.min(MAX_RETRY_MS, FIRST_RETRY_MS << Math.min(attempt, 16));
+    }
+
+    /**
+     * Whether file looks completely written, judged by its format's end marker
+     */
+    public static State check(File file) {
+        if (file == null || !file.isFile() || !file.canRead()) {
+            return State.MISSING;
+        }
+        long size = file.length();
+        if (size <= 0) {
+            return State.INCOMPLETE;
+        }
+
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            byte[] head = new byte[12];
+            int headLength = read(in, 0, head);
+            byte[] tail = new byte[12];
+            int tailLength = read(in, Math.max(0, size - tail.length), tail);
+
+            if (headLength >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+                // JPEG: ends with EOI - unless the camera appended a trailer, then fall back
+                if (tailLength >= 2 && (tail[tailLength - 2] & 0xFF) == 0xFF && (tail[tailLength - 1] & 0xFF) == 0xD9) {
+                    return State.COMPLETE;
+                }
+            } else if (headLength >= 8 && startsWith(head, PNG_SIGNATURE)) {
+                return tailLength == 12 && endsWith(tail, PNG_IEND) ? State.COMPLETE : State.INCOMPLETE;
+            } else if (headLength == 12 && head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F'
+                    && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+                long riffLength = (head[4] & 0xFFL) | (head[5] & 0xFFL) << 8 | (head[6] & 0xFFL) << 16 | (head[7] & 0xFFL) << 24;
+                return riffLength + 8 <= size ? State.COMPLETE : State.INCOMPLETE;
+            }
+        } catch (IOException e) {
+            return State.INCOMPLETE;
+        }
+
+        return State.UNKNOWN;
+    }
+
+    private static int read(RandomAccessFile in, long position, byte[] buffer) throws IOException {
+        in.seek(position);
+        int total = 0;
+        while (total < buffer.length) {
+            int n = in.read(buffer, total, buffer.length - total);
+            if (n < 0) break;
+            total += n;
+        }
+        return total;
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean endsWith(byte[] bytes, byte[] suffix) {
+        int offset = bytes.length - suffix.length;
+        for (int i = 0; i < suffix.length; i++) {
+            if (bytes[offset + i] != suffix[i]) return false;
+        }
+        return true;
+    }
+
+    private static final class Waiting {
+        final String path;
+        final Runnable onReady;
+        final long startedAt;
+        // Guarded by FileReadiness.this
+        int attempt;
+        long lastSize = -1;
+        long sizeSince;
+
+        Waiting(String path, Runnable onReady, long startedAt) {
+            this.path = path;
+            this.onReady = onReady;
+            this.startedAt = startedAt;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.screenscrubber;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+/**
+ * One decoded image, shared by OCR and censoring so the file is decoded once.
+ * Created by TextRecognitionService and handed on with the recognized text (a Recognition or
+ * TextExtractionCallback.onTextExtracted); the receiver owns it from then on and must call
+ * release() when processing ends.
+ */
+public final class ImageHandle implements AutoCloseable {
+    private static final String TAG = "ImageHandle";
+
+    private final String path;
+    private final int sourceWidth;
+    private final int sourceHeight;
+    private final int sampleSize;
+    private final BitmapPool pool;
+    private Bitmap bitmap;
+    private boolean released;
+
+    ImageHandle(String path, Bitmap bitmap, int sourceWidth, int sourceHeight, int sampleSize, BitmapPool pool) {
+        this.path = path;
+        this.pool = pool;
+        this.bitmap = bitmap;
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Decode for OCR within the budget. Images that need no subsampling are decoded as
+     * mutable ARGB_8888 so censoring can paint on the same pixels without losing color; subsampled
+     * copies use the budget's config. Decodes into a pooled bitmap when one fits.
+     * Returns null if the file can't be decoded.
+     */
+    static ImageHandle decode(String path, OcrInputBudget budget, BitmapPool pool) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(path, options);
+        int sourceWidth = options.outWidth;
+        int sourceHeight = options.outHeight;
+        if (sourceWidth <= 0 || sourceHeight <= 0) {
+            return null;
+        }
+
+        int sampleSize = budget.sampleSizeFor(sourceWidth, sourceHeight);
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = sampleSize == 1 ? Bitmap.Config.ARGB_8888 : budget.config;
+
+        // Mutable, so censoring can paint onto shared full-resolution pixels in place
+        // and the bitmap can go back to the pool afterwards
+        Bitmap bitmap = pool.decodeFile(path, options);
+        if (bitmap == null) {
+            return null;
+        }
+
+        ScrubberLog.d(TAG, () -> "Decoded " + bitmap.getWidth() + "x" + bitmap.getHeight() + " " + bitmap.getConfig() +
+                " (sample " + sampleSize + ") from " + sourceWidth + "x" + sourceHeight);
+        return new ImageHandle(path, bitmap, sourceWidth, sourceHeight, sampleSize, pool);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getSourceWidth() {
+        return sourceWidth;
+    }
+
+    public int getSourceHeight() {
+        return sourceHeight;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * The decoded pixels, or null once released (or if OCR ran in strips and never held
+     * the whole image)
+     */
+    public synchronized Bitmap getBitmap() {
+        return bitmap;
+    }
+
+    /**
+     * Source pixels per decoded pixel - converts OCR boxes to source coordinates.
+     * Taken from the real widths since decoders may round the sample size.
+     */
+    public float getOcrScale() {
+        Bitmap current = getBitmap();
+        return current != null && current.getWidth() > 0 ? sourceWidth / (float) current.getWidth() : sampleSize;
+    }
+
+    /**
+     * True if the decoded bitmap has every source pixel, so censoring can use it directly
+     */
+    public synchronized boolean isFullResolution() {
+        return bitmap != null && !bitmap.isRecycled() &&
+                bitmap.getWidth() == sourceWidth && bitmap.getHeight() == sourceHeight;
+    }
+
+    /**
+     * Return the decoded bitmap to the pool (or recycle it). Safe to call more than once.
+     */
+    public synchronized void release() {
+        released = true;
+        if (bitmap != null) {
+            if (pool != null) {
+                pool.put(bitmap);
+            } else if (!bitmap.isRecycled()) {
+                bitmap.recycle();
+            }
+            bitmap = null;
+        }
+    }
+
+    public synchronized boolean isReleased() {
+        return released;
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+}
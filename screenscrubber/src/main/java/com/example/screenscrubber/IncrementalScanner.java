@@ -0,0 +1,133 @@
+package com.example.screenscrubber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Walks a source in ascending key order (MediaStore GENERATION_ADDED or _ID), one page of
+ * pageSize rows at a time, starting after the high-water mark its checkpoint holds. The mark
+ * is saved once every row of a page is done - not just handed on - so the next scan, also
+ * after a restart, only sees rows added since; a scan that fails part-way, or whose rows
+ * couldn't be done, resumes after the last page it finished.
+ * scan() waits for each page's rows, so it belongs on a thread of its own.
+ */
+public final class IncrementalScanner<R> {
+    private static final String TAG = "IncrementalScanner";
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    // Checkpoint value before the first scan
+    public static final long NO_MARK = -1;
+
+    /**
+     * Rows with key above afterKey, in ascending key order, at most limit of them
+     */
+    public interface Source<R> {
+        List<R> page(long afterKey, int limit) throws Exception;
+
+        long keyOf(R row);
+    }
+
+    /**
+     * Where the high-water mark is kept between scans
+     */
+    public interface Checkpoint {
+        long load();
+
+        void save(long key);
+    }
+
+    public interface RowHandler<R> {
+        /**
+         * Completes once row has been dealt with, exceptionally if it has to be seen again;
+         * null if there is nothing to wait for
+         */
+        CompletableFuture<?> onRow(R row);
+    }
+
+    private final Source<R> source;
+    private final Checkpoint checkpoint;
+    private final int pageSize;
+
+    public IncrementalScanner(Source<R> source, Checkpoint checkpoint, int pageSize) {
+        if (source == null || checkpoint == null) {
+            throw new IllegalArgumentException("Source and checkpoint cannot be null");
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.source = source;
+        this.checkpoint = checkpoint;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Hand every row past the mark to handler, page by page. A failing page or row ends the
+     * scan with the mark at the last page that completed.
+     */
+    public Result scan(RowHandler<R> handler) {
+        long mark = checkpoint.load();
+        long startMark = mark;
+        int pages = 0;
+        long rows = 0;
+
+        try {
+            while (true) {
+                List<R> page = source.page(mark, pageSize);
+                if (page == null || page.isEmpty()) {
+                    break;
+                }
+                pages++;
+                List<CompletableFuture<?>> inFlight = new ArrayList<>(page.size());
+                long pageMark = mark;
+                for (R row : page) {
+                    CompletableFuture<?> done = handler.onRow(row);
+                    if (done != null) {
+                        inFlight.add(done);
+                    }
+                    pageMark = Math.max(pageMark, source.keyOf(row));
+                    rows++;
+                }
+
+                // Past these rows only once they are all done - join() throws if one failed
+                for (CompletableFuture<?> done : inFlight) {
+                    done.join();
+                }
+                mark = pageMark;
+                checkpoint.save(mark);
+                if (page.size() < pageSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            ScrubberLog.e(TAG, "Scan stopped after " + rows + " rows", e);
+            return new Result(startMark, mark, pages, rows, false);
+        }
+
+        Result result = new Result(startMark, mark, pages, rows, true);
+        ScrubberLog.d(TAG, result::toString);
+        return result;
+    }
+
+    public static final class Result {
+        public final long fromMark;
+        public final long toMark;
+        public final int pages;
+        public final long rows;
+        public final boolean complete;
+
+        Result(long fromMark, long toMark, int pages, long rows, boolean complete) {
+            this.fromMark = fromMark;
+            this.toMark = toMark;
+            this.pages = pages;
+            this.rows = rows;
+            this.complete = complete;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Scan{mark %d -> %d, pages=%d, rows=%d, complete=%b}",
+                    fromMark, toMark, pages, rows, complete);
+        }
+    }
+}
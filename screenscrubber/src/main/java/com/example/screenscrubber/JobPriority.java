@@ -0,0 +1,81 @@
+package com.example.screenscrubber;
+
+/**
+ * Where an image goes in the processing queue. Screenshots come before camera photos, which come
+ * before anything else; the host's urgency hint moves an image up or down one class; within a
+ * class, images added to MediaStore more recently go first.
+ * Aging keeps lower classes from starving: each class below the top is worth one agingStepMs
+ * of waiting, so a camera photo that has waited that long runs before a screenshot queued now.
+ * Within a class, an image that has waited one agingStepMs goes before newer ones.
+ */
+public final class JobPriority {
+    public enum Urgency {
+        HIGH(-1),
+        NORMAL(0),
+        LOW(1);
+
+        final int rankDelta;
+
+        Urgency(int rankDelta) {
+            this.rankDelta = rankDelta;
+        }
+    }
+
+    /**
+     * Host-supplied hint, e.g. HIGH for screenshots while a banking app is in the foreground.
+     * Called on the media observer's background thread.
+     */
+    public interface UrgencyHint {
+        Urgency urgencyFor(String filePath, MediaObserver.ImageType type);
+    }
+
+    // Unknown type and age: queued jobs of this priority run first come, first served
+    public static final JobPriority DEFAULT = new JobPriority(MediaObserver.ImageType.OTHER, 0, Urgency.NORMAL);
+
+    public final MediaObserver.ImageType imageType;
+    // MediaStore DATE_ADDED in milliseconds, 0 if unknown
+    public final long dateAddedMillis;
+    public final Urgency urgency;
+
+    public JobPriority(MediaObserver.ImageType imageType, long dateAddedMillis, Urgency urgency) {
+        if (imageType == null || urgency == null) {
+            throw new IllegalArgumentException("Image type and urgency cannot be null");
+        }
+        this.imageType = imageType;
+        this.dateAddedMillis = dateAddedMillis;
+        this.urgency = urgency;
+    }
+
+    /**
+     * 0 for the most urgent class; urgency can take a class one step either way
+     */
+    public int rank() {
+        int base;
+        switch (imageType) {
+            case SCREENSHOT:
+                base = 1;
+                break;
+            case CAMERA_PHOTO:
+                base = 2;
+                break;
+            default:
+                base = 3;
+                break;
+        }
+        return base + urgency.rankDelta;
+    }
+
+    /**
+     * The moment, on the queue's clock, from which this job's class is due: rank() whole
+     * agingStepMs steps after it was queued. The earliest deadline picks the class to run
+     * next; dateAddedMillis orders the images within it until one has waited a whole step.
+     */
+    public long deadline(long enqueuedAtMillis, long agingStepMs) {
+        return enqueuedAtMillis + rank() * agingStepMs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JobPriority{%s, urgency=%s, dateAdded=%d}", imageType, urgency, dateAddedMillis);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.screenscrubber;
+
+import android.os.Looper;
+
+/**
+ * Guard for the heavy stages (decode, OCR input, censor, encode): they must never run on the
+ * main thread. In strict mode - on by default when the host app is debuggable - a violation
+ * throws, like StrictMode's penaltyDeath; otherwise it is logged and the work goes ahead.
+ */
+final class MainThreadCheck {
+    private static final String TAG = "MainThreadCheck";
+
+    private static volatile boolean strict;
+
+    private MainThreadCheck() {
+    }
+
+    static void setStrict(boolean enabled) {
+        strict = enabled;
+    }
+
+    static boolean isStrict() {
+        return strict;
+    }
+
+    static boolean isMainThread() {
+        Looper mainLooper = Looper.getMainLooper();
+        return mainLooper != null && mainLooper.isCurrentThread();
+    }
+
+    /**
+     * Call at the start of a heavy stage
+     */
+    static void assertNotMainThread(String stage) {
+        if (!isMainThread()) {
+            return;
+        }
+        String message = stage + " must not run on the main thread";
+        if (strict) {
+            throw new IllegalStateException(message);
+        }
+        ScrubberLog.w(TAG, "⚠️ " + message);
+    }
+}
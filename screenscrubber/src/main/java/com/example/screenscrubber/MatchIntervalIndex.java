@@ -0,0 +1,78 @@
+package com.example.screenscrubber;
+
+/**
+ * Intervals of one match type, kept sorted by start, answering "does [start, end) overlap anything?" in O(log n).
+ * Alongside the sorted starts/ends it keeps the running maximum end, so overlapping entries
+ * (possible with custom detectors) are handled too.
+ * Detectors report matches left to right, so inserts are almost always appends.
+ */
+final class MatchIntervalIndex {
+    private int size;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int[] maxEnds = new int[16]; // maxEnds[i] = max(ends[0..i])
+
+    void add(int start, int end) {
+        if (size == starts.length) {
+            starts = grow(starts);
+            ends = grow(ends);
+            maxEnds = grow(maxEnds);
+        }
+
+        // First index whose start is greater than the new start - keeps equal starts in insertion order
+        int position = upperBound(start);
+        if (position < size) {
+            System.arraycopy(starts, position, starts, position + 1, size - position);
+            System.arraycopy(ends, position, ends, position + 1, size - position);
+        }
+        starts[position] = start;
+        ends[position] = end;
+        size++;
+
+        for (int i = position; i < size; i++) {
+            int previous = i == 0 ? Integer.MIN_VALUE : maxEnds[i - 1];
+            maxEnds[i] = Math.max(previous, ends[i]);
+        }
+    }
+
+    /**
+     * True if some stored interval satisfies start < existing.end && end > existing.start
+     */
+    boolean overlaps(int start, int end) {
+        // Only intervals starting before end can overlap; among those, one must end after start
+        int last = lowerBound(end) - 1;
+        return last >= 0 && maxEnds[last] > start;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Number of stored starts that are < value
+    private int lowerBound(int value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < value) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+
+    // Number of stored starts that are <= value
+    private int upperBound(int value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= value) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+
+    private static int[] grow(int[] array) {
+        int[] grown = new int[array.length * 2];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.screenscrubber;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Turns MediaStore's burst of change notifications into one job per image.
+ * The first event for a URI is checked straight away; the ones that follow within
+ * coalesceWindowMs share one more check (one query) when the window ends. An image is emitted
+ * once per MediaStore _ID and content fingerprint, so the update that follows an insert, or a
+ * scan that finds an image the observer already reported, doesn't process it twice.
+ * The last maxRemembered emitted images are remembered.
+ */
+public final class MediaEventDeduplicator {
+    public static final long DEFAULT_COALESCE_WINDOW_MS = 500;
+    public static final int DEFAULT_MAX_REMEMBERED = 512;
+
+    private final long coalesceWindowMs;
+    private final int maxRemembered;
+
+    // Guarded by this. URI -> when its window opened, and whether events came in since
+    private final Map<String, Window> windows = new HashMap<>();
+    // _ID -> fingerprint emitted for it, least recently seen first
+    private final LinkedHashMap<Long, String> emitted;
+    private long eventsReceived;
+    private long eventsCoalesced;
+    private long checks;
+    private long duplicatesSuppressed;
+    private long jobsEmitted;
+
+    public MediaEventDeduplicator() {
+        this(DEFAULT_COALESCE_WINDOW_MS, DEFAULT_MAX_REMEMBERED);
+    }
+
+    public MediaEventDeduplicator(long coalesceWindowMs, int maxRemembered) {
+        if (coalesceWindowMs < 0 || maxRemembered <= 0) {
+            throw new IllegalArgumentException("Coalescing window and memory size must be positive");
+        }
+        this.coalesceWindowMs = coalesceWindowMs;
+        this.maxRemembered = maxRemembered;
+        this.emitted = new LinkedHashMap<Long, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > MediaEventDeduplicator.this.maxRemembered;
+            }
+        };
+    }
+
+    public long getCoalesceWindowMs() {
+        return coalesceWindowMs;
+    }
+
+    private static final class Window {
+        final long openedAt;
+        boolean dirty;
+
+        Window(long openedAt) {
+            this.openedAt = openedAt;
+        }
+    }
+
+    /**
+     * A change event for uriKey. True if it opens a window: the caller checks uriKey now and
+     * calls onWindowEnd coalesceWindowMs later. False if a window is open, whose end will
+     * check this change too.
+     */
+    public synchronized boolean onEvent(String uriKey, long nowMillis) {
+        if (uriKey == null) {
+            throw new IllegalArgumentException("URI cannot be null");
+        }
+        eventsReceived++;
+        Window window = windows.get(uriKey);
+        // A window long past its end was dropped (monitoring restarted) - open a new one
+        if (window != null && nowMillis - window.openedAt <= 2 * coalesceWindowMs) {
+            window.dirty = true;
+            eventsCoalesced++;
+            return false;
+        }
+        windows.put(uriKey, new Window(nowMillis));
+        checks++;
+        return true;
+    }
+
+    /**
+     * uriKey's window is over; later events open a new one. True if events came in during it,
+     * and the caller should check uriKey once more.
+     */
+    public synchronized boolean onWindowEnd(String uriKey) {
+        Window window = windows.remove(uriKey);
+        if (window == null || !window.dirty) {
+            return false;
+        }
+        checks++;
+        return true;
+    }
+
+    /**
+     * Forget open windows, e.g. when monitoring stops and their ends are cancelled
+     */
+    public synchronized void clearPending() {
+        windows.clear();
+    }
+
+    /**
+     * Whether mediaId has been emitted with this fingerprint; counted as a suppressed duplicate
+     * if so
+     */
+    public synchronized boolean isEmitted(long mediaId, String fingerprint) {
+        if (fingerprint == null) {
+            throw new IllegalArgumentException("Fingerprint cannot be null");
+        }
+        if (fingerprint.equals(emitted.get(mediaId))) {
+            duplicatesSuppressed++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * True - and remembered as emitted - the first time mediaId is seen with this fingerprint.
+     * Called as the image is handed on, not before, so one that never got there is seen again.
+     */
+    public synchronized boolean tryEmit(long mediaId, String fingerprint) {
+        if (fingerprint == null) {
+            throw new IllegalArgumentException("Fingerprint cannot be null");
+        }
+        if (fingerprint.equals(emitted.get(mediaId))) {
+            duplicatesSuppressed++;
+            return false;
+        }
+        emitted.put(mediaId, fingerprint);
+        jobsEmitted++;
+        return true;
+    }
+
+    /**
+     * Forget that mediaId was emitted, e.g. because its job was dropped, so it is emitted again
+     * the next time it is seen
+     */
+    public synchronized void forget(long mediaId) {
+        emitted.remove(mediaId);
+    }
+
+    /**
+     * What identifies an image's content without reading it
+     */
+    public static String fingerprint(long sizeBytes, long dateModifiedSeconds) {
+        return sizeBytes + "@" + dateModifiedSeconds;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(eventsReceived, eventsCoalesced, checks, duplicatesSuppressed, jobsEmitted);
+    }
+
+    public static final class Stats {
+        public final long eventsReceived;
+        public final long eventsCoalesced;
+        public final long checks;
+        public final long duplicatesSuppressed;
+        public final long jobsEmitted;
+
+        Stats(long eventsReceived, long eventsCoalesced, long checks, long duplicatesSuppressed, long jobsEmitted) {
+            this.eventsReceived = eventsReceived;
+            this.eventsCoalesced = eventsCoalesced;
+            this.checks = checks;
+            this.duplicatesSuppressed = duplicatesSuppressed;
+            this.jobsEmitted = jobsEmitted;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("MediaEvents{received=%d, coalesced=%d, checks=%d, duplicates=%d, emitted=%d}",
+                    eventsReceived, eventsCoalesced, checks, duplicatesSuppressed, jobsEmitted);
+        }
+    }
+}
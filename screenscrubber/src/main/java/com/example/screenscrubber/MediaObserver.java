@@ -2,32 +2,100 @@ package com.example.screenscrubber;
 
 import android.content.ContentResolver;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.database.ContentObserver;
 import android.database.Cursor;
+import android.graphics.BitmapFactory;
 import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.FileObserver;
 import android.os.Handler;
-import android.os.Looper;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
 import android.provider.MediaStore;
-import android.util.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
 
 /**
  * Enhanced observer that monitors both screenshots and camera photos
  * Uses MediaStore to be compatible with Android 10+ scoped storage
  * FIXED: Prevents re-processing of censored images
+ * Change events and queries run on the observer's own background thread, never the main
+ * thread; the listener is called there too. A recent-image scan waits for the images it
+ * reports, so it runs - and calls the listener - on a thread of its own; bulk scan sources
+ * are queried on their job's thread.
  */
 public class MediaObserver {
     private static final String TAG = "MediaObserver";
     private static final long NEW_IMAGE_THRESHOLD_MS = 10000; // 10 seconds
     private static final String CENSORED_FOLDER = "ScreenScrubber_Censored";
 
+    // Incremental scans walk images in the order they were added: GENERATION_ADDED where
+    // MediaStore has it (Android 11+), otherwise the ever-increasing _ID
+    private static final String SCAN_KEY = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+            ? MediaStore.MediaColumns.GENERATION_ADDED : MediaStore.Images.Media._ID;
+    private static final String SCAN_PREFS = "screenscrubber_scan";
+    // Directory scans go by last-modified time
+    private static final String FILE_KEY = "last_modified";
+    private static final String[] IMAGE_EXTENSIONS = {".jpg", ".jpeg", ".png", ".webp"};
+    // A recent-image scan waits for each page before the next, so a page is what it has in
+    // processing at once - kept well inside the processing queue
+    private static final int RECENT_SCAN_PAGE_SIZE = 8;
+
+    private static final String[] PROJECTION = projection();
+
+    // Lower-cased camera file names: img_123, 20240101_120000, photo_1, pxl_1 (Pixel), 2024-01-01...
+    private static final Pattern CAMERA_NAME =
+            Pattern.compile("(?:img_\\d+|\\d{8}_\\d{6}|photo_\\d+|pxl_\\d+|\\d{4}-\\d{2}-\\d{2}).*");
+
     private Context context;
     private MediaListener listener;
-    private Handler handler;
+    private final HandlerThread queryThread;
+    private final Handler handler;
     private ContentObserver mediaObserver;
-    private boolean isMonitoring = false;
+    private volatile boolean isMonitoring = false;
+    private final MediaEventDeduplicator deduplicator = new MediaEventDeduplicator();
+    private final FileReadiness readiness;
+    // Directory -> CLOSE_WRITE watcher, so a file being written is picked up as soon as it's closed
+    private final Map<String, FileObserver> closeWatchers = new HashMap<>();
+    private final ScanCheckpoint scanCheckpoint;
+    private final AtomicBoolean scanning = new AtomicBoolean();
+    // Set once a scan has completed this session: from then on the observer sees every new
+    // image, so the ones it reports move the scan's high-water mark too, once they are done.
+    // Query thread only.
+    private boolean scanMarkLive;
+    // Scan keys of reported images not done yet, and the highest done one. Query thread only.
+    private final TreeSet<Long> liveInFlight = new TreeSet<>();
+    private long liveDoneMark = IncrementalScanner.NO_MARK;
 
     public interface MediaListener {
-        void onNewImage(String filePath, ImageType type);
+        /**
+         * dateAddedMillis is MediaStore's DATE_ADDED, for ordering a backlog newest first
+         */
+        void onNewImage(String filePath, ImageType type, long dateAddedMillis);
+
+        /**
+         * onNewImage, with a future that completes once the image has been processed. Scans
+         * only move their high-water mark past an image then; if the future completes
+         * exceptionally (the image was dropped) it is left for the next scan to report again.
+         * By default calls onNewImage and counts the image done straight away.
+         */
+        default CompletableFuture<?> onImage(String filePath, ImageType type, long dateAddedMillis) {
+            onNewImage(filePath, type, dateAddedMillis);
+            return CompletableFuture.completedFuture(null);
+        }
     }
 
     public enum ImageType {
@@ -38,12 +106,36 @@ public class MediaObserver {
 
     public MediaObserver(Context context) {
         this.context = context;
-        this.handler = new Handler(Looper.getMainLooper());
+        this.queryThread = new HandlerThread("ScreenScrubber-MediaStore", Process.THREAD_PRIORITY_BACKGROUND);
+        this.queryThread.start();
+        this.handler = new Handler(queryThread.getLooper());
+        this.readiness = new FileReadiness(handler::postDelayed, SystemClock::uptimeMillis,
+                FileReadiness.DEFAULT_MAX_WAIT_MS);
+        this.scanCheckpoint = new ScanCheckpoint(context, "", SCAN_KEY, true);
+    }
+
+    private static String[] projection() {
+        List<String> columns = new ArrayList<>(Arrays.asList(
+                MediaStore.Images.Media._ID,
+                MediaStore.Images.Media.DISPLAY_NAME,
+                MediaStore.Images.Media.DATA,
+                MediaStore.Images.Media.DATE_ADDED,
+                MediaStore.Images.Media.DATE_MODIFIED,
+                MediaStore.Images.Media.SIZE,
+                MediaStore.MediaColumns.IS_PENDING,
+                MediaStore.Images.Media.BUCKET_DISPLAY_NAME,
+                MediaStore.Images.Media.RELATIVE_PATH,
+                MediaStore.Images.Media.WIDTH,
+                MediaStore.Images.Media.HEIGHT));
+        if (!columns.contains(SCAN_KEY)) {
+            columns.add(SCAN_KEY);
+        }
+        return columns.toArray(new String[0]);
     }
 
     public void startMonitoring(MediaListener listener) {
         if (isMonitoring) {
-            Log.w(TAG, "Already monitoring media changes");
+            ScrubberLog.w(TAG, "Already monitoring media changes");
             return;
         }
 
@@ -53,10 +145,10 @@ public class MediaObserver {
             @Override
             public void onChange(boolean selfChange, Uri uri) {
                 super.onChange(selfChange, uri);
-                Log.d(TAG, "Media change detected: " + uri);
+                ScrubberLog.d(TAG, () -> "Media change detected: " + uri);
 
                 if (uri != null) {
-                    checkNewImage(uri);
+                    scheduleCheck(uri);
                 }
             }
         };
@@ -70,10 +162,10 @@ public class MediaObserver {
             );
 
             isMonitoring = true;
-            Log.i(TAG, "Started monitoring media changes");
+            ScrubberLog.i(TAG, "Started monitoring media changes");
 
         } catch (Exception e) {
-            Log.e(TAG, "Failed to start media monitoring", e);
+            ScrubberLog.e(TAG, "Failed to start media monitoring", e);
         }
     }
 
@@ -87,76 +179,261 @@ public class MediaObserver {
                 context.getContentResolver().unregisterContentObserver(mediaObserver);
                 mediaObserver = null;
             }
+            handler.removeCallbacksAndMessages(null);
+            // The watchers belong to the query thread
+            handler.post(() -> {
+                deduplicator.clearPending();
+                readiness.cancelAll();
+                for (FileObserver watcher : closeWatchers.values()) {
+                    watcher.stopWatching();
+                }
+                closeWatchers.clear();
+            });
 
             isMonitoring = false;
-            Log.i(TAG, "Stopped monitoring media changes");
+            ScrubberLog.i(TAG, "Stopped monitoring media changes");
 
         } catch (Exception e) {
-            Log.e(TAG, "Error stopping media monitoring", e);
+            ScrubberLog.e(TAG, "Error stopping media monitoring", e);
         }
     }
 
     /**
-     * Check if a new image was added and determine its type
-     * FIXED: Skip our own censored images to prevent re-processing
+     * Stop monitoring and end the query thread; this observer can't be used afterwards
      */
-    private void checkNewImage(Uri uri) {
-        try {
-            String[] projection = {
-                    MediaStore.Images.Media._ID,
-                    MediaStore.Images.Media.DISPLAY_NAME,
-                    MediaStore.Images.Media.DATA,
-                    MediaStore.Images.Media.DATE_ADDED,
-                    MediaStore.Images.Media.BUCKET_DISPLAY_NAME,
-                    MediaStore.Images.Media.RELATIVE_PATH
-            };
+    public void release() {
+        stopMonitoring();
+        queryThread.quitSafely();
+    }
 
-            Cursor cursor = context.getContentResolver().query(
-                    uri,
-                    projection,
-                    null,
-                    null,
-                    null
-            );
+    /**
+     * Check uri straight away on the first event of a burst (insert, then updates); the events
+     * that follow within the coalescing window share one more check when it ends
+     */
+    private void scheduleCheck(Uri uri) {
+        String uriKey = uri.toString();
+        if (!deduplicator.onEvent(uriKey, SystemClock.uptimeMillis())) {
+            ScrubberLog.d(TAG, () -> "🔁 Coalesced change for " + uri);
+            return;
+        }
+        checkNewImage(uri);
+        handler.postDelayed(() -> {
+            if (deduplicator.onWindowEnd(uriKey)) {
+                checkNewImage(uri);
+            }
+        }, deduplicator.getCoalesceWindowMs());
+    }
 
-            if (cursor != null && cursor.moveToFirst()) {
-                String displayName = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DISPLAY_NAME));
-                String filePath = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DATA));
-                long dateAdded = cursor.getLong(cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DATE_ADDED));
-                String bucketName = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Images.Media.BUCKET_DISPLAY_NAME));
-                String relativePath = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Images.Media.RELATIVE_PATH));
+    /**
+     * Event counters: received, coalesced, duplicates suppressed and images emitted
+     */
+    public MediaEventDeduplicator.Stats getEventStats() {
+        return deduplicator.getStats();
+    }
 
-                cursor.close();
+    /**
+     * Time from a file being found until it was complete: files ready at once versus waited for
+     */
+    public FileReadiness.Stats getReadinessStats() {
+        return readiness.getStats();
+    }
 
-                // CRITICAL FIX: Skip our own censored images
-                if (isOurCensoredImage(displayName, filePath, bucketName, relativePath)) {
-                    Log.d(TAG, "🚫 Ignoring our own censored image: " + displayName);
-                    return;
+    /**
+     * Run onReady the moment filePath is completely written. Checks back off exponentially;
+     * a CLOSE_WRITE in its directory checks it straight away.
+     */
+    private void awaitComplete(String filePath, Runnable onReady) {
+        File parent = new File(filePath).getParentFile();
+        if (parent != null && !closeWatchers.containsKey(parent.getPath())) {
+            String directory = parent.getPath();
+            FileObserver watcher = new FileObserver(directory, FileObserver.CLOSE_WRITE | FileObserver.MOVED_TO) {
+                @Override
+                public void onEvent(int event, String fileName) {
+                    if (fileName != null) {
+                        String closedPath = new File(directory, fileName).getPath();
+                        handler.post(() -> readiness.signal(closedPath));
+                    }
                 }
+            };
+            watcher.startWatching();
+            closeWatchers.put(directory, watcher);
+        }
+        readiness.await(filePath, onReady);
+    }
 
-                // Check if this is a recent image
-                long currentTime = System.currentTimeMillis() / 1000; // MediaStore uses seconds
-                if (currentTime - dateAdded <= NEW_IMAGE_THRESHOLD_MS / 1000) {
+    /**
+     * False - and logged - if this image was already reported with the same content, or is
+     * still being written (IS_PENDING, or empty; the update that follows brings it back)
+     */
+    private boolean isNewContent(ImageRow image) {
+        if (image.pending || image.size <= 0) {
+            ScrubberLog.d(TAG, () -> "Not written yet, waiting for its update: " + image.displayName);
+            return false;
+        }
+        if (deduplicator.isEmitted(image.mediaId, MediaEventDeduplicator.fingerprint(image.size, image.dateModified))) {
+            ScrubberLog.d(TAG, () -> "🔁 Already reported: " + image.displayName);
+            return false;
+        }
+        return true;
+    }
 
-                    ImageType imageType = determineImageType(displayName, filePath, bucketName, relativePath);
+    /**
+     * Remember image as reported, as it reaches the listener - an image whose file never
+     * became ready is reported when it next comes up. False if another check got there first.
+     */
+    private boolean markReported(ImageRow image) {
+        return deduplicator.tryEmit(image.mediaId, MediaEventDeduplicator.fingerprint(image.size, image.dateModified));
+    }
 
-                    if (imageType == ImageType.SCREENSHOT || imageType == ImageType.CAMERA_PHOTO) {
-                        Log.i(TAG, "New " + imageType + " detected: " + displayName);
+    /**
+     * Check if a new image was added and determine its type
+     * FIXED: Skip our own censored images to prevent re-processing
+     */
+    private void checkNewImage(Uri uri) {
+        ImageRow image;
+        try (Cursor cursor = context.getContentResolver().query(uri, PROJECTION, null, null, null)) {
+            if (cursor == null || !cursor.moveToFirst()) {
+                ScrubberLog.w(TAG, "Could not query image details from URI: " + uri);
+                return;
+            }
+            image = new ImageRow(cursor, new Columns(cursor));
+        } catch (Exception e) {
+            ScrubberLog.e(TAG, "Error checking new image", e);
+            return;
+        }
+
+        // CRITICAL FIX: Skip our own censored images
+        if (isOurCensoredImage(image.displayName, image.filePath, image.bucketName, image.relativePath)) {
+            ScrubberLog.d(TAG, () -> "🚫 Ignoring our own censored image: " + image.displayName);
+            return;
+        }
+
+        // Check if this is a recent image
+        long currentTime = System.currentTimeMillis() / 1000; // MediaStore uses seconds
+        if (currentTime - image.dateAdded <= NEW_IMAGE_THRESHOLD_MS / 1000) {
 
-                        if (listener != null && filePath != null) {
-                            // Add slight delay to ensure file is fully written
-                            handler.postDelayed(() -> {
-                                listener.onNewImage(filePath, imageType);
-                            }, 1000);
+            ImageType imageType = determineImageType(image.displayName, image.filePath, image.bucketName, image.relativePath);
+
+            if ((imageType == ImageType.SCREENSHOT || imageType == ImageType.CAMERA_PHOTO) && isNewContent(image)) {
+                ScrubberLog.i(TAG, () -> "New " + imageType + " detected: " + image.displayName);
+
+                if (listener != null && image.filePath != null) {
+                    // Hand it on as soon as the file is fully written
+                    awaitComplete(image.filePath, () -> {
+                        if (markReported(image)) {
+                            handOn(image, imageType);
                         }
-                    }
+                    });
                 }
-            } else {
-                Log.w(TAG, "Could not query image details from URI: " + uri);
             }
+        }
+    }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error checking new image", e);
+    private void handOn(ImageRow image, ImageType imageType) {
+        boolean tracked = scanMarkLive;
+        if (tracked) {
+            liveInFlight.add(image.scanKey);
+        }
+        CompletableFuture<?> done;
+        try {
+            done = listener.onImage(image.filePath, imageType, image.dateAdded * 1000);
+        } catch (RuntimeException e) {
+            ScrubberLog.e(TAG, "Media listener failed", e);
+            done = null;
+        }
+        if (done == null) {
+            done = CompletableFuture.completedFuture(null);
+        }
+        done.whenComplete((result, error) -> handler.post(() -> liveImageDone(image, tracked, error)));
+    }
+
+    /**
+     * Move the scan mark up to the highest reported image below every one still in processing
+     */
+    private void liveImageDone(ImageRow image, boolean tracked, Throwable error) {
+        if (error != null) {
+            // Not processed: report it again when it comes up, and leave the mark below it for
+            // the next scan
+            ScrubberLog.w(TAG, "Not processed, left for the next scan: " + image.displayName);
+            deduplicator.forget(image.mediaId);
+            scanMarkLive = false;
+            liveInFlight.clear();
+            liveDoneMark = IncrementalScanner.NO_MARK;
+            return;
+        }
+        if (!tracked || !liveInFlight.remove(image.scanKey)) {
+            return;
+        }
+        liveDoneMark = Math.max(liveDoneMark, image.scanKey);
+        scanCheckpoint.advance(liveInFlight.isEmpty() ? liveDoneMark : Math.min(liveDoneMark, liveInFlight.first() - 1));
+    }
+
+    /**
+     * Positions of PROJECTION's columns, looked up once per cursor rather than once per row
+     */
+    private static final class Columns {
+        final int id;
+        final int displayName;
+        final int data;
+        final int dateAdded;
+        final int dateModified;
+        final int size;
+        // -1 before Android 10
+        final int pending;
+        final int bucketName;
+        final int relativePath;
+        final int width;
+        final int height;
+        final int scanKey;
+
+        Columns(Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow(MediaStore.Images.Media._ID);
+            displayName = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DISPLAY_NAME);
+            data = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DATA);
+            dateAdded = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DATE_ADDED);
+            dateModified = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DATE_MODIFIED);
+            size = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.SIZE);
+            pending = cursor.getColumnIndex(MediaStore.MediaColumns.IS_PENDING);
+            bucketName = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.BUCKET_DISPLAY_NAME);
+            relativePath = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.RELATIVE_PATH);
+            width = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.WIDTH);
+            height = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.HEIGHT);
+            scanKey = cursor.getColumnIndexOrThrow(SCAN_KEY);
+        }
+    }
+
+    /**
+     * One image's row, copied out of the cursor so the cursor can be closed (or moved on)
+     */
+    private static final class ImageRow {
+        final long mediaId;
+        final long scanKey;
+        final String displayName;
+        final String filePath;
+        final long dateAdded;
+        final long dateModified;
+        final long size;
+        // IS_PENDING is set while the owner is still writing the image (Android 10+)
+        final boolean pending;
+        final String bucketName;
+        final String relativePath;
+        // 0 when MediaStore doesn't know
+        final int width;
+        final int height;
+
+        ImageRow(Cursor cursor, Columns columns) {
+            mediaId = cursor.getLong(columns.id);
+            scanKey = cursor.getLong(columns.scanKey);
+            displayName = cursor.getString(columns.displayName);
+            filePath = cursor.getString(columns.data);
+            dateAdded = cursor.getLong(columns.dateAdded);
+            dateModified = cursor.getLong(columns.dateModified);
+            size = cursor.getLong(columns.size);
+            pending = columns.pending >= 0 && cursor.getInt(columns.pending) != 0;
+            bucketName = cursor.getString(columns.bucketName);
+            relativePath = cursor.getString(columns.relativePath);
+            width = cursor.getInt(columns.width);
+            height = cursor.getInt(columns.height);
         }
     }
 
@@ -200,11 +477,13 @@ public class MediaObserver {
         String lowerBucketName = bucketName.toLowerCase();
         String lowerRelativePath = relativePath.toLowerCase();
 
-        Log.d(TAG, "Analyzing image:");
-        Log.d(TAG, "  Display name: " + displayName);
-        Log.d(TAG, "  File path: " + filePath);
-        Log.d(TAG, "  Bucket name: " + bucketName);
-        Log.d(TAG, "  Relative path: " + relativePath);
+        if (ScrubberLog.isDebugEnabled()) {
+            ScrubberLog.d(TAG, "Analyzing image:");
+            ScrubberLog.d(TAG, "  Display name: " + displayName);
+            ScrubberLog.d(TAG, "  File path: " + filePath);
+            ScrubberLog.d(TAG, "  Bucket name: " + bucketName);
+            ScrubberLog.d(TAG, "  Relative path: " + relativePath);
+        }
 
         // Check for screenshot indicators
         if (isScreenshot(lowerDisplayName, lowerFilePath, lowerBucketName, lowerRelativePath)) {
@@ -261,11 +540,7 @@ public class MediaObserver {
      */
     private boolean isCameraPhoto(String displayName, String filePath, String bucketName, String relativePath) {
         // Camera name patterns
-        if (displayName.matches("img_\\d+.*") ||
-                displayName.matches("\\d{8}_\\d{6}.*") ||
-                displayName.matches("photo_\\d+.*") ||
-                displayName.matches("pxl_\\d+.*") ||  // Google Pixel
-                displayName.matches("\\d{4}-\\d{2}-\\d{2}.*") ||
+        if (CAMERA_NAME.matcher(displayName).matches() ||
                 displayName.startsWith("cam_") ||
                 displayName.startsWith("dsc_") ||
                 displayName.startsWith("dscn")) {
@@ -299,61 +574,311 @@ public class MediaObserver {
     }
 
     /**
-     * Get recent images for initial scan
+     * Report images added in the last limitHours that earlier scans haven't reported - after
+     * the first scan only images added since the last one are read, whatever the window.
+     * Returns at once; the scan runs on its own thread, a page at a time, and found images
+     * reach the listener there. The next page is only read once the listener's futures for
+     * this one are done. Ignored while a scan is already running.
      */
     public void scanRecentImages(int limitHours) {
-        try {
-            long cutoffTime = (System.currentTimeMillis() / 1000) - (limitHours * 3600);
-
-            String[] projection = {
-                    MediaStore.Images.Media._ID,
-                    MediaStore.Images.Media.DISPLAY_NAME,
-                    MediaStore.Images.Media.DATA,
-                    MediaStore.Images.Media.DATE_ADDED,
-                    MediaStore.Images.Media.BUCKET_DISPLAY_NAME,
-                    MediaStore.Images.Media.RELATIVE_PATH
-            };
+        if (!scanning.compareAndSet(false, true)) {
+            ScrubberLog.d(TAG, "Recent image scan already running");
+            return;
+        }
+        Thread scan = new Thread(() -> {
+            try {
+                scanRecent(limitHours);
+            } finally {
+                scanning.set(false);
+            }
+        }, "ScreenScrubber-RecentScan");
+        scan.setDaemon(true);
+        scan.setPriority(Thread.MIN_PRIORITY);
+        scan.start();
+    }
 
-            String selection = MediaStore.Images.Media.DATE_ADDED + " > ?";
-            String[] selectionArgs = {String.valueOf(cutoffTime)};
-            String sortOrder = MediaStore.Images.Media.DATE_ADDED + " DESC";
+    private void scanRecent(int limitHours) {
+        long cutoffTime = (System.currentTimeMillis() / 1000) - (limitHours * 3600L);
+        IncrementalScanner<ImageRow> scanner = new IncrementalScanner<>(
+                new MediaStorePages(MediaStore.Images.Media.DATE_ADDED + " > ?", new String[]{String.valueOf(cutoffTime)}),
+                scanCheckpoint, RECENT_SCAN_PAGE_SIZE);
 
-            Cursor cursor = context.getContentResolver().query(
-                    MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                    projection,
-                    selection,
-                    selectionArgs,
-                    sortOrder
-            );
+        IncrementalScanner.Result result = scanner.scan(image -> {
+            // Skip our own censored images
+            if (isOurCensoredImage(image.displayName, image.filePath, image.bucketName, image.relativePath)) {
+                return null;
+            }
+
+            ImageType imageType = determineImageType(image.displayName, image.filePath, image.bucketName, image.relativePath);
+            MediaListener current = listener;
+
+            if ((imageType == ImageType.SCREENSHOT || imageType == ImageType.CAMERA_PHOTO)
+                    && current != null && image.filePath != null && isNewContent(image) && markReported(image)) {
+                ScrubberLog.i(TAG, () -> "Found recent " + imageType + ": " + image.displayName);
+
+                CompletableFuture<?> done = current.onImage(image.filePath, imageType, image.dateAdded * 1000);
+                if (done != null) {
+                    // Dropped: found again by the next scan
+                    done.whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            deduplicator.forget(image.mediaId);
+                        }
+                    });
+                }
+                return done;
+            }
+            return null;
+        });
 
-            if (cursor != null) {
+        if (result.complete) {
+            handler.post(() -> scanMarkLive = true);
+        }
+        ScrubberLog.i(TAG, "Recent image scan: " + result);
+    }
+
+    /**
+     * Images past the scan mark that match selection, in SCAN_KEY order, one bounded query
+     * per page instead of one cursor over the whole window
+     */
+    private final class MediaStorePages implements IncrementalScanner.Source<ImageRow> {
+        private final String selection;
+        private final String[] selectionArgs;
+
+        MediaStorePages(String selection, String[] selectionArgs) {
+            this.selection = selection;
+            this.selectionArgs = selectionArgs != null ? selectionArgs : new String[0];
+        }
+
+        @Override
+        public List<ImageRow> page(long afterKey, int limit) {
+            String[] queryArgs = new String[selectionArgs.length + 1];
+            queryArgs[0] = String.valueOf(afterKey);
+            System.arraycopy(selectionArgs, 0, queryArgs, 1, selectionArgs.length);
+
+            Bundle args = new Bundle();
+            args.putString(ContentResolver.QUERY_ARG_SQL_SELECTION,
+                    SCAN_KEY + " > ?" + (selection != null ? " AND (" + selection + ")" : ""));
+            args.putStringArray(ContentResolver.QUERY_ARG_SQL_SELECTION_ARGS, queryArgs);
+            args.putString(ContentResolver.QUERY_ARG_SQL_SORT_ORDER, SCAN_KEY + " ASC");
+            args.putInt(ContentResolver.QUERY_ARG_LIMIT, limit);
+
+            List<ImageRow> rows = new ArrayList<>(limit);
+            try (Cursor cursor = context.getContentResolver().query(
+                    MediaStore.Images.Media.EXTERNAL_CONTENT_URI, PROJECTION, args, null)) {
+                if (cursor == null) {
+                    return rows;
+                }
+                Columns columns = new Columns(cursor);
                 while (cursor.moveToNext()) {
-                    String displayName = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DISPLAY_NAME));
-                    String filePath = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DATA));
-                    String bucketName = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Images.Media.BUCKET_DISPLAY_NAME));
-                    String relativePath = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Images.Media.RELATIVE_PATH));
-
-                    // Skip our own censored images
-                    if (isOurCensoredImage(displayName, filePath, bucketName, relativePath)) {
-                        continue;
-                    }
+                    rows.add(new ImageRow(cursor, columns));
+                }
+            }
+            return rows;
+        }
 
-                    ImageType imageType = determineImageType(displayName, filePath, bucketName, relativePath);
+        @Override
+        public long keyOf(ImageRow row) {
+            return row.scanKey;
+        }
+    }
 
-                    if (imageType == ImageType.SCREENSHOT || imageType == ImageType.CAMERA_PHOTO) {
-                        Log.i(TAG, "Found recent " + imageType + ": " + displayName);
+    /**
+     * A scan's high-water mark in SharedPreferences, under keys starting with prefix. A mark
+     * taken with another key column, or - for MediaStore keys - against another MediaStore
+     * version (the database was rebuilt), is ignored.
+     */
+    private static final class ScanCheckpoint implements IncrementalScanner.Checkpoint {
+        private final SharedPreferences prefs;
+        private final String markKey;
+        private final String columnKey;
+        private final String versionKey;
+        private final String column;
+        private final String version;
+
+        ScanCheckpoint(Context context, String prefix, String column, boolean mediaStoreKeys) {
+            this.prefs = context.getSharedPreferences(SCAN_PREFS, Context.MODE_PRIVATE);
+            this.markKey = prefix + "mark";
+            this.columnKey = prefix + "column";
+            this.versionKey = prefix + "version";
+            this.column = column;
+            this.version = mediaStoreKeys && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+                    ? MediaStore.getVersion(context) : "";
+        }
 
-                        if (listener != null && filePath != null) {
-                            listener.onNewImage(filePath, imageType);
-                        }
-                    }
+        @Override
+        public long load() {
+            if (!column.equals(prefs.getString(columnKey, null)) || !version.equals(prefs.getString(versionKey, null))) {
+                return IncrementalScanner.NO_MARK;
+            }
+            return prefs.getLong(markKey, IncrementalScanner.NO_MARK);
+        }
+
+        @Override
+        public void save(long key) {
+            prefs.edit()
+                    .putLong(markKey, key)
+                    .putString(columnKey, column)
+                    .putString(versionKey, version)
+                    .apply();
+        }
+
+        /**
+         * Move the mark forward to key, never back
+         */
+        void advance(long key) {
+            if (key > load()) {
+                save(key);
+            }
+        }
+    }
+
+    /**
+     * Every image matching selection (null for all) as a bulk scan source, in SCAN_KEY order.
+     * Our own censored copies and rows without a file path are left out in the query itself,
+     * so pages stay full.
+     */
+    IncrementalScanner.Source<BulkScanJob.Item> gallerySource(String selection, String[] selectionArgs) {
+        String notOurs = MediaStore.Images.Media.DATA + " IS NOT NULL"
+                + " AND " + MediaStore.Images.Media.DATA + " NOT LIKE ?"
+                + " AND " + MediaStore.Images.Media.DISPLAY_NAME + " NOT LIKE ? ESCAPE '\\'"
+                + " AND " + MediaStore.Images.Media.DISPLAY_NAME + " NOT LIKE ? ESCAPE '\\'";
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "%" + CENSORED_FOLDER + "%", "censored\\_screenshot\\_%", "censored\\_photo\\_%"));
+        if (selectionArgs != null) {
+            args.addAll(Arrays.asList(selectionArgs));
+        }
+        MediaStorePages rows = new MediaStorePages(
+                selection != null ? notOurs + " AND (" + selection + ")" : notOurs, args.toArray(new String[0]));
+
+        return new IncrementalScanner.Source<BulkScanJob.Item>() {
+            @Override
+            public List<BulkScanJob.Item> page(long afterKey, int limit) {
+                List<ImageRow> page = rows.page(afterKey, limit);
+                List<BulkScanJob.Item> items = new ArrayList<>(page.size());
+                for (ImageRow image : page) {
+                    ImageType type = determineImageType(image.displayName, image.filePath, image.bucketName, image.relativePath);
+                    items.add(new BulkScanJob.Item(image.filePath, type, image.scanKey,
+                            estimatedBytes(image.width, image.height)));
                 }
-                cursor.close();
+                return items;
             }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error scanning recent images", e);
+            @Override
+            public long keyOf(BulkScanJob.Item row) {
+                return row.key;
+            }
+        };
+    }
+
+    /**
+     * Every image file under directory, its subdirectories included, as a bulk scan source in
+     * last-modified order. The files are listed once, on the first page; files sharing a
+     * modification time always land in the same page, so none is skipped by the mark.
+     */
+    IncrementalScanner.Source<BulkScanJob.Item> directorySource(File directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        return new DirectoryPages(directory);
+    }
+
+    /**
+     * Checkpoint of bulk scan jobName, kept next to the recent-image scan's
+     */
+    IncrementalScanner.Checkpoint bulkCheckpoint(String jobName, boolean gallery) {
+        return new ScanCheckpoint(context, "bulk." + jobName + ".", gallery ? SCAN_KEY : FILE_KEY, gallery);
+    }
+
+    private final class DirectoryPages implements IncrementalScanner.Source<BulkScanJob.Item> {
+        private final File root;
+        // Sorted by last-modified time, then path
+        private List<File> files;
+        private long[] modified;
+
+        DirectoryPages(File root) {
+            this.root = root;
         }
+
+        @Override
+        public List<BulkScanJob.Item> page(long afterKey, int limit) {
+            if (files == null) {
+                list();
+            }
+            int start = 0;
+            while (start < files.size() && modified[start] <= afterKey) {
+                start++;
+            }
+            int end = Math.min(files.size(), start + limit);
+            while (end < files.size() && modified[end] == modified[end - 1]) {
+                end++;
+            }
+
+            List<BulkScanJob.Item> items = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                File file = files.get(i);
+                String parent = file.getParentFile() != null ? file.getParentFile().getName() : "";
+                ImageType type = determineImageType(file.getName(), file.getPath(), parent, "");
+
+                BitmapFactory.Options bounds = new BitmapFactory.Options();
+                bounds.inJustDecodeBounds = true;
+                BitmapFactory.decodeFile(file.getPath(), bounds);
+                items.add(new BulkScanJob.Item(file.getPath(), type, modified[i],
+                        estimatedBytes(bounds.outWidth, bounds.outHeight)));
+            }
+            return items;
+        }
+
+        @Override
+        public long keyOf(BulkScanJob.Item row) {
+            return row.key;
+        }
+
+        private void list() {
+            List<File> found = new ArrayList<>();
+            collect(root, found);
+            found.sort(Comparator.comparingLong(File::lastModified).thenComparing(File::getPath));
+            modified = new long[found.size()];
+            for (int i = 0; i < modified.length; i++) {
+                modified[i] = found.get(i).lastModified();
+            }
+            files = found;
+            ScrubberLog.i(TAG, () -> "Bulk scan of " + root + ": " + found.size() + " images");
+        }
+
+        private void collect(File directory, List<File> found) {
+            File[] children = directory.listFiles();
+            if (children == null) {
+                return;
+            }
+            for (File child : children) {
+                String name = child.getName();
+                if (name.startsWith(".") || name.equals(CENSORED_FOLDER)) {
+                    continue;
+                }
+                if (child.isDirectory()) {
+                    collect(child, found);
+                } else if (isImageFile(name) && !isOurCensoredImage(name, child.getPath(), directory.getName(), "")) {
+                    found.add(child);
+                }
+            }
+        }
+
+        private boolean isImageFile(String name) {
+            String lower = name.toLowerCase();
+            for (String extension : IMAGE_EXTENSIONS) {
+                if (lower.endsWith(extension)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Decoded ARGB_8888 image plus its censored copy; 0 (unknown) without dimensions
+     */
+    private static long estimatedBytes(int width, int height) {
+        return width > 0 && height > 0 ? (long) width * height * 4 * 2 : 0;
     }
 
     public boolean isMonitoring() {
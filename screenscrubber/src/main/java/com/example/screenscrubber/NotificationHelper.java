@@ -5,7 +5,6 @@ import android.app.NotificationManager;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.os.Build;
-import android.util.Log;
 import androidx.core.app.ActivityCompat;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
@@ -59,7 +58,7 @@ public class NotificationHelper {
      */
     public void showDetailedSensitiveDataAlert(List<SensitiveDataDetector.SensitiveMatch> matches, String imageType) {
         if (!hasNotificationPermission()) {
-            Log.w(TAG, "No notification permission - cannot show alert");
+            ScrubberLog.w(TAG, "No notification permission - cannot show alert");
             return;
         }
 
@@ -99,9 +98,9 @@ public class NotificationHelper {
 
         try {
             notificationManager.notify(NOTIFICATION_ID, builder.build());
-            Log.d(TAG, "Detailed sensitive data notification sent for " + imageType);
+            ScrubberLog.d(TAG, () -> "Detailed sensitive data notification sent for " + imageType);
         } catch (SecurityException e) {
-            Log.e(TAG, "Failed to show notification - permission denied", e);
+            ScrubberLog.e(TAG, "Failed to show notification - permission denied", e);
         }
     }
 
@@ -110,7 +109,7 @@ public class NotificationHelper {
      */
     public void showCleanImageNotification(String imageType) {
         if (!hasNotificationPermission()) {
-            Log.w(TAG, "No notification permission - cannot show clean image notification");
+            ScrubberLog.w(TAG, "No notification permission - cannot show clean image notification");
             return;
         }
 
@@ -126,9 +125,9 @@ public class NotificationHelper {
 
         try {
             notificationManager.notify(NOTIFICATION_ID, builder.build());
-            Log.d(TAG, "Clean " + imageType + " notification sent");
+            ScrubberLog.d(TAG, () -> "Clean " + imageType + " notification sent");
         } catch (SecurityException e) {
-            Log.e(TAG, "Failed to show notification - permission denied", e);
+            ScrubberLog.e(TAG, "Failed to show notification - permission denied", e);
         }
     }
 
@@ -137,7 +136,7 @@ public class NotificationHelper {
      */
     public void showErrorNotification(String errorMessage, String imageType) {
         if (!hasNotificationPermission()) {
-            Log.w(TAG, "No notification permission - cannot show error notification");
+            ScrubberLog.w(TAG, "No notification permission - cannot show error notification");
             return;
         }
 
@@ -155,9 +154,9 @@ public class NotificationHelper {
 
         try {
             notificationManager.notify(NOTIFICATION_ID + 3, builder.build());
-            Log.d(TAG, "Error notification sent");
+            ScrubberLog.d(TAG, "Error notification sent");
         } catch (SecurityException e) {
-            Log.e(TAG, "Failed to show error notification - permission denied", e);
+            ScrubberLog.e(TAG, "Failed to show error notification - permission denied", e);
         }
     }
 
@@ -167,9 +166,9 @@ public class NotificationHelper {
     public void clearAllNotifications() {
         try {
             notificationManager.cancelAll();
-            Log.d(TAG, "All notifications cleared");
+            ScrubberLog.d(TAG, "All notifications cleared");
         } catch (Exception e) {
-            Log.e(TAG, "Error clearing notifications", e);
+            ScrubberLog.e(TAG, "Error clearing notifications", e);
         }
     }
 
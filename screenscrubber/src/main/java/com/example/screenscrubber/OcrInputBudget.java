@@ -0,0 +1,69 @@
+package com.example.screenscrubber;
+
+import android.graphics.Bitmap;
+
+/**
+ * How large a bitmap TextRecognitionService hands to ML Kit.
+ * Images are subsampled (inSampleSize, powers of two) until the long edge fits maxLongEdge,
+ * but never below minShortEdge so small text stays readable. OCR boxes come back in the
+ * subsampled bitmap's pixels and are scaled back to the source image before censoring.
+ * Images still too tall after that are recognized in strips (see needsTiling).
+ */
+public final class OcrInputBudget {
+    public static final int DEFAULT_MAX_LONG_EDGE = 2560;
+    public static final int DEFAULT_MIN_SHORT_EDGE = 720;
+
+    public final int maxLongEdge;
+    public final int minShortEdge;
+    public final Bitmap.Config config;
+
+    public OcrInputBudget(int maxLongEdge, int minShortEdge, Bitmap.Config config) {
+        if (maxLongEdge <= 0 || minShortEdge <= 0) {
+            throw new IllegalArgumentException("OCR budget edges must be positive");
+        }
+        if (config == null) {
+            throw new IllegalArgumentException("OCR bitmap config cannot be null");
+        }
+        this.maxLongEdge = maxLongEdge;
+        this.minShortEdge = minShortEdge;
+        this.config = config;
+    }
+
+    /**
+     * 2560 px long edge, 720 px short edge floor, RGB_565 (half the memory of ARGB_8888,
+     * ML Kit doesn't need alpha)
+     */
+    public static OcrInputBudget defaults() {
+        return new OcrInputBudget(DEFAULT_MAX_LONG_EDGE, DEFAULT_MIN_SHORT_EDGE, Bitmap.Config.RGB_565);
+    }
+
+    public int sampleSizeFor(int width, int height) {
+        return sampleSizeFor(width, height, maxLongEdge, minShortEdge);
+    }
+
+    /**
+     * True if the image is taller than maxLongEdge even at the coarsest sample minShortEdge
+     * allows (long scrolling screenshots). Such images are recognized in horizontal strips of
+     * maxLongEdge rows (at that sample), so no OCR bitmap is larger than a single screen.
+     */
+    public boolean needsTiling(int width, int height) {
+        return height > width && height / sampleSizeFor(width, height) > maxLongEdge;
+    }
+
+    static int sampleSizeFor(int width, int height, int maxLongEdge, int minShortEdge) {
+        int longEdge = Math.max(width, height);
+        int shortEdge = Math.min(width, height);
+
+        int sampleSize = 1;
+        while (longEdge / sampleSize > maxLongEdge && shortEdge / (sampleSize * 2) >= minShortEdge) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OcrInputBudget{maxLongEdge=%d, minShortEdge=%d, config=%s}",
+                maxLongEdge, minShortEdge, config);
+    }
+}
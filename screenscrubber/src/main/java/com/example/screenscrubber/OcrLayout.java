@@ -0,0 +1,260 @@
+package com.example.screenscrubber;
+
+import android.graphics.Rect;
+
+/**
+ * Per-image index over the OCR result, built once from its OcrText.
+ * Every element is placed at its character offsets in getText(), in reading order, so the
+ * elements covering a [start, end) range are found with two binary searches instead of
+ * walking every block/line/element for each match, and a match's offsets project straight
+ * onto the characters it covers.
+ */
+final class OcrLayout {
+    private final String text;
+    private final int trimOffset;
+    private final float boxScale;
+    private int cursor;
+
+    private int elementCount;
+    private int[] elementStart = new int[64];
+    private int[] elementEnd = new int[64];
+    private int[] elementLine = new int[64];
+    private int[] left = new int[64];
+    private int[] top = new int[64];
+    private int[] right = new int[64];
+    private int[] bottom = new int[64];
+
+    private int lineCount;
+    private int[] lineFirstElement = new int[16];
+    private int[] lineEndElement = new int[16];
+
+    OcrLayout(String text) {
+        this(text, 1f);
+    }
+
+    /**
+     * boxScale converts the boxes passed to addElement into the pixels of the image being
+     * censored (OCR may have run on a subsampled copy)
+     */
+    OcrLayout(String text, float boxScale) {
+        this.text = text != null ? text : "";
+        this.boxScale = boxScale;
+
+        // SensitiveDataDetector reports offsets into text.trim()
+        int offset = 0;
+        while (offset < this.text.length() && this.text.charAt(offset) <= ' ') {
+            offset++;
+        }
+        this.trimOffset = offset;
+    }
+
+    /**
+     * boxScale converts the OcrText's source pixels into those of the bitmap being censored
+     */
+    static OcrLayout fromText(OcrText ocrText, float boxScale) {
+        OcrLayout layout = new OcrLayout(ocrText.getText(), boxScale);
+
+        for (OcrText.Line line : ocrText.getLines()) {
+            layout.beginLine();
+
+            for (OcrText.Element element : line.elements) {
+                if (element.hasBounds) {
+                    layout.addElement(element.text, element.left, element.top, element.right, element.bottom);
+                } else {
+                    // Nothing to draw, but keep the cursor moving past its text
+                    layout.locate(element.text);
+                }
+            }
+        }
+        return layout;
+    }
+
+    void beginLine() {
+        if (lineCount == lineFirstElement.length) {
+            lineFirstElement = grow(lineFirstElement);
+            lineEndElement = grow(lineEndElement);
+        }
+        lineFirstElement[lineCount] = elementCount;
+        lineEndElement[lineCount] = elementCount;
+        lineCount++;
+    }
+
+    /**
+     * Add the next element of the current line. Elements whose text can't be found after
+     * the previous element are dropped - they would break the sorted offsets.
+     */
+    boolean addElement(String elementText, int boxLeft, int boxTop, int boxRight, int boxBottom) {
+        if (lineCount == 0) beginLine();
+
+        int start = locate(elementText);
+        if (start < 0) return false;
+
+        if (elementCount == elementStart.length) {
+            elementStart = grow(elementStart);
+            elementEnd = grow(elementEnd);
+            elementLine = grow(elementLine);
+            left = grow(left);
+            top = grow(top);
+            right = grow(right);
+            bottom = grow(bottom);
+        }
+        elementStart[elementCount] = start;
+        elementEnd[elementCount] = start + elementText.length();
+        elementLine[elementCount] = lineCount - 1;
+        // Round outwards - a scaled box must still cover every source pixel of the element
+        left[elementCount] = (int) Math.floor(boxLeft * boxScale);
+        top[elementCount] = (int) Math.floor(boxTop * boxScale);
+        right[elementCount] = (int) Math.ceil(boxRight * boxScale);
+        bottom[elementCount] = (int) Math.ceil(boxBottom * boxScale);
+        elementCount++;
+        lineEndElement[lineCount - 1] = elementCount;
+        return true;
+    }
+
+    private int locate(String elementText) {
+        if (elementText.isEmpty()) return -1;
+
+        int start = text.indexOf(elementText, cursor);
+        if (start >= 0) {
+            cursor = start + elementText.length();
+        }
+        return start;
+    }
+
+    String getText() {
+        return text;
+    }
+
+    /**
+     * Offset of text.trim() in getText() - add it to SensitiveMatch offsets
+     */
+    int getTrimOffset() {
+        return trimOffset;
+    }
+
+    int getElementCount() {
+        return elementCount;
+    }
+
+    int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * First element that ends after offset, or getElementCount()
+     */
+    int firstElementEndingAfter(int offset) {
+        int low = 0;
+        int high = elementCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (elementEnd[mid] <= offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First element that starts at or after offset, or getElementCount()
+     */
+    int firstElementStartingAt(int offset) {
+        int low = 0;
+        int high = elementCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (elementStart[mid] < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Box of the characters of [start, end) that fall inside one element, assuming equal
+     * character widths (what OCR gives us). Fills box with left, top, right, bottom.
+     * Returns false if the range doesn't touch the element.
+     */
+    boolean projectRange(int element, int start, int end, int[] box) {
+        int from = Math.max(start, elementStart[element]) - elementStart[element];
+        int to = Math.min(end, elementEnd[element]) - elementStart[element];
+        if (from >= to) return false;
+
+        int length = elementEnd[element] - elementStart[element];
+        int width = right[element] - left[element];
+        float charWidth = width / (float) length;
+
+        // A little slack so neighbouring glyph edges are covered too (clamped to the element)
+        int padding = Math.max(2, (int) (charWidth * 0.3f));
+
+        box[0] = Math.max(left[element], left[element] + (int) (from * charWidth) - padding);
+        box[1] = top[element];
+        box[2] = Math.min(right[element], left[element] + (int) (to * charWidth) + padding);
+        box[3] = bottom[element];
+        return true;
+    }
+
+    int getElementStart(int element) {
+        return elementStart[element];
+    }
+
+    int getElementEnd(int element) {
+        return elementEnd[element];
+    }
+
+    int getElementLine(int element) {
+        return elementLine[element];
+    }
+
+    String getElementText(int element) {
+        return text.substring(elementStart[element], elementEnd[element]);
+    }
+
+    int getLeft(int element) {
+        return left[element];
+    }
+
+    int getTop(int element) {
+        return top[element];
+    }
+
+    int getRight(int element) {
+        return right[element];
+    }
+
+    int getBottom(int element) {
+        return bottom[element];
+    }
+
+    Rect getElementBounds(int element) {
+        return new Rect(left[element], top[element], right[element], bottom[element]);
+    }
+
+    int getLineFirstElement(int line) {
+        return lineFirstElement[line];
+    }
+
+    int getLineEndElement(int line) {
+        return lineEndElement[line];
+    }
+
+    /**
+     * Text of a line from its first to its last element, or null for a line without elements
+     */
+    String getLineText(int line) {
+        int first = lineFirstElement[line];
+        int end = lineEndElement[line];
+        if (first == end) return null;
+        return text.substring(elementStart[first], elementEnd[end - 1]);
+    }
+
+    private static int[] grow(int[] array) {
+        int[] grown = new int[array.length * 2];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.screenscrubber;
+
+import android.graphics.Rect;
+
+import com.google.mlkit.vision.text.Text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * OCR result in source-image pixels - what ScreenshotProcessor works from.
+ * Built from one ML Kit Text (scaled back from the OCR bitmap), or merged from the strips of
+ * a tiled recognition (see OcrTiling), which ML Kit's Text can't represent.
+ */
+public final class OcrText {
+    private final String text;
+    private final List<Line> lines;
+    private final int[] segmentStarts;
+
+    OcrText(String text, List<Line> lines) {
+        this(text, lines, new int[]{0});
+    }
+
+    private OcrText(String text, List<Line> lines, int[] segmentStarts) {
+        this.text = text != null ? text : "";
+        this.lines = Collections.unmodifiableList(lines);
+        this.segmentStarts = segmentStarts;
+    }
+
+    /**
+     * Lines joined with newlines, the way ML Kit joins them
+     */
+    static OcrText fromLines(List<Line> lines) {
+        return fromLines(lines, new int[]{0});
+    }
+
+    /**
+     * Lines joined with newlines, split into segments that begin at the given line indexes
+     * (ascending, the first one 0) - the strips of a tiled recognition
+     */
+    static OcrText fromLines(List<Line> lines, int[] segmentFirstLines) {
+        if (segmentFirstLines.length == 0 || segmentFirstLines[0] != 0) {
+            throw new IllegalArgumentException("The first segment must start at line 0");
+        }
+
+        StringBuilder text = new StringBuilder();
+        int[] segmentStarts = new int[segmentFirstLines.length];
+        int segment = 1;
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0) text.append('\n');
+            if (segment < segmentFirstLines.length && segmentFirstLines[segment] == i) {
+                segmentStarts[segment++] = text.length();
+            }
+            text.append(lines.get(i).text);
+        }
+        if (segment != segmentFirstLines.length) {
+            throw new IllegalArgumentException("Segments must start at ascending lines within the text");
+        }
+        return new OcrText(text.toString(), new ArrayList<>(lines), segmentStarts);
+    }
+
+    /**
+     * Convert an ML Kit result: boxes are multiplied by scale (OCR bitmap -> source pixels,
+     * rounded outwards) and moved down by offsetY (a strip's top in the source)
+     */
+    public static OcrText fromText(Text visionText, float scale, int offsetY) {
+        List<Line> lines = new ArrayList<>();
+
+        for (Text.TextBlock block : visionText.getTextBlocks()) {
+            if (block == null) continue;
+
+            for (Text.Line line : block.getLines()) {
+                if (line == null) continue;
+
+                List<Element> elements = new ArrayList<>();
+                for (Text.Element element : line.getElements()) {
+                    if (element == null || element.getText() == null) continue;
+
+                    Rect box = element.getBoundingBox();
+                    if (box != null) {
+                        elements.add(new Element(element.getText(),
+                                (int) Math.floor(box.left * scale), (int) Math.floor(box.top * scale) + offsetY,
+                                (int) Math.ceil(box.right * scale), (int) Math.ceil(box.bottom * scale) + offsetY));
+                    } else {
+                        // Nothing to draw, but it still occupies its place in the text
+                        elements.add(new Element(element.getText()));
+                    }
+                }
+                lines.add(new Line(line.getText() != null ? line.getText() : "", elements));
+            }
+        }
+        return new OcrText(visionText.getText(), lines);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    /**
+     * Offsets in getText() where each independently recognized segment begins, the first one 0;
+     * every later one follows a '\n'. A single recognition is one segment.
+     */
+    public int[] getSegmentStarts() {
+        return segmentStarts.clone();
+    }
+
+    public static final class Line {
+        public final String text;
+        public final List<Element> elements;
+        // Vertical extent of the elements with boxes; top > bottom if none have one
+        public final int top;
+        public final int bottom;
+
+        Line(String text, List<Element> elements) {
+            this.text = text;
+            this.elements = Collections.unmodifiableList(elements);
+
+            int lineTop = Integer.MAX_VALUE;
+            int lineBottom = Integer.MIN_VALUE;
+            for (Element element : elements) {
+                if (!element.hasBounds) continue;
+                lineTop = Math.min(lineTop, element.top);
+                lineBottom = Math.max(lineBottom, element.bottom);
+            }
+            this.top = lineTop;
+            this.bottom = lineBottom;
+        }
+
+        public boolean hasBounds() {
+            return top <= bottom;
+        }
+
+        @Override
+        public String toString() {
+            return "Line{'" + text + "' " + top + ".." + bottom + "}";
+        }
+    }
+
+    public static final class Element {
+        public final String text;
+        public final boolean hasBounds;
+        public final int left;
+        public final int top;
+        public final int right;
+        public final int bottom;
+
+        Element(String text, int left, int top, int right, int bottom) {
+            this.text = text;
+            this.hasBounds = true;
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+        }
+
+        Element(String text) {
+            this.text = text;
+            this.hasBounds = false;
+            this.left = 0;
+            this.top = 0;
+            this.right = 0;
+            this.bottom = 0;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.screenscrubber;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Strip layout for OCR of images too tall to recognize in one pass (long scrolling screenshots).
+ * Consecutive strips share OVERLAP rows so a text line cut by one strip's edge is whole in
+ * the next; when merging, each line is kept only by the strip that owns its vertical center
+ * (owned ranges meet in the middle of each overlap), so overlap lines appear once.
+ */
+final class OcrTiling {
+    // In OCR (decoded) pixels - several lines of text at screenshot sizes
+    static final int OVERLAP = 200;
+
+    private OcrTiling() {
+    }
+
+    /**
+     * Tops of the strips of stripHeight rows covering [0, height). The last strip is moved up
+     * to end at height, so it may overlap its neighbour by more than overlap.
+     */
+    static int[] stripTops(int height, int stripHeight, int overlap) {
+        if (stripHeight <= overlap || overlap < 0) {
+            throw new IllegalArgumentException("Strip height must exceed a non-negative overlap");
+        }
+        if (height <= stripHeight) {
+            return new int[]{0};
+        }
+
+        int step = stripHeight - overlap;
+        int count = 1 + (height - stripHeight + step - 1) / step;
+        int[] tops = new int[count];
+        for (int i = 0; i < count - 1; i++) {
+            tops[i] = i * step;
+        }
+        tops[count - 1] = height - stripHeight;
+        return tops;
+    }
+
+    /**
+     * Merge per-strip results (already in source pixels) into one OcrText, top strip first.
+     * Lines without a box can't be assigned to a strip and are dropped. Each strip that kept
+     * lines starts a segment of the result, so detection can scan the strips separately.
+     */
+    static OcrText merge(List<OcrText> strips, int[] tops, int stripHeight) {
+        if (strips.size() != tops.length) {
+            throw new IllegalArgumentException("Expected " + tops.length + " strips, got " + strips.size());
+        }
+
+        List<OcrText.Line> lines = new ArrayList<>();
+        int[] firstLines = new int[tops.length];
+        int segments = 1;
+        for (int i = 0; i < tops.length; i++) {
+            int from = i == 0 ? Integer.MIN_VALUE : ownershipBoundary(tops[i - 1], tops[i], stripHeight);
+            int to = i == tops.length - 1 ? Integer.MAX_VALUE : ownershipBoundary(tops[i], tops[i + 1], stripHeight);
+
+            int firstLine = lines.size();
+            for (OcrText.Line line : strips.get(i).getLines()) {
+                if (!line.hasBounds()) continue;
+
+                int center = (line.top + line.bottom) / 2;
+                if (center >= from && center < to) {
+                    lines.add(line);
+                }
+            }
+            // The first segment starts at line 0; strips that kept nothing don't start one
+            if (firstLine > 0 && lines.size() > firstLine) {
+                firstLines[segments++] = firstLine;
+            }
+        }
+        return OcrText.fromLines(lines, Arrays.copyOf(firstLines, segments));
+    }
+
+    /**
+     * Middle of the rows shared by the strips at top and nextTop
+     */
+    private static int ownershipBoundary(int top, int nextTop, int stripHeight) {
+        return (nextTop + top + stripHeight) / 2;
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.screenscrubber;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One stage of a StagedPipeline: its own queue, its own threads and a limit on how many items
+ * it works on at once. An item holds one of the concurrency slots until the future its step
+ * returns completes, so asynchronous work (ML Kit recognition) counts while it is in flight.
+ * Items wait in FIFO order; how many can wait is bounded by whoever admits items into the
+ * pipeline (ProcessingPool).
+ */
+public final class PipelineStage<T> {
+    private static final String TAG = "PipelineStage";
+
+    /**
+     * Work done in place on the stage's thread
+     */
+    public interface Step<T> {
+        T apply(T item) throws Exception;
+    }
+
+    /**
+     * Work that finishes later; continuations should run on executor (the stage's threads)
+     */
+    public interface AsyncStep<T> {
+        CompletableFuture<T> start(T item, Executor executor) throws Exception;
+    }
+
+    private final String name;
+    private final int concurrency;
+    private final AsyncStep<T> step;
+    private final ExecutorService executor;
+
+    // Guarded by this
+    private final ArrayDeque<Pending<T>> queue = new ArrayDeque<>();
+    private int active;
+    private int maxQueued;
+    private boolean shutdown;
+    private long submitted;
+    private long completed;
+    private long failed;
+    private long queueNanos;
+    private long serviceNanos;
+
+    private PipelineStage(String name, int concurrency, AsyncStep<T> step) {
+        if (name == null || step == null) {
+            throw new IllegalArgumentException("Stage name and step cannot be null");
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Stage concurrency must be positive");
+        }
+        this.name = name;
+        this.concurrency = concurrency;
+        this.step = step;
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "ScreenScrubber-" + name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static <T> PipelineStage<T> of(String name, int concurrency, Step<T> step) {
+        if (step == null) {
+            throw new IllegalArgumentException("Stage name and step cannot be null");
+        }
+        return new PipelineStage<>(name, concurrency, (item, executor) -> CompletableFuture.completedFuture(step.apply(item)));
+    }
+
+    public static <T> PipelineStage<T> async(String name, int concurrency, AsyncStep<T> step) {
+        return new PipelineStage<>(name, concurrency, step);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Queue item; the future completes with the step's result, or exceptionally with what it threw
+     */
+    public CompletableFuture<T> submit(T item) {
+        Pending<T> pending = new Pending<>(item);
+        synchronized (this) {
+            if (shutdown) {
+                pending.result.completeExceptionally(new RejectedExecutionException(name + " stage is shut down"));
+                return pending.result;
+            }
+            submitted++;
+            if (active < concurrency) {
+                active++;
+            } else {
+                queue.add(pending);
+                maxQueued = Math.max(maxQueued, queue.size());
+                return pending.result;
+            }
+        }
+        executor.execute(() -> run(pending));
+        return pending.result;
+    }
+
+    /**
+     * Finish the queued items, then stop the threads
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (active == 0) {
+            executor.shutdown();
+        }
+    }
+
+    public synchronized Stats getStats() {
+        long finished = completed + failed;
+        return new Stats(name, concurrency, submitted, completed, failed, active, queue.size(), maxQueued,
+                finished > 0 ? queueNanos / finished / 1_000_000 : 0,
+                finished > 0 ? serviceNanos / finished / 1_000_000 : 0);
+    }
+
+    public static final class Stats {
+        public final String name;
+        public final int concurrency;
+        public final long submitted;
+        public final long completed;
+        public final long failed;
+        public final int active;
+        public final int queued;
+        public final int maxQueued;
+        // Per finished item: waiting for a slot, and from start until its result was ready
+        public final long avgQueueMillis;
+        public final long avgServiceMillis;
+
+        Stats(String name, int concurrency, long submitted, long completed, long failed, int active, int queued,
+              int maxQueued, long avgQueueMillis, long avgServiceMillis) {
+            this.name = name;
+            this.concurrency = concurrency;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.failed = failed;
+            this.active = active;
+            this.queued = queued;
+            this.maxQueued = maxQueued;
+            this.avgQueueMillis = avgQueueMillis;
+            this.avgServiceMillis = avgServiceMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s{done=%d/%d, failed=%d, active=%d/%d, queued=%d (max %d), wait=%dms, service=%dms}",
+                    name, completed, submitted, failed, active, concurrency, queued, maxQueued, avgQueueMillis, avgServiceMillis);
+        }
+    }
+
+    private void run(Pending<T> pending) {
+        long started = System.nanoTime();
+        CompletableFuture<T> outcome;
+        try {
+            outcome = step.start(pending.item, executor);
+        } catch (Exception e) {
+            outcome = new CompletableFuture<>();
+            outcome.completeExceptionally(e);
+        }
+        if (outcome == null) {
+            outcome = CompletableFuture.completedFuture(pending.item);
+        }
+        outcome.whenComplete((result, error) -> finish(pending, started, result, error));
+    }
+
+    private void finish(Pending<T> pending, long started, T result, Throwable error) {
+        long now = System.nanoTime();
+        Pending<T> next;
+        synchronized (this) {
+            queueNanos += started - pending.enqueued;
+            serviceNanos += now - started;
+            if (error != null) {
+                failed++;
+            } else {
+                completed++;
+            }
+            next = queue.poll();
+            if (next == null) {
+                active--;
+                if (shutdown && active == 0) {
+                    executor.shutdown();
+                }
+            }
+        }
+        if (next != null) {
+            Pending<T> nextItem = next;
+            executor.execute(() -> run(nextItem));
+        }
+
+        // After the slot is handed on, so the next item starts before downstream work runs here
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            ScrubberLog.d(TAG, () -> name + " failed: " + cause);
+            pending.result.completeExceptionally(cause);
+        } else {
+            pending.result.complete(result);
+        }
+    }
+
+    private static final class Pending<T> {
+        final T item;
+        final long enqueued = System.nanoTime();
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Pending(T item) {
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package com.example.screenscrubber;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker pool for image jobs, keyed by image path.
+ * A job holds one of config.workers slots from the moment it starts until the future it
+ * returns completes, so work still in flight elsewhere (ML Kit recognition) counts against the
+ * limit. Up to config.queueCapacity jobs wait for a slot; a job whose key is already waiting is
+ * coalesced into it, and a full queue drops by config.overflowPolicy. Waiting jobs start in
+ * JobPriority order: the class holding the job with the earliest deadline goes next, and
+ * within it the most recently added image, first come first served among equals - unless one
+ * of its jobs has waited config.agingStepMs, in which case the longest-waiting one goes.
+ * A separate watchdog ends any job still unfinished config.timeoutMs after it started: the
+ * thread running its synchronous part is interrupted, its future cancelled and its slot freed.
+ */
+public final class ProcessingPool {
+    private static final String TAG = "ProcessingPool";
+
+    public interface Listener {
+        /**
+         * key was dropped from, or refused by, the full queue
+         */
+        void onDropped(String key);
+
+        /**
+         * key's job ran past the timeout and was abandoned
+         */
+        void onTimedOut(String key);
+    }
+
+    /**
+     * A job that finishes asynchronously. start runs on a pool thread; stages should continue
+     * on the given executor (the pool's threads). The job is done when the returned future
+     * completes - and is cancelled through it on timeout.
+     */
+    public interface AsyncJob {
+        CompletableFuture<?> start(Executor stages);
+    }
+
+    private final ProcessingPoolConfig config;
+    private final Listener listener;
+    private final ExecutorService threads;
+    private final ScheduledExecutorService watchdog;
+
+    // Guarded by this
+    private final List<Job> queue = new ArrayList<>();
+    private final Set<String> queuedKeys = new HashSet<>();
+    private final Set<Job> running = new HashSet<>();
+    private boolean shutdown;
+    private long submitted;
+    private long coalesced;
+    private long dropped;
+    private long timedOut;
+    private long completed;
+    // Per ImageType ordinal: jobs started and their total wait for a slot
+    private final long[] startedByType = new long[MediaObserver.ImageType.values().length];
+    private final long[] waitMillisByType = new long[MediaObserver.ImageType.values().length];
+
+    public ProcessingPool(ProcessingPoolConfig config, Listener listener) {
+        if (config == null) {
+            throw new IllegalArgumentException("Processing pool config cannot be null");
+        }
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        this.config = config;
+        this.listener = listener;
+        this.threads = Executors.newFixedThreadPool(config.workers, daemonThreads("ScreenScrubber-Processing-"));
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(daemonThreads("ScreenScrubber-Watchdog-"));
+    }
+
+    /**
+     * Queue work that is done when it returns
+     */
+    public boolean submit(String key, Runnable work) {
+        return submit(key, JobPriority.DEFAULT, work);
+    }
+
+    public boolean submit(String key, JobPriority priority, Runnable work) {
+        if (work == null) {
+            throw new IllegalArgumentException("Key and work cannot be null");
+        }
+        return submit(key, priority, stages -> {
+            work.run();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    public boolean submit(String key, AsyncJob job) {
+        return submit(key, JobPriority.DEFAULT, job);
+    }
+
+    /**
+     * Queue job for key. Returns false if it was coalesced into a queued job for the same
+     * key, refused by a full queue (DROP_NEWEST) or the pool is shut down.
+     */
+    public boolean submit(String key, JobPriority priority, AsyncJob job) {
+        if (key == null || priority == null || job == null) {
+            throw new IllegalArgumentException("Key, priority and work cannot be null");
+        }
+
+        Job toStart = null;
+        Job toDrop = null;
+        boolean accepted = true;
+        synchronized (this) {
+            if (shutdown) {
+                ScrubberLog.w(TAG, "Pool is shut down, not processing " + key);
+                return false;
+            }
+            if (queuedKeys.contains(key)) {
+                coalesced++;
+                ScrubberLog.d(TAG, () -> "🔁 Already queued, coalesced: " + key);
+                return false;
+            }
+
+            Job newJob = new Job(key, priority, job, submitted++);
+            if (running.size() < config.workers) {
+                markStarted(newJob);
+                toStart = newJob;
+            } else if (queue.size() < config.queueCapacity) {
+                enqueue(newJob);
+            } else if (config.overflowPolicy == ProcessingPoolConfig.OverflowPolicy.DROP_OLDEST) {
+                toDrop = evictionCandidate();
+                queue.remove(toDrop);
+                queuedKeys.remove(toDrop.key);
+                dropped++;
+                enqueue(newJob);
+            } else {
+                toDrop = newJob;
+                dropped++;
+                accepted = false;
+            }
+        }
+
+        if (toDrop != null) {
+            ScrubberLog.w(TAG, "Queue full, dropped " + toDrop.key);
+            listener.onDropped(toDrop.key);
+        }
+        if (toStart != null) {
+            threads.execute(toStart::start);
+        }
+        return accepted;
+    }
+
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Stop taking jobs; queued ones still run
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        notifyAll();
+    }
+
+    /**
+     * Wait until every queued and running job has finished, then stop the threads
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (!(shutdown && running.isEmpty() && queue.isEmpty())) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(remaining);
+            }
+        }
+        threads.shutdown();
+        watchdog.shutdownNow();
+        return true;
+    }
+
+    /**
+     * Discard queued jobs and cancel running ones
+     */
+    public void shutdownNow() {
+        List<Job> cancelled;
+        synchronized (this) {
+            shutdown = true;
+            queue.clear();
+            queuedKeys.clear();
+            cancelled = new ArrayList<>(running);
+            running.clear();
+            notifyAll();
+        }
+        for (Job job : cancelled) {
+            job.cancel();
+        }
+        threads.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    public synchronized Stats getStats() {
+        Map<MediaObserver.ImageType, Long> avgWait = new EnumMap<>(MediaObserver.ImageType.class);
+        for (MediaObserver.ImageType type : MediaObserver.ImageType.values()) {
+            int i = type.ordinal();
+            if (startedByType[i] > 0) {
+                avgWait.put(type, waitMillisByType[i] / startedByType[i]);
+            }
+        }
+        return new Stats(submitted, coalesced, dropped, timedOut, completed, running.size(), queue.size(), config.workers,
+                Collections.unmodifiableMap(avgWait));
+    }
+
+    public static final class Stats {
+        public final long submitted;
+        public final long coalesced;
+        public final long dropped;
+        public final long timedOut;
+        public final long completed;
+        // Jobs holding a slot, including those waiting on OCR
+        public final int active;
+        public final int queued;
+        public final int workers;
+        // Mean wait for a slot per image type, for the types that have started any jobs
+        public final Map<MediaObserver.ImageType, Long> avgWaitMillis;
+
+        Stats(long submitted, long coalesced, long dropped, long timedOut, long completed,
+              int active, int queued, int workers, Map<MediaObserver.ImageType, Long> avgWaitMillis) {
+            this.submitted = submitted;
+            this.coalesced = coalesced;
+            this.dropped = dropped;
+            this.timedOut = timedOut;
+            this.completed = completed;
+            this.active = active;
+            this.queued = queued;
+            this.workers = workers;
+            this.avgWaitMillis = avgWaitMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ProcessingPool{submitted=%d, coalesced=%d, dropped=%d, timedOut=%d, completed=%d, " +
+                    "active=%d/%d, queued=%d, wait=%s}", submitted, coalesced, dropped, timedOut, completed, active, workers,
+                    queued, avgWaitMillis);
+        }
+    }
+
+    private void enqueue(Job job) {
+        queue.add(job);
+        queuedKeys.add(job.key);
+    }
+
+    /**
+     * For DROP_OLDEST: the longest-waiting job of the lowest class in the queue
+     */
+    private Job evictionCandidate() {
+        Job candidate = null;
+        for (Job job : queue) {
+            if (candidate == null || job.rank > candidate.rank
+                    || (job.rank == candidate.rank && job.sequence < candidate.sequence)) {
+                candidate = job;
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * Take the next job to start off the queue, or null. The earliest deadline picks the
+     * class - aging is how long its longest-waiting job has waited - and the class starts its
+     * newest image, so a backlog is worked through newest first whatever order it came in.
+     * Recency only counts among jobs that have waited less than one aging step: once one has
+     * waited longer, the class starts its longest-waiting job, so a stream of new images can't
+     * starve an older one. The queue is bounded by config.queueCapacity, so scanning it is cheap.
+     */
+    private Job nextQueued() {
+        Job due = null;
+        for (Job job : queue) {
+            if (due == null || job.deadline < due.deadline
+                    || (job.deadline == due.deadline && job.sequence < due.sequence)) {
+                due = job;
+            }
+        }
+        if (due == null) {
+            return null;
+        }
+
+        // Within a class the earliest deadline is the longest wait
+        if (now() - due.enqueuedAt >= config.agingStepMs) {
+            queue.remove(due);
+            return due;
+        }
+
+        Job next = due;
+        for (Job job : queue) {
+            if (job.rank != due.rank) {
+                continue;
+            }
+            long newer = job.priority.dateAddedMillis - next.priority.dateAddedMillis;
+            if (newer > 0 || (newer == 0 && job.sequence < next.sequence)) {
+                next = job;
+            }
+        }
+        queue.remove(next);
+        return next;
+    }
+
+    private void markStarted(Job job) {
+        running.add(job);
+        int type = job.priority.imageType.ordinal();
+        startedByType[type]++;
+        waitMillisByType[type] += now() - job.enqueuedAt;
+    }
+
+    private static long now() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    /**
+     * Free job's slot and start the next queued job in it
+     */
+    private void release(Job job, boolean timedOutJob) {
+        Job next = null;
+        synchronized (this) {
+            if (!running.remove(job)) {
+                // Already released by shutdownNow
+                return;
+            }
+            if (timedOutJob) {
+                timedOut++;
+            } else {
+                completed++;
+            }
+            next = nextQueued();
+            if (next != null) {
+                queuedKeys.remove(next.key);
+                markStarted(next);
+            }
+            notifyAll();
+        }
+        if (next != null) {
+            threads.execute(next::start);
+        }
+    }
+
+    /**
+     * One keyed job; the watchdog and the job agree under lock whether it finished in time
+     */
+    private final class Job {
+        final String key;
+        final JobPriority priority;
+        final AsyncJob body;
+        final long sequence;
+        final long enqueuedAt = now();
+        final int rank;
+        final long deadline;
+
+        private final Object lock = new Object();
+        private boolean finished;
+        private Thread startingThread;
+        private CompletableFuture<?> outcome;
+        private volatile ScheduledFuture<?> timer;
+
+        Job(String key, JobPriority priority, AsyncJob body, long sequence) {
+            this.key = key;
+            this.priority = priority;
+            this.body = body;
+            this.sequence = sequence;
+            this.rank = priority.rank();
+            this.deadline = priority.deadline(enqueuedAt, config.agingStepMs);
+        }
+
+        void start() {
+            synchronized (lock) {
+                if (finished) return;
+                startingThread = Thread.currentThread();
+            }
+            timer = watchdog.schedule(this::timeOut, config.timeoutMs, TimeUnit.MILLISECONDS);
+
+            CompletableFuture<?> future;
+            try {
+                future = body.start(threads);
+            } catch (RuntimeException e) {
+                ScrubberLog.e(TAG, "Processing failed for " + key, e);
+                future = CompletableFuture.completedFuture(null);
+            } finally {
+                synchronized (lock) {
+                    startingThread = null;
+                }
+                // Any interrupt from the watchdog was delivered inside the lock - don't let
+                // it leak into the next task on this thread
+                Thread.interrupted();
+            }
+
+            boolean abandoned;
+            synchronized (lock) {
+                outcome = future;
+                abandoned = finished;
+            }
+            if (abandoned) {
+                future.cancel(true);
+                return;
+            }
+            future.whenComplete((result, error) -> finish());
+        }
+
+        private void finish() {
+            synchronized (lock) {
+                if (finished) return;
+                finished = true;
+            }
+            ScheduledFuture<?> pending = timer;
+            if (pending != null) pending.cancel(false);
+            release(this, false);
+        }
+
+        private void timeOut() {
+            CompletableFuture<?> future;
+            synchronized (lock) {
+                if (finished) return;
+                finished = true;
+                if (startingThread != null) startingThread.interrupt();
+                future = outcome;
+            }
+            if (future != null) future.cancel(true);
+
+            release(this, true);
+            ScrubberLog.e(TAG, "Processing timed out after " + config.timeoutMs + "ms: " + key);
+            listener.onTimedOut(key);
+        }
+
+        void cancel() {
+            CompletableFuture<?> future;
+            synchronized (lock) {
+                finished = true;
+                future = outcome;
+            }
+            if (future != null) future.cancel(true);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String namePrefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, namePrefix + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.screenscrubber;
+
+/**
+ * How many images ScreenScrubberManager processes at once, how many may wait, and for how long
+ * one may run. Workers are bounded by cores and by how many jobs' bitmaps fit in a share of
+ * the heap; when the queue is full the overflow policy decides which image is dropped.
+ * Waiting images run by JobPriority; agingStepMs is how long a lower class waits before it
+ * outranks a newly queued image of the class above.
+ */
+public final class ProcessingPoolConfig {
+    public static final int MAX_WORKERS = 4;
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+    public static final long DEFAULT_TIMEOUT_MS = 30000;
+    public static final long DEFAULT_AGING_STEP_MS = 10000;
+    // Full-resolution censor output of a ~8 MP photo plus its OCR bitmap
+    public static final long DEFAULT_JOB_BYTES = 40L * 1024 * 1024;
+
+    public enum OverflowPolicy {
+        // Keep the newest images - a burst is most likely still being looked at. Evicts the
+        // oldest queued image of the lowest priority class.
+        DROP_OLDEST,
+        // Keep what was queued first and refuse new images
+        DROP_NEWEST
+    }
+
+    public final int workers;
+    public final int queueCapacity;
+    public final long timeoutMs;
+    public final OverflowPolicy overflowPolicy;
+    public final long agingStepMs;
+
+    public ProcessingPoolConfig(int workers, int queueCapacity, long timeoutMs, OverflowPolicy overflowPolicy) {
+        this(workers, queueCapacity, timeoutMs, overflowPolicy, DEFAULT_AGING_STEP_MS);
+    }
+
+    public ProcessingPoolConfig(int workers, int queueCapacity, long timeoutMs, OverflowPolicy overflowPolicy,
+                                long agingStepMs) {
+        if (workers <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Workers and queue capacity must be positive");
+        }
+        if (timeoutMs <= 0 || agingStepMs <= 0) {
+            throw new IllegalArgumentException("Processing timeout and aging step must be positive");
+        }
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Overflow policy cannot be null");
+        }
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMs = timeoutMs;
+        this.overflowPolicy = overflowPolicy;
+        this.agingStepMs = agingStepMs;
+    }
+
+    /**
+     * Sized for this process: see forDevice
+     */
+    public static ProcessingPoolConfig defaults() {
+        return forDevice(Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory());
+    }
+
+    /**
+     * One worker per core but one (left for the UI), at most MAX_WORKERS, and no more than
+     * DEFAULT_JOB_BYTES jobs fit in a quarter of maxHeapBytes - never fewer than one
+     */
+    public static ProcessingPoolConfig forDevice(int cores, long maxHeapBytes) {
+        int byCores = cores - 1;
+        long byMemory = maxHeapBytes / 4 / DEFAULT_JOB_BYTES;
+        int workers = (int) Math.max(1, Math.min(MAX_WORKERS, Math.min(byCores, byMemory)));
+        return new ProcessingPoolConfig(workers, DEFAULT_QUEUE_CAPACITY, DEFAULT_TIMEOUT_MS, OverflowPolicy.DROP_OLDEST);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ProcessingPoolConfig{workers=%d, queueCapacity=%d, timeoutMs=%d, overflow=%s, agingStepMs=%d}",
+                workers, queueCapacity, timeoutMs, overflowPolicy, agingStepMs);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.screenscrubber;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Base class for the common case: one regex per type plus a validator.
+ * Subclasses only implement accept() - span iteration, matcher reuse and match creation live here.
+ */
+public abstract class RegexTypeDetector implements SensitiveTypeDetector {
+    private static final String TAG = "SensitiveDataDetector";
+
+    private final String type;
+    private final Pattern pattern;
+    private final int minDigits;
+    private final double confidence;
+
+    protected RegexTypeDetector(String type, Pattern pattern, int minDigits, double confidence) {
+        if (type == null || pattern == null) {
+            throw new IllegalArgumentException("Type and pattern cannot be null");
+        }
+        this.type = type;
+        this.pattern = pattern;
+        this.minDigits = minDigits;
+        this.confidence = confidence;
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public CandidateKind getCandidateKind() {
+        return CandidateKind.NUMERIC;
+    }
+
+    @Override
+    public int getMinDigits() {
+        return minDigits;
+    }
+
+    @Override
+    public void detect(DetectionContext context, int spanStart, int spanEnd) {
+        Matcher matcher = context.matcher(pattern);
+        matcher.region(spanStart, spanEnd);
+
+        while (matcher.find()) {
+            int start = matcher.start();
+            int end = matcher.end();
+            if (accept(context, start, end)) {
+                String value = context.getText().substring(start, end);
+                context.addMatch(new SensitiveDataDetector.SensitiveMatch(type, value, start, end,
+                        confidenceFor(context, start, end)));
+                if (ScrubberLog.isDebugEnabled()) {
+                    ScrubberLog.d(TAG, "✅ " + type + " confirmed: " + SensitiveDataDetector.maskValue(value, type));
+                }
+            }
+        }
+    }
+
+    /**
+     * Validate the regex match at [start, end) of context.getText()
+     */
+    protected abstract boolean accept(DetectionContext context, int start, int end);
+
+    /**
+     * Confidence for an accepted match - the constructor value unless a subclass knows better
+     */
+    protected double confidenceFor(DetectionContext context, int start, int end) {
+        return confidence;
+    }
+}
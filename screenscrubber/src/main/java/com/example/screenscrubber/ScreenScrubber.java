@@ -1,7 +1,9 @@
 package com.example.screenscrubber;
 
 import android.content.Context;
-import android.util.Log;
+
+import java.io.File;
+import java.util.List;
 
 /**
  * Simplified ScreenScrubber API - removed statistics, testing, and scan recent features
@@ -16,14 +18,57 @@ public class ScreenScrubber {
     private Context context;
 
     public ScreenScrubber(Context context) {
+        this(context, DetectionPlan.builtIns());
+    }
+
+    /**
+     * Use a custom detection plan, e.g. built-ins plus IBAN or internal account formats
+     * (see SensitiveDetectorRegistry)
+     */
+    public ScreenScrubber(Context context, DetectionPlan detectionPlan) {
+        this(context, detectionPlan, OcrInputBudget.defaults());
+    }
+
+    /**
+     * Also set how large a bitmap OCR runs on (see OcrInputBudget)
+     */
+    public ScreenScrubber(Context context, DetectionPlan detectionPlan, OcrInputBudget ocrBudget) {
+        this(context, detectionPlan, ocrBudget, BitmapPool.withDefaultBudget());
+    }
+
+    /**
+     * Also set the bitmap pool decodes reuse (new BitmapPool(bytes); 0 bytes disables pooling)
+     */
+    public ScreenScrubber(Context context, DetectionPlan detectionPlan, OcrInputBudget ocrBudget,
+                          BitmapPool bitmapPool) {
+        this(context, detectionPlan, ocrBudget, bitmapPool, ProcessingPoolConfig.defaults());
+    }
+
+    /**
+     * Also set how many images are processed at once and queued (see ProcessingPoolConfig)
+     */
+    public ScreenScrubber(Context context, DetectionPlan detectionPlan, OcrInputBudget ocrBudget,
+                          BitmapPool bitmapPool, ProcessingPoolConfig poolConfig) {
         if (context == null) {
             throw new IllegalArgumentException("Context cannot be null");
         }
+        if (detectionPlan == null) {
+            throw new IllegalArgumentException("Detection plan cannot be null");
+        }
+        if (ocrBudget == null) {
+            throw new IllegalArgumentException("OCR budget cannot be null");
+        }
+        if (bitmapPool == null) {
+            throw new IllegalArgumentException("Bitmap pool cannot be null");
+        }
+        if (poolConfig == null) {
+            throw new IllegalArgumentException("Processing pool config cannot be null");
+        }
 
         this.context = context.getApplicationContext();
-        this.manager = new ScreenScrubberManager(this.context);
+        this.manager = new ScreenScrubberManager(this.context, detectionPlan, ocrBudget, bitmapPool, poolConfig);
 
-        Log.d(TAG, "ScreenScrubber initialized");
+        ScrubberLog.d(TAG, "ScreenScrubber initialized");
     }
 
     /**
@@ -38,17 +83,17 @@ public class ScreenScrubber {
      */
     public boolean start(boolean screenshots, boolean photos) {
         if (isActive) {
-            Log.w(TAG, "ScreenScrubber already active");
+            ScrubberLog.w(TAG, "ScreenScrubber already active");
             return true;
         }
 
         if (!isHealthy()) {
-            Log.e(TAG, "ScreenScrubber is not healthy, cannot start");
+            ScrubberLog.e(TAG, "ScreenScrubber is not healthy, cannot start");
             return false;
         }
 
         if (!screenshots && !photos) {
-            Log.e(TAG, "At least one monitoring type must be enabled");
+            ScrubberLog.e(TAG, "At least one monitoring type must be enabled");
             return false;
         }
 
@@ -58,10 +103,10 @@ public class ScreenScrubber {
             monitoringScreenshots = screenshots;
             monitoringPhotos = photos;
 
-            Log.i(TAG, "ScreenScrubber started - Screenshots: " + screenshots + ", Photos: " + photos);
+            ScrubberLog.i(TAG, () -> "ScreenScrubber started - Screenshots: " + screenshots + ", Photos: " + photos);
             return true;
         } catch (Exception e) {
-            Log.e(TAG, "Failed to start ScreenScrubber", e);
+            ScrubberLog.e(TAG, "Failed to start ScreenScrubber", e);
             return false;
         }
     }
@@ -71,7 +116,7 @@ public class ScreenScrubber {
      */
     public void stop() {
         if (!isActive) {
-            Log.d(TAG, "ScreenScrubber already inactive");
+            ScrubberLog.d(TAG, "ScreenScrubber already inactive");
             return;
         }
 
@@ -80,9 +125,9 @@ public class ScreenScrubber {
             isActive = false;
             monitoringScreenshots = false;
             monitoringPhotos = false;
-            Log.i(TAG, "ScreenScrubber protection stopped");
+            ScrubberLog.i(TAG, "ScreenScrubber protection stopped");
         } catch (Exception e) {
-            Log.e(TAG, "Error stopping ScreenScrubber", e);
+            ScrubberLog.e(TAG, "Error stopping ScreenScrubber", e);
             isActive = false;
             monitoringScreenshots = false;
             monitoringPhotos = false;
@@ -94,12 +139,12 @@ public class ScreenScrubber {
      */
     public void updateMonitoringOptions(boolean screenshots, boolean photos) {
         if (!isActive) {
-            Log.w(TAG, "ScreenScrubber not active, cannot update monitoring options");
+            ScrubberLog.w(TAG, "ScreenScrubber not active, cannot update monitoring options");
             return;
         }
 
         if (!screenshots && !photos) {
-            Log.e(TAG, "At least one monitoring type must be enabled");
+            ScrubberLog.e(TAG, "At least one monitoring type must be enabled");
             return;
         }
 
@@ -107,9 +152,9 @@ public class ScreenScrubber {
             manager.setMonitoringOptions(screenshots, photos);
             monitoringScreenshots = screenshots;
             monitoringPhotos = photos;
-            Log.i(TAG, "Monitoring options updated - Screenshots: " + screenshots + ", Photos: " + photos);
+            ScrubberLog.i(TAG, () -> "Monitoring options updated - Screenshots: " + screenshots + ", Photos: " + photos);
         } catch (Exception e) {
-            Log.e(TAG, "Error updating monitoring options", e);
+            ScrubberLog.e(TAG, "Error updating monitoring options", e);
         }
     }
 
@@ -153,11 +198,97 @@ public class ScreenScrubber {
         );
     }
 
+    /**
+     * Throw instead of logging when decoding, censoring or encoding is called on the main
+     * thread. On by default when the app is debuggable.
+     */
+    public void setStrictThreadChecks(boolean strict) {
+        MainThreadCheck.setStrict(strict);
+    }
+
+    /**
+     * Tell the scrubber which images are urgent, e.g. screenshots while a sensitive screen of
+     * the host app is showing. Urgent images skip ahead of a backlog; null removes the hint.
+     */
+    public void setUrgencyHint(JobPriority.UrgencyHint hint) {
+        manager.setUrgencyHint(hint);
+    }
+
+    /**
+     * Bitmap pool hit/miss counters, for tuning its byte budget
+     */
+    public BitmapPool.Stats getBitmapPoolStats() {
+        return manager.getBitmapPoolStats();
+    }
+
+    /**
+     * Queue and worker counters: coalesced, dropped and timed-out images, and how long each
+     * image type waits in the queue
+     */
+    public ProcessingPool.Stats getProcessingStats() {
+        return manager.getProcessingStats();
+    }
+
+    /**
+     * Per-stage counters (ingest, OCR, detect, censor, persist): queue waits and service times
+     */
+    public List<PipelineStage.Stats> getPipelineStats() {
+        return manager.getPipelineStats();
+    }
+
+    /**
+     * MediaStore change events received versus images handed on for processing
+     */
+    public MediaEventDeduplicator.Stats getMediaEventStats() {
+        return manager.getMediaEventStats();
+    }
+
+    /**
+     * How long new images took to be completely written before processing could start
+     */
+    public FileReadiness.Stats getReadinessStats() {
+        return manager.getReadinessStats();
+    }
+
+    /**
+     * Scrub the existing gallery: every MediaStore image matching selection (a SQL WHERE over
+     * MediaStore.Images columns with ? placeholders, or null for all of them). Call start()
+     * on the returned job; results and the final summary reach listener on the main thread.
+     * Progress is checkpointed under jobName, so a job of the same name - also after a
+     * restart - resumes where the last one stopped and later only sees images added since.
+     */
+    public BulkScanJob newGalleryScan(String jobName, String selection, String[] selectionArgs,
+                                      BulkScanConfig config, BulkScanJob.Listener listener) {
+        requireBulkScanArgs(jobName, config, listener);
+        return manager.newGalleryScan(jobName, selection, selectionArgs, config, listener);
+    }
+
+    /**
+     * Like newGalleryScan, for the image files under directory and its subdirectories
+     */
+    public BulkScanJob newDirectoryScan(String jobName, File directory, BulkScanConfig config,
+                                        BulkScanJob.Listener listener) {
+        requireBulkScanArgs(jobName, config, listener);
+        if (directory == null || !directory.isDirectory()) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        return manager.newDirectoryScan(jobName, directory, config, listener);
+    }
+
+    private static void requireBulkScanArgs(String jobName, BulkScanConfig config, BulkScanJob.Listener listener) {
+        if (jobName == null || jobName.isEmpty()) {
+            throw new IllegalArgumentException("Job name cannot be empty");
+        }
+        if (config == null || listener == null) {
+            throw new IllegalArgumentException("Config and listener cannot be null");
+        }
+    }
+
     /**
      * Cleanup resources - MUST call in onDestroy()
      */
     public void cleanup() {
-        Log.d(TAG, "Starting ScreenScrubber cleanup");
+        ScrubberLog.d(TAG, "Starting ScreenScrubber cleanup");
 
         try {
             stop();
@@ -165,12 +296,12 @@ public class ScreenScrubber {
                 manager.cleanup();
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error during ScreenScrubber cleanup", e);
+            ScrubberLog.e(TAG, "Error during ScreenScrubber cleanup", e);
         } finally {
             isActive = false;
             monitoringScreenshots = false;
             monitoringPhotos = false;
-            Log.d(TAG, "ScreenScrubber cleanup finished");
+            ScrubberLog.d(TAG, "ScreenScrubber cleanup finished");
         }
     }
 
@@ -196,6 +327,14 @@ public class ScreenScrubber {
         }
     }
 
+    /**
+     * Set the minimum log level for the whole library (android.util.Log.DEBUG, INFO, ...).
+     * Debug output is off unless log.tag.ScreenScrubber is DEBUG or this is called.
+     */
+    public static void setLogLevel(int level) {
+        ScrubberLog.setLevel(level);
+    }
+
     /**
      * Get library version info
      */
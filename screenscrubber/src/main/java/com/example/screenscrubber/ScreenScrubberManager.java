@@ -1,21 +1,35 @@
 package com.example.screenscrubber;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.res.Configuration;
 import android.os.Handler;
 import android.os.Looper;
-import android.util.Log;
 import android.widget.Toast;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Simplified manager - removed statistics and scan recent functionality
  */
 public class ScreenScrubberManager {
     private static final String TAG = "ScreenScrubberManager";
-    private static final long PROCESSING_TIMEOUT_MS = 30000;
+    private static final int MAX_TILE_THREADS = 4;
+    // Recognitions in flight at once; ML Kit queues the rest internally anyway
+    private static final int OCR_CONCURRENCY = 2;
 
     private MediaObserver mediaObserver;
     private TextRecognitionService textService;
@@ -23,31 +37,101 @@ public class ScreenScrubberManager {
     private NotificationHelper notificationHelper;
     private Context context;
 
-    // Background processing
-    private ExecutorService processingExecutor;
+    // Decode buffers shared by OCR and censoring, trimmed when the system asks
+    private final BitmapPool bitmapPool;
+    private final ComponentCallbacks2 trimCallbacks;
+
+    // Background processing: bounded workers, bounded queue, separate timeout watchdog
+    private final ProcessingPool processingPool;
+    private final StagedPipeline<ImageJob> pipeline;
+    // Path -> done future of a queued image, failed if the queue drops it
+    private final Map<String, CompletableFuture<Void>> queuedImages = new ConcurrentHashMap<>();
+    // Cancelled on cleanup; forgotten once the host drops them
+    private final Set<BulkScanJob> bulkScans = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+    // Strips of tall screenshots, recognized and scanned in parallel
+    private final ExecutorService tileExecutor;
     private Handler mainHandler;
 
     // Configuration
-    private boolean monitorScreenshots = true;
-    private boolean monitorCameraPhotos = true;
+    // Read on the media observer's thread
+    private volatile boolean monitorScreenshots = true;
+    private volatile boolean monitorCameraPhotos = true;
+    private volatile JobPriority.UrgencyHint urgencyHint;
 
     public ScreenScrubberManager(Context context) {
+        this(context, DetectionPlan.builtIns());
+    }
+
+    public ScreenScrubberManager(Context context, DetectionPlan detectionPlan) {
+        this(context, detectionPlan, OcrInputBudget.defaults());
+    }
+
+    public ScreenScrubberManager(Context context, DetectionPlan detectionPlan, OcrInputBudget ocrBudget) {
+        this(context, detectionPlan, ocrBudget, BitmapPool.withDefaultBudget());
+    }
+
+    public ScreenScrubberManager(Context context, DetectionPlan detectionPlan, OcrInputBudget ocrBudget,
+                                 BitmapPool bitmapPool) {
+        this(context, detectionPlan, ocrBudget, bitmapPool, ProcessingPoolConfig.defaults());
+    }
+
+    public ScreenScrubberManager(Context context, DetectionPlan detectionPlan, OcrInputBudget ocrBudget,
+                                 BitmapPool bitmapPool, ProcessingPoolConfig poolConfig) {
         this.context = context;
+        this.bitmapPool = bitmapPool;
+        // Heavy work on the main thread fails fast while the host app is being developed
+        MainThreadCheck.setStrict((context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0);
         this.mediaObserver = new MediaObserver(context);
-        this.textService = new TextRecognitionService();
-        this.screenshotProcessor = new ScreenshotProcessor();
+        int tileThreads = Math.max(1, Math.min(MAX_TILE_THREADS, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger tileThreadCount = new AtomicInteger();
+        this.tileExecutor = Executors.newFixedThreadPool(tileThreads, r -> {
+            Thread t = new Thread(r, "ScreenScrubber-Tile-" + tileThreadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.textService = new TextRecognitionService(ocrBudget, bitmapPool, tileExecutor);
+        this.screenshotProcessor = new ScreenshotProcessor(detectionPlan, bitmapPool, tileExecutor);
         this.screenshotProcessor.setContext(context);
         this.notificationHelper = new NotificationHelper(context);
 
+        this.trimCallbacks = new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                bitmapPool.onTrimMemory(level);
+            }
+
+            @Override
+            public void onLowMemory() {
+                bitmapPool.clear();
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+        };
+        context.registerComponentCallbacks(trimCallbacks);
+
         // Initialize background processing
-        this.processingExecutor = Executors.newSingleThreadExecutor(r -> {
-            Thread t = new Thread(r, "ScreenScrubber-Processing");
-            t.setDaemon(true);
-            return t;
+        this.pipeline = buildPipeline();
+        this.processingPool = new ProcessingPool(poolConfig, new ProcessingPool.Listener() {
+            @Override
+            public void onDropped(String filePath) {
+                ScrubberLog.w(TAG, "Too many images waiting, skipped: " + filePath);
+                CompletableFuture<Void> dropped = queuedImages.remove(filePath);
+                if (dropped != null) {
+                    dropped.completeExceptionally(new RejectedExecutionException("Dropped from a full queue: " + filePath));
+                }
+            }
+
+            @Override
+            public void onTimedOut(String filePath) {
+                showErrorToast("Image processing timed out");
+            }
         });
         this.mainHandler = new Handler(Looper.getMainLooper());
 
-        Log.d(TAG, "ScreenScrubberManager initialized");
+        ScrubberLog.d(TAG, () -> "ScreenScrubberManager initialized - " + poolConfig);
     }
 
     /**
@@ -64,8 +148,13 @@ public class ScreenScrubberManager {
         try {
             mediaObserver.startMonitoring(new MediaObserver.MediaListener() {
                 @Override
-                public void onNewImage(String filePath, MediaObserver.ImageType type) {
-                    Log.i(TAG, "New image detected: " + type + " - " + filePath);
+                public void onNewImage(String filePath, MediaObserver.ImageType type, long dateAddedMillis) {
+                    onImage(filePath, type, dateAddedMillis);
+                }
+
+                @Override
+                public CompletableFuture<?> onImage(String filePath, MediaObserver.ImageType type, long dateAddedMillis) {
+                    ScrubberLog.i(TAG, () -> "New image detected: " + type + " - " + filePath);
 
                     boolean shouldProcess = false;
 
@@ -76,15 +165,16 @@ public class ScreenScrubberManager {
                     }
 
                     if (shouldProcess) {
-                        processImageAsync(filePath, type);
+                        return processImageAsync(filePath, type, dateAddedMillis);
                     }
+                    return CompletableFuture.completedFuture(null);
                 }
             });
 
-            Log.i(TAG, "Media monitoring started - Screenshots: " + screenshots + ", Camera: " + cameraPhotos);
+            ScrubberLog.i(TAG, () -> "Media monitoring started - Screenshots: " + screenshots + ", Camera: " + cameraPhotos);
 
         } catch (Exception e) {
-            Log.e(TAG, "Failed to start monitoring", e);
+            ScrubberLog.e(TAG, "Failed to start monitoring", e);
             showErrorToast("Failed to start monitoring: " + e.getMessage());
         }
     }
@@ -92,93 +182,232 @@ public class ScreenScrubberManager {
     public void stopMonitoring() {
         try {
             mediaObserver.stopMonitoring();
-            Log.i(TAG, "Media monitoring stopped");
+            ScrubberLog.i(TAG, "Media monitoring stopped");
         } catch (Exception e) {
-            Log.e(TAG, "Error stopping monitoring", e);
+            ScrubberLog.e(TAG, "Error stopping monitoring", e);
         }
     }
 
     /**
-     * Process image asynchronously with timeout
+     * Queue image for processing; the pool bounds how many images are in the pipeline, starts
+     * waiting ones by priority and enforces the timeout. The returned future completes once the
+     * image has been processed or timed out, exceptionally if it never got to run (dropped from
+     * the queue, or the pool shut down).
      */
-    private void processImageAsync(String filePath, MediaObserver.ImageType imageType) {
-        if (processingExecutor.isShutdown()) {
-            Log.w(TAG, "Processing executor is shutdown, cannot process image");
-            return;
+    private CompletableFuture<Void> processImageAsync(String filePath, MediaObserver.ImageType imageType, long dateAddedMillis) {
+        JobPriority.UrgencyHint hint = urgencyHint;
+        JobPriority.Urgency urgency = JobPriority.Urgency.NORMAL;
+        if (hint != null) {
+            try {
+                JobPriority.Urgency hinted = hint.urgencyFor(filePath, imageType);
+                if (hinted != null) {
+                    urgency = hinted;
+                }
+            } catch (RuntimeException e) {
+                ScrubberLog.e(TAG, "Urgency hint failed", e);
+            }
         }
+        JobPriority priority = new JobPriority(imageType, dateAddedMillis, urgency);
 
-        Future<?> processingTask = processingExecutor.submit(() -> {
-            processImageInternal(filePath, imageType);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFuture<Void> queued = queuedImages.putIfAbsent(filePath, done);
+        if (queued != null) {
+            // Coalesced into the job already waiting for this path
+            return queued;
+        }
+        boolean accepted = processingPool.submit(filePath, priority, stages -> {
+            queuedImages.remove(filePath, done);
+            CompletableFuture<Void> job = processImageInternal(filePath, imageType);
+            job.whenComplete((ignored, error) -> done.complete(null));
+            return job;
         });
+        if (!accepted) {
+            queuedImages.remove(filePath, done);
+            done.completeExceptionally(new RejectedExecutionException("Not queued: " + filePath));
+        }
+        return done;
+    }
 
-        // Set up timeout handling
-        processingExecutor.submit(() -> {
-            try {
-                processingTask.get(PROCESSING_TIMEOUT_MS, TimeUnit.MILLISECONDS);
-            } catch (Exception e) {
-                if (!processingTask.isDone()) {
-                    Log.e(TAG, "Image processing timed out for: " + filePath);
-                    processingTask.cancel(true);
-                    showErrorToast("Image processing timed out");
-                }
+    /**
+     * Host hint that moves images up or down the queue; null for none
+     */
+    public void setUrgencyHint(JobPriority.UrgencyHint hint) {
+        this.urgencyHint = hint;
+    }
+
+    /**
+     * One image through the pipeline. The returned future completes once the result has been
+     * handed to the main thread; if the pool cancels it on timeout, the image skips the
+     * stages it hasn't reached.
+     */
+    private CompletableFuture<Void> processImageInternal(String filePath, MediaObserver.ImageType imageType) {
+        ImageJob image = new ImageJob(filePath, imageType);
+        CompletableFuture<Void> job = new CompletableFuture<>();
+        job.whenComplete((ignored, error) -> image.abandoned = error != null);
+
+        ScrubberLog.d(TAG, () -> "Starting processing for " + imageType + ": " + filePath);
+
+        pipeline.submit(image).whenComplete((done, error) -> {
+            image.release(bitmapPool);
+            if (job.isDone()) {
+                // Timed out - the pool has already reported it
+                return;
+            }
+
+            long totalTime = System.currentTimeMillis() - image.startTime;
+            ScreenshotProcessor.ProcessingResult result = image.result;
+            if (error instanceof TextRecognitionService.ExtractionException) {
+                ScrubberLog.e(TAG, "Text extraction failed after " + totalTime + "ms: " + error.getMessage());
+                mainHandler.post(() -> showErrorToast("Text extraction failed: " + error.getMessage()));
+            } else if (error != null) {
+                ScrubberLog.e(TAG, "Error in image processing", error);
+                mainHandler.post(() -> showErrorToast("Processing error: " + error.getMessage()));
+            } else if (result == null) {
+                ScrubberLog.w(TAG, "Image file validation failed: " + filePath);
+            } else if (result.success) {
+                ScrubberLog.d(TAG, () -> "Image processing completed successfully in " + totalTime + "ms");
+                mainHandler.post(() -> handleProcessingResult(result, imageType));
+            } else {
+                ScrubberLog.e(TAG, "Image processing failed: " + result.errorMessage);
+                mainHandler.post(() -> showErrorToast("Processing failed: " + result.errorMessage));
             }
+            job.complete(null);
         });
+        return job;
     }
 
     /**
-     * Internal processing method that runs on background thread
+     * A bulk scan of the MediaStore images matching selection (null for all), resuming from
+     * jobName's checkpoint. Not started yet.
      */
-    private void processImageInternal(String filePath, MediaObserver.ImageType imageType) {
-        long startTime = System.currentTimeMillis();
+    public BulkScanJob newGalleryScan(String jobName, String selection, String[] selectionArgs,
+                                      BulkScanConfig config, BulkScanJob.Listener listener) {
+        return newBulkScan(mediaObserver.gallerySource(selection, selectionArgs),
+                mediaObserver.bulkCheckpoint(jobName, true), config, listener);
+    }
 
-        Log.d(TAG, "Starting processing for " + imageType + ": " + filePath);
+    /**
+     * A bulk scan of the image files under directory, resuming from jobName's checkpoint.
+     * Not started yet.
+     */
+    public BulkScanJob newDirectoryScan(String jobName, File directory, BulkScanConfig config,
+                                        BulkScanJob.Listener listener) {
+        return newBulkScan(mediaObserver.directorySource(directory),
+                mediaObserver.bulkCheckpoint(jobName, false), config, listener);
+    }
 
-        try {
-            // Validate file before processing
-            if (!validateImageFile(filePath)) {
-                Log.w(TAG, "Image file validation failed: " + filePath);
-                return;
+    private BulkScanJob newBulkScan(IncrementalScanner.Source<BulkScanJob.Item> source,
+                                    IncrementalScanner.Checkpoint checkpoint, BulkScanConfig config,
+                                    BulkScanJob.Listener listener) {
+        BulkScanJob job = new BulkScanJob(source, checkpoint, this::processBulkItem, config, listener, mainHandler::post);
+        bulkScans.add(job);
+        return job;
+    }
+
+    /**
+     * A bulk scan image goes straight into the pipeline, bypassing the live queue so a backlog
+     * can't push new screenshots out of it; the job's parallelism bounds how many stage
+     * slots it takes. Results go to the job's listener rather than to notifications.
+     * When the job abandons the image (timed out), it skips the stages it hasn't reached; the
+     * returned future completes once the pipeline is done with it either way.
+     */
+    private CompletableFuture<ScreenshotProcessor.ProcessingResult> processBulkItem(BulkScanJob.Item item,
+                                                                                   CompletableFuture<Void> abandon) {
+        ImageJob image = new ImageJob(item.path, item.type);
+        CompletableFuture<ScreenshotProcessor.ProcessingResult> outcome = new CompletableFuture<>();
+        abandon.thenRun(() -> image.abandoned = true);
+
+        pipeline.submit(image).whenComplete((done, error) -> {
+            image.release(bitmapPool);
+            if (error != null) {
+                outcome.complete(ScreenshotProcessor.ProcessingResult.error(String.valueOf(error.getMessage()), item.path, item.type));
+            } else if (image.result == null) {
+                outcome.complete(ScreenshotProcessor.ProcessingResult.error("Invalid image file", item.path, item.type));
+            } else {
+                outcome.complete(image.result);
             }
+        });
+        return outcome;
+    }
 
-            // Extract text with ML Kit
-            textService.extractTextFromImage(filePath, new TextRecognitionService.TextExtractionCallback() {
-                @Override
-                public void onTextExtracted(com.google.mlkit.vision.text.Text visionText, String imagePath) {
-                    long extractionTime = System.currentTimeMillis() - startTime;
-                    Log.d(TAG, "Text extraction completed in " + extractionTime + "ms");
-
-                    try {
-                        // Process the image
-                        ScreenshotProcessor.ProcessingResult result =
-                                screenshotProcessor.processImage(imagePath, visionText, imageType);
-
-                        long totalTime = System.currentTimeMillis() - startTime;
-
-                        if (result.success) {
-                            Log.d(TAG, "Image processing completed successfully in " + totalTime + "ms");
-                            mainHandler.post(() -> handleProcessingResult(result, imageType));
-                        } else {
-                            Log.e(TAG, "Image processing failed: " + result.errorMessage);
-                            mainHandler.post(() -> showErrorToast("Processing failed: " + result.errorMessage));
-                        }
+    /**
+     * ingest -> OCR -> detect -> censor -> persist. OCR slots stay taken while ML Kit works;
+     * censoring is alone in its stage because its output is the largest allocation, so the
+     * next image's OCR overlaps with this one's censoring and encoding.
+     */
+    private StagedPipeline<ImageJob> buildPipeline() {
+        List<PipelineStage<ImageJob>> stages = new ArrayList<>();
+
+        stages.add(PipelineStage.of("Ingest", 1, image -> {
+            image.valid = validateImageFile(image.path);
+            return image;
+        }));
+
+        stages.add(PipelineStage.async("Ocr", OCR_CONCURRENCY, (image, executor) ->
+                textService.recognize(image.path, executor).thenApply(recognition -> {
+                    image.recognition = recognition;
+                    ScrubberLog.d(TAG, () -> "Text extraction completed in " +
+                            (System.currentTimeMillis() - image.startTime) + "ms");
+                    return image;
+                })));
+
+        stages.add(PipelineStage.of("Detect", 1, image -> {
+            image.matches = screenshotProcessor.detect(image.path, image.recognition.ocrText, image.type);
+            if (image.matches.isEmpty()) {
+                image.result = ScreenshotProcessor.ProcessingResult.success(false, null, image.matches, image.path, image.type);
+            }
+            return image;
+        }));
 
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error in image processing", e);
-                        mainHandler.post(() -> showErrorToast("Processing error: " + e.getMessage()));
-                    }
-                }
+        stages.add(PipelineStage.of("Censor", 1, image -> {
+            try {
+                image.censored = screenshotProcessor.censor(image.path, image.recognition.image,
+                        image.recognition.ocrText, image.matches, image.type);
+            } catch (ScreenshotProcessor.CensorException e) {
+                image.result = ScreenshotProcessor.ProcessingResult.error(e.getMessage(), image.path, image.type);
+            }
+            return image;
+        }));
 
-                @Override
-                public void onExtractionError(String error, String imagePath) {
-                    long failedTime = System.currentTimeMillis() - startTime;
-                    Log.e(TAG, "Text extraction failed after " + failedTime + "ms: " + error);
-                    mainHandler.post(() -> showErrorToast("Text extraction failed: " + error));
-                }
-            });
+        stages.add(PipelineStage.of("Persist", 1, image -> {
+            image.result = screenshotProcessor.persist(image.path, image.censored, image.matches, image.type);
+            return image;
+        }));
 
-        } catch (Exception e) {
-            Log.e(TAG, "Unexpected error in processImageInternal", e);
-            mainHandler.post(() -> showErrorToast("Unexpected processing error"));
+        return new StagedPipeline<>(stages, ImageJob::isFinished);
+    }
+
+    /**
+     * One image's state as it moves through the pipeline; each stage fills in its part
+     */
+    private static final class ImageJob {
+        final String path;
+        final MediaObserver.ImageType type;
+        final long startTime = System.currentTimeMillis();
+        volatile boolean abandoned;
+
+        boolean valid;
+        TextRecognitionService.Recognition recognition;
+        List<SensitiveDataDetector.SensitiveMatch> matches;
+        ScreenshotProcessor.CensoredImage censored;
+        ScreenshotProcessor.ProcessingResult result;
+
+        ImageJob(String path, MediaObserver.ImageType type) {
+            this.path = path;
+            this.type = type;
+        }
+
+        boolean isFinished() {
+            return abandoned || !valid || result != null;
+        }
+
+        void release(BitmapPool pool) {
+            if (censored != null) {
+                censored.release(pool);
+            }
+            if (recognition != null) {
+                recognition.image.release();
+            }
         }
     }
 
@@ -190,29 +419,29 @@ public class ScreenScrubberManager {
             java.io.File file = new java.io.File(filePath);
 
             if (!file.exists()) {
-                Log.w(TAG, "Image file does not exist: " + filePath);
+                ScrubberLog.w(TAG, "Image file does not exist: " + filePath);
                 return false;
             }
 
             if (!file.canRead()) {
-                Log.w(TAG, "Cannot read image file: " + filePath);
+                ScrubberLog.w(TAG, "Cannot read image file: " + filePath);
                 return false;
             }
 
             if (file.length() == 0) {
-                Log.w(TAG, "Image file is empty: " + filePath);
+                ScrubberLog.w(TAG, "Image file is empty: " + filePath);
                 return false;
             }
 
             if (file.length() > 50 * 1024 * 1024) { // 50MB max
-                Log.w(TAG, "Image file too large: " + file.length() + " bytes");
+                ScrubberLog.w(TAG, "Image file too large: " + file.length() + " bytes");
                 return false;
             }
 
             return true;
 
         } catch (Exception e) {
-            Log.e(TAG, "Error validating image file", e);
+            ScrubberLog.e(TAG, "Error validating image file", e);
             return false;
         }
     }
@@ -223,7 +452,7 @@ public class ScreenScrubberManager {
     private void handleProcessingResult(ScreenshotProcessor.ProcessingResult result, MediaObserver.ImageType imageType) {
         try {
             if (!result.success) {
-                Log.e(TAG, "Processing result indicates failure: " + result.errorMessage);
+                ScrubberLog.e(TAG, "Processing result indicates failure: " + result.errorMessage);
                 showErrorToast("Processing failed: " + result.errorMessage);
                 return;
             }
@@ -231,10 +460,10 @@ public class ScreenScrubberManager {
             String imageTypeStr = imageType == MediaObserver.ImageType.SCREENSHOT ? "Screenshot" : "Photo";
 
             if (!result.hasSensitiveData) {
-                Log.d(TAG, "No sensitive data found in " + imageTypeStr.toLowerCase());
+                ScrubberLog.d(TAG, () -> "No sensitive data found in " + imageTypeStr.toLowerCase());
                 notificationHelper.showCleanImageNotification(imageTypeStr);
             } else {
-                Log.w(TAG, "Sensitive data detected in " + imageTypeStr.toLowerCase());
+                ScrubberLog.w(TAG, "Sensitive data detected in " + imageTypeStr.toLowerCase());
                 if (result.sensitiveMatches != null && !result.sensitiveMatches.isEmpty()) {
                     notificationHelper.showDetailedSensitiveDataAlert(result.sensitiveMatches, imageTypeStr);
 
@@ -243,12 +472,12 @@ public class ScreenScrubberManager {
                     for (SensitiveDataDetector.SensitiveMatch match : result.sensitiveMatches) {
                         summary.append(match.type).append(" ");
                     }
-                    Log.i(TAG, summary.toString());
+                    ScrubberLog.i(TAG, () -> summary.toString());
                 }
             }
 
         } catch (Exception e) {
-            Log.e(TAG, "Error handling processing result", e);
+            ScrubberLog.e(TAG, "Error handling processing result", e);
             showErrorToast("Error displaying result");
         }
     }
@@ -264,7 +493,7 @@ public class ScreenScrubberManager {
                 });
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error showing toast", e);
+            ScrubberLog.e(TAG, "Error showing toast", e);
         }
     }
 
@@ -274,7 +503,7 @@ public class ScreenScrubberManager {
     public void setMonitoringOptions(boolean screenshots, boolean cameraPhotos) {
         this.monitorScreenshots = screenshots;
         this.monitorCameraPhotos = cameraPhotos;
-        Log.d(TAG, "Monitoring options updated - Screenshots: " + screenshots + ", Camera: " + cameraPhotos);
+        ScrubberLog.d(TAG, () -> "Monitoring options updated - Screenshots: " + screenshots + ", Camera: " + cameraPhotos);
     }
 
     public boolean isMonitoringScreenshots() {
@@ -285,6 +514,26 @@ public class ScreenScrubberManager {
         return monitorCameraPhotos;
     }
 
+    public BitmapPool.Stats getBitmapPoolStats() {
+        return bitmapPool.getStats();
+    }
+
+    public ProcessingPool.Stats getProcessingStats() {
+        return processingPool.getStats();
+    }
+
+    public List<PipelineStage.Stats> getPipelineStats() {
+        return pipeline.getStats();
+    }
+
+    public MediaEventDeduplicator.Stats getMediaEventStats() {
+        return mediaObserver.getEventStats();
+    }
+
+    public FileReadiness.Stats getReadinessStats() {
+        return mediaObserver.getReadinessStats();
+    }
+
     /**
      * Check if the manager is healthy
      */
@@ -293,45 +542,67 @@ public class ScreenScrubberManager {
                 textService != null &&
                 screenshotProcessor != null &&
                 notificationHelper != null &&
-                processingExecutor != null &&
-                !processingExecutor.isShutdown();
+                !processingPool.isShutdown();
     }
 
     /**
      * Cleanup resources
      */
     public void cleanup() {
-        Log.d(TAG, "Starting cleanup");
+        ScrubberLog.d(TAG, "Starting cleanup");
 
         try {
             stopMonitoring();
+            mediaObserver.release();
 
-            if (textService != null) {
-                textService.cleanup();
+            // Their images in flight still finish before the pipeline stops
+            synchronized (bulkScans) {
+                for (BulkScanJob job : bulkScans) {
+                    job.cancel();
+                }
             }
 
-            if (processingExecutor != null && !processingExecutor.isShutdown()) {
-                processingExecutor.shutdown();
+            context.unregisterComponentCallbacks(trimCallbacks);
+
+            if (!processingPool.isShutdown()) {
+                processingPool.shutdown();
                 try {
-                    if (!processingExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
-                        Log.w(TAG, "Processing executor did not terminate gracefully, forcing shutdown");
-                        processingExecutor.shutdownNow();
+                    if (!processingPool.awaitTermination(5, TimeUnit.SECONDS)) {
+                        ScrubberLog.w(TAG, "Processing pool did not terminate gracefully, forcing shutdown");
+                        processingPool.shutdownNow();
 
-                        if (!processingExecutor.awaitTermination(2, TimeUnit.SECONDS)) {
-                            Log.e(TAG, "Processing executor could not be terminated");
+                        if (!processingPool.awaitTermination(2, TimeUnit.SECONDS)) {
+                            ScrubberLog.e(TAG, "Processing pool could not be terminated");
                         }
                     }
                 } catch (InterruptedException e) {
-                    Log.w(TAG, "Interrupted while waiting for executor termination");
-                    processingExecutor.shutdownNow();
+                    ScrubberLog.w(TAG, "Interrupted while waiting for pool termination");
+                    processingPool.shutdownNow();
                     Thread.currentThread().interrupt();
                 }
             }
 
-            Log.i(TAG, "Cleanup completed");
+            // Whatever shutdownNow discarded never ran
+            for (String filePath : queuedImages.keySet()) {
+                CompletableFuture<Void> discarded = queuedImages.remove(filePath);
+                if (discarded != null) {
+                    discarded.completeExceptionally(new RejectedExecutionException("Processing stopped: " + filePath));
+                }
+            }
+
+            // Only processing jobs feed these, and they have stopped
+            pipeline.shutdown();
+            // Closed only now - the images that just finished were still recognizing
+            if (textService != null) {
+                textService.cleanup();
+            }
+            tileExecutor.shutdownNow();
+
+            bitmapPool.clear();
+            ScrubberLog.i(TAG, () -> "Cleanup completed - " + bitmapPool.getStats() + ", " + processingPool.getStats());
 
         } catch (Exception e) {
-            Log.e(TAG, "Error during cleanup", e);
+            ScrubberLog.e(TAG, "Error during cleanup", e);
         }
     }
 }
\ No newline at end of file
@@ -5,7 +5,7 @@ import android.os.Environment;
 import android.os.FileObserver;
 import android.os.Handler;
 import android.os.Looper;
-import android.util.Log;
+import android.os.SystemClock;
 import java.io.File;
 
 public class ScreenshotDetector {
@@ -13,6 +13,8 @@ public class ScreenshotDetector {
     private FileObserver fileObserver;
     private ScreenshotListener listener;
     private Handler handler = new Handler(Looper.getMainLooper());
+    private final FileReadiness readiness = new FileReadiness(handler::postDelayed, SystemClock::uptimeMillis,
+            FileReadiness.DEFAULT_MAX_WAIT_MS);
 
     public interface ScreenshotListener {
         void onScreenshotTaken(String filePath);
@@ -37,16 +39,19 @@ public class ScreenshotDetector {
             }
         }
 
-        Log.d(TAG, "Monitoring screenshot directory: " + screenshotPath);
-        Log.d(TAG, "Directory exists: " + screenshotDir.exists());
-        Log.d(TAG, "Directory can read: " + screenshotDir.canRead());
+        if (ScrubberLog.isDebugEnabled()) {
+            ScrubberLog.d(TAG, "Monitoring screenshot directory: " + screenshotPath);
+            ScrubberLog.d(TAG, "Directory exists: " + screenshotDir.exists());
+            ScrubberLog.d(TAG, "Directory can read: " + screenshotDir.canRead());
+        }
 
         final String finalScreenshotPath = screenshotPath;
 
-        fileObserver = new FileObserver(screenshotPath, FileObserver.CREATE | FileObserver.MOVED_TO) {
+        fileObserver = new FileObserver(screenshotPath,
+                FileObserver.CREATE | FileObserver.MOVED_TO | FileObserver.CLOSE_WRITE) {
             @Override
             public void onEvent(int event, String fileName) {
-                Log.d(TAG, "FileObserver event: " + event + ", fileName: " + fileName);
+                ScrubberLog.d(TAG, () -> "FileObserver event: " + event + ", fileName: " + fileName);
 
                 if (fileName != null &&
                         fileName.toLowerCase().contains("screenshot") &&
@@ -54,52 +59,45 @@ public class ScreenshotDetector {
                         (fileName.endsWith(".jpg") || fileName.endsWith(".png"))) {
 
                     String fullPath = finalScreenshotPath + fileName;
-                    Log.d(TAG, "Screenshot detected: " + fullPath);
 
-                    // Shorter initial delay for better UX
-                    handler.postDelayed(() -> {
-                        processScreenshotWithRetry(fullPath, 0);
-                    }, 500); // Reduced to 500ms
+                    // Events arrive on the observer's thread; readiness is checked on the handler's
+                    if ((event & FileObserver.CLOSE_WRITE) != 0) {
+                        handler.post(() -> readiness.signal(fullPath));
+                    } else {
+                        ScrubberLog.d(TAG, () -> "Screenshot detected: " + fullPath);
+                        handler.post(() -> readiness.await(fullPath, () -> onScreenshotReady(fullPath)));
+                    }
                 }
             }
         };
 
         try {
             fileObserver.startWatching();
-            Log.d(TAG, "Screenshot detection started successfully");
+            ScrubberLog.d(TAG, "Screenshot detection started successfully");
         } catch (Exception e) {
-            Log.e(TAG, "Failed to start file observer", e);
+            ScrubberLog.e(TAG, "Failed to start file observer", e);
         }
     }
 
-    private void processScreenshotWithRetry(String filePath, int attempt) {
-        File file = new File(filePath);
-
-        Log.d(TAG, "Processing attempt " + (attempt + 1) + " for: " + filePath);
-        Log.d(TAG, "File exists: " + file.exists() + ", can read: " + file.canRead() + ", size: " + file.length());
-
-        // Check if file exists, is readable, and has content
-        if (file.exists() && file.canRead() && file.length() > 0) {
-            Log.d(TAG, "Screenshot ready for processing: " + filePath);
-            if (listener != null) {
-                listener.onScreenshotTaken(filePath);
-            }
-        } else if (attempt < 3) { // Reduced retry attempts
-            // Retry with shorter delays
-            int delay = 500 * (attempt + 1); // 500ms, 1s, 1.5s
-            Log.d(TAG, "Screenshot not ready, retrying in " + delay + "ms");
-            handler.postDelayed(() -> {
-                processScreenshotWithRetry(filePath, attempt + 1);
-            }, delay);
-        } else {
-            Log.e(TAG, "Screenshot file not accessible after " + (attempt + 1) + " retries: " + filePath);
+    private void onScreenshotReady(String filePath) {
+        ScrubberLog.d(TAG, () -> "Screenshot ready for processing: " + filePath);
+        if (listener != null) {
+            listener.onScreenshotTaken(filePath);
         }
     }
 
+    /**
+     * How long screenshots took to be completely written
+     */
+    public FileReadiness.Stats getReadinessStats() {
+        return readiness.getStats();
+    }
+
     public void stopDetection() {
         if (fileObserver != null) {
             fileObserver.stopWatching();
-            Log.d(TAG, "Screenshot detection stopped");
+            readiness.cancelAll();
+            ScrubberLog.d(TAG, "Screenshot detection stopped");
         }
     }
 }
\ No newline at end of file
@@ -18,21 +18,24 @@ import android.os.Environment;
 import android.os.Handler;
 import android.os.Looper;
 import android.provider.MediaStore;
-import android.util.Log;
 import com.google.mlkit.vision.text.Text;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
 
 public class ScreenshotProcessor {
     private static final String TAG = "ScreenshotProcessor";
     private static final String CENSORED_FOLDER = "ScreenScrubber_Censored";
     private static final long MAX_FILE_SIZE = 50 * 1024 * 1024; // 50MB max
-    private static final int MAX_IMAGE_DIMENSION = 4096; // Max width/height
+    // Largest ARGB_8888 bitmap censored at full resolution - one job's share of decode memory
+    private static final long MAX_CENSOR_BYTES = ProcessingPoolConfig.DEFAULT_JOB_BYTES;
 
     private SensitiveDataDetector sensitiveDataDetector;
+    private final BitmapPool bitmapPool;
+    private final ExecutorService tileExecutor;
     private Context context;
 
     public static class ProcessingResult {
@@ -71,7 +74,31 @@ public class ScreenshotProcessor {
     }
 
     public ScreenshotProcessor() {
-        this.sensitiveDataDetector = new SensitiveDataDetector();
+        this(DetectionPlan.builtIns());
+    }
+
+    public ScreenshotProcessor(DetectionPlan detectionPlan) {
+        this(detectionPlan, new BitmapPool(0));
+    }
+
+    /**
+     * Censor decodes reuse, and hand their bitmaps back to, bitmapPool
+     */
+    public ScreenshotProcessor(DetectionPlan detectionPlan, BitmapPool bitmapPool) {
+        this(detectionPlan, bitmapPool, null);
+    }
+
+    /**
+     * The segments of tiled OCR text are scanned in parallel on tileExecutor (null scans
+     * the whole text on the calling thread). The executor belongs to the caller.
+     */
+    public ScreenshotProcessor(DetectionPlan detectionPlan, BitmapPool bitmapPool, ExecutorService tileExecutor) {
+        if (bitmapPool == null) {
+            throw new IllegalArgumentException("Bitmap pool cannot be null");
+        }
+        this.sensitiveDataDetector = new SensitiveDataDetector(detectionPlan);
+        this.bitmapPool = bitmapPool;
+        this.tileExecutor = tileExecutor;
     }
 
     public void setContext(Context context) {
@@ -79,220 +106,326 @@ public class ScreenshotProcessor {
     }
 
     /**
-     * Enhanced processing pipeline for different image types
+     * Enhanced processing pipeline for different image types.
+     * Like every processImage overload this is heavy work and must not run on the main thread.
      */
     public ProcessingResult processImage(String imagePath, Text visionText, MediaObserver.ImageType imageType) {
+        return processImage(imagePath, null, visionText != null ? OcrText.fromText(visionText, 1f, 0) : null, imageType);
+    }
+
+    /**
+     * Same as above, reusing the bitmap OCR already decoded. The caller keeps ownership of
+     * image and releases it afterwards.
+     */
+    public ProcessingResult processImage(ImageHandle image, Text visionText, MediaObserver.ImageType imageType) {
+        if (image == null) {
+            ScrubberLog.e(TAG, "Image handle is null");
+            return ProcessingResult.error("Invalid image", null, imageType);
+        }
+        OcrText ocrText = visionText != null ? OcrText.fromText(visionText, image.getOcrScale(), 0) : null;
+        return processImage(image.getPath(), image, ocrText, imageType);
+    }
+
+    /**
+     * Same as above with OCR output already in source pixels (e.g. merged from strips)
+     */
+    public ProcessingResult processImage(ImageHandle image, OcrText ocrText, MediaObserver.ImageType imageType) {
+        if (image == null) {
+            ScrubberLog.e(TAG, "Image handle is null");
+            return ProcessingResult.error("Invalid image", null, imageType);
+        }
+        return processImage(image.getPath(), image, ocrText, imageType);
+    }
+
+    private ProcessingResult processImage(String imagePath, ImageHandle image, OcrText ocrText,
+                                          MediaObserver.ImageType imageType) {
+        // Decodes, paints and encodes full-size images
+        MainThreadCheck.assertNotMainThread("Censoring");
         long startTime = System.currentTimeMillis();
 
         // Input validation
         if (imagePath == null || imagePath.isEmpty()) {
-            Log.e(TAG, "Invalid image path provided");
+            ScrubberLog.e(TAG, "Invalid image path provided");
             return ProcessingResult.error("Invalid image path", null, imageType);
         }
 
         File imageFile = new File(imagePath);
         if (!imageFile.exists()) {
-            Log.e(TAG, "Image file does not exist: " + imagePath);
+            ScrubberLog.e(TAG, "Image file does not exist: " + imagePath);
             return ProcessingResult.error("Image file not found", imagePath, imageType);
         }
 
-        if (visionText == null) {
-            Log.e(TAG, "Vision text is null");
+        if (ocrText == null) {
+            ScrubberLog.e(TAG, "OCR text is null");
             return ProcessingResult.error("Text extraction failed", imagePath, imageType);
         }
 
         try {
             // Step 1: Extract and analyze text for sensitive data
-            String fullText = visionText.getText();
-            Log.d(TAG, "Analyzing text from " + imageType + ": " + imagePath);
-
-            List<SensitiveDataDetector.SensitiveMatch> sensitiveMatches;
-            if (fullText.isEmpty()) {
-                Log.d(TAG, "No text found in image");
-                sensitiveMatches = new ArrayList<>();
-            } else {
-                sensitiveMatches = sensitiveDataDetector.detectSensitiveData(fullText);
-                Log.d(TAG, "Found " + sensitiveMatches.size() + " sensitive data matches");
-
-                // Log findings safely
-                for (SensitiveDataDetector.SensitiveMatch match : sensitiveMatches) {
-                    Log.d(TAG, "Detected: " + match.type + " - " + maskSensitiveValue(match.value, match.type));
-                }
-            }
+            List<SensitiveDataDetector.SensitiveMatch> sensitiveMatches = detect(imagePath, ocrText, imageType);
 
             // Step 2: Process based on findings
             ProcessingResult result;
             if (sensitiveMatches.isEmpty()) {
-                Log.d(TAG, "No sensitive data found in " + imageType + " - keeping original");
+                ScrubberLog.d(TAG, () -> "No sensitive data found in " + imageType + " - keeping original");
                 result = ProcessingResult.success(false, null, sensitiveMatches, imagePath, imageType);
             } else {
-                Log.d(TAG, "Sensitive data found in " + imageType + " - creating censored version");
-                result = createCensoredVersion(imagePath, visionText, sensitiveMatches, imageType);
+                ScrubberLog.d(TAG, () -> "Sensitive data found in " + imageType + " - creating censored version");
+                result = createCensoredVersion(imagePath, image, ocrText, sensitiveMatches, imageType);
             }
 
             long processingTime = System.currentTimeMillis() - startTime;
-            Log.d(TAG, imageType + " processing completed in " + processingTime + "ms");
+            ScrubberLog.d(TAG, () -> imageType + " processing completed in " + processingTime + "ms");
             return result;
 
         } catch (OutOfMemoryError e) {
-            Log.e(TAG, "Out of memory processing " + imageType, e);
+            ScrubberLog.e(TAG, "Out of memory processing " + imageType, e);
             return ProcessingResult.error("Out of memory", imagePath, imageType);
         } catch (Exception e) {
-            Log.e(TAG, "Error processing " + imageType, e);
+            ScrubberLog.e(TAG, "Error processing " + imageType, e);
             return ProcessingResult.error("Processing failed: " + e.getMessage(), imagePath, imageType);
         }
     }
 
+    /**
+     * Detection stage: the sensitive matches in ocrText (offsets into its trimmed text)
+     */
+    List<SensitiveDataDetector.SensitiveMatch> detect(String imagePath, OcrText ocrText, MediaObserver.ImageType imageType) {
+        String fullText = ocrText.getText();
+        ScrubberLog.d(TAG, () -> "Analyzing text from " + imageType + ": " + imagePath);
+
+        if (fullText.isEmpty()) {
+            ScrubberLog.d(TAG, "No text found in image");
+            return new ArrayList<>();
+        }
+
+        List<SensitiveDataDetector.SensitiveMatch> sensitiveMatches =
+                sensitiveDataDetector.detectSensitiveData(fullText, ocrText.getSegmentStarts(), tileExecutor);
+        ScrubberLog.d(TAG, () -> "Found " + sensitiveMatches.size() + " sensitive data matches");
+
+        // Log findings safely
+        for (SensitiveDataDetector.SensitiveMatch match : sensitiveMatches) {
+            ScrubberLog.d(TAG, () -> "Detected: " + match.type + " - " + maskSensitiveValue(match.value, match.type));
+        }
+        return sensitiveMatches;
+    }
+
+    /**
+     * Censored pixels between the censor and persist stages. release() hands back to the pool
+     * everything censoring allocated; the OCR handle's own bitmap, when painted in place, is
+     * left to the handle's owner.
+     */
+    static final class CensoredImage {
+        final Bitmap bitmap;
+        private final List<Bitmap> owned;
+
+        CensoredImage(Bitmap bitmap, List<Bitmap> owned) {
+            this.bitmap = bitmap;
+            this.owned = owned;
+        }
+
+        void release(BitmapPool pool) {
+            for (Bitmap ownedBitmap : owned) {
+                pool.put(ownedBitmap);
+            }
+            owned.clear();
+        }
+    }
+
+    /**
+     * Why censoring or saving failed, worded for the ProcessingResult
+     */
+    static final class CensorException extends Exception {
+        CensorException(String message) {
+            super(message);
+        }
+    }
+
     /**
      * PRECISE CENSORING: Create censored version with character-level precision
      */
-    private ProcessingResult createCensoredVersion(String imagePath, Text visionText,
+    private ProcessingResult createCensoredVersion(String imagePath, ImageHandle image, OcrText ocrText,
                                                    List<SensitiveDataDetector.SensitiveMatch> sensitiveMatches,
                                                    MediaObserver.ImageType imageType) {
+        CensoredImage censored = null;
+        try {
+            censored = censor(imagePath, image, ocrText, sensitiveMatches, imageType);
+            return persist(imagePath, censored, sensitiveMatches, imageType);
+        } catch (CensorException e) {
+            return ProcessingResult.error(e.getMessage(), imagePath, imageType);
+        } finally {
+            // Clean up memory - a shared OCR bitmap is released by the handle's owner
+            if (censored != null) {
+                censored.release(bitmapPool);
+            }
+        }
+    }
+
+    /**
+     * Censor stage: the image with every match painted over (oriented for camera photos).
+     * The caller releases the result after persisting it.
+     */
+    CensoredImage censor(String imagePath, ImageHandle image, OcrText ocrText,
+                         List<SensitiveDataDetector.SensitiveMatch> sensitiveMatches,
+                         MediaObserver.ImageType imageType) throws CensorException {
+        MainThreadCheck.assertNotMainThread("Censoring");
         Bitmap originalBitmap = null;
         Bitmap censoredBitmap = null;
+        boolean ownsOriginal = false;
+        CensoredImage result = null;
 
         try {
-            // Load original image
-            BitmapFactory.Options options = new BitmapFactory.Options();
-            options.inJustDecodeBounds = true;
-            BitmapFactory.decodeFile(imagePath, options);
-
-            if (options.outWidth > MAX_IMAGE_DIMENSION || options.outHeight > MAX_IMAGE_DIMENSION) {
-                Log.w(TAG, "Large image detected: " + options.outWidth + "x" + options.outHeight);
-                options.inSampleSize = calculateInSampleSize(options, MAX_IMAGE_DIMENSION, MAX_IMAGE_DIMENSION);
-            }
+            int sourceWidth;
+
+            if (image != null && image.isFullResolution()) {
+                // OCR already decoded every pixel - censor those instead of decoding again.
+                // OCR is done with them, so the redaction can be painted straight onto them.
+                originalBitmap = image.getBitmap();
+                sourceWidth = image.getSourceWidth();
+            } else {
+                // Load original image
+                BitmapFactory.Options options = new BitmapFactory.Options();
+                options.inJustDecodeBounds = true;
+                BitmapFactory.decodeFile(imagePath, options);
+                sourceWidth = options.outWidth;
+
+                options.inSampleSize = calculateCensorSampleSize(options.outWidth, options.outHeight);
+                if (options.inSampleSize > 1) {
+                    ScrubberLog.w(TAG, "Large image detected: " + options.outWidth + "x" + options.outHeight +
+                            " - censoring a downscaled copy");
+                }
 
-            options.inJustDecodeBounds = false;
-            originalBitmap = BitmapFactory.decodeFile(imagePath, options);
+                // Decode straight into a mutable (pooled) bitmap so the rects are painted in place
+                options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+                originalBitmap = bitmapPool.decodeFile(imagePath, options);
+                ownsOriginal = true;
+            }
 
             if (originalBitmap == null) {
-                Log.e(TAG, "Could not load original image");
-                return ProcessingResult.error("Could not load image", imagePath, imageType);
+                ScrubberLog.e(TAG, "Could not load original image");
+                throw new CensorException("Could not load image");
             }
 
+            // OCR boxes are in source pixels -> pixels of the (possibly subsampled) bitmap we censor
+            float boxScale = sourceWidth > 0 ? originalBitmap.getWidth() / (float) sourceWidth : 1f;
+
             // Create censored bitmap with PRECISE character-level redaction
-            censoredBitmap = createPreciseCensoredImage(originalBitmap, visionText, sensitiveMatches);
+            censoredBitmap = createPreciseCensoredImage(originalBitmap, ocrText, boxScale, sensitiveMatches);
             if (censoredBitmap == null) {
-                return ProcessingResult.error("Failed to create censored image", imagePath, imageType);
+                throw new CensorException("Failed to create censored image");
             }
 
             // Fix orientation if needed (for camera photos)
-            Bitmap finalBitmap = censoredBitmap;
             if (imageType == MediaObserver.ImageType.CAMERA_PHOTO) {
                 Bitmap rotated = fixImageOrientation(censoredBitmap, imagePath);
                 if (rotated != null && rotated != censoredBitmap) {
-                    finalBitmap = rotated;
-                    censoredBitmap.recycle();
+                    if (censoredBitmap != originalBitmap) {
+                        bitmapPool.put(censoredBitmap);
+                    }
+                    censoredBitmap = rotated;
                 }
             }
 
-            // Save the final censored image
-            String censoredPath = saveCensoredImage(finalBitmap, imagePath, imageType);
-            if (censoredPath == null) {
-                return ProcessingResult.error("Failed to save censored image", imagePath, imageType);
-            }
-
-            // Handle original image
-            boolean originalHandled = handleOriginalImage(imagePath, imageType);
-            if (!originalHandled) {
-                Log.w(TAG, "Could not handle original " + imageType + ", but continuing");
-            }
-
-            return ProcessingResult.success(true, censoredPath, sensitiveMatches, imagePath, imageType);
+            List<Bitmap> owned = new ArrayList<>(2);
+            if (ownsOriginal) owned.add(originalBitmap);
+            if (censoredBitmap != originalBitmap) owned.add(censoredBitmap);
+            result = new CensoredImage(censoredBitmap, owned);
+            return result;
 
+        } catch (CensorException e) {
+            throw e;
         } catch (Exception e) {
-            Log.e(TAG, "Error creating censored version", e);
-            return ProcessingResult.error("Censoring failed: " + e.getMessage(), imagePath, imageType);
+            ScrubberLog.e(TAG, "Error creating censored version", e);
+            throw new CensorException("Censoring failed: " + e.getMessage());
         } finally {
-            // Clean up memory
-            if (originalBitmap != null && !originalBitmap.isRecycled()) {
-                originalBitmap.recycle();
-            }
-            if (censoredBitmap != null && !censoredBitmap.isRecycled()) {
-                censoredBitmap.recycle();
+            if (result == null) {
+                if (ownsOriginal) {
+                    bitmapPool.put(originalBitmap);
+                }
+                if (censoredBitmap != originalBitmap) {
+                    bitmapPool.put(censoredBitmap);
+                }
             }
         }
     }
 
+    /**
+     * Persist stage: encode the censored image next to the others and handle the original
+     */
+    ProcessingResult persist(String imagePath, CensoredImage censored,
+                             List<SensitiveDataDetector.SensitiveMatch> sensitiveMatches,
+                             MediaObserver.ImageType imageType) {
+        MainThreadCheck.assertNotMainThread("Encoding");
+
+        // Save the final censored image
+        String censoredPath = saveCensoredImage(censored.bitmap, imagePath, imageType);
+        if (censoredPath == null) {
+            return ProcessingResult.error("Failed to save censored image", imagePath, imageType);
+        }
+
+        // Handle original image
+        boolean originalHandled = handleOriginalImage(imagePath, imageType);
+        if (!originalHandled) {
+            ScrubberLog.w(TAG, "Could not handle original " + imageType + ", but continuing");
+        }
+
+        return ProcessingResult.success(true, censoredPath, sensitiveMatches, imagePath, imageType);
+    }
+
     /**
      * PRECISE CHARACTER-LEVEL CENSORING with FALLBACK to word-level boxes
-     * This method creates precise bounding boxes for only the sensitive characters
+     * This method creates precise bounding boxes for only the sensitive characters.
+     * Paints onto originalBitmap itself when it is mutable (and returns it); only an
+     * immutable bitmap is copied first.
      */
-    private Bitmap createPreciseCensoredImage(Bitmap originalBitmap, Text visionText,
+    private Bitmap createPreciseCensoredImage(Bitmap originalBitmap, OcrText ocrText, float boxScale,
                                               List<SensitiveDataDetector.SensitiveMatch> sensitiveMatches) {
 
         if (originalBitmap == null || originalBitmap.isRecycled()) {
-            Log.e(TAG, "Original bitmap is null or recycled");
+            ScrubberLog.e(TAG, "Original bitmap is null or recycled");
             return null;
         }
 
-        Log.d(TAG, "🎯 Creating PRECISE censored image");
-        Log.d(TAG, "   📏 Image dimensions: " + originalBitmap.getWidth() + "x" + originalBitmap.getHeight());
-        Log.d(TAG, "   🔍 Sensitive matches: " + sensitiveMatches.size());
+        ScrubberLog.d(TAG, "🎯 Creating PRECISE censored image");
+        ScrubberLog.d(TAG, () -> "   📏 Image dimensions: " + originalBitmap.getWidth() + "x" + originalBitmap.getHeight());
+        ScrubberLog.d(TAG, () -> "   🔍 Sensitive matches: " + sensitiveMatches.size());
 
         Bitmap censoredBitmap = null;
         Canvas canvas = null;
 
         try {
-            censoredBitmap = originalBitmap.copy(Bitmap.Config.ARGB_8888, true);
-            if (censoredBitmap == null) {
-                Log.e(TAG, "Failed to create bitmap copy");
-                return null;
+            if (canCensorInPlace(originalBitmap)) {
+                censoredBitmap = originalBitmap;
+            } else {
+                ScrubberLog.d(TAG, () -> "   📋 " + originalBitmap.getConfig() + " bitmap is immutable - censoring a copy");
+                censoredBitmap = originalBitmap.copy(Bitmap.Config.ARGB_8888, true);
+                if (censoredBitmap == null) {
+                    ScrubberLog.e(TAG, "Failed to create bitmap copy");
+                    return null;
+                }
             }
 
             canvas = new Canvas(censoredBitmap);
 
-            Paint blackPaint = new Paint();
-            blackPaint.setColor(0xFF000000);
-            blackPaint.setStyle(Paint.Style.FILL);
-            blackPaint.setAntiAlias(true);
-
-            int censoredCount = 0;
-
-            // For each sensitive match, find PRECISE character boundaries
-            for (SensitiveDataDetector.SensitiveMatch match : sensitiveMatches) {
-                try {
-                    Log.d(TAG, "🎯 Processing match: " + match.type + " = '" + match.value + "'");
-
-                    List<Rect> preciseBoxes = findPreciseCharacterBoxes(visionText, match);
-                    Log.d(TAG, "   📦 Found " + preciseBoxes.size() + " precise character boxes");
-
-                    // FALLBACK: If no precise boxes found, use word-level boxes
-                    if (preciseBoxes.isEmpty()) {
-                        preciseBoxes = findWordBoxes(visionText, match);
-                        Log.d(TAG, "   🔄 Fallback: Found " + preciseBoxes.size() + " word boxes");
-                    }
-
-                    for (Rect rect : preciseBoxes) {
-                        if (rect != null && isValidRect(rect, censoredBitmap.getWidth(), censoredBitmap.getHeight())) {
-
-                            // Add minimal padding (just 2-4 pixels for better coverage)
-                            int padding = 3;
-                            Rect paddedRect = new Rect(
-                                    Math.max(0, rect.left - padding),
-                                    Math.max(0, rect.top - padding),
-                                    Math.min(censoredBitmap.getWidth(), rect.right + padding),
-                                    Math.min(censoredBitmap.getHeight(), rect.bottom + padding)
-                            );
+            // Index the OCR elements once - every match below is a lookup by offset
+            OcrLayout layout = OcrLayout.fromText(ocrText, boxScale);
+            List<Rect> redactions = findRedactionRects(layout, sensitiveMatches,
+                    censoredBitmap.getWidth(), censoredBitmap.getHeight());
 
-                            canvas.drawRect(paddedRect, blackPaint);
-                            censoredCount++;
-
-                            Log.d(TAG, "   ✅ Censored precise area: " + paddedRect.toString());
-                        }
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "❌ Error censoring match: " + match.type, e);
-                }
+            Paint blackPaint = newRedactionPaint();
+            for (Rect rect : redactions) {
+                canvas.drawRect(rect, blackPaint);
             }
+            int censoredCount = redactions.size();
 
-            Log.d(TAG, "🎨 Successfully censored " + censoredCount + " precise areas");
+            if (ScrubberLog.isDebugEnabled()) {
+                ScrubberLog.d(TAG, "🎨 Successfully censored " + censoredCount + " precise areas");
+            }
             return censoredBitmap;
 
         } catch (Exception e) {
-            Log.e(TAG, "Error in createPreciseCensoredImage", e);
-            if (censoredBitmap != null && !censoredBitmap.isRecycled()) {
+            ScrubberLog.e(TAG, "Error in createPreciseCensoredImage", e);
+            if (censoredBitmap != null && censoredBitmap != originalBitmap && !censoredBitmap.isRecycled()) {
                 censoredBitmap.recycle();
             }
             return null;
@@ -300,414 +433,93 @@ public class ScreenshotProcessor {
     }
 
     /**
-     * PRECISE CHARACTER FINDER: Find exact character-level bounding boxes
-     * FIXED: Only processes elements that actually contain sensitive data
+     * Padded, clamped boxes to paint black over every match, in the layout's pixels
      */
-    private List<Rect> findPreciseCharacterBoxes(Text visionText, SensitiveDataDetector.SensitiveMatch match) {
-        List<Rect> preciseBoxes = new ArrayList<>();
-
-        if (visionText == null || match == null || match.value == null) {
-            return preciseBoxes;
-        }
-
-        String searchValue = match.value.trim();
-        // Normalize the match text for comparison
-        String normalizedMatch = normalizeText(searchValue);
-
-        Log.d(TAG, "🔍 Looking for precise characters: '" + searchValue + "'");
-
-        // Search through all text elements for character-level matches
-        for (Text.TextBlock block : visionText.getTextBlocks()) {
-            if (block == null) continue;
-
-            for (Text.Line line : block.getLines()) {
-                if (line == null) continue;
-
-                for (Text.Element element : line.getElements()) {
-                    if (element == null) continue;
-
-                    String elementText = element.getText();
-                    if (elementText == null) continue;
-
-                    // ✅ ONLY process if element actually contains the sensitive data
-                    if (actuallyContainsSensitiveData(elementText, searchValue, match.type)) {
-                        Rect elementBounds = element.getBoundingBox();
-                        if (elementBounds != null) {
-                            List<Rect> charBoxes = calculateCharacterBounds(elementText, searchValue, elementBounds, match.type);
-                            preciseBoxes.addAll(charBoxes);
-                            Log.d(TAG, "   ✅ Found in element: '" + elementText + "' -> " + charBoxes.size() + " char boxes");
-                        }
-                    }
+    private List<Rect> findRedactionRects(OcrLayout layout, List<SensitiveDataDetector.SensitiveMatch> sensitiveMatches,
+                                          int imageWidth, int imageHeight) {
+        List<Rect> redactions = new ArrayList<>();
+
+        // For each sensitive match, find PRECISE character boundaries
+        for (SensitiveDataDetector.SensitiveMatch match : sensitiveMatches) {
+            try {
+                if (ScrubberLog.isDebugEnabled()) {
+                    ScrubberLog.d(TAG, "🎯 Processing match: " + match.type + " = '" +
+                            SensitiveDataDetector.maskValue(match.value, match.type) + "'");
                 }
-            }
-        }
 
-        Log.d(TAG, "🎯 Total precise boxes found: " + preciseBoxes.size());
-        return preciseBoxes;
-    }
+                List<Rect> preciseBoxes = findPreciseCharacterBoxes(layout, match);
+                if (preciseBoxes.isEmpty()) {
+                    ScrubberLog.w(TAG, "No OCR elements under " + match.type + " match - nothing to censor");
+                }
 
-    /**
-     * FALLBACK: Find word-level boxes when character-level fails
-     */
-    private List<Rect> findWordBoxes(Text visionText, SensitiveDataDetector.SensitiveMatch match) {
-        List<Rect> wordBoxes = new ArrayList<>();
-        String searchValue = match.value.trim();
-        String normalizedMatch = normalizeText(searchValue);
-
-        for (Text.TextBlock block : visionText.getTextBlocks()) {
-            if (block == null) continue;
-
-            for (Text.Line line : block.getLines()) {
-                if (line == null) continue;
-
-                String lineText = line.getText();
-                if (lineText != null && normalizeText(lineText).contains(normalizedMatch)) {
-                    // Union all element boxes in this line
-                    Rect unionRect = null;
-                    for (Text.Element element : line.getElements()) {
-                        if (element.getBoundingBox() != null) {
-                            if (unionRect == null) {
-                                unionRect = new Rect(element.getBoundingBox());
-                            } else {
-                                unionRect.union(element.getBoundingBox());
-                            }
+                for (Rect rect : preciseBoxes) {
+                    if (rect != null && isValidRect(rect, imageWidth, imageHeight)) {
+
+                        // Add minimal padding (just 2-4 pixels for better coverage)
+                        int padding = 3;
+                        Rect paddedRect = new Rect(
+                                Math.max(0, rect.left - padding),
+                                Math.max(0, rect.top - padding),
+                                Math.min(imageWidth, rect.right + padding),
+                                Math.min(imageHeight, rect.bottom + padding)
+                        );
+                        redactions.add(paddedRect);
+
+                        if (ScrubberLog.isDebugEnabled()) {
+                            ScrubberLog.d(TAG, "   ✅ Censored precise area: " + paddedRect.toString());
                         }
                     }
-                    if (unionRect != null) {
-                        wordBoxes.add(unionRect);
-                        Log.d(TAG, "   📝 Added word-level box for line: " + lineText);
-                    }
-                }
-            }
-        }
-
-        return wordBoxes;
-    }
-
-    /**
-     * Normalize text for better matching (handle OCR issues)
-     */
-    private String normalizeText(String text) {
-        if (text == null) return "";
-        return text.replaceAll("\\s+", "").toLowerCase();
-    }
-
-    /**
-     * IMPROVED: More precise matching logic to avoid false positives
-     */
-    private boolean actuallyContainsSensitiveData(String elementText, String sensitiveValue, String type) {
-        if (elementText == null || sensitiveValue == null) return false;
-
-        // Normalize both texts for comparison
-        String normalizedElement = normalizeText(elementText);
-        String normalizedSensitive = normalizeText(sensitiveValue);
-
-        // For exact matches first - most reliable
-        if (normalizedElement.equals(normalizedSensitive)) {
-            Log.d(TAG, "   ✅ Exact normalized match found: '" + elementText + "'");
-            return true;
-        }
-
-        // For phone numbers - match by digits only
-        if (type.contains("PHONE")) {
-            String elementDigits = elementText.replaceAll("[^0-9]", "");
-            String sensitiveDigits = sensitiveValue.replaceAll("[^0-9]", "");
-            boolean match = elementDigits.length() >= 7 && sensitiveDigits.length() >= 7 &&
-                    elementDigits.equals(sensitiveDigits);
-            if (match) {
-                Log.d(TAG, "   📞 Phone digits match: '" + elementText + "' -> '" + elementDigits + "'");
-            }
-            return match;
-        }
-
-        // For credit cards - match by digits only
-        if (type.contains("CREDIT_CARD")) {
-            String elementDigits = elementText.replaceAll("[^0-9]", "");
-            String sensitiveDigits = sensitiveValue.replaceAll("[^0-9]", "");
-            boolean match = elementDigits.length() >= 13 && sensitiveDigits.length() >= 13 &&
-                    elementDigits.equals(sensitiveDigits);
-            if (match) {
-                Log.d(TAG, "   💳 Credit card digits match: '" + elementText + "' -> '" + elementDigits + "'");
-            }
-            return match;
-        }
-
-        // For emails - check for exact match or contains with @
-        if (type.contains("EMAIL")) {
-            boolean match = (elementText.contains("@") && sensitiveValue.contains("@") &&
-                    normalizedElement.equals(normalizedSensitive)) ||
-                    (elementText.toLowerCase().contains(sensitiveValue.toLowerCase()) &&
-                            Math.abs(elementText.length() - sensitiveValue.length()) <= 2);
-            if (match) {
-                Log.d(TAG, "   📧 Email match: '" + elementText + "'");
-            }
-            return match;
-        }
-
-        // For SSN and ID numbers - exact match or very close match
-        if (type.contains("SSN") || type.contains("ID")) {
-            String elementClean = elementText.replaceAll("[^0-9]", "");
-            String sensitiveClean = sensitiveValue.replaceAll("[^0-9]", "");
-            boolean match = elementClean.equals(sensitiveClean) && elementClean.length() >= 9;
-            if (match) {
-                Log.d(TAG, "   🆔 ID/SSN match: '" + elementText + "' -> '" + elementClean + "'");
-            }
-            return match;
-        }
-
-        // For bank accounts - exact match or very close
-        if (type.contains("BANK")) {
-            String elementClean = elementText.replaceAll("[^0-9\\-]", "");
-            String sensitiveClean = sensitiveValue.replaceAll("[^0-9\\-]", "");
-            boolean match = elementClean.equals(sensitiveClean) && elementClean.length() >= 8;
-            if (match) {
-                Log.d(TAG, "   🏦 Bank account match: '" + elementText + "' -> '" + elementClean + "'");
-            }
-            return match;
-        }
-
-        Log.d(TAG, "   ❌ No match for '" + sensitiveValue + "' in '" + elementText + "'");
-        return false;
-    }
-
-    /**
-     * CALCULATE COMPLETE SENSITIVE DATA BOUNDARIES within an element
-     * FIXED: Only processes when we actually found the sensitive data
-     */
-    private List<Rect> calculateCharacterBounds(String elementText, String sensitiveValue, Rect elementBounds, String type) {
-        List<Rect> charBoxes = new ArrayList<>();
-
-        Log.d(TAG, "   📊 Element: '" + elementText + "'");
-        Log.d(TAG, "   📊 Sensitive: '" + sensitiveValue + "' (type: " + type + ")");
-
-        int startIndex = findSensitiveDataStart(elementText, sensitiveValue, type);
-
-        if (startIndex >= 0) {
-            int endIndex;
-
-            // Special handling for different data types to ensure complete coverage
-            if (type.contains("PHONE")) {
-                // For phones, cover from first digit to last digit (including formatting)
-                endIndex = findLastPhoneCharacter(elementText, startIndex);
-            } else if (type.contains("CREDIT_CARD")) {
-                // For credit cards, cover all digits and spaces
-                endIndex = findLastCreditCardCharacter(elementText, startIndex);
-            } else if (type.contains("EMAIL")) {
-                // For emails, cover the complete email address
-                endIndex = findEmailEnd(elementText, startIndex);
-            } else {
-                // For other types (SSN, ID), use the sensitive value length
-                endIndex = startIndex + sensitiveValue.length();
-            }
-
-            // Make sure we don't go beyond the element text length
-            endIndex = Math.min(endIndex, elementText.length());
-
-            // Calculate the portion of the element bounds to censor
-            float elementWidth = elementBounds.width();
-            float elementTextLength = elementText.length();
-
-            if (elementTextLength > 0) {
-                float charWidth = elementWidth / elementTextLength;
-
-                int leftOffset = (int) (startIndex * charWidth);
-                int rightOffset = (int) (endIndex * charWidth);
-
-                // Add padding to ensure complete coverage
-                int padding = Math.max(2, (int) (charWidth * 0.3));
-
-                Rect charRect = new Rect(
-                        Math.max(elementBounds.left, elementBounds.left + leftOffset - padding),
-                        elementBounds.top,
-                        Math.min(elementBounds.right, elementBounds.left + rightOffset + padding),
-                        elementBounds.bottom
-                );
-
-                charBoxes.add(charRect);
-                Log.d(TAG, "   🎯 Complete " + type + " bounds: " + charRect.toString());
-                Log.d(TAG, "   📏 Covering characters " + startIndex + " to " + endIndex + " ('" +
-                        elementText.substring(startIndex, endIndex) + "')");
-            }
-        } else {
-            // ✅ FIXED: Don't censor if we can't find the sensitive data
-            Log.d(TAG, "   ❌ No precise match found - skipping element");
-        }
-
-        return charBoxes;
-    }
-
-    private int findLastPhoneCharacter(String text, int startIndex) {
-        int lastDigitIndex = startIndex;
-        int digitCount = 0;
-
-        // Look for phone number pattern: find last digit, but include formatting
-        for (int i = startIndex; i < text.length(); i++) {
-            char c = text.charAt(i);
-            if (Character.isDigit(c)) {
-                lastDigitIndex = i;
-                digitCount++;
-            } else if (c == ' ' || c == '-' || c == '(' || c == ')' || c == '.') {
-                // Include formatting characters if they're between digits
-                if (i < text.length() - 1 && hasMoreDigitsAhead(text, i + 1)) {
-                    continue;
-                } else if (digitCount >= 7) {
-                    // We have enough digits, stop here
-                    break;
                 }
-            } else {
-                // Non-phone character, stop if we have enough digits
-                if (digitCount >= 7) break;
+            } catch (Exception e) {
+                ScrubberLog.e(TAG, "❌ Error censoring match: " + match.type, e);
             }
         }
-
-        return lastDigitIndex + 1;
+        return redactions;
     }
 
-    /**
-     * Find the end of a credit card number (including spaces and dashes)
-     */
-    private int findLastCreditCardCharacter(String text, int startIndex) {
-        int lastIndex = startIndex;
-        int digitCount = 0;
-
-        for (int i = startIndex; i < text.length(); i++) {
-            char c = text.charAt(i);
-            if (Character.isDigit(c)) {
-                lastIndex = i;
-                digitCount++;
-            } else if (c == ' ' || c == '-') {
-                // Include formatting characters
-                if (hasMoreDigitsAhead(text, i + 1)) {
-                    lastIndex = i;
-                } else if (digitCount >= 13) {
-                    break;
-                }
-            } else {
-                // Non-card character
-                if (digitCount >= 13) break;
-            }
-        }
-
-        return lastIndex + 1;
+    private static Paint newRedactionPaint() {
+        Paint blackPaint = new Paint();
+        blackPaint.setColor(0xFF000000);
+        blackPaint.setStyle(Paint.Style.FILL);
+        blackPaint.setAntiAlias(true);
+        return blackPaint;
     }
 
     /**
-     * Find the end of an email address
+     * A Canvas can draw onto any mutable bitmap; hardware bitmaps are never mutable
      */
-    private int findEmailEnd(String text, int startIndex) {
-        int endIndex = startIndex;
-        boolean foundAt = false;
-
-        for (int i = startIndex; i < text.length(); i++) {
-            char c = text.charAt(i);
-            if (c == '@') {
-                foundAt = true;
-                endIndex = i;
-            } else if (Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '_' || c == '+') {
-                endIndex = i;
-            } else if (foundAt && (c == ' ' || c == '\t' || c == '\n')) {
-                // Stop at whitespace after @ and domain
-                break;
-            } else if (!foundAt && (c == ' ' || c == '\t' || c == '\n')) {
-                // Stop at whitespace before @
-                break;
-            }
-        }
-
-        return endIndex + 1;
+    private static boolean canCensorInPlace(Bitmap bitmap) {
+        return bitmap.isMutable() && bitmap.getConfig() != null && bitmap.getConfig() != Bitmap.Config.HARDWARE;
     }
 
     /**
-     * Check if there are more digits ahead in the text
+     * PRECISE CHARACTER FINDER: project the match offsets onto the OCR elements under them.
+     * Each match maps to its own characters, so repeated values on screen are each covered once.
      */
-    private boolean hasMoreDigitsAhead(String text, int fromIndex) {
-        for (int i = fromIndex; i < Math.min(fromIndex + 5, text.length()); i++) {
-            if (Character.isDigit(text.charAt(i))) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Find the starting position of sensitive data in the element text
-     */
-    private int findSensitiveDataStart(String elementText, String sensitiveValue, String type) {
-        if (elementText == null || sensitiveValue == null) return -1;
-
-        // Try exact match first
-        int exactIndex = elementText.indexOf(sensitiveValue);
-        if (exactIndex >= 0) {
-            Log.d(TAG, "   ✅ Found exact match at index " + exactIndex);
-            return exactIndex;
-        }
-
-        // Try case-insensitive match
-        int caseIndex = elementText.toLowerCase().indexOf(sensitiveValue.toLowerCase());
-        if (caseIndex >= 0) {
-            Log.d(TAG, "   ✅ Found case-insensitive match at index " + caseIndex);
-            return caseIndex;
-        }
-
-        // For phone numbers, try matching by digits pattern
-        if (type.contains("PHONE")) {
-            String elementDigits = elementText.replaceAll("[^0-9]", "");
-            String sensitiveDigits = sensitiveValue.replaceAll("[^0-9]", "");
-
-            if (elementDigits.equals(sensitiveDigits) ||
-                    (elementDigits.length() >= 7 && sensitiveDigits.length() >= 7 &&
-                            (elementDigits.contains(sensitiveDigits) || sensitiveDigits.contains(elementDigits)))) {
+    private List<Rect> findPreciseCharacterBoxes(OcrLayout layout, SensitiveDataDetector.SensitiveMatch match) {
+        List<Rect> preciseBoxes = new ArrayList<>();
 
-                // For phone numbers, if digits match, cover from first digit
-                for (int i = 0; i < elementText.length(); i++) {
-                    if (Character.isDigit(elementText.charAt(i))) {
-                        Log.d(TAG, "   📞 Phone digits match - starting from " + i);
-                        return i;
-                    }
-                }
-            }
+        if (layout == null || match == null) {
+            return preciseBoxes;
         }
 
-        // For credit cards, match by digits
-        if (type.contains("CREDIT_CARD")) {
-            String elementDigits = elementText.replaceAll("[^0-9]", "");
-            String sensitiveDigits = sensitiveValue.replaceAll("[^0-9]", "");
+        int start = layout.getTrimOffset() + match.start;
+        int end = layout.getTrimOffset() + match.end;
+        int from = layout.firstElementEndingAfter(start);
+        int to = layout.firstElementStartingAt(end);
 
-            if (elementDigits.equals(sensitiveDigits)) {
-                // Cover from first digit
-                for (int i = 0; i < elementText.length(); i++) {
-                    if (Character.isDigit(elementText.charAt(i))) {
-                        Log.d(TAG, "   💳 Credit card digits match - starting from " + i);
-                        return i;
-                    }
-                }
+        int[] box = new int[4];
+        for (int i = from; i < to; i++) {
+            if (layout.projectRange(i, start, end, box)) {
+                preciseBoxes.add(new Rect(box[0], box[1], box[2], box[3]));
             }
         }
 
-        // For emails, find the @ symbol and work backwards/forwards
-        if (type.contains("EMAIL")) {
-            String lowerElement = elementText.toLowerCase();
-            String lowerSensitive = sensitiveValue.toLowerCase();
-
-            int atIndex = lowerElement.indexOf("@");
-            if (atIndex >= 0 && lowerSensitive.contains("@")) {
-                // Find the start of the email by looking backwards from @
-                int emailStart = atIndex;
-                while (emailStart > 0) {
-                    char c = elementText.charAt(emailStart - 1);
-                    if (Character.isLetterOrDigit(c) || c == '.' || c == '_' || c == '-' || c == '+') {
-                        emailStart--;
-                    } else {
-                        break;
-                    }
-                }
-                Log.d(TAG, "   📧 Email found starting from " + emailStart);
-                return emailStart;
-            }
+        if (ScrubberLog.isDebugEnabled()) {
+            ScrubberLog.d(TAG, "🎯 " + match.type + " [" + match.start + ", " + match.end + ") -> " +
+                    (to - from) + " elements, " + preciseBoxes.size() + " boxes");
         }
-
-        Log.d(TAG, "   ❌ No match found for '" + sensitiveValue + "' in '" + elementText + "'");
-        return -1;
+        return preciseBoxes;
     }
 
     private Bitmap fixImageOrientation(Bitmap bitmap, String imagePath) {
@@ -738,7 +550,7 @@ public class ScreenshotProcessor {
             return rotatedBitmap != null ? rotatedBitmap : bitmap;
 
         } catch (Exception e) {
-            Log.e(TAG, "Error fixing image orientation", e);
+            ScrubberLog.e(TAG, "Error fixing image orientation", e);
             return bitmap;
         }
     }
@@ -775,7 +587,7 @@ public class ScreenshotProcessor {
             return censoredFile.getAbsolutePath();
 
         } catch (Exception e) {
-            Log.e(TAG, "Error saving censored image", e);
+            ScrubberLog.e(TAG, "Error saving censored image", e);
             return null;
         }
     }
@@ -784,7 +596,7 @@ public class ScreenshotProcessor {
         try {
             return deleteOriginalImage(imagePath);
         } catch (Exception e) {
-            Log.e(TAG, "Error handling original image", e);
+            ScrubberLog.e(TAG, "Error handling original image", e);
             return false;
         }
     }
@@ -797,7 +609,7 @@ public class ScreenshotProcessor {
             }
             return true;
         } catch (Exception e) {
-            Log.e(TAG, "Error deleting original image", e);
+            ScrubberLog.e(TAG, "Error deleting original image", e);
             return false;
         }
     }
@@ -810,22 +622,18 @@ public class ScreenshotProcessor {
             values.put(MediaStore.Images.Media.DATA, imagePath);
             context.getContentResolver().insert(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, values);
         } catch (Exception e) {
-            Log.e(TAG, "Error adding to MediaStore", e);
+            ScrubberLog.e(TAG, "Error adding to MediaStore", e);
         }
     }
 
-    private int calculateInSampleSize(BitmapFactory.Options options, int reqWidth, int reqHeight) {
-        final int height = options.outHeight;
-        final int width = options.outWidth;
+    /**
+     * Smallest power-of-two subsampling that brings a width x height ARGB_8888 decode within
+     * MAX_CENSOR_BYTES; 1 (full resolution) whenever it already fits
+     */
+    private static int calculateCensorSampleSize(int width, int height) {
         int inSampleSize = 1;
-
-        if (height > reqHeight || width > reqWidth) {
-            final int halfHeight = height / 2;
-            final int halfWidth = width / 2;
-
-            while ((halfHeight / inSampleSize) >= reqHeight && (halfWidth / inSampleSize) >= reqWidth) {
-                inSampleSize *= 2;
-            }
+        while ((long) (width / inSampleSize) * (height / inSampleSize) * 4 > MAX_CENSOR_BYTES) {
+            inSampleSize *= 2;
         }
         return inSampleSize;
     }
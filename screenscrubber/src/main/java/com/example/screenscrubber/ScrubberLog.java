@@ -0,0 +1,74 @@
+package com.example.screenscrubber;
+
+import android.util.Log;
+
+import java.util.function.Supplier;
+
+/**
+ * Level-gated logging for the whole library.
+ * Debug messages are built lazily (Supplier) so release builds don't pay for string
+ * concatenation. In per-element loops, guard with isDebugEnabled() instead - a capturing
+ * lambda still allocates even when it's never called.
+ *
+ * Default level follows Log.isLoggable("ScreenScrubber", DEBUG), so debug output can be
+ * turned on with: adb shell setprop log.tag.ScreenScrubber DEBUG
+ */
+final class ScrubberLog {
+    static final String LIBRARY_TAG = "ScreenScrubber";
+
+    private static volatile int level = Log.isLoggable(LIBRARY_TAG, Log.DEBUG) ? Log.DEBUG : Log.INFO;
+
+    private ScrubberLog() {
+    }
+
+    /**
+     * Minimum level that gets logged (android.util.Log.VERBOSE .. ASSERT)
+     */
+    static void setLevel(int minLevel) {
+        level = minLevel;
+    }
+
+    static int getLevel() {
+        return level;
+    }
+
+    static boolean isDebugEnabled() {
+        return level <= Log.DEBUG;
+    }
+
+    static void v(String tag, Supplier<String> message) {
+        if (level <= Log.VERBOSE) Log.v(tag, message.get());
+    }
+
+    static void d(String tag, String message) {
+        if (level <= Log.DEBUG) Log.d(tag, message);
+    }
+
+    static void d(String tag, Supplier<String> message) {
+        if (level <= Log.DEBUG) Log.d(tag, message.get());
+    }
+
+    static void i(String tag, String message) {
+        if (level <= Log.INFO) Log.i(tag, message);
+    }
+
+    static void i(String tag, Supplier<String> message) {
+        if (level <= Log.INFO) Log.i(tag, message.get());
+    }
+
+    static void w(String tag, String message) {
+        if (level <= Log.WARN) Log.w(tag, message);
+    }
+
+    static void w(String tag, String message, Throwable error) {
+        if (level <= Log.WARN) Log.w(tag, message, error);
+    }
+
+    static void e(String tag, String message) {
+        if (level <= Log.ERROR) Log.e(tag, message);
+    }
+
+    static void e(String tag, String message, Throwable error) {
+        if (level <= Log.ERROR) Log.e(tag, message, error);
+    }
+}
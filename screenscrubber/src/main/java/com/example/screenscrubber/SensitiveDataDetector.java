@@ -1,16 +1,23 @@
 package com.example.screenscrubber;
 
-import android.util.Log;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 public class SensitiveDataDetector {
     private static final String TAG = "SensitiveDataDetector";
-    private static final boolean ALLOW_LUHN_FAIL = false; // Flag to control strict validation
+
+    // Characters around a segment seam that are re-scanned first; doubled until every
+    // candidate span crossing the seam fits inside
+    static final int SEAM_MARGIN = 128;
 
     public static class SensitiveMatch {
         public final String type;
@@ -32,420 +39,359 @@ public class SensitiveDataDetector {
         }
     }
 
-    // IMPROVED OCR-TOLERANT PATTERNS
-    private static final Pattern CREDIT_CARD_PATTERN =
-            Pattern.compile("(?:\\d[\\s-]*){13,19}");
-
-    private static final Pattern US_SSN_PATTERN =
-            Pattern.compile("\\b\\d{3}[-\\s]\\d{2}[-\\s]\\d{4}\\b");
-
-    // Enhanced US Phone - handle both formatted and unformatted
-    private static final Pattern US_PHONE_PATTERN = Pattern.compile(
-            "\\b(?:\\+?1[\\s-]?)?(?:\\(?[2-9]\\d{2}\\)?[\\s.-]?)[2-9]\\d{2}[\\s.-]?\\d{4}\\b" +
-                    "|\\b[2-9]\\d{9}\\b" +
-                    "|\\b[2-9]\\d{2}\\.[2-9]\\d{2}\\.\\d{4}\\b"  // ADD DOT FORMAT
-    );
-
-
-    // Enhanced EMAIL - handle OCR spacing issues
-    private static final Pattern EMAIL_PATTERN =
-            Pattern.compile("\\b[a-zA-Z0-9][a-zA-Z0-9._%+-]*@[a-zA-Z0-9][a-zA-Z0-9.-]*\\s?\\.\\s?[a-zA-Z]{2,6}\\b");
-
-    // Israeli patterns
-    private static final Pattern ISRAELI_ID_PATTERN =
-            Pattern.compile("\\b\\d{9}\\b|\\b\\d{3}[\\s-]\\d{3}[\\s-]\\d{3}\\b");
-
-    private static final Pattern ISRAELI_PHONE_PATTERN = Pattern.compile(
-            "\\b(?:\\+972[\\s-]?|0)?(?:2|3|4|5[0-9]|7[2-9]|8|9)[\\s-]?\\d{3}[\\s-]?\\d{4}\\b" +
-                    "|\\b\\+972[\\s-]?[2-9][\\s-]?\\d{3}[\\s-]?\\d{4}\\b"  // ADD INTERNATIONAL FORMAT
-    );
-    private static final Pattern ISRAELI_BANK_ACCOUNT_PATTERN =
-            Pattern.compile("\\b(?:0[1-9]|[1-9][0-9])[\\s-]?\\d{3}[\\s-]?\\d{6}\\b");
-
-    // Validation sets
-    private static final Set<String> VALID_ISRAELI_AREA_CODES = new HashSet<>();
-    static {
-        VALID_ISRAELI_AREA_CODES.add("02"); VALID_ISRAELI_AREA_CODES.add("03"); VALID_ISRAELI_AREA_CODES.add("04");
-        VALID_ISRAELI_AREA_CODES.add("08"); VALID_ISRAELI_AREA_CODES.add("09"); VALID_ISRAELI_AREA_CODES.add("50");
-        VALID_ISRAELI_AREA_CODES.add("51"); VALID_ISRAELI_AREA_CODES.add("52"); VALID_ISRAELI_AREA_CODES.add("53");
-        VALID_ISRAELI_AREA_CODES.add("54"); VALID_ISRAELI_AREA_CODES.add("55"); VALID_ISRAELI_AREA_CODES.add("56");
-        VALID_ISRAELI_AREA_CODES.add("57"); VALID_ISRAELI_AREA_CODES.add("58"); VALID_ISRAELI_AREA_CODES.add("59");
-        VALID_ISRAELI_AREA_CODES.add("72"); VALID_ISRAELI_AREA_CODES.add("73"); VALID_ISRAELI_AREA_CODES.add("74");
-        VALID_ISRAELI_AREA_CODES.add("76"); VALID_ISRAELI_AREA_CODES.add("77"); VALID_ISRAELI_AREA_CODES.add("78");
-        VALID_ISRAELI_AREA_CODES.add("79");
+    private final DetectionPlan plan;
+
+    // Prefilter counters, cumulative over the lifetime of this detector
+    private final AtomicLong scannedTexts = new AtomicLong();
+    private final AtomicLongArray familySkips;
+
+    public SensitiveDataDetector() {
+        this(DetectionPlan.builtIns());
     }
 
-    private static final Set<String> VALID_ISRAELI_BANK_CODES = new HashSet<>();
-    static {
-        VALID_ISRAELI_BANK_CODES.add("10"); VALID_ISRAELI_BANK_CODES.add("11"); VALID_ISRAELI_BANK_CODES.add("12");
-        VALID_ISRAELI_BANK_CODES.add("20"); VALID_ISRAELI_BANK_CODES.add("26"); VALID_ISRAELI_BANK_CODES.add("27");
-        VALID_ISRAELI_BANK_CODES.add("31"); VALID_ISRAELI_BANK_CODES.add("17"); VALID_ISRAELI_BANK_CODES.add("14");
-        VALID_ISRAELI_BANK_CODES.add("09"); VALID_ISRAELI_BANK_CODES.add("04"); VALID_ISRAELI_BANK_CODES.add("52");
-        VALID_ISRAELI_BANK_CODES.add("54"); VALID_ISRAELI_BANK_CODES.add("46"); VALID_ISRAELI_BANK_CODES.add("22");
-        VALID_ISRAELI_BANK_CODES.add("23");
+    public SensitiveDataDetector(DetectionPlan plan) {
+        if (plan == null) {
+            throw new IllegalArgumentException("Detection plan cannot be null");
+        }
+        this.plan = plan;
+        this.familySkips = new AtomicLongArray(plan.familyTypes.length);
     }
 
     public List<SensitiveMatch> detectSensitiveData(String text) {
-        List<SensitiveMatch> matches = new ArrayList<>();
+        return detect(text).matches;
+    }
 
-        if (text == null || text.trim().isEmpty()) {
-            Log.w(TAG, "Empty or null text provided");
-            return matches;
+    /**
+     * Same matches as detectSensitiveData(text), for a text made of independent segments (the
+     * strips of a tiled OCR): segments are scanned in parallel on executor, then each seam is
+     * stitched. segmentStarts are ascending offsets into text, the first one 0, each preceded
+     * by a '\n'. Falls back to a single scan with one segment, no executor or a failed task.
+     */
+    public List<SensitiveMatch> detectSensitiveData(String text, int[] segmentStarts, ExecutorService executor) {
+        if (text == null || segmentStarts == null || segmentStarts.length <= 1 || executor == null) {
+            return detectSensitiveData(text);
         }
 
-        String cleanText = text.trim();
-        Log.d(TAG, "🔍 PROCESSING TEXT (" + cleanText.length() + " chars)");
-
+        int segments = segmentStarts.length;
+        List<Future<List<SensitiveMatch>>> segmentResults = new ArrayList<>(segments);
+        List<Future<Seam>> seamResults = new ArrayList<>(segments - 1);
+        List<SensitiveMatch> segmentMatches = new ArrayList<>();
+        List<SensitiveMatch> seamMatches = new ArrayList<>();
+        List<int[]> seamSpans = new ArrayList<>();
         try {
-            // Order matters! Check Israeli patterns FIRST
-            Log.d(TAG, "🇮🇱 === ISRAELI DETECTION PHASE ===");
-            findIsraeliIDs(cleanText, matches);
-            findIsraeliPhones(cleanText, matches);
-            findIsraeliBankAccounts(cleanText, matches);
-
-            Log.d(TAG, "🇺🇸 === US DETECTION PHASE ===");
-            findCreditCards(cleanText, matches);
-            findUSSSNs(cleanText, matches);
-            findUSPhones(cleanText, matches);
-
-            Log.d(TAG, "🌐 === UNIVERSAL DETECTION PHASE ===");
-            findEmails(cleanText, matches);
-
-            Log.d(TAG, "🔧 === OVERLAP RESOLUTION ===");
-            matches = removeOverlappingMatches(matches);
-
-            Log.d(TAG, "📊 DETECTION SUMMARY: " + matches.size() + " final matches");
-
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Error in detection", e);
-        }
-
-        return matches;
-    }
-
-    private void findCreditCards(String text, List<SensitiveMatch> matches) {
-        Matcher matcher = CREDIT_CARD_PATTERN.matcher(text);
-        while (matcher.find()) {
-            String match = matcher.group();
-            String cleanNumber = match.replaceAll("[\\s-]", "");
-
-            if (cleanNumber.length() >= 13 && cleanNumber.length() <= 19) {
-                // Use more lenient validation - confidence boost for Luhn pass
-                if (ALLOW_LUHN_FAIL || isValidCreditCardNumber(cleanNumber)) {
-                    double confidence = isValidCreditCardNumber(cleanNumber) ? 0.95 : 0.7;
-                    matches.add(new SensitiveMatch("CREDIT_CARD", match, matcher.start(), matcher.end(), confidence));
-                    Log.d(TAG, "✅ Credit Card confirmed: " + maskValue(match, "CREDIT_CARD"));
-                }
+            for (int i = 0; i < segments; i++) {
+                int from = segmentStarts[i];
+                // The '\n' before the next segment belongs to its seam
+                int to = i + 1 < segments ? segmentStarts[i + 1] - 1 : text.length();
+                segmentResults.add(executor.submit(() -> detectRange(text, from, to)));
             }
-        }
-    }
-
-    private void findUSPhones(String text, List<SensitiveMatch> matches) {
-        // Add pattern for unformatted 10-digit numbers
-        Pattern barePhonePattern = Pattern.compile("\\b[2-9]\\d{9}\\b");
-
-        // Check formatted phones first
-        Matcher matcher = US_PHONE_PATTERN.matcher(text);
-        while (matcher.find()) {
-            String match = matcher.group();
-
-            if (!isIsraeliPhoneFormat(match) && !overlapsWithExisting(matches, matcher.start(), matcher.end(), "ISRAELI_PHONE")) {
-                String cleanPhone = match.replaceAll("[\\s\\-\\(\\)\\.]", "");
-                if (cleanPhone.startsWith("+1")) cleanPhone = cleanPhone.substring(2);
-                if (cleanPhone.startsWith("1") && cleanPhone.length() == 11) cleanPhone = cleanPhone.substring(1);
-
-                if (cleanPhone.length() == 10 && cleanPhone.charAt(0) >= '2' && !isRepeatedDigits(cleanPhone)) {
-                    matches.add(new SensitiveMatch("US_PHONE", match, matcher.start(), matcher.end(), 0.8));
-                    Log.d(TAG, "✅ US Phone confirmed: " + maskValue(match, "US_PHONE"));
-                }
+            for (int i = 1; i < segments; i++) {
+                int seam = segmentStarts[i] - 1;
+                seamResults.add(executor.submit(() -> stitchSeam(text, seam)));
             }
-        }
-
-        // Check bare 10-digit numbers
-        Matcher bareMatcher = barePhonePattern.matcher(text);
-        while (bareMatcher.find()) {
-            String match = bareMatcher.group();
 
-            if (!overlapsWithExisting(matches, bareMatcher.start(), bareMatcher.end(), "ISRAELI_PHONE") &&
-                    !overlapsWithExisting(matches, bareMatcher.start(), bareMatcher.end(), "US_PHONE")) {
-                matches.add(new SensitiveMatch("US_PHONE", match, bareMatcher.start(), bareMatcher.end(), 0.7));
-                Log.d(TAG, "✅ US Phone (bare) confirmed: " + maskValue(match, "US_PHONE"));
+            for (Future<List<SensitiveMatch>> result : segmentResults) {
+                segmentMatches.addAll(result.get());
             }
-        }
-    }
-
-    private void findEmails(String text, List<SensitiveMatch> matches) {
-        // Normalize OCR spacing issues: "example .com" -> "example.com"
-        String normalizedText = text.replaceAll("(\\w)\\s+\\.\\s+(\\w)", "$1.$2");
-
-        Matcher matcher = EMAIL_PATTERN.matcher(normalizedText);
-        while (matcher.find()) {
-            String match = matcher.group().replaceAll("\\s+", ""); // Remove any remaining spaces
-
-            if (match.contains("@") && match.contains(".") && match.length() > 5 && isValidEmailFormat(match)) {
-                // Find position in original text
-                int originalStart = findEmailInOriginalText(text, match);
-                if (originalStart >= 0) {
-                    matches.add(new SensitiveMatch("EMAIL", match, originalStart, originalStart + match.length(), 0.95));
-                    Log.d(TAG, "✅ Email confirmed: " + maskValue(match, "EMAIL"));
-                }
+            for (Future<Seam> result : seamResults) {
+                Seam seam = result.get();
+                seamMatches.addAll(seam.matches);
+                seamSpans.addAll(seam.spans);
             }
+        } catch (ExecutionException | RejectedExecutionException e) {
+            ScrubberLog.e(TAG, "Segment detection failed - scanning the whole text", e);
+            return detectSensitiveData(text);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return detectSensitiveData(text);
         }
-    }
 
-    // Helper method to find email position in original text
-    private int findEmailInOriginalText(String originalText, String normalizedEmail) {
-        // Try exact match first
-        int exactPos = originalText.indexOf(normalizedEmail);
-        if (exactPos >= 0) return exactPos;
-
-        // Look for spaced version
-        String spacedEmail = normalizedEmail.replace(".", " . ");
-        int spacedPos = originalText.indexOf(spacedEmail);
-        if (spacedPos >= 0) return spacedPos;
-
-        // Find by @ symbol and work around it
-        String[] parts = normalizedEmail.split("@");
-        if (parts.length == 2) {
-            int atPos = originalText.indexOf("@");
-            while (atPos >= 0) {
-                // Check if this @ belongs to our email
-                int start = Math.max(0, atPos - parts[0].length() - 2);
-                int end = Math.min(originalText.length(), atPos + parts[1].length() + 3);
-                String candidate = originalText.substring(start, end);
-                if (candidate.replaceAll("\\s+", "").contains(normalizedEmail)) {
-                    return start + candidate.indexOf(parts[0].charAt(0));
-                }
-                atPos = originalText.indexOf("@", atPos + 1);
+        // A segment only saw the part of a seam-crossing span on its side - its matches there
+        // are replaced by the seam's
+        List<SensitiveMatch> combined = new ArrayList<>(segmentMatches.size() + seamMatches.size());
+        for (SensitiveMatch match : segmentMatches) {
+            if (!insideAny(seamSpans, match)) {
+                combined.add(match);
             }
         }
+        combined.addAll(seamMatches);
+        combined = removeOverlappingMatches(combined);
+
+        // Report offsets into text.trim(), like detectSensitiveData(text)
+        int lead = leadingWhitespace(text, 0, text.length());
+        List<SensitiveMatch> result = new ArrayList<>(combined.size());
+        for (SensitiveMatch match : combined) {
+            result.add(new SensitiveMatch(match.type, match.value, match.start - lead, match.end - lead, match.confidence));
+        }
+        ScrubberLog.d(TAG, () -> "🧵 " + segments + " segments: " + segmentMatches.size() + " segment matches, " +
+                seamMatches.size() + " seam matches -> " + result.size());
+        return result;
+    }
 
-        return 0; // Fallback
+    /**
+     * Candidate spans containing one seam (text offsets) and the matches inside them
+     */
+    private static final class Seam {
+        final List<int[]> spans = new ArrayList<>();
+        final List<SensitiveMatch> matches = new ArrayList<>();
     }
 
-    private void findIsraeliIDs(String text, List<SensitiveMatch> matches) {
-        Matcher matcher = ISRAELI_ID_PATTERN.matcher(text);
-        while (matcher.find()) {
-            String match = matcher.group();
-            if (isValidIsraeliID(match)) {
-                matches.add(new SensitiveMatch("ISRAELI_ID", match, matcher.start(), matcher.end(), 0.95));
-                Log.d(TAG, "✅ Israeli ID confirmed");
-            }
+    /**
+     * Matches in text[from, to), with offsets into text
+     */
+    private List<SensitiveMatch> detectRange(String text, int from, int to) {
+        int lead = leadingWhitespace(text, from, to);
+        if (from + lead == to) return new ArrayList<>();
+
+        List<SensitiveMatch> matches = detectSensitiveData(text.substring(from, to));
+        int shift = from + lead;
+        List<SensitiveMatch> shifted = new ArrayList<>(matches.size());
+        for (SensitiveMatch match : matches) {
+            shifted.add(new SensitiveMatch(match.type, match.value, match.start + shift, match.end + shift, match.confidence));
         }
+        return shifted;
     }
 
-    private void findUSSSNs(String text, List<SensitiveMatch> matches) {
-        Matcher matcher = US_SSN_PATTERN.matcher(text);
-        while (matcher.find()) {
-            String match = matcher.group();
-
-            if (!overlapsWithExisting(matches, matcher.start(), matcher.end(), "ISRAELI_ID")) {
-                String cleanSSN = match.replaceAll("[-\\s]", "");
-                if (cleanSSN.length() == 9 && !cleanSSN.equals("000000000") && !cleanSSN.equals("111111111")) {
-                    matches.add(new SensitiveMatch("US_SSN", match, matcher.start(), matcher.end(), 0.9));
-                    Log.d(TAG, "✅ US SSN confirmed");
-                }
+    /**
+     * Re-scan the candidate spans that contain the seam character
+     */
+    private Seam stitchSeam(String text, int seam) {
+        int margin = SEAM_MARGIN;
+        while (true) {
+            int from = Math.max(0, seam - margin);
+            int to = Math.min(text.length(), seam + 1 + margin);
+            String window = text.substring(from, to);
+            CandidateScanner.Candidates candidates = CandidateScanner.scan(window);
+
+            Seam result = new Seam();
+            List<int[]> crossing = result.spans;
+            boolean openStart = from > 0;
+            boolean openEnd = to < text.length();
+            boolean cut = false;
+            for (int s = 0; s < candidates.numericCount; s++) {
+                cut |= addIfCrossing(crossing, from, seam, candidates.numericStart[s], candidates.numericEnd[s],
+                        openStart, openEnd, window.length());
+            }
+            for (int w = 0; w < candidates.emailCount; w++) {
+                cut |= addIfCrossing(crossing, from, seam, candidates.emailStart[w], candidates.emailEnd[w],
+                        openStart, openEnd, window.length());
+            }
+            for (int a = 0; a < candidates.alphanumericCount; a++) {
+                cut |= addIfCrossing(crossing, from, seam, candidates.alphanumericStart[a], candidates.alphanumericEnd[a],
+                        openStart, openEnd, window.length());
             }
-        }
-    }
 
-    private void findIsraeliPhones(String text, List<SensitiveMatch> matches) {
-        Matcher matcher = ISRAELI_PHONE_PATTERN.matcher(text);
-        while (matcher.find()) {
-            String match = matcher.group();
-            if (isValidIsraeliPhone(match)) {
-                matches.add(new SensitiveMatch("ISRAELI_PHONE", match, matcher.start(), matcher.end(), 0.9));
-                Log.d(TAG, "✅ Israeli Phone confirmed");
+            if (cut) {
+                // A span runs into the window edge - widen until it is whole
+                margin *= 2;
+                continue;
             }
-        }
-    }
 
-    private void findIsraeliBankAccounts(String text, List<SensitiveMatch> matches) {
-        Matcher matcher = ISRAELI_BANK_ACCOUNT_PATTERN.matcher(text);
-        while (matcher.find()) {
-            String match = matcher.group();
-            if (isValidIsraeliBankAccount(match)) {
-                matches.add(new SensitiveMatch("ISRAELI_BANK_ACCOUNT", match, matcher.start(), matcher.end(), 0.85));
-                Log.d(TAG, "✅ Israeli Bank confirmed");
+            if (!crossing.isEmpty()) {
+                for (SensitiveMatch match : detectRange(text, from, to)) {
+                    if (insideAny(crossing, match)) {
+                        result.matches.add(match);
+                    }
+                }
             }
+            return result;
         }
     }
 
-    // Helper method to check overlaps
-    private boolean overlapsWithExisting(List<SensitiveMatch> matches, int start, int end, String type) {
-        for (SensitiveMatch existing : matches) {
-            if (existing.type.equals(type) && start < existing.end && end > existing.start) {
-                return true;
-            }
-        }
+    /**
+     * Record window span [start, end) (as text offsets) if it contains the seam.
+     * Returns true instead if it runs into a window edge that cut the text short.
+     */
+    private static boolean addIfCrossing(List<int[]> crossing, int from, int seam, int start, int end,
+                                         boolean openStart, boolean openEnd, int windowLength) {
+        if (from + start > seam || from + end <= seam) return false;
+        if ((openStart && start == 0) || (openEnd && end == windowLength)) return true;
+        crossing.add(new int[]{from + start, from + end});
         return false;
     }
 
-    // Validation methods
-    private boolean isValidCreditCardNumber(String number) {
-        if (isRepeatedDigits(number)) return false;
-
-        // Luhn algorithm
-        int sum = 0;
-        boolean alternate = false;
-        for (int i = number.length() - 1; i >= 0; i--) {
-            int n = Integer.parseInt(number.substring(i, i + 1));
-            if (alternate) {
-                n *= 2;
-                if (n > 9) n = (n % 10) + 1;
-            }
-            sum += n;
-            alternate = !alternate;
+    private static boolean insideAny(List<int[]> spans, SensitiveMatch match) {
+        for (int[] span : spans) {
+            if (match.start >= span[0] && match.end <= span[1]) return true;
         }
-
-        boolean luhnValid = (sum % 10 == 0);
-        char firstDigit = number.charAt(0);
-        boolean validPrefix = (firstDigit == '4' || firstDigit == '5' || firstDigit == '3' || firstDigit == '6');
-
-        return luhnValid && validPrefix;
+        return false;
     }
 
-    private boolean isRepeatedDigits(String number) {
-        if (number.length() < 4) return false;
-        char firstDigit = number.charAt(0);
-        int count = 0;
-        for (char c : number.toCharArray()) {
-            if (c == firstDigit) count++;
+    // What String.trim() removes from the front of text[from, to)
+    private static int leadingWhitespace(String text, int from, int to) {
+        int i = from;
+        while (i < to && text.charAt(i) <= ' ') {
+            i++;
         }
-        return (count * 1.0 / number.length()) > 0.7;
-    }
-
-    private boolean isValidEmailFormat(String email) {
-        return email.matches("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,6}$");
+        return i - from;
     }
 
-    private boolean isIsraeliPhoneFormat(String phone) {
-        String cleanPhone = phone.replaceAll("[\\s\\-\\(\\)\\.]", "");
-        return cleanPhone.startsWith("+972") || cleanPhone.startsWith("05") ||
-                cleanPhone.startsWith("02") || cleanPhone.startsWith("03") ||
-                cleanPhone.startsWith("04") || cleanPhone.startsWith("08") ||
-                cleanPhone.startsWith("09") || cleanPhone.startsWith("972");
+    /**
+     * One detection call: the matches plus what the prefilter decided
+     */
+    private static final class Detection {
+        List<SensitiveMatch> matches = new ArrayList<>();
+        TextProfile profile;
+        List<String> skippedFamilies = new ArrayList<>();
     }
 
-    private boolean isValidIsraeliID(String id) {
-        if (id == null) return false;
-        String cleanID = id.replaceAll("[\\s-]", "");
+    private Detection detect(String text) {
+        Detection detection = new Detection();
 
-        if (cleanID.length() != 9) {
-            Log.d(TAG, "❌ Israeli ID wrong length: " + cleanID.length() + " for: " + cleanID);
-            return false;
+        if (text == null || text.trim().isEmpty()) {
+            ScrubberLog.w(TAG, "Empty or null text provided");
+            return detection;
         }
 
-        if (cleanID.equals("000000000") || cleanID.equals("111111111") || cleanID.equals("123456789")) {
-            Log.d(TAG, "❌ Israeli ID blacklisted: " + cleanID);
-            return false;
+        String cleanText = text.trim();
+
+        // Cheap pre-scan first - most screenshots have no long numbers and no '@'
+        TextProfile profile = CandidateScanner.profile(cleanText);
+        detection.profile = profile;
+        scannedTexts.incrementAndGet();
+
+        boolean[] runnable = new boolean[plan.detectors.length];
+        boolean[] familyRuns = new boolean[plan.familyTypes.length];
+        boolean anyRunnable = false;
+        for (int d = 0; d < plan.detectors.length; d++) {
+            runnable[d] = plan.canMatch(d, profile);
+            if (runnable[d]) {
+                familyRuns[plan.familyOf[d]] = true;
+                anyRunnable = true;
+            }
+        }
+        for (int f = 0; f < familyRuns.length; f++) {
+            if (!familyRuns[f]) {
+                familySkips.incrementAndGet(f);
+                detection.skippedFamilies.add(plan.familyTypes[f]);
+            }
         }
 
-        boolean checksumValid = isValidIsraeliIDChecksum(cleanID);
-        Log.d(TAG, "🔍 Israeli ID checksum for " + cleanID + ": " + checksumValid);
+        if (!anyRunnable) {
+            ScrubberLog.d(TAG, () -> "⏭️ No candidates (" + cleanText.length() + " chars, longest number " +
+                    profile.maxCandidateDigits + " digits, no '@') - skipping detection");
+            return detection;
+        }
 
-        return checksumValid;
-    }
+        ScrubberLog.d(TAG, () -> "🔍 PROCESSING TEXT (" + cleanText.length() + " chars)");
+        if (!detection.skippedFamilies.isEmpty()) {
+            ScrubberLog.d(TAG, () -> "⏭️ Prefilter skipped: " + detection.skippedFamilies);
+        }
 
-    private boolean isValidIsraeliIDChecksum(String id) {
         try {
-            int sum = 0;
-            Log.d(TAG, "🧮 Calculating checksum for: " + id);
-
-            for (int i = 0; i < 9; i++) {
-                int digit = Character.getNumericValue(id.charAt(i));
-                int originalDigit = digit;
-
-                if (i % 2 == 1) {
-                    digit *= 2;
-                    if (digit > 9) {
-                        digit = digit / 10 + digit % 10;
-                    }
+            // Single pass over the text - every detector below only looks at these spans
+            CandidateScanner.Candidates candidates = CandidateScanner.scan(cleanText);
+            ScrubberLog.d(TAG, () -> "🧩 Candidates: " + candidates.numericCount + " numeric spans, " +
+                    candidates.emailCount + " email windows, " + candidates.alphanumericCount + " alphanumeric spans");
+
+            DetectionContext context = new DetectionContext(cleanText);
+            for (int d = 0; d < plan.detectors.length; d++) {
+                if (runnable[d]) {
+                    runDetector(d, candidates, context);
                 }
-
-                sum += digit;
-                Log.d(TAG, "   Position " + i + ": " + originalDigit + " -> " + digit + " (sum: " + sum + ")");
             }
 
-            boolean valid = (sum % 10 == 0);
-            Log.d(TAG, "🔍 Final sum: " + sum + ", valid: " + valid);
-            return valid;
+            ScrubberLog.d(TAG, "🔧 === OVERLAP RESOLUTION ===");
+            detection.matches = removeOverlappingMatches(context.getMatches());
+
+            ScrubberLog.d(TAG, () -> "📊 DETECTION SUMMARY: " + detection.matches.size() + " final matches");
 
         } catch (Exception e) {
-            Log.e(TAG, "❌ Error in checksum calculation", e);
-            return false;
+            ScrubberLog.e(TAG, "❌ Error in detection", e);
         }
-    }
-    private boolean isValidIsraeliPhone(String phone) {
-        if (phone == null) return false;
-        String cleanPhone = phone.replaceAll("[\\s\\-\\(\\)\\.]", "");
 
-        Log.d(TAG, "🔍 Validating Israeli phone: '" + phone + "' -> '" + cleanPhone + "'");
+        return detection;
+    }
 
-        if (cleanPhone.startsWith("+972")) {
-            cleanPhone = cleanPhone.substring(4);
-            Log.d(TAG, "   Removed +972: '" + cleanPhone + "'");
-        }
+    /**
+     * Quick check with the same prefilter detection uses: false means detectSensitiveData
+     * would return no matches without running a single detector.
+     */
+    public boolean mayContainSensitiveData(String text) {
+        if (text == null || text.trim().isEmpty()) return false;
 
-        if (cleanPhone.startsWith("0")) {
-            cleanPhone = cleanPhone.substring(1);
-            Log.d(TAG, "   Removed leading 0: '" + cleanPhone + "'");
+        TextProfile profile = CandidateScanner.profile(text.trim());
+        for (int d = 0; d < plan.detectors.length; d++) {
+            if (plan.canMatch(d, profile)) return true;
         }
+        return false;
+    }
 
-        if (cleanPhone.length() < 8 || cleanPhone.length() > 9) {
-            Log.d(TAG, "   ❌ Invalid length: " + cleanPhone.length());
-            return false;
+    /**
+     * How often each detector family (type) was skipped by the prefilter, keyed by type
+     */
+    public Map<String, Long> getFamilySkipCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int f = 0; f < plan.familyTypes.length; f++) {
+            counts.put(plan.familyTypes[f], familySkips.get(f));
         }
+        return counts;
+    }
 
-        String areaCode = cleanPhone.substring(0, 2);
-        boolean valid = VALID_ISRAELI_AREA_CODES.contains(areaCode);
-
-        Log.d(TAG, "   Area code: '" + areaCode + "', valid: " + valid);
-        return valid;
+    /**
+     * Number of non-empty texts that went through the prefilter
+     */
+    public long getScannedTextCount() {
+        return scannedTexts.get();
     }
 
-    private boolean isValidIsraeliBankAccount(String account) {
-        if (account == null) return false;
-        String cleanAccount = account.replaceAll("[\\s-]", "");
+    private void runDetector(int d, CandidateScanner.Candidates candidates, DetectionContext context) {
+        SensitiveTypeDetector detector = plan.detectors[d];
 
-        if (cleanAccount.length() != 11) return false;
+        if (plan.kinds[d] == SensitiveTypeDetector.CandidateKind.EMAIL) {
+            for (int w = 0; w < candidates.emailCount; w++) {
+                detector.detect(context, candidates.emailStart[w], candidates.emailEnd[w]);
+            }
+            return;
+        }
+
+        int minDigits = plan.minDigits[d];
+        if (plan.kinds[d] == SensitiveTypeDetector.CandidateKind.ALPHANUMERIC) {
+            for (int a = 0; a < candidates.alphanumericCount; a++) {
+                if (candidates.alphanumericDigits[a] < minDigits) continue;
+                detector.detect(context, candidates.alphanumericStart[a], candidates.alphanumericEnd[a]);
+            }
+            return;
+        }
 
-        String bankCode = cleanAccount.substring(0, 2);
-        return VALID_ISRAELI_BANK_CODES.contains(bankCode);
+        for (int s = 0; s < candidates.numericCount; s++) {
+            // Too few digits for this type to ever match - don't even run its regex
+            if (candidates.numericDigits[s] < minDigits) continue;
+            detector.detect(context, candidates.numericStart[s], candidates.numericEnd[s]);
+        }
     }
 
-    private List<SensitiveMatch> removeOverlappingMatches(List<SensitiveMatch> matches) {
+    /**
+     * Keep one match per overlapping group: higher confidence wins, then the more specific type.
+     * After sorting by start, the kept matches are disjoint and in start order, so only the
+     * last kept match can overlap the next candidate - one sort plus a linear sweep, O(n log n).
+     */
+    static List<SensitiveMatch> removeOverlappingMatches(List<SensitiveMatch> matches) {
         if (matches.size() <= 1) return matches;
 
-        List<SensitiveMatch> result = new ArrayList<>();
+        List<SensitiveMatch> result = new ArrayList<>(matches.size());
 
+        // Stable sort - equal start and confidence keep detector order
         matches.sort((a, b) -> {
             int posCompare = Integer.compare(a.start, b.start);
             return posCompare != 0 ? posCompare : Double.compare(b.confidence, a.confidence);
         });
 
         for (SensitiveMatch current : matches) {
-            boolean shouldAdd = true;
-
-            for (int i = 0; i < result.size(); i++) {
-                SensitiveMatch existing = result.get(i);
-
-                if (current.start < existing.end && current.end > existing.start) {
-                    if (current.confidence > existing.confidence) {
-                        result.set(i, current);
-                        shouldAdd = false;
-                        break;
-                    } else if (current.confidence == existing.confidence && isMoreSpecificType(current.type, existing.type)) {
-                        result.set(i, current);
-                        shouldAdd = false;
-                        break;
-                    }
-                    shouldAdd = false;
-                    break;
-                }
+            int lastIndex = result.size() - 1;
+            if (lastIndex < 0) {
+                result.add(current);
+                continue;
             }
 
-            if (shouldAdd) {
+            SensitiveMatch existing = result.get(lastIndex);
+            if (current.start < existing.end && current.end > existing.start) {
+                if (current.confidence > existing.confidence) {
+                    result.set(lastIndex, current);
+                } else if (current.confidence == existing.confidence && isMoreSpecificType(current.type, existing.type)) {
+                    result.set(lastIndex, current);
+                }
+            } else {
                 result.add(current);
             }
         }
@@ -453,14 +399,14 @@ public class SensitiveDataDetector {
         return result;
     }
 
-    private boolean isMoreSpecificType(String type1, String type2) {
+    private static boolean isMoreSpecificType(String type1, String type2) {
         if (type1.startsWith("ISRAELI_") && type2.startsWith("US_")) return true;
         if (type1.startsWith("US_") && type2.startsWith("ISRAELI_")) return false;
         if (type1.equals("CREDIT_CARD") && (type2.contains("PHONE") || type2.contains("SSN"))) return true;
         return false;
     }
 
-    private String maskValue(String value, String type) {
+    static String maskValue(String value, String type) {
         if (value == null || value.length() < 4) return "***";
 
         switch (type) {
@@ -487,9 +433,10 @@ public class SensitiveDataDetector {
     // Stats class for testing
     public DetectionStats getDetectionStats(String text) {
         long startTime = System.currentTimeMillis();
-        List<SensitiveMatch> matches = detectSensitiveData(text);
+        Detection detection = detect(text);
         long processingTime = System.currentTimeMillis() - startTime;
-        return new DetectionStats(matches.size(), processingTime, text.length(), matches);
+        return new DetectionStats(detection.matches.size(), processingTime, text.length(), detection.matches,
+                detection.profile, detection.skippedFamilies, getFamilySkipCounts());
     }
 
     public static class DetectionStats {
@@ -497,17 +444,30 @@ public class SensitiveDataDetector {
         public final long processingTimeMs;
         public final int textLength;
         public final List<SensitiveMatch> matches;
+        public final TextProfile profile; // null for empty text
+        public final List<String> skippedFamilies; // skipped by the prefilter in this call
+        public final Map<String, Long> familySkipCounts; // cumulative for the detector
 
         public DetectionStats(int matchCount, long processingTimeMs, int textLength, List<SensitiveMatch> matches) {
+            this(matchCount, processingTimeMs, textLength, matches, null,
+                    Collections.<String>emptyList(), Collections.<String, Long>emptyMap());
+        }
+
+        public DetectionStats(int matchCount, long processingTimeMs, int textLength, List<SensitiveMatch> matches,
+                              TextProfile profile, List<String> skippedFamilies, Map<String, Long> familySkipCounts) {
             this.matchCount = matchCount;
             this.processingTimeMs = processingTimeMs;
             this.textLength = textLength;
             this.matches = matches;
+            this.profile = profile;
+            this.skippedFamilies = skippedFamilies;
+            this.familySkipCounts = familySkipCounts;
         }
 
         @Override
         public String toString() {
-            return String.format("DetectionStats{matches=%d, time=%dms, textLength=%d}", matchCount, processingTimeMs, textLength);
+            return String.format("DetectionStats{matches=%d, time=%dms, textLength=%d, skipped=%s}",
+                    matchCount, processingTimeMs, textLength, skippedFamilies);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.example.screenscrubber;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects SensitiveTypeDetectors and compiles them into a DetectionPlan.
+ * Compile once at startup and share the plan - it is immutable and thread safe.
+ *
+ * Example:
+ *   DetectionPlan plan = SensitiveDetectorRegistry.withBuiltIns()
+ *           .register(new IbanDetector())
+ *           .compile();
+ *   ScreenScrubber scrubber = new ScreenScrubber(context, plan);
+ */
+public final class SensitiveDetectorRegistry {
+    private final List<SensitiveTypeDetector> detectors = new ArrayList<>();
+
+    /**
+     * Empty registry - only the detectors you register will run
+     */
+    public SensitiveDetectorRegistry() {
+    }
+
+    /**
+     * Registry pre-loaded with the built-in Israeli, US and email detectors
+     */
+    public static SensitiveDetectorRegistry withBuiltIns() {
+        SensitiveDetectorRegistry registry = new SensitiveDetectorRegistry();
+        for (SensitiveTypeDetector detector : BuiltInDetectors.create()) {
+            registry.register(detector);
+        }
+        return registry;
+    }
+
+    /**
+     * Detectors run in registration order - on an exact tie (same start, same confidence,
+     * neither type more specific) the earlier registered detector wins
+     */
+    public SensitiveDetectorRegistry register(SensitiveTypeDetector detector) {
+        if (detector == null) {
+            throw new IllegalArgumentException("Detector cannot be null");
+        }
+        if (detector.getType() == null || detector.getCandidateKind() == null) {
+            throw new IllegalArgumentException("Detector must declare a type and candidate kind");
+        }
+        detectors.add(detector);
+        return this;
+    }
+
+    public DetectionPlan compile() {
+        return new DetectionPlan(detectors);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.screenscrubber;
+
+/**
+ * One sensitive data type (credit card, Israeli ID, IBAN, ...).
+ * Detectors never scan the full text themselves - SensitiveDataDetector tokenizes the text once
+ * and hands each detector only the candidate spans of its kind, then resolves overlaps for all types together.
+ * Register custom detectors with {@link SensitiveDetectorRegistry}.
+ */
+public interface SensitiveTypeDetector {
+
+    /**
+     * Which candidate spans a detector wants to see
+     */
+    enum CandidateKind {
+        /** Runs of digits, whitespace and - . ( ) + */
+        NUMERIC,
+        /** Word-like windows that contain an '@' */
+        EMAIL,
+        /**
+         * Runs of letters, digits, whitespace and - . / from the first to the last word holding
+         * a digit - for formats with letters in them (IBAN, passport or letter-bearing IDs)
+         */
+        ALPHANUMERIC
+    }
+
+    /**
+     * Type name reported in SensitiveMatch.type (e.g. "CREDIT_CARD")
+     */
+    String getType();
+
+    CandidateKind getCandidateKind();
+
+    /**
+     * Spans with fewer digits than this are never handed to detect(). Ignored for EMAIL windows.
+     * NUMERIC and ALPHANUMERIC spans always hold at least one digit.
+     */
+    int getMinDigits();
+
+    /**
+     * Look for matches inside [spanStart, spanEnd) of context.getText() and report them with context.addMatch()
+     */
+    void detect(DetectionContext context, int spanStart, int spanEnd);
+}
@@ -0,0 +1,148 @@
+package com.example.screenscrubber;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Byte-budgeted LRU pool, bucketed by size (next power of two) so a request only looks at
+ * items that are big enough without being wastefully large. The bitmap-free core of
+ * BitmapPool, kept separate so it runs in plain JVM tests.
+ */
+final class SizeBucketedPool<T> {
+    // A request may take an item from its own bucket or the next one up - at most ~4x its size
+    private static final int MAX_BUCKET_STEPS = 1;
+
+    private final ToIntFunction<T> sizeOf;
+    private final Consumer<T> onEvicted;
+    private final long maxBytes;
+
+    private final TreeMap<Integer, ArrayDeque<T>> buckets = new TreeMap<>();
+    // Insertion-ordered: the first entry is the least recently pooled item
+    private final LinkedHashMap<T, Integer> lru = new LinkedHashMap<>();
+    private long currentBytes;
+
+    private long hits;
+    private long misses;
+    private long puts;
+    private long evictions;
+
+    SizeBucketedPool(long maxBytes, ToIntFunction<T> sizeOf, Consumer<T> onEvicted) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Pool budget cannot be negative");
+        }
+        this.maxBytes = maxBytes;
+        this.sizeOf = sizeOf;
+        this.onEvicted = onEvicted;
+    }
+
+    /**
+     * Take the most recently pooled item of at least bytes, or null (counted as a miss)
+     */
+    synchronized T acquire(int bytes) {
+        int bucket = bucketFor(bytes);
+        for (int step = 0; step <= MAX_BUCKET_STEPS && bucket > 0; step++, bucket <<= 1) {
+            ArrayDeque<T> items = buckets.get(bucket);
+            if (items == null) continue;
+
+            Iterator<T> newestFirst = items.descendingIterator();
+            while (newestFirst.hasNext()) {
+                T item = newestFirst.next();
+                int size = lru.get(item);
+                if (size >= bytes) {
+                    newestFirst.remove();
+                    if (items.isEmpty()) buckets.remove(bucket);
+                    lru.remove(item);
+                    currentBytes -= size;
+                    hits++;
+                    return item;
+                }
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Pool item, evicting the least recently pooled items past the budget.
+     * Returns false if item alone is over budget - it is evicted straight away.
+     */
+    synchronized boolean release(T item) {
+        if (item == null || lru.containsKey(item)) {
+            return false;
+        }
+
+        int size = sizeOf.applyAsInt(item);
+        if (size <= 0 || size > maxBytes) {
+            evictions++;
+            onEvicted.accept(item);
+            return false;
+        }
+
+        puts++;
+        lru.put(item, size);
+        buckets.computeIfAbsent(bucketFor(size), b -> new ArrayDeque<>()).addLast(item);
+        currentBytes += size;
+        trimToSize(maxBytes);
+        return true;
+    }
+
+    synchronized void trimToSize(long targetBytes) {
+        Iterator<Map.Entry<T, Integer>> oldestFirst = lru.entrySet().iterator();
+        while (currentBytes > targetBytes && oldestFirst.hasNext()) {
+            Map.Entry<T, Integer> oldest = oldestFirst.next();
+            oldestFirst.remove();
+
+            int bucket = bucketFor(oldest.getValue());
+            ArrayDeque<T> items = buckets.get(bucket);
+            items.removeFirstOccurrence(oldest.getKey());
+            if (items.isEmpty()) buckets.remove(bucket);
+
+            currentBytes -= oldest.getValue();
+            evictions++;
+            onEvicted.accept(oldest.getKey());
+        }
+    }
+
+    synchronized void clear() {
+        trimToSize(0);
+    }
+
+    long getMaxBytes() {
+        return maxBytes;
+    }
+
+    synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    synchronized int getCount() {
+        return lru.size();
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized long getPuts() {
+        return puts;
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    static int bucketFor(int bytes) {
+        if (bytes <= 1) return 1;
+        int highest = Integer.highestOneBit(bytes - 1);
+        return highest >= (1 << 30) ? Integer.MAX_VALUE : highest << 1;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.screenscrubber;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+
+/**
+ * Items flow through the stages in order, each stage with its own queue and concurrency limit,
+ * so while one item is in a slow stage (OCR) the previous one can already be in the next
+ * (encoding). On a burst, throughput approaches that of the slowest stage rather than the sum.
+ * An item for which finished is true skips the remaining stages - e.g. nothing was detected,
+ * or its job timed out.
+ */
+public final class StagedPipeline<T> {
+    private final List<PipelineStage<T>> stages;
+    private final Predicate<T> finished;
+
+    public StagedPipeline(List<PipelineStage<T>> stages, Predicate<T> finished) {
+        if (stages == null || stages.isEmpty()) {
+            throw new IllegalArgumentException("Pipeline needs at least one stage");
+        }
+        if (finished == null) {
+            throw new IllegalArgumentException("Finished predicate cannot be null");
+        }
+        this.stages = Collections.unmodifiableList(new ArrayList<>(stages));
+        this.finished = finished;
+    }
+
+    /**
+     * Completes with item once the last stage it needs is done, or exceptionally with the
+     * first stage failure (later stages are skipped)
+     */
+    public CompletableFuture<T> submit(T item) {
+        CompletableFuture<T> chain = CompletableFuture.completedFuture(item);
+        for (PipelineStage<T> stage : stages) {
+            chain = chain.thenCompose(current ->
+                    finished.test(current) ? CompletableFuture.completedFuture(current) : stage.submit(current));
+        }
+
+        // Fail with what the stage threw, not the CompletionException thenCompose wraps it in
+        CompletableFuture<T> result = new CompletableFuture<>();
+        chain.whenComplete((done, error) -> {
+            if (error instanceof CompletionException && error.getCause() != null) {
+                result.completeExceptionally(error.getCause());
+            } else if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(done);
+            }
+        });
+        return result;
+    }
+
+    public List<PipelineStage.Stats> getStats() {
+        List<PipelineStage.Stats> stats = new ArrayList<>(stages.size());
+        for (PipelineStage<T> stage : stages) {
+            stats.add(stage.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Let every stage finish its queue, then stop its threads
+     */
+    public void shutdown() {
+        for (PipelineStage<T> stage : stages) {
+            stage.shutdown();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.screenscrubber;
+
+/**
+ * Result of the cheap linear pre-scan SensitiveDataDetector runs before anything else.
+ * Decides which detector families can possibly match - e.g. chat text with no '@' and
+ * no long numbers skips detection entirely.
+ */
+public final class TextProfile {
+    public final int length;
+    public final int lineCount;
+    /** Longest run of consecutive digits on any single line */
+    public final int longestDigitRun;
+    /** Most digits inside one candidate span (digits plus separators like "4111 1111 ...") */
+    public final int maxCandidateDigits;
+    /** Most digits inside one alphanumeric span (letters allowed, e.g. "DE89 3704 ...") */
+    public final int maxAlphanumericDigits;
+    public final int atCount;
+
+    TextProfile(int length, int lineCount, int longestDigitRun, int maxCandidateDigits, int maxAlphanumericDigits,
+                int atCount) {
+        this.length = length;
+        this.lineCount = lineCount;
+        this.longestDigitRun = longestDigitRun;
+        this.maxCandidateDigits = maxCandidateDigits;
+        this.maxAlphanumericDigits = maxAlphanumericDigits;
+        this.atCount = atCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TextProfile{length=%d, lines=%d, longestDigitRun=%d, maxCandidateDigits=%d, maxAlphanumericDigits=%d, at=%d}",
+                length, lineCount, longestDigitRun, maxCandidateDigits, maxAlphanumericDigits, atCount);
+    }
+}
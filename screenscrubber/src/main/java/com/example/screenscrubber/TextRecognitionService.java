@@ -2,13 +2,28 @@ package com.example.screenscrubber;
 
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
-import android.util.Log;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+
+import com.google.android.gms.tasks.TaskExecutors;
+import com.google.android.gms.tasks.Tasks;
 import com.google.mlkit.vision.common.InputImage;
 import com.google.mlkit.vision.text.Text;
 import com.google.mlkit.vision.text.TextRecognition;
 import com.google.mlkit.vision.text.TextRecognizer;
 import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Responsible ONLY for extracting text from images using ML Kit
@@ -17,18 +32,86 @@ import java.io.File;
 public class TextRecognitionService {
     private static final String TAG = "TextRecognitionService";
     private TextRecognizer recognizer;
+    private final OcrInputBudget budget;
+    private final BitmapPool bitmapPool;
+    private final ExecutorService tileExecutor;
+    // Decodes for extractTextFromImage, off the caller's thread; created on first use and
+    // separate from tileExecutor, whose threads a tiled decode waits on. Guarded by this
+    private ExecutorService decodeExecutor;
 
     public interface TextExtractionCallback {
-        void onTextExtracted(Text visionText, String imagePath);
+        /**
+         * ocrText is in source-image pixels. The callback owns image from here and must
+         * release() it when done.
+         */
+        void onTextExtracted(OcrText ocrText, ImageHandle image);
         void onExtractionError(String error, String imagePath);
     }
 
     public TextRecognitionService() {
+        this(OcrInputBudget.defaults());
+    }
+
+    public TextRecognitionService(OcrInputBudget budget) {
+        this(budget, new BitmapPool(0));
+    }
+
+    /**
+     * OCR bitmaps are decoded into, and released back to, bitmapPool
+     */
+    public TextRecognitionService(OcrInputBudget budget, BitmapPool bitmapPool) {
+        this(budget, bitmapPool, null);
+    }
+
+    /**
+     * The strips of a tiled recognition run on tileExecutor, or in turn on the calling
+     * thread if it is null. The executor belongs to the caller.
+     */
+    public TextRecognitionService(OcrInputBudget budget, BitmapPool bitmapPool, ExecutorService tileExecutor) {
+        if (budget == null) {
+            throw new IllegalArgumentException("OCR budget cannot be null");
+        }
+        if (bitmapPool == null) {
+            throw new IllegalArgumentException("Bitmap pool cannot be null");
+        }
+        this.budget = budget;
+        this.bitmapPool = bitmapPool;
+        this.tileExecutor = tileExecutor;
         recognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
     }
 
     /**
-     * Extract text from image - that's all this class does
+     * What recognize() produces: the text in source-image pixels and the decoded image,
+     * which the receiver owns and must release()
+     */
+    public static final class Recognition {
+        public final OcrText ocrText;
+        public final ImageHandle image;
+
+        Recognition(OcrText ocrText, ImageHandle image) {
+            this.ocrText = ocrText;
+            this.image = image;
+        }
+    }
+
+    /**
+     * Why recognize() failed, worded for the user
+     */
+    public static final class ExtractionException extends Exception {
+        public ExtractionException(String message) {
+            super(message);
+        }
+
+        public ExtractionException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Extract text from image - that's all this class does.
+     * Returns at once, from any thread: the image is decoded on the service's own background
+     * thread. Results are delivered on the main thread, like ML Kit's own listeners; hand the
+     * image on to a background thread rather than censoring there.
      */
     public void extractTextFromImage(String imagePath, TextExtractionCallback callback) {
         if (imagePath == null || callback == null) {
@@ -38,41 +121,192 @@ public class TextRecognitionService {
             return;
         }
 
+        try {
+            decodeExecutor().execute(() -> recognize(imagePath, TaskExecutors.MAIN_THREAD)
+                    .whenCompleteAsync((recognition, error) -> {
+                        if (error != null) {
+                            callback.onExtractionError(error.getMessage(), imagePath);
+                        } else {
+                            callback.onTextExtracted(recognition.ocrText, recognition.image);
+                        }
+                    }, TaskExecutors.MAIN_THREAD));
+        } catch (RejectedExecutionException e) {
+            TaskExecutors.MAIN_THREAD.execute(() -> callback.onExtractionError("Text recognition is shut down", imagePath));
+        }
+    }
+
+    private synchronized ExecutorService decodeExecutor() {
+        if (decodeExecutor == null) {
+            decodeExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "ScreenScrubber-OcrDecode");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return decodeExecutor;
+    }
+
+    /**
+     * Decode imagePath and recognize its text. Decoding (and tiled recognition) runs on the
+     * calling thread, which must not be the main thread; the returned future completes on
+     * executor once ML Kit has finished, exceptionally with an ExtractionException if the image
+     * can't be read or recognized.
+     */
+    public CompletableFuture<Recognition> recognize(String imagePath, Executor executor) {
+        // Decodes the image (and recognizes tall ones) before returning
+        MainThreadCheck.assertNotMainThread("Image decoding");
+        CompletableFuture<Recognition> result = new CompletableFuture<>();
+        if (imagePath == null || executor == null) {
+            result.completeExceptionally(new ExtractionException("Invalid parameters"));
+            return result;
+        }
+
         try {
             // Load image from file
             File imageFile = new File(imagePath);
             if (!imageFile.exists()) {
-                callback.onExtractionError("Image file not found", imagePath);
-                return;
+                result.completeExceptionally(new ExtractionException("Image file not found"));
+                return result;
+            }
+
+            BitmapFactory.Options bounds = new BitmapFactory.Options();
+            bounds.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(imagePath, bounds);
+            if (budget.needsTiling(bounds.outWidth, bounds.outHeight)) {
+                int sampleSize = budget.sampleSizeFor(bounds.outWidth, bounds.outHeight);
+                OcrText merged = extractTextInStrips(imagePath, bounds.outWidth, bounds.outHeight, sampleSize);
+                ImageHandle handle = new ImageHandle(imagePath, null, bounds.outWidth, bounds.outHeight, sampleSize, bitmapPool);
+                executor.execute(() -> result.complete(new Recognition(merged, handle)));
+                return result;
             }
 
-            Bitmap bitmap = BitmapFactory.decodeFile(imagePath);
-            if (bitmap == null) {
-                callback.onExtractionError("Could not decode image", imagePath);
-                return;
+            // Decode once, at OCR size - the handle is passed on and reused for censoring
+            ImageHandle handle = ImageHandle.decode(imagePath, budget, bitmapPool);
+            if (handle == null) {
+                result.completeExceptionally(new ExtractionException("Could not decode image"));
+                return result;
             }
 
-            // Create InputImage for ML Kit
-            InputImage image = InputImage.fromBitmap(bitmap, 0);
+            try {
+                // Create InputImage for ML Kit
+                InputImage image = InputImage.fromBitmap(handle.getBitmap(), 0);
 
-            // Process with ML Kit
-            recognizer.process(image)
-                    .addOnSuccessListener(visionText -> {
-                        Log.d(TAG, "Text extraction complete for: " + imagePath);
-                        callback.onTextExtracted(visionText, imagePath);
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Text recognition failed", e);
-                        callback.onExtractionError("Text recognition failed: " + e.getMessage(), imagePath);
-                    });
+                // Process with ML Kit; the listeners run on executor, not the main thread
+                recognizer.process(image)
+                        .addOnSuccessListener(executor, visionText -> {
+                            ScrubberLog.d(TAG, () -> "Text extraction complete for: " + imagePath);
+                            result.complete(new Recognition(OcrText.fromText(visionText, handle.getOcrScale(), 0), handle));
+                        })
+                        .addOnFailureListener(executor, e -> {
+                            ScrubberLog.e(TAG, "Text recognition failed", e);
+                            handle.release();
+                            result.completeExceptionally(new ExtractionException("Text recognition failed: " + e.getMessage(), e));
+                        });
+            } catch (RuntimeException e) {
+                handle.release();
+                throw e;
+            }
+
+        } catch (ExtractionException e) {
+            result.completeExceptionally(e);
+        } catch (Exception e) {
+            ScrubberLog.e(TAG, "Error extracting text", e);
+            result.completeExceptionally(new ExtractionException("Extraction error: " + e.getMessage(), e));
+        }
+        return result;
+    }
+
+    /**
+     * OCR a tall image strip by strip (see OcrTiling). With a tile executor the strips are
+     * decoded and recognized concurrently, at most one strip bitmap per worker; without one
+     * they run in turn on the calling thread.
+     */
+    private OcrText extractTextInStrips(String imagePath, int width, int height, int sampleSize)
+            throws ExtractionException {
+        int stripHeight = budget.maxLongEdge * sampleSize;
+        int[] tops = OcrTiling.stripTops(height, stripHeight, OcrTiling.OVERLAP * sampleSize);
+        ScrubberLog.d(TAG, () -> "Recognizing " + width + "x" + height + " in " + tops.length + " strips" +
+                (tileExecutor != null ? " in parallel" : ""));
+
+        BitmapRegionDecoder decoder = openRegionDecoder(imagePath);
+        if (decoder == null) {
+            throw new ExtractionException("Could not decode image");
+        }
+
+        List<Callable<OcrText>> tasks = new ArrayList<>(tops.length);
+        for (int top : tops) {
+            Rect region = new Rect(0, top, width, Math.min(height, top + stripHeight));
+            tasks.add(() -> recognizeStrip(decoder, region, sampleSize, width));
+        }
 
+        List<OcrText> strips = new ArrayList<>(tops.length);
+        try {
+            if (tileExecutor != null) {
+                for (Future<OcrText> strip : tileExecutor.invokeAll(tasks)) {
+                    strips.add(strip.get());
+                }
+            } else {
+                for (Callable<OcrText> task : tasks) {
+                    strips.add(task.call());
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof ExecutionException ? e.getCause().getCause() : e.getCause();
+            ScrubberLog.e(TAG, "Text recognition failed", cause);
+            throw new ExtractionException("Text recognition failed: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExtractionException("Text recognition interrupted", e);
         } catch (Exception e) {
-            Log.e(TAG, "Error extracting text", e);
-            callback.onExtractionError("Extraction error: " + e.getMessage(), imagePath);
+            ScrubberLog.e(TAG, "Text recognition failed", e);
+            throw new ExtractionException("Text recognition failed: " + e.getMessage(), e);
+        } finally {
+            // invokeAll has waited for every strip, so nothing is still decoding
+            decoder.recycle();
+        }
+
+        OcrText merged = OcrTiling.merge(strips, tops, stripHeight);
+        ScrubberLog.d(TAG, () -> "Text extraction complete for: " + imagePath + " (" + merged.getLines().size() +
+                " lines, " + merged.getSegmentStarts().length + " segments)");
+        return merged;
+    }
+
+    private static BitmapRegionDecoder openRegionDecoder(String imagePath) {
+        try {
+            return BitmapRegionDecoder.newInstance(imagePath, false);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Decode and recognize one strip; boxes come back in source pixels.
+     * The region decoder serializes decodes internally, so strips may share it.
+     */
+    private OcrText recognizeStrip(BitmapRegionDecoder decoder, Rect region, int sampleSize, int width)
+            throws ExecutionException, InterruptedException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = budget.config;
+
+        Bitmap strip = decoder.decodeRegion(region, options);
+        if (strip == null) {
+            throw new IllegalStateException("Could not decode image strip " + region.toShortString());
+        }
+        try {
+            Text stripText = Tasks.await(recognizer.process(InputImage.fromBitmap(strip, 0)));
+            return OcrText.fromText(stripText, width / (float) strip.getWidth(), region.top);
+        } finally {
+            strip.recycle();
         }
     }
 
     public void cleanup() {
+        synchronized (this) {
+            if (decodeExecutor != null) {
+                decodeExecutor.shutdown();
+            }
+        }
         if (recognizer != null) {
             recognizer.close();
         }
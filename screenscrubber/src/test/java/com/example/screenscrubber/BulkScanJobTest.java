@@ -0,0 +1,369 @@
+package com.example.screenscrubber;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Paging, parallelism and memory limits, pause/resume and checkpointing of bulk scans,
+ * with a list-backed source and a processor the tests complete by hand.
+ */
+public class BulkScanJobTest {
+    private static final long TIMEOUT_S = 5;
+
+    private static final class ListSource implements IncrementalScanner.Source<BulkScanJob.Item> {
+        final List<BulkScanJob.Item> items = new ArrayList<>();
+        boolean failing;
+
+        ListSource(int count, long bytesEach) {
+            for (int key = 1; key <= count; key++) {
+                items.add(new BulkScanJob.Item("/sdcard/DCIM/img_" + key + ".jpg",
+                        MediaObserver.ImageType.CAMERA_PHOTO, key, bytesEach));
+            }
+        }
+
+        @Override
+        public synchronized List<BulkScanJob.Item> page(long afterKey, int limit) {
+            if (failing) {
+                throw new IllegalStateException("query failed");
+            }
+            List<BulkScanJob.Item> page = new ArrayList<>();
+            for (BulkScanJob.Item item : items) {
+                if (item.key > afterKey && page.size() < limit) {
+                    page.add(item);
+                }
+            }
+            return page;
+        }
+
+        @Override
+        public long keyOf(BulkScanJob.Item row) {
+            return row.key;
+        }
+    }
+
+    private static final class MemoryCheckpoint implements IncrementalScanner.Checkpoint {
+        final List<Long> saves = Collections.synchronizedList(new ArrayList<>());
+        volatile long mark = IncrementalScanner.NO_MARK;
+
+        @Override
+        public long load() {
+            return mark;
+        }
+
+        @Override
+        public void save(long key) {
+            mark = key;
+            saves.add(key);
+        }
+    }
+
+    private static final class Recorder implements BulkScanJob.Listener {
+        final List<ScreenshotProcessor.ProcessingResult> results = Collections.synchronizedList(new ArrayList<>());
+        final BlockingQueue<BulkScanJob.Summary> stops = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onResult(ScreenshotProcessor.ProcessingResult result) {
+            results.add(result);
+        }
+
+        @Override
+        public void onStopped(BulkScanJob.Summary summary) {
+            stops.add(summary);
+        }
+
+        BulkScanJob.Summary awaitStop() throws InterruptedException {
+            BulkScanJob.Summary summary = stops.poll(TIMEOUT_S, TimeUnit.SECONDS);
+            assertNotNull("Job did not stop", summary);
+            return summary;
+        }
+    }
+
+    /**
+     * Holds each image's result until the test completes it
+     */
+    private static final class ManualProcessor implements BulkScanJob.Processor {
+        final BlockingQueue<BulkScanJob.Item> started = new LinkedBlockingQueue<>();
+        final BlockingQueue<CompletableFuture<ScreenshotProcessor.ProcessingResult>> pending = new LinkedBlockingQueue<>();
+
+        @Override
+        public CompletableFuture<ScreenshotProcessor.ProcessingResult> process(BulkScanJob.Item item,
+                                                                              CompletableFuture<Void> abandon) {
+            CompletableFuture<ScreenshotProcessor.ProcessingResult> result = new CompletableFuture<>();
+            started.add(item);
+            pending.add(result);
+            return result;
+        }
+
+        BulkScanJob.Item awaitStarted() throws InterruptedException {
+            BulkScanJob.Item item = started.poll(TIMEOUT_S, TimeUnit.SECONDS);
+            assertNotNull("No image started", item);
+            return item;
+        }
+
+        void completeNext(BulkScanJob.Item item) throws InterruptedException {
+            CompletableFuture<ScreenshotProcessor.ProcessingResult> result = pending.poll(TIMEOUT_S, TimeUnit.SECONDS);
+            assertNotNull(result);
+            result.complete(clean(item));
+        }
+    }
+
+    private static ScreenshotProcessor.ProcessingResult clean(BulkScanJob.Item item) {
+        return ScreenshotProcessor.ProcessingResult.success(false, null, new ArrayList<>(), item.path, item.type);
+    }
+
+    private static BulkScanJob job(ListSource source, MemoryCheckpoint checkpoint, BulkScanJob.Processor processor,
+                                   BulkScanConfig config, Recorder recorder) {
+        return new BulkScanJob(source, checkpoint, processor, config, recorder, Runnable::run);
+    }
+
+    @Test
+    public void wholeSource_streamedAndSummarized() throws InterruptedException {
+        ListSource source = new ListSource(25, 1);
+        MemoryCheckpoint checkpoint = new MemoryCheckpoint();
+        Recorder recorder = new Recorder();
+        BulkScanJob.Processor processor = (item, abandon) -> CompletableFuture.completedFuture(
+                ScreenshotProcessor.ProcessingResult.success(item.key % 5 == 0, null, new ArrayList<>(), item.path, item.type));
+
+        assertTrue(job(source, checkpoint, processor, new BulkScanConfig(10, 3, 1000), recorder).start());
+        BulkScanJob.Summary summary = recorder.awaitStop();
+
+        assertEquals(BulkScanJob.State.FINISHED, summary.state);
+        assertEquals(25, recorder.results.size());
+        assertEquals(25, summary.processed);
+        assertEquals(5, summary.withSensitiveData);
+        assertEquals(20, summary.clean);
+        assertEquals(0, summary.failed);
+        assertEquals(IncrementalScanner.NO_MARK, summary.fromMark);
+        assertEquals(25, summary.toMark);
+        assertEquals(List.of(10L, 20L, 25L), checkpoint.saves);
+    }
+
+    @Test
+    public void parallelism_boundsImagesInFlight() throws InterruptedException {
+        ManualProcessor processor = new ManualProcessor();
+        Recorder recorder = new Recorder();
+        job(new ListSource(5, 1), new MemoryCheckpoint(), processor, new BulkScanConfig(10, 2, 1000), recorder).start();
+
+        BulkScanJob.Item first = processor.awaitStarted();
+        processor.awaitStarted();
+        assertNull(processor.started.poll(100, TimeUnit.MILLISECONDS));
+
+        processor.completeNext(first);
+        assertEquals(3, processor.awaitStarted().key);
+    }
+
+    @Test
+    public void memoryBudget_boundsImagesInFlight() throws InterruptedException {
+        ListSource source = new ListSource(2, 60);
+        // Larger than the whole budget: runs, but alone
+        source.items.add(new BulkScanJob.Item("/sdcard/DCIM/huge.jpg", MediaObserver.ImageType.CAMERA_PHOTO, 3, 500));
+        ManualProcessor processor = new ManualProcessor();
+        Recorder recorder = new Recorder();
+        job(source, new MemoryCheckpoint(), processor, new BulkScanConfig(10, 4, 100), recorder).start();
+
+        BulkScanJob.Item first = processor.awaitStarted();
+        assertNull(processor.started.poll(100, TimeUnit.MILLISECONDS));
+        processor.completeNext(first);
+
+        BulkScanJob.Item second = processor.awaitStarted();
+        processor.completeNext(second);
+        BulkScanJob.Item huge = processor.awaitStarted();
+        assertEquals(3, huge.key);
+        processor.completeNext(huge);
+
+        assertEquals(BulkScanJob.State.FINISHED, recorder.awaitStop().state);
+    }
+
+    @Test
+    public void pause_waitsForInFlightThenResumesWhereItStopped() throws InterruptedException {
+        ManualProcessor processor = new ManualProcessor();
+        MemoryCheckpoint checkpoint = new MemoryCheckpoint();
+        Recorder recorder = new Recorder();
+        BulkScanJob job = job(new ListSource(6, 1), checkpoint, processor, new BulkScanConfig(10, 2, 1000), recorder);
+        job.start();
+        BulkScanJob.Item first = processor.awaitStarted();
+        BulkScanJob.Item second = processor.awaitStarted();
+
+        assertTrue(job.pause());
+        assertEquals(BulkScanJob.State.PAUSING, job.getState());
+        processor.completeNext(first);
+        processor.completeNext(second);
+
+        BulkScanJob.Summary paused = recorder.awaitStop();
+        assertEquals(BulkScanJob.State.PAUSED, paused.state);
+        assertEquals(2, paused.processed);
+        assertEquals(2, checkpoint.mark);
+        assertNull(processor.started.poll(100, TimeUnit.MILLISECONDS));
+
+        assertTrue(job.resume());
+        for (int key = 3; key <= 6; key++) {
+            BulkScanJob.Item item = processor.awaitStarted();
+            assertEquals(key, item.key);
+            processor.completeNext(item);
+        }
+        BulkScanJob.Summary finished = recorder.awaitStop();
+        assertEquals(BulkScanJob.State.FINISHED, finished.state);
+        assertEquals(6, finished.processed);
+        assertEquals(6, recorder.results.size());
+    }
+
+    @Test
+    public void newJobOnSameCheckpoint_skipsWhatWasDone() throws InterruptedException {
+        ListSource source = new ListSource(8, 1);
+        MemoryCheckpoint checkpoint = new MemoryCheckpoint();
+        checkpoint.mark = 5;
+        Recorder recorder = new Recorder();
+        BulkScanJob.Processor processor = (item, abandon) -> CompletableFuture.completedFuture(clean(item));
+
+        job(source, checkpoint, processor, new BulkScanConfig(10, 2, 1000), recorder).start();
+        BulkScanJob.Summary summary = recorder.awaitStop();
+
+        assertEquals(3, summary.processed);
+        assertEquals(5, summary.fromMark);
+        assertEquals(8, summary.toMark);
+    }
+
+    @Test
+    public void failedImages_reportedAsErrorsAndScanContinues() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        BulkScanJob.Processor processor = (item, abandon) -> {
+            if (item.key == 2) {
+                throw new IllegalStateException("decoder crashed");
+            }
+            CompletableFuture<ScreenshotProcessor.ProcessingResult> result = new CompletableFuture<>();
+            if (item.key == 3) {
+                result.completeExceptionally(new RuntimeException("OCR failed"));
+            } else {
+                result.complete(clean(item));
+            }
+            return result;
+        };
+
+        job(new ListSource(4, 1), new MemoryCheckpoint(), processor, new BulkScanConfig(10, 1, 1000), recorder).start();
+        BulkScanJob.Summary summary = recorder.awaitStop();
+
+        assertEquals(BulkScanJob.State.FINISHED, summary.state);
+        assertEquals(2, summary.failed);
+        assertEquals(2, summary.clean);
+        assertEquals("decoder crashed", recorder.results.get(1).errorMessage);
+        assertEquals("OCR failed", recorder.results.get(2).errorMessage);
+    }
+
+    @Test
+    public void stuckImage_timesOutAndScanMovesOn() throws InterruptedException {
+        MemoryCheckpoint checkpoint = new MemoryCheckpoint();
+        Recorder recorder = new Recorder();
+        // Image 2 hangs, like a stuck recognition, until it is abandoned
+        BulkScanJob.Processor processor = (item, abandon) -> {
+            if (item.key != 2) {
+                return CompletableFuture.completedFuture(clean(item));
+            }
+            CompletableFuture<ScreenshotProcessor.ProcessingResult> hung = new CompletableFuture<>();
+            abandon.thenRun(() -> hung.completeExceptionally(new IllegalStateException("abandoned")));
+            return hung;
+        };
+
+        job(new ListSource(3, 1), checkpoint, processor, new BulkScanConfig(10, 1, 1000, 100), recorder).start();
+        BulkScanJob.Summary summary = recorder.awaitStop();
+
+        assertEquals(BulkScanJob.State.FINISHED, summary.state);
+        assertEquals(3, summary.processed);
+        assertEquals(1, summary.failed);
+        assertEquals(2, summary.clean);
+        assertEquals(3, recorder.results.size());
+        assertEquals("Processing timed out after 100ms", recorder.results.get(1).errorMessage);
+        assertEquals(3, checkpoint.mark);
+    }
+
+    @Test
+    public void timedOutImage_keepsItsSlotUntilItsWorkStops() throws InterruptedException {
+        ManualProcessor processor = new ManualProcessor();
+        Recorder recorder = new Recorder();
+        job(new ListSource(2, 1), new MemoryCheckpoint(), processor, new BulkScanConfig(10, 1, 1000, 100), recorder).start();
+
+        // Image 1 ignores being abandoned: it is reported, but its slot stays taken
+        BulkScanJob.Item first = processor.awaitStarted();
+        assertNull(processor.started.poll(300, TimeUnit.MILLISECONDS));
+        assertEquals(1, recorder.results.size());
+        assertFalse(recorder.results.get(0).success);
+
+        // Once its work stops the next image gets the slot; the late result isn't reported
+        processor.completeNext(first);
+        processor.completeNext(processor.awaitStarted());
+
+        BulkScanJob.Summary summary = recorder.awaitStop();
+        assertEquals(BulkScanJob.State.FINISHED, summary.state);
+        assertEquals(2, summary.processed);
+        assertEquals(1, summary.failed);
+        assertEquals(2, recorder.results.size());
+    }
+
+    @Test
+    public void pauseMidPage_sharedKeyNotSkipped() throws InterruptedException {
+        ListSource source = new ListSource(3, 1);
+        // Modified in the same second as image 2
+        source.items.add(2, new BulkScanJob.Item("/sdcard/DCIM/img_2b.jpg", MediaObserver.ImageType.CAMERA_PHOTO, 2, 1));
+        ManualProcessor processor = new ManualProcessor();
+        MemoryCheckpoint checkpoint = new MemoryCheckpoint();
+        Recorder recorder = new Recorder();
+        BulkScanJob job = job(source, checkpoint, processor, new BulkScanConfig(10, 1, 1000), recorder);
+        job.start();
+
+        processor.completeNext(processor.awaitStarted());
+        BulkScanJob.Item second = processor.awaitStarted();
+        assertTrue(job.pause());
+        processor.completeNext(second);
+
+        assertEquals(BulkScanJob.State.PAUSED, recorder.awaitStop().state);
+        assertEquals(1, checkpoint.mark);
+
+        assertTrue(job.resume());
+        List<String> resumed = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            BulkScanJob.Item item = processor.awaitStarted();
+            resumed.add(item.path);
+            processor.completeNext(item);
+        }
+        assertTrue(resumed.contains("/sdcard/DCIM/img_2b.jpg"));
+        assertEquals(BulkScanJob.State.FINISHED, recorder.awaitStop().state);
+        assertEquals(3, checkpoint.mark);
+    }
+
+    @Test
+    public void sourceFailure_stopsJobAsFailed() throws InterruptedException {
+        ListSource source = new ListSource(3, 1);
+        source.failing = true;
+        MemoryCheckpoint checkpoint = new MemoryCheckpoint();
+        Recorder recorder = new Recorder();
+
+        job(source, checkpoint, (item, abandon) -> CompletableFuture.completedFuture(clean(item)),
+                new BulkScanConfig(10, 1, 1000), recorder).start();
+        BulkScanJob.Summary summary = recorder.awaitStop();
+
+        assertEquals(BulkScanJob.State.FAILED, summary.state);
+        assertEquals("query failed", summary.error);
+        assertTrue(checkpoint.saves.isEmpty());
+    }
+
+    @Test
+    public void cancelBeforeStart_neverRuns() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        BulkScanJob job = job(new ListSource(3, 1), new MemoryCheckpoint(),
+                (item, abandon) -> CompletableFuture.completedFuture(clean(item)), new BulkScanConfig(10, 1, 1000), recorder);
+
+        job.cancel();
+
+        assertEquals(BulkScanJob.State.CANCELLED, recorder.awaitStop().state);
+        assertFalse(job.start());
+        assertTrue(recorder.results.isEmpty());
+    }
+}
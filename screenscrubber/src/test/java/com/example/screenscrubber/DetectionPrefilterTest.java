@@ -0,0 +1,73 @@
+package com.example.screenscrubber;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DetectionPrefilterTest {
+
+    @Test
+    public void chatText_skipsEveryFamily() {
+        SensitiveDataDetector detector = new SensitiveDataDetector();
+        SensitiveDataDetector.DetectionStats stats =
+                detector.getDetectionStats("see you at 10:30, room 4 - bring 2 laptops\nok 👍");
+
+        assertEquals(0, stats.matchCount);
+        assertEquals(2, stats.profile.lineCount);
+        assertEquals(2, stats.profile.longestDigitRun);
+        assertEquals(0, stats.profile.atCount);
+        assertEquals(detector.getFamilySkipCounts().size(), stats.skippedFamilies.size());
+        assertFalse(detector.mayContainSensitiveData("see you at 10:30"));
+    }
+
+    @Test
+    public void formattedCard_countsDigitsAcrossSeparators() {
+        SensitiveDataDetector detector = new SensitiveDataDetector();
+        SensitiveDataDetector.DetectionStats stats = detector.getDetectionStats("card 4111 1111 1111 1111");
+
+        assertEquals(4, stats.profile.longestDigitRun);
+        assertEquals(16, stats.profile.maxCandidateDigits);
+        assertEquals(1, stats.matchCount);
+        assertTrue(stats.skippedFamilies.contains("EMAIL"));
+        assertFalse(stats.skippedFamilies.contains("CREDIT_CARD"));
+    }
+
+    @Test
+    public void skipCounts_accumulatePerFamily() {
+        SensitiveDataDetector detector = new SensitiveDataDetector();
+        detector.detectSensitiveData("no numbers here");
+        detector.detectSensitiveData("call 050-123-4567");
+        detector.detectSensitiveData("mail john@example.com");
+
+        assertEquals(3, detector.getScannedTextCount());
+        assertEquals(Long.valueOf(2), detector.getFamilySkipCounts().get("EMAIL"));
+        assertEquals(Long.valueOf(2), detector.getFamilySkipCounts().get("ISRAELI_PHONE"));
+        // US_PHONE has two detectors but is one family
+        assertEquals(Long.valueOf(2), detector.getFamilySkipCounts().get("US_PHONE"));
+    }
+
+    @Test
+    public void profile_agreesWithScanner() {
+        Random random = new Random(17);
+        String alphabet = "0123456789 -.()+@ab\n\t";
+        for (int round = 0; round < 5_000; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(80);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+
+            TextProfile profile = CandidateScanner.profile(text.toString());
+            CandidateScanner.Candidates candidates = CandidateScanner.scan(text.toString());
+
+            int maxDigits = 0;
+            for (int s = 0; s < candidates.numericCount; s++) {
+                maxDigits = Math.max(maxDigits, candidates.numericDigits[s]);
+            }
+            assertEquals(text.toString(), maxDigits, profile.maxCandidateDigits);
+            assertEquals(text.toString(), candidates.emailCount > 0, profile.atCount > 0);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.screenscrubber;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Allocation benchmark for the range validators, run as a plain JVM unit test.
+ * Measures bytes allocated per validated candidate with the HotSpot per-thread allocation counter,
+ * for the old substring/replaceAll/parseInt path and for DigitValidators. Skipped on JVMs without
+ * that counter.
+ */
+public class DigitValidatorsBenchmark {
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final int MEASURED_ROUNDS = 20_000;
+
+    // A statement-like line: card numbers, IDs and amounts separated by spaces and dashes
+    private static final String TEXT =
+            "4580 1234 5678 9010 039-337-423 4111-1111-1111-1111 123456782 5500 0000 0000 0004 120.00";
+    private static final int[][] CANDIDATES = {
+            {0, 19}, {20, 31}, {32, 51}, {52, 61}, {62, 81},
+    };
+
+    @Test
+    public void rangeValidators_allocateNothing() {
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+
+        long legacyBytes = measure(threads, this::legacyRound);
+        long rangeBytes = measure(threads, this::rangeRound);
+
+        double legacyPerCandidate = legacyBytes / (double) (MEASURED_ROUNDS * CANDIDATES.length);
+        double rangePerCandidate = rangeBytes / (double) (MEASURED_ROUNDS * CANDIDATES.length);
+        assertTrue("legacy path should allocate", legacyPerCandidate > 100);
+        // Allow a few bytes of counter noise over the whole run, nothing per candidate
+        assertTrue("range validators allocated " + rangeBytes + " bytes", rangePerCandidate < 0.01);
+    }
+
+    @Test
+    public void rangeValidators_agreeWithStringValidators() {
+        for (int[] candidate : CANDIDATES) {
+            String clean = TEXT.substring(candidate[0], candidate[1]).replaceAll("[\\s-]", "");
+            assertEquals(clean.length(), DigitValidators.keptLength(TEXT, candidate[0], candidate[1]));
+            assertEquals(legacyLuhn(clean), DigitValidators.isValidLuhn(TEXT, candidate[0], candidate[1]));
+            assertEquals(legacyRepeated(clean), DigitValidators.isRepeatedDigits(TEXT, candidate[0], candidate[1]));
+        }
+        assertTrue(DigitValidators.isValidIsraeliIdChecksum(TEXT, 20, 31));
+        assertTrue(DigitValidators.isValidIsraeliIdChecksum(TEXT, 52, 61));
+        assertFalse(DigitValidators.isValidIsraeliIdChecksum("123456789", 0, 9));
+    }
+
+    private interface Round {
+        int run();
+    }
+
+    private static long measure(com.sun.management.ThreadMXBean threads, Round round) {
+        long id = Thread.currentThread().getId();
+        int sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += round.run();
+        }
+
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += round.run();
+        }
+        long after = threads.getThreadAllocatedBytes(id);
+
+        assertTrue(sink >= 0);
+        return after - before;
+    }
+
+    private int rangeRound() {
+        int valid = 0;
+        for (int[] candidate : CANDIDATES) {
+            int start = candidate[0];
+            int end = candidate[1];
+            int length = DigitValidators.keptLength(TEXT, start, end);
+            if (length >= 13 && !DigitValidators.isRepeatedDigits(TEXT, start, end) &&
+                    DigitValidators.isValidLuhn(TEXT, start, end)) {
+                valid++;
+            }
+            if (length == 9 && DigitValidators.isValidIsraeliIdChecksum(TEXT, start, end)) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    private int legacyRound() {
+        int valid = 0;
+        for (int[] candidate : CANDIDATES) {
+            String clean = TEXT.substring(candidate[0], candidate[1]).replaceAll("[\\s-]", "");
+            if (clean.length() >= 13 && !legacyRepeated(clean) && legacyLuhn(clean)) {
+                valid++;
+            }
+            if (clean.length() == 9 && legacyIsraeliChecksum(clean)) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    // The string-based validators SensitiveDataDetector used before DigitValidators
+    private static boolean legacyLuhn(String number) {
+        int sum = 0;
+        boolean alternate = false;
+        for (int i = number.length() - 1; i >= 0; i--) {
+            int n = Integer.parseInt(number.substring(i, i + 1));
+            if (alternate) {
+                n *= 2;
+                if (n > 9) n = (n % 10) + 1;
+            }
+            sum += n;
+            alternate = !alternate;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static boolean legacyRepeated(String number) {
+        if (number.length() < 4) return false;
+        char firstDigit = number.charAt(0);
+        int count = 0;
+        for (char c : number.toCharArray()) {
+            if (c == firstDigit) count++;
+        }
+        return (count * 1.0 / number.length()) > 0.7;
+    }
+
+    private static boolean legacyIsraeliChecksum(String id) {
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            int digit = Character.getNumericValue(id.charAt(i));
+            if (i % 2 == 1) {
+                digit *= 2;
+                if (digit > 9) digit = digit / 10 + digit % 10;
+            }
+            sum += digit;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue("JVM has no per-thread allocation counter", bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue("JVM has no per-thread allocation counter", threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
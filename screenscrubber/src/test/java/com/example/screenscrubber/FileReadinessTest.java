@@ -0,0 +1,203 @@
+package com.example.screenscrubber;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Completeness checks on partially written image files, and the backoff that waits for them,
+ * driven by a manual scheduler and clock.
+ */
+public class FileReadinessTest {
+    private static final byte[] JPEG_START = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 16, 'J', 'F', 'I', 'F', 0, 1};
+    private static final byte[] JPEG_END = {(byte) 0xFF, (byte) 0xD9};
+    private static final byte[] PNG_START = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+    private static final byte[] PNG_END = {0, 0, 0, 0, 'I', 'E', 'N', 'D', (byte) 0xAE, 0x42, 0x60, (byte) 0x82};
+
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+    private long now;
+    private File dir;
+    private FileReadiness readiness;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("readiness", "");
+        assertTrue(dir.delete() && dir.mkdir());
+        readiness = new FileReadiness((task, delayMs) -> {
+            scheduled.add(task);
+            delays.add(delayMs);
+        }, () -> now, 2000);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void jpeg_completeWithEndMarker() throws IOException {
+        File file = write("shot.jpg", JPEG_START, new byte[500]);
+        // Could be a vendor trailer after EOI - left to the size settling
+        assertEquals(FileReadiness.State.UNKNOWN, FileReadiness.check(file));
+
+        append(file, JPEG_END);
+        assertEquals(FileReadiness.State.COMPLETE, FileReadiness.check(file));
+    }
+
+    @Test
+    public void png_completeOnlyWithIend() throws IOException {
+        File file = write("shot.png", PNG_START, new byte[500]);
+        assertEquals(FileReadiness.State.INCOMPLETE, FileReadiness.check(file));
+
+        append(file, PNG_END);
+        assertEquals(FileReadiness.State.COMPLETE, FileReadiness.check(file));
+    }
+
+    @Test
+    public void webp_completeWhenRiffLengthReached() throws IOException {
+        // RIFF length 100 covers "WEBP" plus 96 bytes of chunks
+        byte[] header = {'R', 'I', 'F', 'F', 100, 0, 0, 0, 'W', 'E', 'B', 'P'};
+        File file = write("photo.webp", header, new byte[50]);
+        assertEquals(FileReadiness.State.INCOMPLETE, FileReadiness.check(file));
+
+        append(file, new byte[46]);
+        assertEquals(FileReadiness.State.COMPLETE, FileReadiness.check(file));
+    }
+
+    @Test
+    public void missingAndEmptyFiles() throws IOException {
+        assertEquals(FileReadiness.State.MISSING, FileReadiness.check(new File(dir, "none.jpg")));
+        assertEquals(FileReadiness.State.INCOMPLETE, FileReadiness.check(write("empty.jpg")));
+    }
+
+    @Test
+    public void unknownFormat_readyOnceSizeSettles() throws IOException {
+        File file = write("photo.heic", new byte[]{0, 0, 0, 24, 'f', 't', 'y', 'p'}, new byte[100]);
+        AtomicInteger ready = new AtomicInteger();
+        assertEquals(FileReadiness.State.UNKNOWN, FileReadiness.check(file));
+
+        readiness.await(file.getPath(), ready::incrementAndGet);
+        runNext(50);
+        append(file, new byte[100]);
+        runNext(100);
+        runNext(200);
+        assertEquals(0, ready.get());
+
+        // Unchanged since 150ms
+        runNext(400);
+        assertEquals(1, ready.get());
+    }
+
+    @Test
+    public void completeFile_handedOnWithoutWaiting() throws IOException {
+        File file = write("shot.jpg", JPEG_START, new byte[10], JPEG_END);
+        AtomicInteger ready = new AtomicInteger();
+
+        readiness.await(file.getPath(), ready::incrementAndGet);
+
+        assertEquals(1, ready.get());
+        assertTrue(scheduled.isEmpty());
+        assertEquals(1, readiness.getStats().readyAtOnce);
+    }
+
+    @Test
+    public void partialFile_checkedWithBackoffUntilComplete() throws IOException {
+        File file = write("shot.png", PNG_START, new byte[10]);
+        AtomicInteger ready = new AtomicInteger();
+
+        readiness.await(file.getPath(), ready::incrementAndGet);
+        runNext(50);
+        runNext(100);
+        assertEquals(0, ready.get());
+
+        append(file, PNG_END);
+        runNext(200);
+
+        assertEquals(1, ready.get());
+        assertEquals(Long.valueOf(FileReadiness.FIRST_RETRY_MS), delays.get(0));
+        assertEquals(Long.valueOf(FileReadiness.FIRST_RETRY_MS * 2), delays.get(1));
+        FileReadiness.Stats stats = readiness.getStats();
+        assertEquals(1, stats.readyAfterWait);
+        assertEquals(350, stats.avgWaitMillis);
+    }
+
+    @Test
+    public void closeWriteSignal_checksImmediately() throws IOException {
+        File file = write("shot.png", PNG_START);
+        AtomicInteger ready = new AtomicInteger();
+        readiness.await(file.getPath(), ready::incrementAndGet);
+
+        append(file, PNG_END);
+        now = 5;
+        readiness.signal(file.getPath());
+        assertEquals(1, ready.get());
+
+        // The backoff check scheduled before the signal is now stale
+        scheduled.remove(0).run();
+        assertEquals(1, ready.get());
+        assertEquals(5, readiness.getStats().maxWaitMillis);
+    }
+
+    @Test
+    public void neverCompleted_isGivenUp() throws IOException {
+        File file = write("shot.png", PNG_START);
+        AtomicInteger ready = new AtomicInteger();
+        readiness.await(file.getPath(), ready::incrementAndGet);
+
+        while (!scheduled.isEmpty()) {
+            runNext(FileReadiness.MAX_RETRY_MS);
+        }
+
+        assertEquals(0, ready.get());
+        assertFalse(readiness.isWaiting(file.getPath()));
+        assertEquals(1, readiness.getStats().gaveUp);
+    }
+
+    @Test
+    public void retryDelay_doublesUpToCap() {
+        assertEquals(50, FileReadiness.retryDelayMs(0));
+        assertEquals(400, FileReadiness.retryDelayMs(3));
+        assertEquals(FileReadiness.MAX_RETRY_MS, FileReadiness.retryDelayMs(10));
+        assertEquals(FileReadiness.MAX_RETRY_MS, FileReadiness.retryDelayMs(100));
+    }
+
+    /**
+     * Advance the clock and run the earliest scheduled check
+     */
+    private void runNext(long advanceMs) {
+        now += advanceMs;
+        scheduled.remove(0).run();
+    }
+
+    private File write(String name, byte[]... parts) throws IOException {
+        File file = new File(dir, name);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            for (byte[] part : parts) {
+                out.write(part);
+            }
+        }
+        return file;
+    }
+
+    private static void append(File file, byte[] bytes) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(bytes);
+        }
+    }
+}
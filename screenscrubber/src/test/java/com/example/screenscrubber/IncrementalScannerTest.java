@@ -0,0 +1,212 @@
+package com.example.screenscrubber;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+/**
+ * Paging past a high-water mark, and resuming from it after a restart or a failed page.
+ */
+public class IncrementalScannerTest {
+
+    /**
+     * Keys in a list, served like a keyed "key > ? ORDER BY key LIMIT ?" query
+     */
+    private static final class ListSource implements IncrementalScanner.Source<Long> {
+        final List<Long> keys = new ArrayList<>();
+        final List<Integer> limits = new ArrayList<>();
+        int failOnPage = -1;
+
+        ListSource(long from, long to) {
+            add(from, to);
+        }
+
+        void add(long from, long to) {
+            for (long key = from; key <= to; key++) {
+                keys.add(key);
+            }
+        }
+
+        @Override
+        public List<Long> page(long afterKey, int limit) throws Exception {
+            if (limits.size() == failOnPage) {
+                throw new IllegalStateException("query failed");
+            }
+            limits.add(limit);
+            List<Long> page = new ArrayList<>();
+            for (long key : keys) {
+                if (key > afterKey && page.size() < limit) {
+                    page.add(key);
+                }
+            }
+            return page;
+        }
+
+        @Override
+        public long keyOf(Long row) {
+            return row;
+        }
+    }
+
+    private static final class MemoryCheckpoint implements IncrementalScanner.Checkpoint {
+        long mark = IncrementalScanner.NO_MARK;
+        final List<Long> saves = new ArrayList<>();
+
+        @Override
+        public long load() {
+            return mark;
+        }
+
+        @Override
+        public void save(long key) {
+            mark = key;
+            saves.add(key);
+        }
+    }
+
+    private static CompletableFuture<?> handled(List<Long> seen, long row) {
+        seen.add(row);
+        return null;
+    }
+
+    @Test
+    public void pagesInFixedBatches() {
+        ListSource source = new ListSource(1, 25);
+        MemoryCheckpoint checkpoint = new MemoryCheckpoint();
+        List<Long> seen = new ArrayList<>();
+
+        IncrementalScanner.Result result = new IncrementalScanner<>(source, checkpoint, 10).scan(row -> handled(seen, row));
+
+        assertEquals(25, seen.size());
+        assertEquals(3, result.pages);
+        assertEquals(25, result.rows);
+        assertTrue(result.complete);
+        // A short page ends the scan without another query
+        assertEquals(3, source.limits.size());
+        for (int limit : source.limits) {
+            assertEquals(10, limit);
+        }
+    }
+
+    @Test
+    public void markSavedAfterEveryPage() {
+        MemoryCheckpoint checkpoint = new MemoryCheckpoint();
+
+        new IncrementalScanner<>(new ListSource(1, 25), checkpoint, 10).scan(row -> null);
+
+        assertEquals(List.of(10L, 20L, 25L), checkpoint.saves);
+    }
+
+    @Test
+    public void nextScan_seesOnlyRowsAddedSince() {
+        ListSource source = new ListSource(1, 30);
+        MemoryCheckpoint checkpoint = new MemoryCheckpoint();
+        new IncrementalScanner<>(source, checkpoint, 10).scan(row -> null);
+
+        // As after a restart: a new scanner over the same checkpoint
+        source.add(31, 34);
+        List<Long> seen = new ArrayList<>();
+        IncrementalScanner.Result result = new IncrementalScanner<>(source, checkpoint, 10).scan(row -> handled(seen, row));
+
+        assertEquals(List.of(31L, 32L, 33L, 34L), seen);
+        assertEquals(30, result.fromMark);
+        assertEquals(34, result.toMark);
+    }
+
+    @Test
+    public void nothingNew_oneEmptyPageAndMarkUnchanged() {
+        ListSource source = new ListSource(1, 5);
+        MemoryCheckpoint checkpoint = new MemoryCheckpoint();
+        checkpoint.mark = 5;
+
+        IncrementalScanner.Result result = new IncrementalScanner<>(source, checkpoint, 10).scan(row -> {
+            fail("Nothing past the mark");
+            return null;
+        });
+
+        assertEquals(0, result.pages);
+        assertEquals(5, result.toMark);
+        assertTrue(checkpoint.saves.isEmpty());
+    }
+
+    @Test
+    public void failedPage_resumesAfterLastCompletedPage() {
+        ListSource source = new ListSource(1, 35);
+        source.failOnPage = 2;
+        MemoryCheckpoint checkpoint = new MemoryCheckpoint();
+
+        IncrementalScanner.Result failed = new IncrementalScanner<>(source, checkpoint, 10).scan(row -> null);
+        assertFalse(failed.complete);
+        assertEquals(20, checkpoint.mark);
+
+        source.failOnPage = -1;
+        List<Long> seen = new ArrayList<>();
+        new IncrementalScanner<>(source, checkpoint, 10).scan(row -> handled(seen, row));
+        assertEquals(15, seen.size());
+        assertEquals(Long.valueOf(21), seen.get(0));
+    }
+
+    @Test
+    public void markWaitsForRowsToComplete() {
+        MemoryCheckpoint checkpoint = new MemoryCheckpoint();
+        List<Long> savesWhenDone = new ArrayList<>();
+
+        new IncrementalScanner<>(new ListSource(1, 15), checkpoint, 10).scan(row -> {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            Thread worker = new Thread(() -> {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                synchronized (savesWhenDone) {
+                    savesWhenDone.add((long) checkpoint.saves.size());
+                }
+                done.complete(null);
+            });
+            worker.start();
+            return done;
+        });
+
+        // Rows 1-10 all finished before the first save, rows 11-15 before the second
+        assertEquals(15, savesWhenDone.size());
+        for (int i = 0; i < 15; i++) {
+            assertEquals(i < 10 ? 0L : 1L, (long) savesWhenDone.get(i));
+        }
+        assertEquals(List.of(10L, 15L), checkpoint.saves);
+    }
+
+    @Test
+    public void failedRow_markStaysBeforeItsPage() {
+        ListSource source = new ListSource(1, 25);
+        MemoryCheckpoint checkpoint = new MemoryCheckpoint();
+
+        IncrementalScanner.Result failed = new IncrementalScanner<>(source, checkpoint, 10).scan(row -> {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            if (row == 14) {
+                done.completeExceptionally(new IllegalStateException("dropped"));
+            } else {
+                done.complete(null);
+            }
+            return done;
+        });
+        assertFalse(failed.complete);
+        assertEquals(10, checkpoint.mark);
+        assertEquals(10, failed.toMark);
+
+        // The next scan sees the failed row's page again
+        List<Long> seen = new ArrayList<>();
+        new IncrementalScanner<>(source, checkpoint, 10).scan(row -> handled(seen, row));
+        assertEquals(Long.valueOf(11), seen.get(0));
+        assertEquals(15, seen.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositivePageSize() {
+        new IncrementalScanner<>(new ListSource(1, 1), new MemoryCheckpoint(), 0);
+    }
+}
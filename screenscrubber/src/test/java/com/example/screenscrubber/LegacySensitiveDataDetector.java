@@ -0,0 +1,302 @@
+package com.example.screenscrubber;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Frozen copy of the original seven-pass regex detector.
+ * Used ONLY as the reference implementation for parity tests - do not optimize
+ */
+class LegacySensitiveDataDetector {
+    private static final Pattern CREDIT_CARD_PATTERN =
+            Pattern.compile("(?:\\d[\\s-]*){13,19}");
+
+    private static final Pattern US_SSN_PATTERN =
+            Pattern.compile("\\b\\d{3}[-\\s]\\d{2}[-\\s]\\d{4}\\b");
+
+    private static final Pattern US_PHONE_PATTERN = Pattern.compile(
+            "\\b(?:\\+?1[\\s-]?)?(?:\\(?[2-9]\\d{2}\\)?[\\s.-]?)[2-9]\\d{2}[\\s.-]?\\d{4}\\b" +
+                    "|\\b[2-9]\\d{9}\\b" +
+                    "|\\b[2-9]\\d{2}\\.[2-9]\\d{2}\\.\\d{4}\\b"
+    );
+
+    private static final Pattern EMAIL_PATTERN =
+            Pattern.compile("\\b[a-zA-Z0-9][a-zA-Z0-9._%+-]*@[a-zA-Z0-9][a-zA-Z0-9.-]*\\s?\\.\\s?[a-zA-Z]{2,6}\\b");
+
+    private static final Pattern ISRAELI_ID_PATTERN =
+            Pattern.compile("\\b\\d{9}\\b|\\b\\d{3}[\\s-]\\d{3}[\\s-]\\d{3}\\b");
+
+    private static final Pattern ISRAELI_PHONE_PATTERN = Pattern.compile(
+            "\\b(?:\\+972[\\s-]?|0)?(?:2|3|4|5[0-9]|7[2-9]|8|9)[\\s-]?\\d{3}[\\s-]?\\d{4}\\b" +
+                    "|\\b\\+972[\\s-]?[2-9][\\s-]?\\d{3}[\\s-]?\\d{4}\\b"
+    );
+    private static final Pattern ISRAELI_BANK_ACCOUNT_PATTERN =
+            Pattern.compile("\\b(?:0[1-9]|[1-9][0-9])[\\s-]?\\d{3}[\\s-]?\\d{6}\\b");
+
+    private static final Set<String> VALID_ISRAELI_AREA_CODES = new HashSet<>(java.util.Arrays.asList(
+            "02", "03", "04", "08", "09", "50", "51", "52", "53", "54", "55", "56", "57", "58", "59",
+            "72", "73", "74", "76", "77", "78", "79"));
+
+    private static final Set<String> VALID_ISRAELI_BANK_CODES = new HashSet<>(java.util.Arrays.asList(
+            "10", "11", "12", "20", "26", "27", "31", "17", "14", "09", "04", "52", "54", "46", "22", "23"));
+
+    List<SensitiveDataDetector.SensitiveMatch> detectSensitiveData(String text) {
+        List<SensitiveDataDetector.SensitiveMatch> matches = new ArrayList<>();
+        if (text == null || text.trim().isEmpty()) {
+            return matches;
+        }
+
+        String cleanText = text.trim();
+        findIsraeliIDs(cleanText, matches);
+        findIsraeliPhones(cleanText, matches);
+        findIsraeliBankAccounts(cleanText, matches);
+        findCreditCards(cleanText, matches);
+        findUSSSNs(cleanText, matches);
+        findUSPhones(cleanText, matches);
+        findEmails(cleanText, matches);
+        return removeOverlappingMatches(matches);
+    }
+
+    private void findCreditCards(String text, List<SensitiveDataDetector.SensitiveMatch> matches) {
+        Matcher matcher = CREDIT_CARD_PATTERN.matcher(text);
+        while (matcher.find()) {
+            String match = matcher.group();
+            String cleanNumber = match.replaceAll("[\\s-]", "");
+            if (cleanNumber.length() >= 13 && cleanNumber.length() <= 19 && isValidCreditCardNumber(cleanNumber)) {
+                matches.add(new SensitiveDataDetector.SensitiveMatch("CREDIT_CARD", match, matcher.start(), matcher.end(), 0.95));
+            }
+        }
+    }
+
+    private void findUSPhones(String text, List<SensitiveDataDetector.SensitiveMatch> matches) {
+        Pattern barePhonePattern = Pattern.compile("\\b[2-9]\\d{9}\\b");
+
+        Matcher matcher = US_PHONE_PATTERN.matcher(text);
+        while (matcher.find()) {
+            String match = matcher.group();
+            if (!isIsraeliPhoneFormat(match) && !overlapsWithExisting(matches, matcher.start(), matcher.end(), "ISRAELI_PHONE")) {
+                String cleanPhone = match.replaceAll("[\\s\\-\\(\\)\\.]", "");
+                if (cleanPhone.startsWith("+1")) cleanPhone = cleanPhone.substring(2);
+                if (cleanPhone.startsWith("1") && cleanPhone.length() == 11) cleanPhone = cleanPhone.substring(1);
+
+                if (cleanPhone.length() == 10 && cleanPhone.charAt(0) >= '2' && !isRepeatedDigits(cleanPhone)) {
+                    matches.add(new SensitiveDataDetector.SensitiveMatch("US_PHONE", match, matcher.start(), matcher.end(), 0.8));
+                }
+            }
+        }
+
+        Matcher bareMatcher = barePhonePattern.matcher(text);
+        while (bareMatcher.find()) {
+            String match = bareMatcher.group();
+            if (!overlapsWithExisting(matches, bareMatcher.start(), bareMatcher.end(), "ISRAELI_PHONE") &&
+                    !overlapsWithExisting(matches, bareMatcher.start(), bareMatcher.end(), "US_PHONE")) {
+                matches.add(new SensitiveDataDetector.SensitiveMatch("US_PHONE", match, bareMatcher.start(), bareMatcher.end(), 0.7));
+            }
+        }
+    }
+
+    private void findEmails(String text, List<SensitiveDataDetector.SensitiveMatch> matches) {
+        String normalizedText = text.replaceAll("(\\w)\\s+\\.\\s+(\\w)", "$1.$2");
+
+        Matcher matcher = EMAIL_PATTERN.matcher(normalizedText);
+        while (matcher.find()) {
+            String match = matcher.group().replaceAll("\\s+", "");
+            if (match.contains("@") && match.contains(".") && match.length() > 5 && isValidEmailFormat(match)) {
+                int originalStart = findEmailInOriginalText(text, match);
+                if (originalStart >= 0) {
+                    matches.add(new SensitiveDataDetector.SensitiveMatch("EMAIL", match, originalStart, originalStart + match.length(), 0.95));
+                }
+            }
+        }
+    }
+
+    private int findEmailInOriginalText(String originalText, String normalizedEmail) {
+        int exactPos = originalText.indexOf(normalizedEmail);
+        if (exactPos >= 0) return exactPos;
+
+        String spacedEmail = normalizedEmail.replace(".", " . ");
+        int spacedPos = originalText.indexOf(spacedEmail);
+        if (spacedPos >= 0) return spacedPos;
+
+        String[] parts = normalizedEmail.split("@");
+        if (parts.length == 2) {
+            int atPos = originalText.indexOf("@");
+            while (atPos >= 0) {
+                int start = Math.max(0, atPos - parts[0].length() - 2);
+                int end = Math.min(originalText.length(), atPos + parts[1].length() + 3);
+                String candidate = originalText.substring(start, end);
+                if (candidate.replaceAll("\\s+", "").contains(normalizedEmail)) {
+                    return start + candidate.indexOf(parts[0].charAt(0));
+                }
+                atPos = originalText.indexOf("@", atPos + 1);
+            }
+        }
+        return 0;
+    }
+
+    private void findIsraeliIDs(String text, List<SensitiveDataDetector.SensitiveMatch> matches) {
+        Matcher matcher = ISRAELI_ID_PATTERN.matcher(text);
+        while (matcher.find()) {
+            String match = matcher.group();
+            if (isValidIsraeliID(match)) {
+                matches.add(new SensitiveDataDetector.SensitiveMatch("ISRAELI_ID", match, matcher.start(), matcher.end(), 0.95));
+            }
+        }
+    }
+
+    private void findUSSSNs(String text, List<SensitiveDataDetector.SensitiveMatch> matches) {
+        Matcher matcher = US_SSN_PATTERN.matcher(text);
+        while (matcher.find()) {
+            String match = matcher.group();
+            if (!overlapsWithExisting(matches, matcher.start(), matcher.end(), "ISRAELI_ID")) {
+                String cleanSSN = match.replaceAll("[-\\s]", "");
+                if (cleanSSN.length() == 9 && !cleanSSN.equals("000000000") && !cleanSSN.equals("111111111")) {
+                    matches.add(new SensitiveDataDetector.SensitiveMatch("US_SSN", match, matcher.start(), matcher.end(), 0.9));
+                }
+            }
+        }
+    }
+
+    private void findIsraeliPhones(String text, List<SensitiveDataDetector.SensitiveMatch> matches) {
+        Matcher matcher = ISRAELI_PHONE_PATTERN.matcher(text);
+        while (matcher.find()) {
+            String match = matcher.group();
+            if (isValidIsraeliPhone(match)) {
+                matches.add(new SensitiveDataDetector.SensitiveMatch("ISRAELI_PHONE", match, matcher.start(), matcher.end(), 0.9));
+            }
+        }
+    }
+
+    private void findIsraeliBankAccounts(String text, List<SensitiveDataDetector.SensitiveMatch> matches) {
+        Matcher matcher = ISRAELI_BANK_ACCOUNT_PATTERN.matcher(text);
+        while (matcher.find()) {
+            String match = matcher.group();
+            if (isValidIsraeliBankAccount(match)) {
+                matches.add(new SensitiveDataDetector.SensitiveMatch("ISRAELI_BANK_ACCOUNT", match, matcher.start(), matcher.end(), 0.85));
+            }
+        }
+    }
+
+    private boolean overlapsWithExisting(List<SensitiveDataDetector.SensitiveMatch> matches, int start, int end, String type) {
+        for (SensitiveDataDetector.SensitiveMatch existing : matches) {
+            if (existing.type.equals(type) && start < existing.end && end > existing.start) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isValidCreditCardNumber(String number) {
+        if (isRepeatedDigits(number)) return false;
+
+        int sum = 0;
+        boolean alternate = false;
+        for (int i = number.length() - 1; i >= 0; i--) {
+            int n = Integer.parseInt(number.substring(i, i + 1));
+            if (alternate) {
+                n *= 2;
+                if (n > 9) n = (n % 10) + 1;
+            }
+            sum += n;
+            alternate = !alternate;
+        }
+
+        boolean luhnValid = (sum % 10 == 0);
+        char firstDigit = number.charAt(0);
+        boolean validPrefix = (firstDigit == '4' || firstDigit == '5' || firstDigit == '3' || firstDigit == '6');
+        return luhnValid && validPrefix;
+    }
+
+    private boolean isRepeatedDigits(String number) {
+        if (number.length() < 4) return false;
+        char firstDigit = number.charAt(0);
+        int count = 0;
+        for (char c : number.toCharArray()) {
+            if (c == firstDigit) count++;
+        }
+        return (count * 1.0 / number.length()) > 0.7;
+    }
+
+    private boolean isValidEmailFormat(String email) {
+        return email.matches("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,6}$");
+    }
+
+    private boolean isIsraeliPhoneFormat(String phone) {
+        String cleanPhone = phone.replaceAll("[\\s\\-\\(\\)\\.]", "");
+        return cleanPhone.startsWith("+972") || cleanPhone.startsWith("05") ||
+                cleanPhone.startsWith("02") || cleanPhone.startsWith("03") ||
+                cleanPhone.startsWith("04") || cleanPhone.startsWith("08") ||
+                cleanPhone.startsWith("09") || cleanPhone.startsWith("972");
+    }
+
+    private boolean isValidIsraeliID(String id) {
+        String cleanID = id.replaceAll("[\\s-]", "");
+        if (cleanID.length() != 9) return false;
+        if (cleanID.equals("000000000") || cleanID.equals("111111111") || cleanID.equals("123456789")) return false;
+
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            int digit = Character.getNumericValue(cleanID.charAt(i));
+            if (i % 2 == 1) {
+                digit *= 2;
+                if (digit > 9) digit = digit / 10 + digit % 10;
+            }
+            sum += digit;
+        }
+        return sum % 10 == 0;
+    }
+
+    private boolean isValidIsraeliPhone(String phone) {
+        String cleanPhone = phone.replaceAll("[\\s\\-\\(\\)\\.]", "");
+        if (cleanPhone.startsWith("+972")) cleanPhone = cleanPhone.substring(4);
+        if (cleanPhone.startsWith("0")) cleanPhone = cleanPhone.substring(1);
+        if (cleanPhone.length() < 8 || cleanPhone.length() > 9) return false;
+        return VALID_ISRAELI_AREA_CODES.contains(cleanPhone.substring(0, 2));
+    }
+
+    private boolean isValidIsraeliBankAccount(String account) {
+        String cleanAccount = account.replaceAll("[\\s-]", "");
+        if (cleanAccount.length() != 11) return false;
+        return VALID_ISRAELI_BANK_CODES.contains(cleanAccount.substring(0, 2));
+    }
+
+    List<SensitiveDataDetector.SensitiveMatch> removeOverlappingMatches(List<SensitiveDataDetector.SensitiveMatch> matches) {
+        if (matches.size() <= 1) return matches;
+
+        List<SensitiveDataDetector.SensitiveMatch> result = new ArrayList<>();
+        matches.sort((a, b) -> {
+            int posCompare = Integer.compare(a.start, b.start);
+            return posCompare != 0 ? posCompare : Double.compare(b.confidence, a.confidence);
+        });
+
+        for (SensitiveDataDetector.SensitiveMatch current : matches) {
+            boolean shouldAdd = true;
+            for (int i = 0; i < result.size(); i++) {
+                SensitiveDataDetector.SensitiveMatch existing = result.get(i);
+                if (current.start < existing.end && current.end > existing.start) {
+                    if (current.confidence > existing.confidence) {
+                        result.set(i, current);
+                    } else if (current.confidence == existing.confidence && isMoreSpecificType(current.type, existing.type)) {
+                        result.set(i, current);
+                    }
+                    shouldAdd = false;
+                    break;
+                }
+            }
+            if (shouldAdd) {
+                result.add(current);
+            }
+        }
+        return result;
+    }
+
+    private boolean isMoreSpecificType(String type1, String type2) {
+        if (type1.startsWith("ISRAELI_") && type2.startsWith("US_")) return true;
+        if (type1.startsWith("US_") && type2.startsWith("ISRAELI_")) return false;
+        return type1.equals("CREDIT_CARD") && (type2.contains("PHONE") || type2.contains("SSN"));
+    }
+}
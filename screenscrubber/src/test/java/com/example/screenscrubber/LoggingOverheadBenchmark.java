@@ -0,0 +1,97 @@
+package com.example.screenscrubber;
+
+import android.util.Log;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Per-image detection allocation with debug logging on and off. android.util.Log is a no-op in
+ * local tests, so the difference is the message building the facade skips when debug is off.
+ * Skipped on JVMs without a per-thread allocation counter.
+ */
+public class LoggingOverheadBenchmark {
+    private static final int WARMUP_IMAGES = 300;
+    private static final int MEASURED_IMAGES = 2_000;
+
+    // One "image": a statement screenshot with a match on most lines
+    private static final String PAGE = buildPage();
+
+    @Test
+    public void debugOff_skipsMessageBuilding() {
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        int previousLevel = ScrubberLog.getLevel();
+        SensitiveDataDetector detector = new SensitiveDataDetector();
+
+        try {
+            ScrubberLog.setLevel(Log.DEBUG);
+            long on = measure(threads, detector);
+            ScrubberLog.setLevel(Log.INFO);
+            long off = measure(threads, detector);
+
+            assertTrue("debug off should allocate less", off < on);
+        } finally {
+            ScrubberLog.setLevel(previousLevel);
+        }
+    }
+
+    @Test
+    public void levels_gateEachOther() {
+        int previousLevel = ScrubberLog.getLevel();
+        try {
+            ScrubberLog.setLevel(Log.INFO);
+            assertFalse(ScrubberLog.isDebugEnabled());
+            ScrubberLog.d("test", () -> {
+                throw new AssertionError("debug message built while debug is off");
+            });
+
+            ScrubberLog.setLevel(Log.DEBUG);
+            assertTrue(ScrubberLog.isDebugEnabled());
+        } finally {
+            ScrubberLog.setLevel(previousLevel);
+        }
+    }
+
+    // Bytes allocated by MEASURED_IMAGES detections
+    private static long measure(com.sun.management.ThreadMXBean threads, SensitiveDataDetector detector) {
+        long id = Thread.currentThread().getId();
+        int sink = 0;
+        for (int i = 0; i < WARMUP_IMAGES; i++) {
+            sink += detector.detectSensitiveData(PAGE).size();
+        }
+
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < MEASURED_IMAGES; i++) {
+            sink += detector.detectSensitiveData(PAGE).size();
+        }
+        long after = threads.getThreadAllocatedBytes(id);
+
+        assertTrue(sink > 0);
+        return after - before;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue("JVM has no per-thread allocation counter", bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue("JVM has no per-thread allocation counter", threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    private static String buildPage() {
+        StringBuilder page = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            page.append("Card 4111 1111 1111 1111 charged 120.00\n")
+                    .append("Contact 050-123-4567 or john.doe@example.com\n")
+                    .append("ID 039337423, SSN 123-45-6789\n")
+                    .append("Order #").append(1000 + i).append(" shipped to Tel Aviv\n");
+        }
+        return page.toString();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.screenscrubber;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Coalescing of MediaStore change bursts and once-per-image emission.
+ */
+public class MediaEventDeduplicatorTest {
+    private static final String URI = "content://media/external/images/media/42";
+
+    @Test
+    public void burstForOneUri_checkedAtOnceAndOnceAtWindowEnd() {
+        MediaEventDeduplicator dedup = new MediaEventDeduplicator(500, 16);
+
+        // The first event is checked straight away
+        assertTrue(dedup.onEvent(URI, 0));
+        assertFalse(dedup.onEvent(URI, 50));
+        assertFalse(dedup.onEvent(URI, 400));
+        // A different image is checked on its own
+        assertTrue(dedup.onEvent("content://media/external/images/media/43", 60));
+        // The two that followed share one more check
+        assertTrue(dedup.onWindowEnd(URI));
+
+        MediaEventDeduplicator.Stats stats = dedup.getStats();
+        assertEquals(4, stats.eventsReceived);
+        assertEquals(2, stats.eventsCoalesced);
+        assertEquals(3, stats.checks);
+    }
+
+    @Test
+    public void singleEvent_noCheckAtWindowEnd() {
+        MediaEventDeduplicator dedup = new MediaEventDeduplicator(500, 16);
+
+        assertTrue(dedup.onEvent(URI, 0));
+        assertFalse(dedup.onWindowEnd(URI));
+        assertEquals(1, dedup.getStats().checks);
+    }
+
+    @Test
+    public void eventAfterWindow_isCheckedAtOnce() {
+        MediaEventDeduplicator dedup = new MediaEventDeduplicator(500, 16);
+
+        assertTrue(dedup.onEvent(URI, 0));
+        dedup.onWindowEnd(URI);
+        assertTrue(dedup.onEvent(URI, 600));
+        assertEquals(2, dedup.getStats().checks);
+    }
+
+    @Test
+    public void overdueCheck_isRescheduled() {
+        MediaEventDeduplicator dedup = new MediaEventDeduplicator(500, 16);
+
+        assertTrue(dedup.onEvent(URI, 0));
+        // Its window end never ran (cancelled)
+        assertTrue(dedup.onEvent(URI, 5000));
+    }
+
+    @Test
+    public void sameImageAndContent_emittedOnce() {
+        MediaEventDeduplicator dedup = new MediaEventDeduplicator(500, 16);
+        String fingerprint = MediaEventDeduplicator.fingerprint(123_456, 1_700_000_000);
+
+        assertTrue(dedup.tryEmit(42, fingerprint));
+        // The update that follows the insert, then a scan finding the same image
+        assertFalse(dedup.tryEmit(42, fingerprint));
+        assertFalse(dedup.tryEmit(42, MediaEventDeduplicator.fingerprint(123_456, 1_700_000_000)));
+
+        MediaEventDeduplicator.Stats stats = dedup.getStats();
+        assertEquals(1, stats.jobsEmitted);
+        assertEquals(2, stats.duplicatesSuppressed);
+    }
+
+    @Test
+    public void changedContent_isEmittedAgain() {
+        MediaEventDeduplicator dedup = new MediaEventDeduplicator(500, 16);
+
+        assertTrue(dedup.tryEmit(42, MediaEventDeduplicator.fingerprint(1000, 1)));
+        assertTrue(dedup.tryEmit(42, MediaEventDeduplicator.fingerprint(2000, 5)));
+        assertTrue(dedup.tryEmit(43, MediaEventDeduplicator.fingerprint(1000, 1)));
+    }
+
+    @Test
+    public void isEmitted_doesNotRecord() {
+        MediaEventDeduplicator dedup = new MediaEventDeduplicator(500, 16);
+        String fingerprint = MediaEventDeduplicator.fingerprint(1000, 1);
+
+        // Checked while its file is still being written, never handed on
+        assertFalse(dedup.isEmitted(42, fingerprint));
+        assertFalse(dedup.isEmitted(42, fingerprint));
+        assertTrue(dedup.tryEmit(42, fingerprint));
+        assertTrue(dedup.isEmitted(42, fingerprint));
+    }
+
+    @Test
+    public void forgottenImage_isEmittedAgain() {
+        MediaEventDeduplicator dedup = new MediaEventDeduplicator(500, 16);
+        String fingerprint = MediaEventDeduplicator.fingerprint(1000, 1);
+
+        assertTrue(dedup.tryEmit(42, fingerprint));
+        dedup.forget(42);
+        assertTrue(dedup.tryEmit(42, fingerprint));
+        assertFalse(dedup.tryEmit(42, fingerprint));
+    }
+
+    @Test
+    public void memoryIsBounded_leastRecentlySeenForgottenFirst() {
+        MediaEventDeduplicator dedup = new MediaEventDeduplicator(500, 2);
+        String fingerprint = MediaEventDeduplicator.fingerprint(1000, 1);
+
+        dedup.tryEmit(1, fingerprint);
+        dedup.tryEmit(2, fingerprint);
+        // Seeing 1 again keeps it; 2 is now the eldest
+        assertFalse(dedup.tryEmit(1, fingerprint));
+        dedup.tryEmit(3, fingerprint);
+
+        assertFalse(dedup.tryEmit(1, fingerprint));
+        assertTrue(dedup.tryEmit(2, fingerprint));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyMemory() {
+        new MediaEventDeduplicator(500, 0);
+    }
+}
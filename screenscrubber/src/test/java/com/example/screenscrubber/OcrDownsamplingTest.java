@@ -0,0 +1,80 @@
+package com.example.screenscrubber;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * OCR runs on a subsampled bitmap; boxes scaled back through OcrLayout must land on the
+ * source pixels of the text.
+ */
+public class OcrDownsamplingTest {
+    private static final int MAX_LONG_EDGE = OcrInputBudget.DEFAULT_MAX_LONG_EDGE;
+    private static final int MIN_SHORT_EDGE = OcrInputBudget.DEFAULT_MIN_SHORT_EDGE;
+
+    @Test
+    public void sampleSize_fitsLongEdgeBudget() {
+        assertEquals(2, OcrInputBudget.sampleSizeFor(4000, 3000, MAX_LONG_EDGE, MIN_SHORT_EDGE));
+        assertEquals(4, OcrInputBudget.sampleSizeFor(8000, 6000, MAX_LONG_EDGE, MIN_SHORT_EDGE));
+        assertEquals(1, OcrInputBudget.sampleSizeFor(1080, 2400, MAX_LONG_EDGE, MIN_SHORT_EDGE));
+        assertEquals(1, OcrInputBudget.sampleSizeFor(1, 1, MAX_LONG_EDGE, MIN_SHORT_EDGE));
+    }
+
+    @Test
+    public void sampleSize_keepsShortEdgeReadable() {
+        // Long scrolling screenshot: halving would make text too small to read
+        assertEquals(1, OcrInputBudget.sampleSizeFor(1080, 6000, MAX_LONG_EDGE, MIN_SHORT_EDGE));
+        assertEquals(2, OcrInputBudget.sampleSizeFor(1440, 9000, MAX_LONG_EDGE, MIN_SHORT_EDGE));
+    }
+
+    @Test
+    public void rescaledBoxes_coverSourceText() {
+        Random random = new Random(21);
+        int[] sourceWidths = {4000, 4001, 8000, 3024};
+
+        for (int sourceWidth : sourceWidths) {
+            int sourceHeight = sourceWidth * 3 / 4;
+            int sample = OcrInputBudget.sampleSizeFor(sourceWidth, sourceHeight, MAX_LONG_EDGE, MIN_SHORT_EDGE);
+            int decodedWidth = sourceWidth / sample; // BitmapFactory rounds down
+            float ocrScale = sourceWidth / (float) decodedWidth;
+
+            for (int i = 0; i < 500; i++) {
+                int left = random.nextInt(sourceWidth - 400);
+                int top = random.nextInt(sourceHeight - 60);
+                int right = left + 40 + random.nextInt(360);
+                int bottom = top + 20 + random.nextInt(40);
+
+                // What OCR reports on the subsampled bitmap: the element's pixels, rounded outwards
+                OcrLayout layout = new OcrLayout("4111111111111111", ocrScale);
+                layout.addElement("4111111111111111",
+                        left / sample, top / sample, ceilDiv(right, sample), ceilDiv(bottom, sample));
+
+                String where = sourceWidth + " px source, box " + left + "," + top + "," + right + "," + bottom;
+                assertTrue(where, layout.getLeft(0) <= left && layout.getTop(0) <= top);
+                assertTrue(where, layout.getRight(0) >= right && layout.getBottom(0) >= bottom);
+
+                // Never more than one OCR pixel (plus rounding) outside the text
+                int slack = (int) Math.ceil(ocrScale) + 1;
+                assertTrue(where, left - layout.getLeft(0) <= slack && layout.getRight(0) - right <= slack);
+                assertTrue(where, top - layout.getTop(0) <= slack && layout.getBottom(0) - bottom <= slack);
+            }
+        }
+    }
+
+    @Test
+    public void rescaledProjection_staysInsideElement() {
+        // "ID:039337423" at 200..440 px in a 4000 px photo, OCR'd at half size
+        OcrLayout layout = new OcrLayout("ID:039337423", 2f);
+        layout.addElement("ID:039337423", 100, 40, 220, 60);
+
+        int[] box = new int[4];
+        assertTrue(layout.projectRange(0, 3, 12, box));
+        assertArrayEquals(new int[]{254, 80, 440, 120}, box);
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.screenscrubber;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class OcrLayoutTest {
+
+    @Test
+    public void elements_placedAtTheirOffsets() {
+        OcrLayout layout = layoutOf("  Card 4111 1111\nCall 050-1234567", "Card", "4111", "1111", null, "Call", "050-1234567");
+
+        assertEquals(2, layout.getTrimOffset());
+        assertEquals(5, layout.getElementCount());
+        assertEquals(2, layout.getLineCount());
+        assertEquals("1111", layout.getElementText(2));
+        assertEquals(12, layout.getElementStart(2));
+        assertEquals(1, layout.getElementLine(3));
+        assertEquals("Card 4111 1111", layout.getLineText(0));
+    }
+
+    @Test
+    public void rangeLookup_returnsCoveringElements() {
+        String text = "Card 4111 1111 1111 1111 paid";
+        OcrLayout layout = layoutOf(text, "Card", "4111", "1111", "1111", "1111", "paid");
+
+        // Detector offsets of "4111 1111 1111 1111"
+        int from = layout.firstElementEndingAfter(5);
+        int to = layout.firstElementStartingAt(24);
+        assertEquals(1, from);
+        assertEquals(5, to);
+
+        // A range inside the gap between two elements covers nothing
+        assertEquals(layout.firstElementEndingAfter(9), layout.firstElementStartingAt(10));
+    }
+
+    @Test
+    public void duplicateValues_resolveToTheirOwnElements() {
+        String text = "from 050-1234567 to 050-1234567";
+        OcrLayout layout = layoutOf(text, "from", "050-1234567", "to", "050-1234567");
+
+        int second = text.lastIndexOf("050-1234567");
+        int from = layout.firstElementEndingAfter(second);
+        assertEquals(3, from);
+        assertEquals(4, layout.firstElementStartingAt(second + 11));
+    }
+
+    @Test
+    public void projectRange_coversOnlyMatchedCharacters() {
+        // "ID:039337423" is one OCR element, 12 chars over 120 px; 3 px padding before the digits
+        OcrLayout layout = new OcrLayout("ID:039337423");
+        layout.addElement("ID:039337423", 100, 50, 220, 70);
+
+        int[] box = new int[4];
+        assertTrue(layout.projectRange(0, 3, 12, box));
+        assertArrayEquals(new int[]{127, 50, 220, 70}, box);
+
+        assertFalse(layout.projectRange(0, 12, 20, box));
+    }
+
+    @Test
+    public void projectRange_eachDuplicateGetsItsOwnBox() {
+        String text = "050-1234567 050-1234567";
+        OcrLayout layout = layoutOf(text, "050-1234567", "050-1234567");
+        SensitiveDataDetector.SensitiveMatch first = new SensitiveDataDetector.SensitiveMatch("ISRAELI_PHONE", "050-1234567", 0, 11);
+        SensitiveDataDetector.SensitiveMatch second = new SensitiveDataDetector.SensitiveMatch("ISRAELI_PHONE", "050-1234567", 12, 23);
+
+        int[] box = new int[4];
+        assertEquals(0, layout.firstElementEndingAfter(first.start));
+        assertTrue(layout.projectRange(0, first.start, first.end, box));
+        assertEquals(0, box[0]);
+
+        assertEquals(1, layout.firstElementEndingAfter(second.start));
+        assertTrue(layout.projectRange(1, second.start, second.end, box));
+        assertEquals(120, box[0]);
+        assertFalse(layout.projectRange(0, second.start, second.end, box));
+    }
+
+    @Test
+    public void unlocatableElement_isDropped() {
+        OcrLayout layout = new OcrLayout("abc def");
+        layout.beginLine();
+        assertTrue(layout.addElement("abc", 0, 0, 10, 10));
+        assertFalse(layout.addElement("xyz", 10, 0, 20, 10));
+        assertTrue(layout.addElement("def", 20, 0, 30, 10));
+        assertEquals(2, layout.getElementCount());
+    }
+
+    @Test
+    public void denseDocument_lookupsMatchLinearScan() {
+        Random random = new Random(9);
+        StringBuilder text = new StringBuilder();
+        String[] words = new String[2_500];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = Integer.toString(random.nextInt(100_000));
+            if (i > 0) text.append(i % 8 == 0 ? '\n' : ' ');
+            text.append(words[i]);
+        }
+
+        OcrLayout layout = new OcrLayout(text.toString());
+        for (int i = 0; i < words.length; i++) {
+            if (i % 8 == 0) layout.beginLine();
+            layout.addElement(words[i], i, i, i + 10, i + 10);
+        }
+        assertEquals(words.length, layout.getElementCount());
+
+        for (int q = 0; q < 2_000; q++) {
+            int start = random.nextInt(text.length());
+            int end = start + 1 + random.nextInt(30);
+
+            int expectedFrom = -1;
+            int expectedTo = -1;
+            for (int i = 0; i < layout.getElementCount(); i++) {
+                if (layout.getElementStart(i) < end && layout.getElementEnd(i) > start) {
+                    if (expectedFrom < 0) expectedFrom = i;
+                    expectedTo = i + 1;
+                }
+            }
+
+            int from = layout.firstElementEndingAfter(start);
+            int to = layout.firstElementStartingAt(end);
+            if (expectedFrom < 0) {
+                assertTrue(from >= to);
+            } else {
+                assertEquals(expectedFrom, from);
+                assertEquals(expectedTo, to);
+            }
+        }
+    }
+
+    // One line per null separator
+    private static OcrLayout layoutOf(String text, String... elements) {
+        OcrLayout layout = new OcrLayout(text);
+        layout.beginLine();
+        int x = 0;
+        for (String element : elements) {
+            if (element == null) {
+                layout.beginLine();
+                continue;
+            }
+            layout.addElement(element, x, 0, x + element.length() * 10, 20);
+            x += element.length() * 10 + 10;
+        }
+        return layout;
+    }
+}
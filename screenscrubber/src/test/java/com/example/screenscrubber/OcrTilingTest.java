@@ -0,0 +1,143 @@
+package com.example.screenscrubber;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tall screenshots are recognized in overlapping strips; merging must give every text line
+ * exactly once, whole, in source coordinates.
+ */
+public class OcrTilingTest {
+    private static final int WIDTH = 1080;
+    private static final int LINE_PITCH = 60;
+    private static final int LINE_HEIGHT = 40;
+
+    @Test
+    public void stripTops_coverImageWithOverlap() {
+        int[] heights = {2561, 6000, 20000, 20001};
+        for (int height : heights) {
+            int[] tops = OcrTiling.stripTops(height, 2560, 200);
+
+            assertEquals(0, tops[0]);
+            assertEquals(height, tops[tops.length - 1] + 2560);
+            for (int i = 1; i < tops.length; i++) {
+                int shared = tops[i - 1] + 2560 - tops[i];
+                assertTrue("height " + height + " strip " + i + " shares " + shared, shared >= 200 && shared < 2560);
+            }
+        }
+    }
+
+    @Test
+    public void stripTops_singleStripWhenItFits() {
+        assertArrayEquals(new int[]{0}, OcrTiling.stripTops(2560, 2560, 200));
+        assertArrayEquals(new int[]{0}, OcrTiling.stripTops(100, 2560, 200));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void stripTops_rejectsOverlapAsTallAsStrip() {
+        OcrTiling.stripTops(10000, 200, 200);
+    }
+
+    @Test
+    public void merge_keepsEveryLineOnceAndWhole() {
+        int height = 20000;
+        int stripHeight = 2560;
+        int[] tops = OcrTiling.stripTops(height, stripHeight, 200);
+
+        List<OcrText> strips = new ArrayList<>();
+        for (int top : tops) {
+            strips.add(recognizeStrip(height, top, top + stripHeight));
+        }
+        OcrText merged = OcrTiling.merge(strips, tops, stripHeight);
+
+        List<String> expected = new ArrayList<>();
+        for (int y = 0; y + LINE_HEIGHT <= height; y += LINE_PITCH) {
+            expected.add("line " + y);
+        }
+        List<String> actual = new ArrayList<>();
+        for (OcrText.Line line : merged.getLines()) {
+            actual.add(line.text);
+            assertEquals("line " + line.top, line.text);
+            assertEquals(LINE_HEIGHT, line.bottom - line.top);
+        }
+        assertEquals(expected, actual);
+        assertEquals(String.join("\n", expected), merged.getText());
+    }
+
+    @Test
+    public void merge_mergedTextProjectsToSourceRows() {
+        int height = 6000;
+        int stripHeight = 2560;
+        int[] tops = OcrTiling.stripTops(height, stripHeight, 200);
+
+        List<OcrText> strips = new ArrayList<>();
+        for (int top : tops) {
+            strips.add(recognizeStrip(height, top, top + stripHeight));
+        }
+        OcrLayout layout = OcrLayout.fromText(OcrTiling.merge(strips, tops, stripHeight), 1f);
+
+        // A line that only the last strip saw whole
+        int offset = layout.getText().indexOf("line 5400");
+        assertTrue(offset >= 0);
+        int element = layout.firstElementEndingAfter(offset);
+        assertEquals("line", layout.getElementText(element));
+        assertEquals(5400, layout.getTop(element));
+        assertEquals(5400 + LINE_HEIGHT, layout.getBottom(element));
+    }
+
+    @Test
+    public void merge_dropsLinesWithoutBoxes() {
+        OcrText.Line boxless = new OcrText.Line("ghost", Collections.singletonList(new OcrText.Element("ghost")));
+        OcrText.Line real = line(100);
+        OcrText strip = OcrText.fromLines(Arrays.asList(boxless, real));
+
+        OcrText merged = OcrTiling.merge(Collections.singletonList(strip), new int[]{0}, 2560);
+        assertEquals(1, merged.getLines().size());
+        assertEquals("line 100", merged.getText());
+    }
+
+    @Test
+    public void budget_tilesOnlyUnsubsamplableTallImages() {
+        OcrInputBudget budget = new OcrInputBudget(2560, 720, android.graphics.Bitmap.Config.RGB_565);
+        assertTrue(budget.needsTiling(1080, 20000));
+        assertFalse(budget.needsTiling(1080, 2400));
+        assertFalse(budget.needsTiling(20000, 1080));
+        // Halving brings it within the long edge budget
+        assertFalse(budget.needsTiling(1440, 5000));
+    }
+
+    /**
+     * What OCR of rows [top, bottom) returns: whole lines as they are, lines crossing an
+     * edge clipped to the strip with their text cut short
+     */
+    private static OcrText recognizeStrip(int height, int top, int bottom) {
+        List<OcrText.Line> lines = new ArrayList<>();
+        for (int y = 0; y + LINE_HEIGHT <= height; y += LINE_PITCH) {
+            int lineBottom = y + LINE_HEIGHT;
+            if (lineBottom <= top || y >= bottom) continue;
+
+            if (y >= top && lineBottom <= bottom) {
+                lines.add(line(y));
+            } else {
+                int clippedTop = Math.max(y, top);
+                int clippedBottom = Math.min(lineBottom, bottom);
+                lines.add(new OcrText.Line("lin", Collections.singletonList(
+                        new OcrText.Element("lin", 0, clippedTop, 90, clippedBottom))));
+            }
+        }
+        return OcrText.fromLines(lines);
+    }
+
+    private static OcrText.Line line(int y) {
+        String number = String.valueOf(y);
+        return new OcrText.Line("line " + number, Arrays.asList(
+                new OcrText.Element("line", 0, y, 120, y + LINE_HEIGHT),
+                new OcrText.Element(number, 140, y, 140 + 30 * number.length(), y + LINE_HEIGHT)));
+    }
+}
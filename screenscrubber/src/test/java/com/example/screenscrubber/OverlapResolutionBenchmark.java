@@ -0,0 +1,106 @@
+package com.example.screenscrubber;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Overlap resolution over 10k synthetic candidates (a long transaction list), compared with
+ * the original quadratic implementation. Only results are asserted - timings depend on the machine.
+ */
+public class OverlapResolutionBenchmark {
+    private static final int CANDIDATES = 10_000;
+    private static final String[] TYPES = {
+            "ISRAELI_ID", "ISRAELI_PHONE", "ISRAELI_BANK_ACCOUNT", "CREDIT_CARD", "US_SSN", "US_PHONE", "EMAIL"
+    };
+    private static final double[] CONFIDENCES = {0.7, 0.8, 0.85, 0.9, 0.95};
+
+    @Test
+    public void sweep_matchesQuadraticResolution() {
+        Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            List<SensitiveDataDetector.SensitiveMatch> candidates = syntheticCandidates(random, 1 + random.nextInt(300));
+            List<SensitiveDataDetector.SensitiveMatch> expected =
+                    new LegacySensitiveDataDetector().removeOverlappingMatches(new ArrayList<>(candidates));
+            List<SensitiveDataDetector.SensitiveMatch> actual =
+                    SensitiveDataDetector.removeOverlappingMatches(new ArrayList<>(candidates));
+            SensitiveDataDetectorParityTest.assertSameMatches("round " + round, expected, actual);
+        }
+    }
+
+    @Test
+    public void sweep_resolvesTenThousandCandidates() {
+        List<SensitiveDataDetector.SensitiveMatch> candidates = syntheticCandidates(new Random(11), CANDIDATES);
+
+        List<SensitiveDataDetector.SensitiveMatch> expected =
+                new LegacySensitiveDataDetector().removeOverlappingMatches(new ArrayList<>(candidates));
+        List<SensitiveDataDetector.SensitiveMatch> actual =
+                SensitiveDataDetector.removeOverlappingMatches(new ArrayList<>(candidates));
+
+        SensitiveDataDetectorParityTest.assertSameMatches("10k candidates", expected, actual);
+    }
+
+    @Test
+    public void intervalIndex_matchesLinearScan() {
+        Random random = new Random(5);
+        MatchIntervalIndex index = new MatchIntervalIndex();
+        List<int[]> intervals = new ArrayList<>();
+
+        for (int i = 0; i < 2_000; i++) {
+            int start = random.nextInt(20_000);
+            int end = start + 1 + random.nextInt(40);
+            index.add(start, end);
+            intervals.add(new int[]{start, end});
+
+            int queryStart = random.nextInt(20_000);
+            int queryEnd = queryStart + 1 + random.nextInt(40);
+            boolean expected = false;
+            for (int[] interval : intervals) {
+                if (queryStart < interval[1] && queryEnd > interval[0]) {
+                    expected = true;
+                    break;
+                }
+            }
+            assertEquals(expected, index.overlaps(queryStart, queryEnd));
+        }
+        assertEquals(2_000, index.size());
+    }
+
+    @Test
+    public void overlapsWithExisting_scalesToTenThousandMatches() {
+        DetectionContext context = new DetectionContext("");
+        for (int i = 0; i < CANDIDATES; i++) {
+            context.addMatch(new SensitiveDataDetector.SensitiveMatch("US_PHONE", "", i * 20, i * 20 + 12, 0.8));
+        }
+
+        int overlapping = 0;
+        for (int i = 0; i < CANDIDATES; i++) {
+            if (context.overlapsWithExisting("US_PHONE", i * 20 + 10, i * 20 + 15)) overlapping++;
+            if (context.overlapsWithExisting("US_PHONE", i * 20 + 13, i * 20 + 19)) overlapping++;
+        }
+
+        assertEquals(CANDIDATES, overlapping);
+        assertFalse(context.overlapsWithExisting("ISRAELI_PHONE", 0, 100));
+    }
+
+    // Clustered spans like OCR of a statement: several detectors firing on the same numbers
+    private static List<SensitiveDataDetector.SensitiveMatch> syntheticCandidates(Random random, int count) {
+        List<SensitiveDataDetector.SensitiveMatch> candidates = new ArrayList<>(count);
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(3) == 0) {
+                position += random.nextInt(30);
+            }
+            int start = position + random.nextInt(8);
+            int end = start + 1 + random.nextInt(19);
+            String type = TYPES[random.nextInt(TYPES.length)];
+            double confidence = CONFIDENCES[random.nextInt(CONFIDENCES.length)];
+            candidates.add(new SensitiveDataDetector.SensitiveMatch(type, type + i, start, end, confidence));
+        }
+        return candidates;
+    }
+}
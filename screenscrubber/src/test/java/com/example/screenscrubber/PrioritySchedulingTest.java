@@ -0,0 +1,225 @@
+package com.example.screenscrubber;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Order in which the processing pool starts waiting images: class, recency, urgency and aging,
+ * and the queue latency each class sees under a synthetic backlog.
+ */
+public class PrioritySchedulingTest {
+    private static final MediaObserver.ImageType SCREENSHOT = MediaObserver.ImageType.SCREENSHOT;
+    private static final MediaObserver.ImageType CAMERA = MediaObserver.ImageType.CAMERA_PHOTO;
+
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ProcessingPool pool;
+
+    private void newPool(int capacity, long agingStepMs) {
+        pool = new ProcessingPool(new ProcessingPoolConfig(1, capacity, 60_000,
+                ProcessingPoolConfig.OverflowPolicy.DROP_OLDEST, agingStepMs), new ProcessingPool.Listener() {
+            @Override
+            public void onDropped(String key) {
+            }
+
+            @Override
+            public void onTimedOut(String key) {
+            }
+        });
+    }
+
+    @After
+    public void shutDown() {
+        release.countDown();
+        if (pool != null) pool.shutdownNow();
+    }
+
+    @Test
+    public void backlog_screenshotsWaitLessThanCameraPhotos() throws Exception {
+        newPool(64, 60_000);
+        blockWorker();
+        long now = System.currentTimeMillis();
+
+        // Thirty old camera photos are already waiting when screenshots start arriving
+        for (int i = 0; i < 30; i++) {
+            pool.submit("photo" + i, priority(CAMERA, now - 3_600_000 + i), work("photo" + i, 5));
+        }
+        for (int i = 0; i < 5; i++) {
+            pool.submit("shot" + i, priority(SCREENSHOT, now), work("shot" + i, 5));
+        }
+
+        release.countDown();
+        awaitRan(35);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(ran.get(i).startsWith("shot"));
+        }
+        ProcessingPool.Stats stats = pool.getStats();
+        long screenshotWait = stats.avgWaitMillis.get(SCREENSHOT);
+        long cameraWait = stats.avgWaitMillis.get(CAMERA);
+        assertTrue("screenshots " + screenshotWait + "ms, photos " + cameraWait + "ms", screenshotWait < cameraWait);
+    }
+
+    @Test
+    public void sameClass_newestImageFirst() throws Exception {
+        newPool(8, ProcessingPoolConfig.DEFAULT_AGING_STEP_MS);
+        blockWorker();
+        long now = System.currentTimeMillis();
+
+        // A backlog arriving oldest first, as a scan walks it
+        pool.submit("3hAgo", priority(SCREENSHOT, now - 3 * 3_600_000L), work("3hAgo", 0));
+        pool.submit("2hAgo", priority(SCREENSHOT, now - 2 * 3_600_000L), work("2hAgo", 0));
+        pool.submit("1hAgo", priority(SCREENSHOT, now - 3_600_000L), work("1hAgo", 0));
+        pool.submit("1minAgo", priority(SCREENSHOT, now - 60_000L), work("1minAgo", 0));
+
+        release.countDown();
+        awaitRan(4);
+        assertEquals(Arrays.asList("1minAgo", "1hAgo", "2hAgo", "3hAgo"), ran);
+    }
+
+    @Test
+    public void scanPageInKeyOrder_startsNewestFirst() throws Exception {
+        newPool(16, ProcessingPoolConfig.DEFAULT_AGING_STEP_MS);
+        blockWorker();
+        long now = System.currentTimeMillis();
+
+        // An incremental scan hands images on in ascending key order: oldest added first
+        List<String> page = Arrays.asList("shotA", "photoB", "shotC", "photoD", "shotE");
+        for (int i = 0; i < page.size(); i++) {
+            String key = page.get(i);
+            MediaObserver.ImageType type = key.startsWith("shot") ? SCREENSHOT : CAMERA;
+            pool.submit(key, priority(type, now - (page.size() - i) * 3_600_000L), work(key, 0));
+        }
+
+        release.countDown();
+        awaitRan(5);
+        assertEquals(Arrays.asList("shotE", "shotC", "shotA", "photoD", "photoB"), ran);
+    }
+
+    @Test
+    public void sameClass_olderImageNotStarvedByNewArrivals() throws Exception {
+        newPool(256, 50);
+        blockWorker();
+        long now = System.currentTimeMillis();
+
+        pool.submit("old", priority(SCREENSHOT, now - 3_600_000L), work("old", 20));
+        release.countDown();
+
+        // Newer screenshots keep arriving faster than they are processed
+        for (int i = 0; i < 100; i++) {
+            pool.submit("new" + i, priority(SCREENSHOT, now + i), work("new" + i, 20));
+            Thread.sleep(5);
+        }
+
+        awaitRan(101);
+        int old = ran.indexOf("old");
+        // Recency alone would leave it until the stream ends; aging starts it after one step
+        assertTrue("old image started " + old + "th", old < 20);
+    }
+
+    @Test
+    public void aging_waitingPhotoOutranksNewScreenshot() throws Exception {
+        newPool(8, 50);
+        blockWorker();
+        long now = System.currentTimeMillis();
+
+        pool.submit("photo", priority(CAMERA, now), work("photo", 0));
+        Thread.sleep(120);
+        pool.submit("shot", priority(SCREENSHOT, System.currentTimeMillis()), work("shot", 0));
+
+        release.countDown();
+        awaitRan(2);
+        assertEquals(Arrays.asList("photo", "shot"), ran);
+    }
+
+    @Test
+    public void urgencyHint_movesImageUpAClass() throws Exception {
+        newPool(8, 60_000);
+        blockWorker();
+        long now = System.currentTimeMillis();
+
+        pool.submit("shot", priority(SCREENSHOT, now), work("shot", 0));
+        pool.submit("urgentPhoto", new JobPriority(CAMERA, now, JobPriority.Urgency.HIGH), work("urgentPhoto", 0));
+        pool.submit("urgentShot", new JobPriority(SCREENSHOT, now, JobPriority.Urgency.HIGH), work("urgentShot", 0));
+
+        release.countDown();
+        awaitRan(3);
+        // An urgent photo ranks with ordinary screenshots, first come first served
+        assertEquals(Arrays.asList("urgentShot", "shot", "urgentPhoto"), ran);
+    }
+
+    @Test
+    public void fullQueue_evictsFromLowestClass() throws Exception {
+        newPool(2, 60_000);
+        blockWorker();
+        long now = System.currentTimeMillis();
+
+        pool.submit("photo", priority(CAMERA, now), work("photo", 0));
+        pool.submit("shot", priority(SCREENSHOT, now), work("shot", 0));
+        pool.submit("shot2", priority(SCREENSHOT, now), work("shot2", 0));
+
+        release.countDown();
+        awaitRan(2);
+        assertEquals(Arrays.asList("shot", "shot2"), ran);
+    }
+
+    @Test
+    public void deadline_recencyNeverCrossesAClass() {
+        long step = 10_000;
+        JobPriority oldScreenshot = new JobPriority(SCREENSHOT, 1, JobPriority.Urgency.NORMAL);
+        JobPriority newPhoto = new JobPriority(CAMERA, 1_000_000, JobPriority.Urgency.NORMAL);
+
+        assertTrue(oldScreenshot.deadline(0, step) < newPhoto.deadline(0, step));
+        // Queued one step later, the photo's class is due with the screenshot's
+        assertEquals(oldScreenshot.deadline(step, step), newPhoto.deadline(0, step));
+    }
+
+    private static JobPriority priority(MediaObserver.ImageType type, long dateAddedMillis) {
+        return new JobPriority(type, dateAddedMillis, JobPriority.Urgency.NORMAL);
+    }
+
+    /**
+     * Occupy the single worker until release
+     */
+    private void blockWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        pool.submit("busy", () -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    private Runnable work(String key, long millis) {
+        return () -> {
+            ran.add(key);
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    private void awaitRan(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (ran.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        assertEquals(count, ran.size());
+    }
+}
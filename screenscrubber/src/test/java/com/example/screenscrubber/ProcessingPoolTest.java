@@ -0,0 +1,289 @@
+package com.example.screenscrubber;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Concurrency, backpressure and timeout rules of the image processing pool, with latches
+ * and uncompleted futures standing in for OCR work.
+ */
+public class ProcessingPoolTest {
+    private final List<String> droppedKeys = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> timedOutKeys = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ProcessingPool pool;
+
+    private ProcessingPool newPool(int workers, int capacity, long timeoutMs,
+                                   ProcessingPoolConfig.OverflowPolicy policy) {
+        pool = new ProcessingPool(new ProcessingPoolConfig(workers, capacity, timeoutMs, policy),
+                new ProcessingPool.Listener() {
+                    @Override
+                    public void onDropped(String key) {
+                        droppedKeys.add(key);
+                    }
+
+                    @Override
+                    public void onTimedOut(String key) {
+                        timedOutKeys.add(key);
+                    }
+                });
+        return pool;
+    }
+
+    @After
+    public void shutDown() {
+        release.countDown();
+        if (pool != null) pool.shutdownNow();
+    }
+
+    @Test
+    public void workersRunConcurrently() throws Exception {
+        newPool(3, 4, 10_000, ProcessingPoolConfig.OverflowPolicy.DROP_OLDEST);
+        CountDownLatch allRunning = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            pool.submit("image" + i, () -> {
+                allRunning.countDown();
+                awaitRelease();
+            });
+        }
+
+        assertTrue(allRunning.await(5, TimeUnit.SECONDS));
+        assertEquals(3, pool.getStats().active);
+    }
+
+    @Test
+    public void duplicateQueuedKey_isCoalesced() throws Exception {
+        newPool(1, 4, 10_000, ProcessingPoolConfig.OverflowPolicy.DROP_OLDEST);
+        blockWorker();
+
+        assertTrue(pool.submit("a", record("a")));
+        assertFalse(pool.submit("a", record("a")));
+        assertEquals(1, pool.getStats().coalesced);
+
+        release.countDown();
+        awaitRan(1);
+        assertEquals(Collections.singletonList("a"), ran);
+    }
+
+    @Test
+    public void fullQueue_dropOldestKeepsNewest() throws Exception {
+        newPool(1, 2, 10_000, ProcessingPoolConfig.OverflowPolicy.DROP_OLDEST);
+        blockWorker();
+
+        pool.submit("b", record("b"));
+        pool.submit("c", record("c"));
+        assertTrue(pool.submit("d", record("d")));
+        assertEquals(Collections.singletonList("b"), droppedKeys);
+
+        release.countDown();
+        awaitRan(2);
+        assertEquals(Arrays.asList("c", "d"), ran);
+        assertEquals(1, pool.getStats().dropped);
+    }
+
+    @Test
+    public void droppedKey_canBeQueuedAgain() throws Exception {
+        newPool(1, 1, 10_000, ProcessingPoolConfig.OverflowPolicy.DROP_OLDEST);
+        blockWorker();
+
+        pool.submit("b", record("b"));
+        pool.submit("c", record("c"));
+        assertTrue(pool.submit("b", record("b")));
+        assertEquals(Arrays.asList("b", "c"), droppedKeys);
+
+        release.countDown();
+        awaitRan(1);
+        assertEquals(Collections.singletonList("b"), ran);
+    }
+
+    @Test
+    public void fullQueue_dropNewestRefusesNewImage() throws Exception {
+        newPool(1, 2, 10_000, ProcessingPoolConfig.OverflowPolicy.DROP_NEWEST);
+        blockWorker();
+
+        assertTrue(pool.submit("b", record("b")));
+        assertTrue(pool.submit("c", record("c")));
+        assertFalse(pool.submit("d", record("d")));
+        assertEquals(Collections.singletonList("d"), droppedKeys);
+
+        release.countDown();
+        awaitRan(2);
+        assertEquals(Arrays.asList("b", "c"), ran);
+    }
+
+    @Test
+    public void stuckJob_isInterruptedByWatchdog() throws Exception {
+        newPool(1, 4, 100, ProcessingPoolConfig.OverflowPolicy.DROP_OLDEST);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicBoolean nextSawInterrupt = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(1);
+
+        pool.submit("stuck", () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        pool.submit("next", () -> {
+            nextSawInterrupt.set(Thread.currentThread().isInterrupted());
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(interrupted.get());
+        assertFalse(nextSawInterrupt.get());
+        assertEquals(1, pool.getStats().timedOut);
+        // The listener is told after the worker has been freed
+        long deadline = System.currentTimeMillis() + 5000;
+        while (timedOutKeys.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Collections.singletonList("stuck"), timedOutKeys);
+    }
+
+    @Test
+    public void timeoutCountsFromStartNotFromQueueing() throws Exception {
+        newPool(1, 4, 300, ProcessingPoolConfig.OverflowPolicy.DROP_OLDEST);
+        CountDownLatch done = new CountDownLatch(2);
+        // Each takes most of the timeout; the second waited for the first but must not time out
+        for (String key : new String[]{"first", "second"}) {
+            pool.submit(key, () -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(timedOutKeys.isEmpty());
+    }
+
+    @Test
+    public void asyncJob_holdsSlotUntilItsFutureCompletes() throws Exception {
+        newPool(1, 4, 10_000, ProcessingPoolConfig.OverflowPolicy.DROP_OLDEST);
+        CompletableFuture<Void> ocr = new CompletableFuture<>();
+        CountDownLatch secondStarted = new CountDownLatch(1);
+
+        // Returns at once, like a job that has handed its image to ML Kit
+        pool.submit("first", stages -> ocr);
+        pool.submit("second", stages -> {
+            secondStarted.countDown();
+            return CompletableFuture.completedFuture(null);
+        });
+
+        assertFalse(secondStarted.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, pool.getStats().active);
+        assertEquals(1, pool.getStats().queued);
+
+        ocr.complete(null);
+        assertTrue(secondStarted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void asyncJob_timeoutCoversWorkAfterStartReturns() throws Exception {
+        newPool(1, 4, 100, ProcessingPoolConfig.OverflowPolicy.DROP_OLDEST);
+        CompletableFuture<Void> ocr = new CompletableFuture<>();
+        CountDownLatch nextStarted = new CountDownLatch(1);
+
+        pool.submit("stuck", stages -> ocr);
+        pool.submit("next", stages -> {
+            nextStarted.countDown();
+            return CompletableFuture.completedFuture(null);
+        });
+
+        assertTrue(nextStarted.await(5, TimeUnit.SECONDS));
+        assertTrue(ocr.isCancelled());
+        assertEquals(1, pool.getStats().timedOut);
+    }
+
+    @Test
+    public void asyncJob_stagesRunOnPoolThreads() throws Exception {
+        newPool(2, 4, 10_000, ProcessingPoolConfig.OverflowPolicy.DROP_OLDEST);
+        CompletableFuture<String> stageThread = new CompletableFuture<>();
+
+        pool.submit("image", stages -> CompletableFuture
+                .supplyAsync(() -> Thread.currentThread().getName(), stages)
+                .thenAccept(stageThread::complete));
+
+        assertTrue(stageThread.get(5, TimeUnit.SECONDS).startsWith("ScreenScrubber-Processing-"));
+    }
+
+    @Test
+    public void shutdown_letsQueuedJobsFinish() throws Exception {
+        newPool(1, 4, 10_000, ProcessingPoolConfig.OverflowPolicy.DROP_OLDEST);
+        blockWorker();
+        pool.submit("a", record("a"));
+        pool.shutdown();
+        assertFalse(pool.submit("b", record("b")));
+
+        release.countDown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("a"), ran);
+    }
+
+    @Test
+    public void forDevice_boundedByCoresAndMemory() {
+        long gb = 1024L * 1024 * 1024;
+        assertEquals(ProcessingPoolConfig.MAX_WORKERS, ProcessingPoolConfig.forDevice(8, 2 * gb).workers);
+        assertEquals(1, ProcessingPoolConfig.forDevice(2, 2 * gb).workers);
+        assertEquals(1, ProcessingPoolConfig.forDevice(1, 2 * gb).workers);
+        // 256 MB heap: a quarter holds one job
+        assertEquals(1, ProcessingPoolConfig.forDevice(8, 256L * 1024 * 1024).workers);
+        assertEquals(2, ProcessingPoolConfig.forDevice(8, 384L * 1024 * 1024).workers);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void config_rejectsEmptyQueue() {
+        new ProcessingPoolConfig(2, 0, 1000, ProcessingPoolConfig.OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * Occupy the single worker until release
+     */
+    private void blockWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        pool.submit("busy", () -> {
+            started.countDown();
+            awaitRelease();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    private void awaitRan(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (ran.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // Anything still queued would have run by now
+        Thread.sleep(50);
+        assertEquals(count, ran.size());
+    }
+
+    private Runnable record(String key) {
+        return () -> ran.add(key);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
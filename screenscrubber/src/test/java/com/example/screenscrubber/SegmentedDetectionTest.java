@@ -0,0 +1,147 @@
+package com.example.screenscrubber;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tiled OCR text is scanned segment by segment in parallel and stitched at the seams; the
+ * result must be exactly what one scan of the whole text finds.
+ */
+public class SegmentedDetectionTest {
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "SegmentedDetectionTest");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final String[] LINES = {
+            "Card: 4111 1111 1111 1111 exp 12/27", "4111-1111-1111-1111", "5500 0000 0000 0004",
+            "ID 039337423", "ת.ז. 039-337-423", "Call +972 50 123 4567", "03-1234567", "SSN 123-45-6789",
+            "(212) 555-1234", "john.doe@example.com", "john.doe@gmail . com", "user@example", ".com",
+            "4111", "1111", "050-", "1234567", "  ", "", "no digits here", "12/05 ₪120.00", "+1", "415-555-2671",
+    };
+
+    @AfterClass
+    public static void shutDown() {
+        EXECUTOR.shutdownNow();
+    }
+
+    @Test
+    public void randomSegments_matchWholeTextScan() {
+        SensitiveDataDetector detector = new SensitiveDataDetector();
+        Random random = new Random(15);
+
+        for (int i = 0; i < 2000; i++) {
+            List<String> lines = new ArrayList<>();
+            int count = 2 + random.nextInt(20);
+            for (int l = 0; l < count; l++) {
+                lines.add(LINES[random.nextInt(LINES.length)]);
+            }
+            assertSegmentedMatchesWhole(detector, lines, randomSegmentLines(random, count));
+        }
+    }
+
+    @Test
+    public void numberSplitAcrossSeam_isStitched() {
+        SensitiveDataDetector detector = new SensitiveDataDetector();
+        List<String> lines = Arrays.asList("Transactions", "4111 1111", "1111 1111 total");
+
+        List<SensitiveDataDetector.SensitiveMatch> matches =
+                assertSegmentedMatchesWhole(detector, lines, new int[]{0, 2});
+        assertEquals(1, matches.size());
+        assertEquals("CREDIT_CARD", matches.get(0).type);
+        assertEquals("4111 1111\n1111 1111", matches.get(0).value.trim());
+    }
+
+    @Test
+    public void longSpanAtSeam_widensStitchWindow() {
+        SensitiveDataDetector detector = new SensitiveDataDetector();
+        StringBuilder digits = new StringBuilder();
+        for (int i = 0; i < SensitiveDataDetector.SEAM_MARGIN; i++) {
+            digits.append("1 ");
+        }
+        List<String> lines = Arrays.asList("x " + digits, digits + "4111111111111111", "end");
+
+        assertSegmentedMatchesWhole(detector, lines, new int[]{0, 1, 2});
+    }
+
+    @Test
+    public void leadingWhitespace_offsetsMatchTrimmedText() {
+        SensitiveDataDetector detector = new SensitiveDataDetector();
+        List<String> lines = Arrays.asList("   ", "  ID 039337423", "4111111111111111  ");
+
+        assertSegmentedMatchesWhole(detector, lines, new int[]{0, 1, 2});
+    }
+
+    @Test
+    public void singleSegmentOrNoExecutor_scansWholeText() {
+        SensitiveDataDetector detector = new SensitiveDataDetector();
+        String text = "Card 4111 1111\n1111 1111";
+
+        SensitiveDataDetectorParityTest.assertSameMatches(text, detector.detectSensitiveData(text),
+                detector.detectSensitiveData(text, new int[]{0}, EXECUTOR));
+        SensitiveDataDetectorParityTest.assertSameMatches(text, detector.detectSensitiveData(text),
+                detector.detectSensitiveData(text, new int[]{0, 15}, null));
+    }
+
+    @Test
+    public void tiledMerge_recordsWhereEachStripStarts() {
+        OcrText.Line first = line("alpha", 100);
+        OcrText.Line second = line("beta", 4500);
+        OcrText.Line third = line("gamma", 5000);
+        List<OcrText> strips = Arrays.asList(
+                OcrText.fromLines(Arrays.asList(first)),
+                OcrText.fromLines(new ArrayList<>()),
+                OcrText.fromLines(Arrays.asList(second, third)));
+
+        OcrText merged = OcrTiling.merge(strips, new int[]{0, 2360, 3440}, 2560);
+
+        assertEquals("alpha\nbeta\ngamma", merged.getText());
+        // The empty middle strip doesn't start a segment
+        assertArrayEquals(new int[]{0, 6}, merged.getSegmentStarts());
+        assertArrayEquals(new int[]{0}, OcrText.fromLines(Arrays.asList(first, second)).getSegmentStarts());
+    }
+
+    private static List<SensitiveDataDetector.SensitiveMatch> assertSegmentedMatchesWhole(
+            SensitiveDataDetector detector, List<String> lines, int[] segmentLines) {
+        String text = String.join("\n", lines);
+        int[] segmentStarts = new int[segmentLines.length];
+        for (int s = 0; s < segmentLines.length; s++) {
+            segmentStarts[s] = String.join("\n", lines.subList(0, segmentLines[s])).length() + (segmentLines[s] > 0 ? 1 : 0);
+        }
+
+        List<SensitiveDataDetector.SensitiveMatch> segmented = detector.detectSensitiveData(text, segmentStarts, EXECUTOR);
+        SensitiveDataDetectorParityTest.assertSameMatches(text + " " + Arrays.toString(segmentStarts),
+                detector.detectSensitiveData(text), segmented);
+        return segmented;
+    }
+
+    /**
+     * Ascending line indexes starting with 0
+     */
+    private static int[] randomSegmentLines(Random random, int lineCount) {
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        for (int l = 1; l < lineCount; l++) {
+            if (random.nextInt(3) == 0) starts.add(l);
+        }
+        int[] result = new int[starts.size()];
+        for (int s = 0; s < result.length; s++) {
+            result[s] = starts.get(s);
+        }
+        return result;
+    }
+
+    private static OcrText.Line line(String text, int top) {
+        return new OcrText.Line(text, Arrays.asList(new OcrText.Element(text, 0, top, 100, top + 40)));
+    }
+}
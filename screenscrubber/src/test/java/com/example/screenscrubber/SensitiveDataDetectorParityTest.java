@@ -0,0 +1,166 @@
+package com.example.screenscrubber;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * The single-pass scanner must return exactly what the original seven-pass regex detector returned:
+ * same types, values, offsets, confidences and order.
+ * EMAIL is the one deliberate difference: offsets now cover the email as it appears in the text
+ * (the original searched for the normalized value and could point at another occurrence or fall
+ * back to 0), so every occurrence is reported. Emails are compared by value and checked in place.
+ */
+public class SensitiveDataDetectorParityTest {
+
+    private static final String[] CORPUS = {
+            "Card: 4111 1111 1111 1111 exp 12/27",
+            "4111-1111-1111-1111\n5500 0000 0000 0004",
+            "Visa 4012888888881881 and MC 5105105105105100",
+            "Israeli ID 123456782 and 039337423",
+            "ת.ז. 039-337-423 טלפון 050-1234567",
+            "Call +972 50 123 4567 or 03-1234567 or 02 123 4567",
+            "Bank account 12-345-678901, branch 10-123-456789",
+            "SSN 123-45-6789, another 987 65 4320",
+            "US phone (212) 555-1234, +1 415-555-2671, 212.555.1234, 2125551234",
+            "Email john.doe@example.com or jane_doe@mail.co.il",
+            "OCR spacing: john.doe@gmail . com and a . b@test . org",
+            "user@example .com user2 @example.com x@y.z",
+            "Transactions:\n12/05 4580 1234 5678 9010 ₪120.00\n13/05 ref 8765432109 $45.10",
+            "no digits at all here, just text",
+            "short 12345 numbers 678 and 90",
+            "A123456789 B 1234567890C 9876543210",
+            "Mixed: 050.123.4567 and (03) 123-4567 and +972-3-123-4567",
+            "repeated 1111111111 and 2222222222 and 0000000000",
+            "email@@double.com and @nouser.com and user@.com",
+            "line one 4111\n1111\n1111\n1111 end",
+            "   leading and trailing spaces 4111111111111111   ",
+            "contact: sales@company.com, support@company.com; billing@company.com",
+            "dup 4111111111111111 dup 4111111111111111",
+            "weird john . doe . smith@mail . example . com end",
+            "+1 (800) 555-0199 ext 12 / 1-800-555-0199",
+            "IL +972 2 123 4567 and 972501234567 and 0501234567",
+    };
+
+    private static final String[] FRAGMENTS = {
+            "4111", "1111", "5500", "0000", "0004", "4012", "8888", "1881", "039", "337", "423",
+            "050", "03", "02", "123", "4567", "+972", "+1", "(212)", "555", "1234", "12", "345",
+            "678901", "6789", "45", "2125551234", "8765432109", "123456782", "039337423",
+            "john", "doe", "gmail", "example", "com", "co", "il", "@", ".", " . ", "_", "%", "-",
+            " ", "  ", "\n", "\t", ",", ";", ":", "/", "(", ")", "₪", "$", "abc", "Card", "ID",
+    };
+
+    @Test
+    public void corpus_matchesLegacyDetector() {
+        SensitiveDataDetector detector = new SensitiveDataDetector();
+        LegacySensitiveDataDetector legacy = new LegacySensitiveDataDetector();
+
+        for (String text : CORPUS) {
+            assertSameDetections(text, legacy.detectSensitiveData(text), detector.detectSensitiveData(text));
+        }
+    }
+
+    @Test
+    public void randomFragments_matchLegacyDetector() {
+        SensitiveDataDetector detector = new SensitiveDataDetector();
+        LegacySensitiveDataDetector legacy = new LegacySensitiveDataDetector();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder text = new StringBuilder();
+            int parts = 1 + random.nextInt(30);
+            for (int p = 0; p < parts; p++) {
+                text.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            String sample = text.toString();
+            assertSameDetections(sample, legacy.detectSensitiveData(sample), detector.detectSensitiveData(sample));
+        }
+    }
+
+    @Test
+    public void randomCharacters_matchLegacyDetector() {
+        SensitiveDataDetector detector = new SensitiveDataDetector();
+        LegacySensitiveDataDetector legacy = new LegacySensitiveDataDetector();
+        Random random = new Random(7);
+        String alphabet = "0123456789012345678901234567890123456789 -.()+@_%abcxyzCOM\n\t,";
+
+        for (int i = 0; i < 5000; i++) {
+            char[] chars = new char[random.nextInt(120)];
+            for (int c = 0; c < chars.length; c++) {
+                chars[c] = alphabet.charAt(random.nextInt(alphabet.length()));
+            }
+            String sample = new String(chars);
+            assertSameDetections(sample, legacy.detectSensitiveData(sample), detector.detectSensitiveData(sample));
+        }
+    }
+
+    @Test
+    public void emptyInput_returnsNoMatches() {
+        SensitiveDataDetector detector = new SensitiveDataDetector();
+        assertTrue(detector.detectSensitiveData(null).isEmpty());
+        assertTrue(detector.detectSensitiveData("").isEmpty());
+        assertTrue(detector.detectSensitiveData("   \n ").isEmpty());
+    }
+
+    @Test
+    public void duplicateEmails_reportedAtEachOccurrence() {
+        String text = "cc john@example.com, then john@example.com and mary@mail . example . com";
+        List<SensitiveDataDetector.SensitiveMatch> matches = new SensitiveDataDetector().detectSensitiveData(text);
+
+        assertEquals(3, matches.size());
+        assertEquals(3, matches.get(0).start);
+        assertEquals(26, matches.get(1).start);
+        assertEquals("mary@mail.example.com", matches.get(2).value);
+        assertEquals(text.length(), matches.get(2).end);
+    }
+
+    private static void assertSameDetections(String text,
+                                             List<SensitiveDataDetector.SensitiveMatch> legacy,
+                                             List<SensitiveDataDetector.SensitiveMatch> actual) {
+        assertSameMatches(text, withoutEmails(legacy), withoutEmails(actual));
+
+        Set<String> legacyEmails = new HashSet<>();
+        for (SensitiveDataDetector.SensitiveMatch match : legacy) {
+            if (match.type.equals("EMAIL")) legacyEmails.add(match.value);
+        }
+        Set<String> actualEmails = new HashSet<>();
+        String trimmed = text.trim();
+        for (SensitiveDataDetector.SensitiveMatch match : actual) {
+            if (!match.type.equals("EMAIL")) continue;
+            actualEmails.add(match.value);
+            assertEquals("email span in '" + text + "'", match.value,
+                    trimmed.substring(match.start, match.end).replaceAll("\\s+", ""));
+        }
+        assertEquals("emails in '" + text + "'", legacyEmails, actualEmails);
+    }
+
+    private static List<SensitiveDataDetector.SensitiveMatch> withoutEmails(List<SensitiveDataDetector.SensitiveMatch> matches) {
+        List<SensitiveDataDetector.SensitiveMatch> result = new ArrayList<>();
+        for (SensitiveDataDetector.SensitiveMatch match : matches) {
+            if (!match.type.equals("EMAIL")) result.add(match);
+        }
+        return result;
+    }
+
+    static void assertSameMatches(String text,
+                                  List<SensitiveDataDetector.SensitiveMatch> expected,
+                                  List<SensitiveDataDetector.SensitiveMatch> actual) {
+        assertEquals("match count for '" + text + "'", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            SensitiveDataDetector.SensitiveMatch e = expected.get(i);
+            SensitiveDataDetector.SensitiveMatch a = actual.get(i);
+            String where = "match " + i + " for '" + text + "'";
+            assertEquals(where, e.type, a.type);
+            assertEquals(where, e.value, a.value);
+            assertEquals(where, e.start, a.start);
+            assertEquals(where, e.end, a.end);
+            assertEquals(where, e.confidence, a.confidence, 0.0);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.screenscrubber;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class SensitiveDetectorRegistryTest {
+
+    /**
+     * Internal account format the way a host app would add one: a pattern plus a validator
+     */
+    private static class AccountNumberDetector extends RegexTypeDetector {
+        AccountNumberDetector() {
+            super("INTERNAL_ACCOUNT", Pattern.compile("\\b77\\d{6}\\b"), 8, 0.99);
+        }
+
+        @Override
+        protected boolean accept(DetectionContext context, int start, int end) {
+            return context.getText().charAt(end - 1) != '0';
+        }
+    }
+
+    /**
+     * A format with letters in it: asks for ALPHANUMERIC spans and checks the IBAN mod-97 sum
+     */
+    private static class IbanDetector extends RegexTypeDetector {
+        IbanDetector() {
+            super("IBAN", Pattern.compile("\\b[A-Z]{2}\\d{2}(?: ?[A-Z0-9]{4}){2,7}(?: ?[A-Z0-9]{1,3})?\\b"), 12, 0.95);
+        }
+
+        @Override
+        public CandidateKind getCandidateKind() {
+            return CandidateKind.ALPHANUMERIC;
+        }
+
+        @Override
+        protected boolean accept(DetectionContext context, int start, int end) {
+            String iban = context.getText().substring(start, end).replace(" ", "");
+            String rearranged = iban.substring(4) + iban.substring(0, 4);
+            int remainder = 0;
+            for (int i = 0; i < rearranged.length(); i++) {
+                int value = Character.getNumericValue(rearranged.charAt(i));
+                remainder = (value > 9 ? remainder * 100 : remainder * 10) + value;
+                remainder %= 97;
+            }
+            return remainder == 1;
+        }
+    }
+
+    @Test
+    public void builtIns_compileToDefaultPlan() {
+        DetectionPlan plan = SensitiveDetectorRegistry.withBuiltIns().compile();
+        assertEquals(DetectionPlan.builtIns().getDetectorCount(), plan.getDetectorCount());
+    }
+
+    @Test
+    public void customDetector_runsAlongsideBuiltIns() {
+        DetectionPlan plan = SensitiveDetectorRegistry.withBuiltIns()
+                .register(new AccountNumberDetector())
+                .compile();
+        SensitiveDataDetector detector = new SensitiveDataDetector(plan);
+
+        List<SensitiveDataDetector.SensitiveMatch> matches =
+                detector.detectSensitiveData("acct 77123456 card 4111 1111 1111 1111 rejected 77123450");
+
+        assertEquals(2, matches.size());
+        assertEquals("INTERNAL_ACCOUNT", matches.get(0).type);
+        assertEquals("77123456", matches.get(0).value);
+        assertEquals("CREDIT_CARD", matches.get(1).type);
+    }
+
+    @Test
+    public void customDetector_sharesOverlapResolution() {
+        DetectionPlan plan = SensitiveDetectorRegistry.withBuiltIns()
+                .register(new RegexTypeDetector("HIGH_CONFIDENCE_ID", Pattern.compile("\\b\\d{9}\\b"), 9, 0.99) {
+                    @Override
+                    protected boolean accept(DetectionContext context, int start, int end) {
+                        return true;
+                    }
+                })
+                .compile();
+
+        List<SensitiveDataDetector.SensitiveMatch> matches =
+                new SensitiveDataDetector(plan).detectSensitiveData("id 039337423");
+
+        // Both detectors match the same span - only the higher confidence one survives
+        assertEquals(1, matches.size());
+        assertEquals("HIGH_CONFIDENCE_ID", matches.get(0).type);
+    }
+
+    @Test
+    public void alphanumericDetector_seesTokensWithLetters() {
+        DetectionPlan plan = SensitiveDetectorRegistry.withBuiltIns()
+                .register(new IbanDetector())
+                .compile();
+        SensitiveDataDetector detector = new SensitiveDataDetector(plan);
+
+        List<SensitiveDataDetector.SensitiveMatch> matches =
+                detector.detectSensitiveData("Please wire it to IBAN DE89 3704 0044 0532 0130 00, thanks");
+
+        assertEquals(1, matches.size());
+        assertEquals("IBAN", matches.get(0).type);
+        assertEquals("DE89 3704 0044 0532 0130 00", matches.get(0).value);
+        // One digit off fails the checksum
+        assertTrue(detector.detectSensitiveData("IBAN DE89 3704 0044 0532 0130 01").isEmpty());
+    }
+
+    @Test
+    public void alphanumericSpans_trimmedToWordsWithDigits() {
+        CandidateScanner.Candidates candidates = CandidateScanner.scan("IBAN: DE89 3704 0044, ref A1-B2/C3 ok");
+
+        assertEquals(2, candidates.alphanumericCount);
+        assertEquals("DE89 3704 0044", candidates.text.substring(candidates.alphanumericStart[0], candidates.alphanumericEnd[0]));
+        assertEquals(10, candidates.alphanumericDigits[0]);
+        assertEquals("A1-B2/C3", candidates.text.substring(candidates.alphanumericStart[1], candidates.alphanumericEnd[1]));
+    }
+
+    @Test
+    public void emptyRegistry_detectsNothing() {
+        SensitiveDataDetector detector = new SensitiveDataDetector(new SensitiveDetectorRegistry().compile());
+        assertTrue(detector.detectSensitiveData("4111 1111 1111 1111 john@example.com").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void register_rejectsNull() {
+        new SensitiveDetectorRegistry().register(null);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.screenscrubber;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The bucketing, LRU and budget rules behind BitmapPool, with byte arrays standing in for bitmaps.
+ */
+public class SizeBucketedPoolTest {
+    private final List<byte[]> evicted = new ArrayList<>();
+
+    private SizeBucketedPool<byte[]> newPool(long maxBytes) {
+        return new SizeBucketedPool<>(maxBytes, item -> item.length, evicted::add);
+    }
+
+    @Test
+    public void acquire_reusesPooledItemThatIsLargeEnough() {
+        SizeBucketedPool<byte[]> pool = newPool(10_000);
+        byte[] buffer = new byte[1000];
+        assertTrue(pool.release(buffer));
+
+        assertNull(pool.acquire(1001));
+        assertSame(buffer, pool.acquire(900));
+        assertNull(pool.acquire(900));
+
+        assertEquals(1, pool.getHits());
+        assertEquals(2, pool.getMisses());
+        assertEquals(0, pool.getCurrentBytes());
+    }
+
+    @Test
+    public void acquire_skipsItemsFarLargerThanNeeded() {
+        SizeBucketedPool<byte[]> pool = newPool(1_000_000);
+        byte[] large = new byte[100_000];
+        pool.release(large);
+
+        // A small request must not pin a huge buffer
+        assertNull(pool.acquire(1000));
+        assertSame(large, pool.acquire(60_000));
+    }
+
+    @Test
+    public void acquire_prefersMostRecentlyPooled() {
+        SizeBucketedPool<byte[]> pool = newPool(10_000);
+        byte[] older = new byte[1000];
+        byte[] newer = new byte[1000];
+        pool.release(older);
+        pool.release(newer);
+
+        assertSame(newer, pool.acquire(1000));
+        assertSame(older, pool.acquire(1000));
+    }
+
+    @Test
+    public void release_evictsLeastRecentlyPooledPastBudget() {
+        SizeBucketedPool<byte[]> pool = newPool(2500);
+        byte[] first = new byte[1000];
+        byte[] second = new byte[1000];
+        byte[] third = new byte[1000];
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+
+        assertEquals(1, evicted.size());
+        assertSame(first, evicted.get(0));
+        assertEquals(2, pool.getCount());
+        assertEquals(2000, pool.getCurrentBytes());
+        assertEquals(1, pool.getEvictions());
+    }
+
+    @Test
+    public void release_rejectsItemOverBudgetAndDuplicates() {
+        SizeBucketedPool<byte[]> pool = newPool(1000);
+        byte[] oversized = new byte[2000];
+        assertFalse(pool.release(oversized));
+        assertSame(oversized, evicted.get(0));
+
+        byte[] buffer = new byte[500];
+        assertTrue(pool.release(buffer));
+        assertFalse(pool.release(buffer));
+        assertEquals(500, pool.getCurrentBytes());
+    }
+
+    @Test
+    public void zeroBudget_disablesPooling() {
+        SizeBucketedPool<byte[]> pool = newPool(0);
+        byte[] buffer = new byte[10];
+        assertFalse(pool.release(buffer));
+        assertNull(pool.acquire(10));
+        assertEquals(0, pool.getCount());
+    }
+
+    @Test
+    public void trimToSize_dropsOldestFirst() {
+        SizeBucketedPool<byte[]> pool = newPool(10_000);
+        for (int i = 0; i < 8; i++) {
+            pool.release(new byte[1000]);
+        }
+
+        pool.trimToSize(pool.getMaxBytes() / 2);
+        assertEquals(5000, pool.getCurrentBytes());
+        assertEquals(3, evicted.size());
+
+        pool.clear();
+        assertEquals(0, pool.getCount());
+        assertEquals(8, evicted.size());
+    }
+
+    @Test
+    public void bucketFor_roundsUpToPowerOfTwo() {
+        assertEquals(1, SizeBucketedPool.bucketFor(1));
+        assertEquals(1024, SizeBucketedPool.bucketFor(1000));
+        assertEquals(1024, SizeBucketedPool.bucketFor(1024));
+        assertEquals(2048, SizeBucketedPool.bucketFor(1025));
+        assertEquals(Integer.MAX_VALUE, SizeBucketedPool.bucketFor(Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.screenscrubber;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Ordering, concurrency limits and overlap of the staged pipeline, with sleeping fake stages
+ * standing in for OCR, censoring and encoding.
+ */
+public class StagedPipelineTest {
+    private final List<StagedPipeline<Item>> pipelines = new ArrayList<>();
+
+    @After
+    public void shutDown() {
+        for (StagedPipeline<Item> pipeline : pipelines) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    public void itemsPassThroughEveryStageInOrder() throws Exception {
+        StagedPipeline<Item> pipeline = pipeline(
+                record("ingest"), record("ocr"), record("detect"), record("censor"), record("persist"));
+
+        Item item = pipeline.submit(new Item(1)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList("ingest", "ocr", "detect", "censor", "persist"), item.visited);
+        for (PipelineStage.Stats stats : pipeline.getStats()) {
+            assertEquals(1, stats.completed);
+        }
+    }
+
+    @Test
+    public void stageNeverExceedsItsConcurrency() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        StagedPipeline<Item> pipeline = pipeline(PipelineStage.of("ocr", 2, item -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(30);
+            running.decrementAndGet();
+            return item;
+        }));
+
+        awaitAll(submitAll(pipeline, 8));
+
+        assertEquals(2, maxRunning.get());
+        PipelineStage.Stats stats = pipeline.getStats().get(0);
+        assertEquals(8, stats.completed);
+        assertTrue(stats.maxQueued >= 1);
+        assertEquals(0, stats.queued);
+    }
+
+    @Test
+    public void burst_stagesOverlap() throws Exception {
+        // Three stages of 60ms each: run one after another, 6 items would take 6 * 180ms;
+        // pipelined they take about (6 + 2) * 60ms
+        StagedPipeline<Item> pipeline = pipeline(sleep("ocr", 60), sleep("censor", 60), sleep("persist", 60));
+
+        long start = System.nanoTime();
+        awaitAll(submitAll(pipeline, 6));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("Took " + elapsedMs + "ms", elapsedMs < 6 * 180 * 3 / 4);
+    }
+
+    @Test
+    public void finishedItem_skipsRemainingStages() throws Exception {
+        StagedPipeline<Item> pipeline = new StagedPipeline<>(Arrays.asList(
+                PipelineStage.of("detect", 1, item -> {
+                    item.visited.add("detect");
+                    item.done = true;
+                    return item;
+                }),
+                record("censor")), item -> item.done);
+        pipelines.add(pipeline);
+
+        Item item = pipeline.submit(new Item(1)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Collections.singletonList("detect"), item.visited);
+        assertEquals(0, pipeline.getStats().get(1).submitted);
+    }
+
+    @Test
+    public void failure_endsItemWithTheStagesException() throws Exception {
+        StagedPipeline<Item> pipeline = pipeline(
+                PipelineStage.of("ocr", 1, item -> {
+                    throw new IllegalStateException("no text");
+                }),
+                record("censor"));
+
+        try {
+            pipeline.submit(new Item(1)).get(5, TimeUnit.SECONDS);
+            fail("Expected the stage failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(1, pipeline.getStats().get(0).failed);
+        assertEquals(0, pipeline.getStats().get(1).submitted);
+    }
+
+    @Test
+    public void asyncStage_holdsSlotUntilItsFutureCompletes() throws Exception {
+        CompletableFuture<Item> recognition = new CompletableFuture<>();
+        AtomicInteger started = new AtomicInteger();
+        StagedPipeline<Item> pipeline = pipeline(PipelineStage.async("ocr", 1, (item, executor) -> {
+            started.incrementAndGet();
+            return item.id == 1 ? recognition : CompletableFuture.completedFuture(item);
+        }));
+
+        CompletableFuture<Item> first = pipeline.submit(new Item(1));
+        CompletableFuture<Item> second = pipeline.submit(new Item(2));
+
+        Thread.sleep(100);
+        assertEquals(1, started.get());
+        assertEquals(1, pipeline.getStats().get(0).queued);
+
+        recognition.complete(new Item(1));
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(2, started.get());
+    }
+
+    @Test
+    public void shutdownStage_refusesNewItems() throws Exception {
+        StagedPipeline<Item> pipeline = pipeline(record("ocr"));
+        pipeline.shutdown();
+
+        try {
+            pipeline.submit(new Item(1)).get(5, TimeUnit.SECONDS);
+            fail("Expected rejection");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void stage_rejectsZeroConcurrency() {
+        PipelineStage.of("ocr", 0, item -> item);
+    }
+
+    private static final class Item {
+        final int id;
+        final List<String> visited = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean done;
+
+        Item(int id) {
+            this.id = id;
+        }
+    }
+
+    @SafeVarargs
+    private final StagedPipeline<Item> pipeline(PipelineStage<Item>... stages) {
+        StagedPipeline<Item> pipeline = new StagedPipeline<>(Arrays.asList(stages), item -> item.done);
+        pipelines.add(pipeline);
+        return pipeline;
+    }
+
+    private static PipelineStage<Item> record(String name) {
+        return PipelineStage.of(name, 1, item -> {
+            item.visited.add(name);
+            return item;
+        });
+    }
+
+    private static PipelineStage<Item> sleep(String name, long millis) {
+        return PipelineStage.of(name, 1, item -> {
+            Thread.sleep(millis);
+            return item;
+        });
+    }
+
+    private static List<CompletableFuture<Item>> submitAll(StagedPipeline<Item> pipeline, int count) {
+        List<CompletableFuture<Item>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(pipeline.submit(new Item(i)));
+        }
+        return futures;
+    }
+
+    private static void awaitAll(List<CompletableFuture<Item>> futures) throws Exception {
+        for (CompletableFuture<Item> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+    }
+}